@@ -0,0 +1,34 @@
+package com.idear.devices.card.cardkit.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar, runs JMH with the GC profiler so every benchmark reports its
+ * allocation rate and bytes allocated per operation ({@code gc.alloc.rate.norm}).
+ *
+ * <p>
+ * The JMH command line options are accepted, e.g. a benchmark regex and a JSON result file to
+ * compare two releases:
+ * </p>
+ * <pre>
+ * java -jar target/benchmarks.jar FileCodec -rf json -rff result.json
+ * </pre>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+}
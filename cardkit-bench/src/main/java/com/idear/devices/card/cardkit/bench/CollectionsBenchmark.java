@@ -0,0 +1,95 @@
+package com.idear.devices.card.cardkit.bench;
+
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.*;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Contract;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Contracts;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Event;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Events;
+import com.idear.devices.card.cardkit.core.datamodel.date.ReverseDate;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event and contract lists as handled on every tap: the new event appended to the three events of the
+ * card and the first valid contract of four, the first two not accepted.
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CollectionsBenchmark {
+
+    private static final int EVENTS = 3;
+    private static final int CONTRACTS = 4;
+
+    private Events events;
+    private Event[] newEvents;
+    private int next;
+
+    private Contracts contracts;
+    private int today;
+
+    @Setup
+    public void setup() {
+        events = new Events();
+        for (int i = 0; i < EVENTS; i++)
+            events.add(event(i));
+
+        // distinct events appended in turn, the transaction numbers keep increasing
+        newEvents = new Event[16];
+        for (int i = 0; i < newEvents.length; i++)
+            newEvents[i] = event(EVENTS + i);
+
+        contracts = new Contracts();
+        for (int i = 1; i <= CONTRACTS; i++) {
+            Contract contract = Contract.buildContract(i, NetworkCode.CDMX.getValue(),
+                    Provider.METROBUS_L1.getValue(), Modality.MONOMODAL.getValue(), Tariff.SEASON_PASS.getValue(),
+                    RestrictTime.WITHOUT_RESTRICTION.getValue(), "AABBCCDD");
+            contract.setStartDate(ReverseDate.fromLocalDate(LocalDate.now().minusDays(1)));
+            if (i <= 2)
+                contract.getStatus().setValue(ContractStatus.CONTRACT_SUSPENDED);
+            contracts.add(contract);
+        }
+        today = (int) LocalDate.now().toEpochDay();
+    }
+
+    private static Event event(int transactionNumber) {
+        return Event.builEvent(TransactionType.GENERAL_DEBIT.getValue(), NetworkCode.CDMX.getValue(),
+                Provider.METROBUS_L1.getValue(), 1, 1, transactionNumber, 0x1234, 750);
+    }
+
+    @Benchmark
+    public Events eventsAppend() {
+        Event event = newEvents[next++ & (newEvents.length - 1)];
+        event.setTransactionNumber(events.getNextTransactionNumber());
+        events.append(event);
+        return events;
+    }
+
+    @Benchmark
+    public Contract firstContractValid() {
+        return contracts.getFirstContractValid();
+    }
+
+    @Benchmark
+    public Contract firstContractValidOnDay() {
+        return contracts.getFirstContractValid(today);
+    }
+
+    /**
+     * Lookup after a modification of the list, the index is built again.
+     */
+    @Benchmark
+    public Contract firstContractValidReindexed() {
+        contracts.reindex();
+        return contracts.getFirstContractValid();
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.idear.devices.card.cardkit.bench;
+
+import com.idear.devices.card.cardkit.core.datamodel.date.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calypso date types: decoding of the card value, conversion to {@code java.time} and encoding.
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DateBenchmark {
+
+    private final byte[] out = new byte[8];
+
+    private int days;
+    private int seconds;
+    private int minutes;
+    private int longDate;
+
+    private CompactDate compactDate;
+    private ReverseDate reverseDate;
+    private DateTimeReal dateTimeReal;
+    private CompactTime compactTime;
+    private LongDate birthDate;
+
+    @Setup
+    public void setup() {
+        compactDate = CompactDate.now();
+        reverseDate = ReverseDate.now();
+        dateTimeReal = DateTimeReal.now();
+        compactTime = CompactTime.now();
+        birthDate = LongDate.fromValue(19900521);
+
+        days = compactDate.getValue();
+        seconds = dateTimeReal.getValue();
+        minutes = compactTime.getValue();
+        longDate = 19900521;
+    }
+
+    @Benchmark
+    public void compactDateDecode(Blackhole blackhole) {
+        blackhole.consume(CompactDate.fromDays(days).getDate());
+    }
+
+    @Benchmark
+    public int compactDateEncode() {
+        return compactDate.writeTo(out, 0);
+    }
+
+    @Benchmark
+    public void reverseDateDecode(Blackhole blackhole) {
+        blackhole.consume(ReverseDate.fromDays(days).getDate());
+    }
+
+    @Benchmark
+    public int reverseDateEncode() {
+        return reverseDate.writeTo(out, 0);
+    }
+
+    @Benchmark
+    public void dateTimeRealDecode(Blackhole blackhole) {
+        blackhole.consume(DateTimeReal.fromSeconds(seconds).getDateTime());
+    }
+
+    @Benchmark
+    public int dateTimeRealEncode() {
+        return dateTimeReal.writeTo(out, 0);
+    }
+
+    @Benchmark
+    public void compactTimeDecode(Blackhole blackhole) {
+        blackhole.consume(CompactTime.fromMinutes(minutes).getTime());
+    }
+
+    @Benchmark
+    public int compactTimeEncode() {
+        return compactTime.writeTo(out, 0);
+    }
+
+    @Benchmark
+    public void longDateDecode(Blackhole blackhole) {
+        blackhole.consume(LongDate.fromValue(longDate).getDate());
+    }
+
+    @Benchmark
+    public int longDateEncode() {
+        return birthDate.writeTo(out, 0);
+    }
+
+    @Benchmark
+    public int epochDay() {
+        return compactDate.getEpochDay() + reverseDate.getEpochDay() + dateTimeReal.getEpochDay();
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.idear.devices.card.cardkit.bench;
+
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.Calypso;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.*;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Contract;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.DebitLog;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Environment;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Event;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse and unparse of the Calypso CDMX files, one record of {@link Calypso#RECORD_SIZE} bytes per operation.
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FileCodecBenchmark {
+
+    private byte[] eventData;
+    private byte[] contractData;
+    private byte[] environmentData;
+    private byte[] debitLogData;
+
+    private Event event;
+    private Contract contract;
+    private Environment environment;
+    private DebitLog debitLog;
+
+    @Setup
+    public void setup() {
+        event = Event.builEvent(TransactionType.GENERAL_DEBIT.getValue(), NetworkCode.CDMX.getValue(),
+                Provider.METROBUS_L1.getValue(), 1, 1, 42, 0x1234, 750);
+        eventData = event.unparse();
+
+        contract = Contract.buildContract(1, NetworkCode.CDMX.getValue(), Provider.METROBUS_L1.getValue(),
+                Modality.MONOMODAL.getValue(), Tariff.SEASON_PASS.getValue(),
+                RestrictTime.WITHOUT_RESTRICTION.getValue(), "AABBCCDD");
+        contractData = contract.unparse();
+
+        environment = Environment.buildEnvironment(NetworkCode.CDMX.getValue(), Profile.GENERAL.getValue());
+        environmentData = environment.unparse();
+
+        debitLogData = new byte[Calypso.RECORD_SIZE];
+        for (int i = 0; i < debitLogData.length; i++)
+            debitLogData[i] = (byte) (i * 7);
+        debitLog = new DebitLog().parse(debitLogData);
+    }
+
+    @Benchmark
+    public Event eventParse() {
+        return new Event(1).parse(eventData);
+    }
+
+    @Benchmark
+    public byte[] eventUnparse() {
+        return event.unparse();
+    }
+
+    @Benchmark
+    public Contract contractParse() {
+        return new Contract(1).parse(contractData);
+    }
+
+    @Benchmark
+    public byte[] contractUnparse() {
+        return contract.unparse();
+    }
+
+    @Benchmark
+    public Environment environmentParse() {
+        return new Environment().parse(environmentData);
+    }
+
+    @Benchmark
+    public byte[] environmentUnparse() {
+        return environment.unparse();
+    }
+
+    @Benchmark
+    public DebitLog debitLogParse() {
+        return new DebitLog().parse(debitLogData);
+    }
+
+    @Benchmark
+    public byte[] debitLogUnparse() {
+        return debitLog.unparse();
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.idear.devices.card.cardkit.bench;
+
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.*;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Contract;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Environment;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Event;
+import com.idear.devices.card.cardkit.core.io.Item;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Item#toJson()} of the files reported after each transaction.
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonBenchmark {
+
+    private Event event;
+    private Contract contract;
+    private Environment environment;
+
+    @Setup
+    public void setup() {
+        event = Event.builEvent(TransactionType.GENERAL_DEBIT.getValue(), NetworkCode.CDMX.getValue(),
+                Provider.METROBUS_L1.getValue(), 1, 1, 42, 0x1234, 750);
+        contract = Contract.buildContract(1, NetworkCode.CDMX.getValue(), Provider.METROBUS_L1.getValue(),
+                Modality.MONOMODAL.getValue(), Tariff.SEASON_PASS.getValue(),
+                RestrictTime.WITHOUT_RESTRICTION.getValue(), "AABBCCDD");
+        environment = Environment.buildEnvironment(NetworkCode.CDMX.getValue(), Profile.GENERAL.getValue());
+    }
+
+    @Benchmark
+    public String eventToJson() {
+        return event.toJson();
+    }
+
+    @Benchmark
+    public String contractToJson() {
+        return contract.toJson();
+    }
+
+    @Benchmark
+    public String environmentToJson() {
+        return environment.toJson();
+    }
+
+}
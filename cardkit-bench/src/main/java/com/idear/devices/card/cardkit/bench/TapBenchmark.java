@@ -0,0 +1,345 @@
+package com.idear.devices.card.cardkit.bench;
+
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.Calypso;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.CalypsoCardCDMX;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.*;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Contract;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Environment;
+import com.idear.devices.card.cardkit.core.datamodel.date.ReverseDate;
+import com.idear.devices.card.cardkit.core.io.apdu.ResponseApdu;
+import com.idear.devices.card.cardkit.core.utils.ByteUtils;
+import com.idear.devices.card.cardkit.keyple.KeypleCalypsoSamReader;
+import com.idear.devices.card.cardkit.keyple.KeypleCardReader;
+import com.idear.devices.card.cardkit.keyple.KeypleTransactionManager;
+import com.idear.devices.card.cardkit.keyple.KeypleUtil;
+import com.idear.devices.card.cardkit.keyple.TransactionDataEvent;
+import com.idear.devices.card.cardkit.pcsc.PcscAbstractReader;
+import com.idear.devices.card.cardkit.pcsc.PcscTransactionManager;
+import com.idear.devices.card.cardkit.simulator.*;
+import com.idear.devices.card.cardkit.simulator.keyple.SimulatedKeyplePluginFactory;
+import com.idear.devices.card.cardkit.simulator.keyple.SimulatedKeypleReader;
+import org.eclipse.keyple.core.service.Plugin;
+import org.eclipse.keypop.calypso.card.WriteAccessLevel;
+import org.openjdk.jmh.annotations.*;
+
+import javax.smartcardio.CommandAPDU;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Complete tap operations on a simulated card and SAM, with the APDU latency of real readers injected
+ * by a {@link LatencyModel}.
+ *
+ * <p>
+ * The sample time gives the tap latency percentiles in microseconds, the taps per second are the inverse
+ * of the mean ({@code -bm thrpt -tu s} measures them directly).
+ * {@code latency=NONE} measures the host side alone, {@code latency=ISO14443} adds the time of a
+ * contactless card and a contact SAM, see {@link LatencyModel#iso14443Card()} and
+ * {@link LatencyModel#contactSam()}.
+ * </p>
+ *
+ * <p>
+ * The read, debit, reload and renew operations run the secure session engine of
+ * {@link PcscTransactionManager}. The {@code keyple} operations run the same taps with
+ * {@link KeypleTransactionManager}, on readers of the {@link SimulatedKeyplePluginFactory} plugin: the
+ * card selection, the read of the card data and the debit, reload or renewal.
+ * {@link #readSequential()} and {@link #readBatched()} send the same commands through the
+ * {@code AbstractReader} API one by one and in a single batch, to measure the gain of batching.
+ * </p>
+ *
+ * <p>
+ * The card is reset before each iteration, the debits and reloads are bounded by the SV balance so
+ * every tap succeeds.
+ * </p>
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar TapBenchmark -p latency=ISO14443
+ * </pre>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TapBenchmark {
+
+    private static final byte[] CARD_SERIAL = ByteUtils.hexToBytes("0000000012345678");
+    private static final byte[] SAM_SERIAL = ByteUtils.hexToBytes("AABBCCDD");
+    private static final byte[] DATE = {0x2A, 0x10};
+    private static final byte[] TIME = {0x03, 0x20};
+    private static final int CONTRACTS = 4;
+    private static final int EVENTS = 3;
+    private static final String KEYPLE_PLUGIN = "TapBenchmark";
+    private static final String KEYPLE_CARD_READER = "keyple card";
+    private static final String KEYPLE_SAM_READER = "keyple sam";
+    private static final int LOCATION_ID = 0xAAAAAA;
+    private static final int PROVIDER = Provider.CABLEBUS.getValue();
+
+    @Param({"NONE", "ISO14443"})
+    public String latency;
+
+    private SimulatedCalypsoCard card;
+    private PcscAbstractReader cardReader;
+    private PcscAbstractReader samReader;
+    private PcscTransactionManager transactionManager;
+
+    private LatencyReader latencyReader;
+    private List<CommandAPDU> readCommands;
+
+    private byte[] event;
+    private byte[] contract;
+
+    private SimulatedCalypsoCard keypleCard;
+    private KeypleTransactionManager keypleTransactionManager;
+    private byte[] keypleEnvironment;
+    private byte[] keypleContract;
+
+    @Setup
+    public void setup() throws Exception {
+        boolean real = "ISO14443".equals(latency);
+        LatencyModel cardModel = real ? LatencyModel.iso14443Card() : LatencyModel.NONE;
+        LatencyModel samModel = real ? LatencyModel.contactSam() : LatencyModel.NONE;
+
+        card = new SimulatedCalypsoCard(CARD_SERIAL);
+        event = new byte[Calypso.RECORD_SIZE];
+        contract = new byte[Calypso.RECORD_SIZE];
+        for (int i = 0; i < Calypso.RECORD_SIZE; i++) {
+            event[i] = (byte) (i + 1);
+            contract[i] = (byte) (0x80 + i);
+        }
+
+        cardReader = reader("card", new LatencyApduProcessor(card, cardModel));
+        samReader = reader("sam", new LatencyApduProcessor(new SimulatedSam(SAM_SERIAL), samModel));
+        transactionManager = new PcscTransactionManager();
+
+        SimulatedReader simulatedReader = new SimulatedReader("card");
+        simulatedReader.insert(card);
+        simulatedReader.connectToCard();
+        latencyReader = new LatencyReader(simulatedReader, cardModel);
+
+        readCommands = new ArrayList<>();
+        readCommands.add(new CommandAPDU(0x00, 0xA4, 0x04, 0x00, SimulatedCalypsoCard.DEFAULT_AID));
+        readCommands.add(readRecord(Calypso.ENVIRONMENT_FILE, 1));
+        for (int i = 1; i <= CONTRACTS; i++)
+            readCommands.add(readRecord(Calypso.CONTRACT_FILE, i));
+        for (int i = 1; i <= EVENTS; i++)
+            readCommands.add(readRecord(Calypso.EVENT_FILE, i));
+        readCommands.add(new CommandAPDU(0x00, 0x7C, 0x00, PcscTransactionManager.SV_DEBIT, 0x100));
+
+        setupKeyple(cardModel, samModel);
+    }
+
+    private void setupKeyple(LatencyModel cardModel, LatencyModel samModel) {
+        keypleCard = new SimulatedCalypsoCard(ByteUtils.hexToBytes(Calypso.AID_CDMX), CARD_SERIAL);
+        keypleEnvironment = Environment.buildEnvironment(
+                NetworkCode.CDMX.getValue(),
+                Profile.GENERAL.getValue()).unparse();
+        keypleContract = Contract.buildContract(
+                1,
+                NetworkCode.CDMX.getValue(),
+                PROVIDER,
+                Modality.MONOMODAL.getValue(),
+                Tariff.STORED_VALUE.getValue(),
+                RestrictTime.WITHOUT_RESTRICTION.getValue(),
+                ByteUtils.toHex(SAM_SERIAL)).unparse();
+
+        Plugin plugin = KeypleUtil.SMART_CARD_SERVICE.registerPlugin(new SimulatedKeyplePluginFactory(
+                KEYPLE_PLUGIN,
+                new SimulatedKeypleReader(KEYPLE_CARD_READER, true,
+                        new LatencyApduProcessor(keypleCard, cardModel)),
+                new SimulatedKeypleReader(KEYPLE_SAM_READER, false,
+                        new LatencyApduProcessor(new SimulatedSam(SAM_SERIAL), samModel))));
+
+        KeypleCalypsoSamReader keypleSamReader = new KeypleCalypsoSamReader(KEYPLE_SAM_READER, null);
+        keypleSamReader.setSamReader(plugin.getReader(KEYPLE_SAM_READER));
+        keypleSamReader.connectToCard();
+
+        KeypleCardReader keypleCardReader = new KeypleCardReader(KEYPLE_CARD_READER);
+        keypleCardReader.setCardReader(plugin.getReader(KEYPLE_CARD_READER));
+        keypleTransactionManager = new KeypleTransactionManager(keypleCardReader, keypleSamReader, Calypso.AID_CDMX);
+    }
+
+    @TearDown
+    public void tearDownKeyple() {
+        KeypleUtil.SMART_CARD_SERVICE.unregisterPlugin(KEYPLE_PLUGIN);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCard() {
+        card.setSvBalance(SimulatedCalypsoCard.SV_BALANCE_MAX / 2);
+        card.setRecord(Calypso.ENVIRONMENT_FILE, 1, contract);
+        for (int i = 1; i <= CONTRACTS; i++)
+            card.setRecord(Calypso.CONTRACT_FILE, i, contract);
+
+        keypleCard.setSvBalance(SimulatedCalypsoCard.SV_BALANCE_MAX / 2);
+        keypleCard.setRecord(Calypso.ENVIRONMENT_FILE, 1, keypleEnvironment);
+        keypleCard.setRecord(Calypso.CONTRACT_FILE, 1, keypleContract);
+    }
+
+    private static PcscAbstractReader reader(String name, ApduProcessor processor) {
+        PcscAbstractReader reader = new PcscAbstractReader(name);
+        reader.setCardTerminal(new SimulatedCardTerminal(name, processor));
+        reader.connectToCard();
+        return reader;
+    }
+
+    private static CommandAPDU readRecord(byte sfi, int recordNumber) {
+        return new CommandAPDU(0x00, 0xB2, recordNumber, (sfi * 8) + 4, 0x100);
+    }
+
+    private PcscTransactionManager select() throws Exception {
+        transactionManager.prepareTransactionManager(cardReader, samReader);
+        transactionManager.selectApplication(SimulatedCalypsoCard.DEFAULT_AID);
+        return transactionManager;
+    }
+
+    /**
+     * Reads the environment, the contracts, the events and the SV balance, out of session.
+     */
+    @Benchmark
+    public List<byte[]> read() throws Exception {
+        PcscTransactionManager manager = select().prepareReadRecord(Calypso.ENVIRONMENT_FILE, 1);
+        for (int i = 1; i <= CONTRACTS; i++)
+            manager.prepareReadRecord(Calypso.CONTRACT_FILE, i);
+        for (int i = 1; i <= EVENTS; i++)
+            manager.prepareReadRecord(Calypso.EVENT_FILE, i);
+        List<byte[]> responses = manager.processCommands();
+        manager.svGet(PcscTransactionManager.SV_DEBIT);
+        return responses;
+    }
+
+    /**
+     * Same commands as {@link #read()}, one exchange with the reader per command.
+     */
+    @Benchmark
+    public List<ResponseApdu> readSequential() {
+        List<ResponseApdu> responses = new ArrayList<>(readCommands.size());
+        for (CommandAPDU command : readCommands)
+            responses.add(latencyReader.simpleCommand(command));
+        return responses;
+    }
+
+    /**
+     * Same commands as {@link #read()}, one exchange with the reader for all the commands.
+     */
+    @Benchmark
+    public List<ResponseApdu> readBatched() {
+        return latencyReader.transmitBatch(readCommands);
+    }
+
+    /**
+     * Debit session: environment read at the opening, first contract, SV debit and a new event.
+     */
+    @Benchmark
+    public PcscTransactionManager debit() throws Exception {
+        PcscTransactionManager manager = select()
+                .openSession(PcscTransactionManager.KEY_DEBIT, Calypso.ENVIRONMENT_FILE, 1)
+                .prepareReadRecord(Calypso.CONTRACT_FILE, 1);
+        int balance = manager.svGet(PcscTransactionManager.SV_DEBIT);
+        return manager
+                .svDebit(Math.min(1, balance), DATE, TIME)
+                .prepareAppendRecord(Calypso.EVENT_FILE, event)
+                .closeSession(true);
+    }
+
+    /**
+     * Reload session: environment read at the opening, SV reload and a new event.
+     */
+    @Benchmark
+    public PcscTransactionManager reload() throws Exception {
+        PcscTransactionManager manager = select()
+                .openSession(PcscTransactionManager.KEY_LOAD, Calypso.ENVIRONMENT_FILE, 1);
+        int balance = manager.svGet(PcscTransactionManager.SV_RELOAD);
+        return manager
+                .svReload(Math.min(1, SimulatedCalypsoCard.SV_BALANCE_MAX - balance), DATE, TIME, new byte[2])
+                .prepareAppendRecord(Calypso.EVENT_FILE, event)
+                .closeSession(true);
+    }
+
+    /**
+     * Renewal session: environment read at the opening, first contract read and rewritten and a new event.
+     */
+    @Benchmark
+    public PcscTransactionManager renew() throws Exception {
+        return select()
+                .openSession(PcscTransactionManager.KEY_LOAD, Calypso.ENVIRONMENT_FILE, 1)
+                .prepareReadRecord(Calypso.CONTRACT_FILE, 1)
+                .prepareUpdateRecord(Calypso.CONTRACT_FILE, 1, contract)
+                .prepareAppendRecord(Calypso.EVENT_FILE, event)
+                .closeSession(true);
+    }
+
+    /**
+     * Selects the card presented on the Keyple reader and reads the card data in a secure session.
+     */
+    private CalypsoCardCDMX keypleTap(WriteAccessLevel writeAccessLevel) throws Throwable {
+        if (!keypleTransactionManager.awaitCard(0))
+            throw new IllegalStateException("No card selected on " + KEYPLE_CARD_READER);
+        return keypleTransactionManager.readCardData(writeAccessLevel)
+                .throwException()
+                .getData();
+    }
+
+    /**
+     * Keyple tap reading the card data: selection, environment, contracts, events and SV balance.
+     */
+    @Benchmark
+    public CalypsoCardCDMX keypleRead() throws Throwable {
+        CalypsoCardCDMX calypsoCardCDMX = keypleTap(WriteAccessLevel.DEBIT);
+        keypleTransactionManager.closeSession().throwException();
+        return calypsoCardCDMX;
+    }
+
+    /**
+     * Keyple tap debiting the first valid contract with {@link KeypleTransactionManager#debitCard}.
+     */
+    @Benchmark
+    public TransactionDataEvent keypleDebit() throws Throwable {
+        CalypsoCardCDMX calypsoCardCDMX = keypleTap(WriteAccessLevel.DEBIT);
+        return keypleTransactionManager.debitCard(
+                calypsoCardCDMX,
+                TransactionType.GENERAL_DEBIT.getValue(),
+                LOCATION_ID,
+                PROVIDER,
+                0,
+                Math.min(1, calypsoCardCDMX.getBalance())
+        ).throwException().getData();
+    }
+
+    /**
+     * Keyple tap reloading the SV balance with {@link KeypleTransactionManager#reloadCard}.
+     */
+    @Benchmark
+    public TransactionDataEvent keypleReload() throws Throwable {
+        CalypsoCardCDMX calypsoCardCDMX = keypleTap(WriteAccessLevel.LOAD);
+        return keypleTransactionManager.reloadCard(
+                calypsoCardCDMX,
+                LOCATION_ID,
+                PROVIDER,
+                0,
+                Math.min(1, SimulatedCalypsoCard.SV_BALANCE_MAX - calypsoCardCDMX.getBalance())
+        ).throwException().getData();
+    }
+
+    /**
+     * Keyple tap renewing the first valid contract from today with {@link KeypleTransactionManager#renewContract},
+     * the contract is signed by the SAM.
+     */
+    @Benchmark
+    public TransactionDataEvent keypleRenew() throws Throwable {
+        CalypsoCardCDMX calypsoCardCDMX = keypleTap(WriteAccessLevel.LOAD);
+        return keypleTransactionManager.renewContract(
+                calypsoCardCDMX,
+                LOCATION_ID,
+                PROVIDER,
+                0,
+                ReverseDate.now(),
+                PeriodType.encode(PeriodType.MONTH, 1)
+        ).throwException().getData();
+    }
+}
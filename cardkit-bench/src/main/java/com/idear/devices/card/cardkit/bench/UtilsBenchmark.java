@@ -0,0 +1,87 @@
+package com.idear.devices.card.cardkit.bench;
+
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.Calypso;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.Provider;
+import com.idear.devices.card.cardkit.core.datamodel.decoder.ValueDecoder;
+import com.idear.devices.card.cardkit.core.utils.BitUtil;
+import com.idear.devices.card.cardkit.core.utils.ByteUtils;
+import com.idear.devices.card.cardkit.core.utils.Strings;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bit and byte utilities used by every file codec.
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UtilsBenchmark {
+
+    private byte[] record;
+    private ValueDecoder<Provider> provider;
+
+    @Setup
+    public void setup() {
+        record = new byte[Calypso.RECORD_SIZE];
+        for (int i = 0; i < record.length; i++)
+            record[i] = (byte) (i * 31 + 7);
+        provider = ValueDecoder.emptyDecoder(Provider.class);
+        provider.setValue(Provider.METROBUS_L3);
+    }
+
+    /**
+     * Reads a record as fields of 8, 16, 24 and 32 bits.
+     */
+    @Benchmark
+    public void bitUtilRead(Blackhole blackhole) {
+        BitUtil bit = new BitUtil(record);
+        blackhole.consume(bit.getNextInteger(8));
+        blackhole.consume(bit.getNextInteger(16));
+        blackhole.consume(bit.getNextInteger(24));
+        blackhole.consume(bit.getNextInteger(32));
+        blackhole.consume(bit.getNextInteger(4));
+        blackhole.consume(bit.getNextInteger(12));
+    }
+
+    /**
+     * Writes a record as fields of 8, 16, 24 and 32 bits.
+     */
+    @Benchmark
+    public byte[] bitUtilWrite() {
+        BitUtil bit = new BitUtil(Calypso.RECORD_SIZE * 8);
+        bit.setNextInteger(0x12, 8);
+        bit.setNextInteger(0x3456, 16);
+        bit.setNextInteger(0x789ABC, 24);
+        bit.setNextInteger(0x0DEF0123, 32);
+        bit.setNextInteger(0x4, 4);
+        bit.setNextInteger(0x567, 12);
+        return bit.getData();
+    }
+
+    @Benchmark
+    public void extractInt(Blackhole blackhole) {
+        blackhole.consume(ByteUtils.extractInt(record, 0, 1, false));
+        blackhole.consume(ByteUtils.extractInt(record, 1, 2, false));
+        blackhole.consume(ByteUtils.extractInt(record, 3, 3, true));
+        blackhole.consume(ByteUtils.extractInt(record, 6, 4, false));
+    }
+
+    @Benchmark
+    public String bytesToHex() {
+        return Strings.bytesToHex(record);
+    }
+
+    @Benchmark
+    public Provider valueDecoderDecode() {
+        return provider.decode();
+    }
+
+}
@@ -4,6 +4,8 @@ public class Calypso {
     public static final byte ENVIRONMENT_FILE = (byte) 0x07;
     public static final byte EVENT_FILE = (byte) 0x08;
     public static final byte CONTRACT_FILE = (byte) 0x09;
+    public static final byte SV_LOAD_LOG_FILE = (byte) 0x14;
+    public static final byte SV_DEBIT_LOG_FILE = (byte) 0x15;
 
     public static final String AID_CDMX = "315449432E494341D48401019101";
     public static final int RECORD_SIZE = 29;
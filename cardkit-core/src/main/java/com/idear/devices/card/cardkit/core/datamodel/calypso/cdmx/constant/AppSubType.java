@@ -1,6 +1,7 @@
 package com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant;
 
 import com.idear.devices.card.cardkit.core.datamodel.IDataModel;
+import com.idear.devices.card.cardkit.core.datamodel.decoder.EnumLookup;
 import lombok.Getter;
 
 @Getter
@@ -15,12 +16,10 @@ public enum AppSubType implements IDataModel {
         this.value = value;
     }
 
+    private static final EnumLookup<AppSubType> LOOKUP = EnumLookup.of(AppSubType.class);
+
     public static AppSubType decode(int value) {
-        for (AppSubType v : values()) {
-            if (v.value == value)
-                return v;
-        }
-        return RFU;
+        return LOOKUP.decode(value, RFU);
     }
 
 }
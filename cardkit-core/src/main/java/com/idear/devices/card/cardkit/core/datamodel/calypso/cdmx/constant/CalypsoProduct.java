@@ -1,6 +1,7 @@
 package com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant;
 
 import com.idear.devices.card.cardkit.core.datamodel.IDataModel;
+import com.idear.devices.card.cardkit.core.datamodel.decoder.EnumLookup;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
@@ -15,11 +16,9 @@ public enum CalypsoProduct implements IDataModel {
 
     private final int value;
 
+    private static final EnumLookup<CalypsoProduct> LOOKUP = EnumLookup.of(CalypsoProduct.class);
+
     public static CalypsoProduct decode(int value) {
-        for (CalypsoProduct v : values()) {
-            if (v.value ==  value)
-                return v;
-        }
-        return RFU;
+        return LOOKUP.decode(value, RFU);
     }
 }
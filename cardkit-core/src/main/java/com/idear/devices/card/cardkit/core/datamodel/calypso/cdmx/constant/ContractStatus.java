@@ -1,6 +1,7 @@
 package com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant;
 
 import com.idear.devices.card.cardkit.core.datamodel.IDataModel;
+import com.idear.devices.card.cardkit.core.datamodel.decoder.EnumLookup;
 import lombok.Getter;
 
 @Getter
@@ -22,13 +23,10 @@ public enum ContractStatus implements IDataModel {
         this.accepted = accepted;
     }
 
+    private static final EnumLookup<ContractStatus> LOOKUP = EnumLookup.of(ContractStatus.class);
+
     public static ContractStatus decode(int value) {
-        for (ContractStatus v : values()) {
-            if (v.value == value) {
-                return v;
-            }
-        }
-        return RFU;
+        return LOOKUP.decode(value, RFU);
     }
 
 }
@@ -1,6 +1,7 @@
 package com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant;
 
 import com.idear.devices.card.cardkit.core.datamodel.IDataModel;
+import com.idear.devices.card.cardkit.core.datamodel.decoder.EnumLookup;
 import lombok.Getter;
 
 /**
@@ -213,12 +214,9 @@ public enum Country implements IDataModel {
         this.value = value;
     }
 
+    private static final EnumLookup<Country> LOOKUP = EnumLookup.of(Country.class);
+
     public static Country decode(int value) {
-        for (Country v : values()) {
-            if (v.value == value) {
-                return v;
-            }
-        }
-        return RFU;
+        return LOOKUP.decode(value, RFU);
     }
 }
@@ -1,6 +1,7 @@
 package com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant;
 
 import com.idear.devices.card.cardkit.core.datamodel.IDataModel;
+import com.idear.devices.card.cardkit.core.datamodel.decoder.EnumLookup;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
@@ -26,12 +27,9 @@ public enum Equipment implements IDataModel {
     private final int value;
     private final boolean specialService;
 
+    private static final EnumLookup<Equipment> LOOKUP = EnumLookup.of(Equipment.class);
+
     public static Equipment decode(int value) {
-        for (Equipment v : values()) {
-            if (v.value == value) {
-                return v;
-            }
-        }
-        return RFU;
+        return LOOKUP.decode(value, RFU);
     }
 }
@@ -1,6 +1,7 @@
 package com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant;
 
 import com.idear.devices.card.cardkit.core.datamodel.IDataModel;
+import com.idear.devices.card.cardkit.core.datamodel.decoder.EnumLookup;
 import lombok.Getter;
 
 @Getter
@@ -16,12 +17,9 @@ public enum Modality implements IDataModel {
         this.value = value;
     }
 
+    private static final EnumLookup<Modality> LOOKUP = EnumLookup.of(Modality.class);
+
     public static Modality decode(int value) {
-        for (Modality v : values()) {
-            if (v.value == value) {
-                return v;
-            }
-        }
-        return FORBIDDEN;
+        return LOOKUP.decode(value, FORBIDDEN);
     }
 }
@@ -1,6 +1,7 @@
 package com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant;
 
 import com.idear.devices.card.cardkit.core.datamodel.IDataModel;
+import com.idear.devices.card.cardkit.core.datamodel.decoder.EnumLookup;
 import lombok.Getter;
 
 @Getter
@@ -16,12 +17,9 @@ public enum NetworkCode implements IDataModel {
         this.value = value;
     }
 
+    private static final EnumLookup<NetworkCode> LOOKUP = EnumLookup.of(NetworkCode.class);
+
     public static NetworkCode decode(int value) {
-        for (NetworkCode v : values()) {
-            if (v.value == value) {
-                return v;
-            }
-        }
-        return RFU;
+        return LOOKUP.decode(value, RFU);
     }
 }
@@ -1,5 +1,6 @@
 package com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant;
 
+import com.idear.devices.card.cardkit.core.datamodel.date.CalypsoDates;
 import com.idear.devices.card.cardkit.core.datamodel.date.ReverseDate;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -15,14 +16,19 @@ public enum PeriodType {
 
     private final int bits;
 
-    public static PeriodType decode(int bits) {
-        for (PeriodType v : values()) {
-            if (v.bits == bits) {
-                return v;
-            }
-        }
+    /** Period indexed by its 2 bits, null for unused combinations */
+    private static final PeriodType[] BY_BITS = new PeriodType[4];
 
-        throw new IllegalArgumentException("Invalid period bits: " + bits);
+    static {
+        for (PeriodType v : values())
+            BY_BITS[v.bits] = v;
+    }
+
+    public static PeriodType decode(int bits) {
+        PeriodType period = bits >= 0 && bits < BY_BITS.length ? BY_BITS[bits] : null;
+        if (period == null)
+            throw new IllegalArgumentException("Invalid period bits: " + bits);
+        return period;
     }
 
     public static int encode(PeriodType period, int trips) {
@@ -55,4 +61,28 @@ public enum PeriodType {
     public static LocalDate getExpirationDate(ReverseDate startDate, int duration) {
         return getExpirationDate(startDate.getDate(), duration);
     }
+
+    /**
+     * Same as {@link #getExpirationDate(LocalDate, int)} computed over epoch days.
+     *
+     * @param startEpochDay start day as epoch day
+     * @param duration      duration in format 0bnnpppppp, n: period, p: trips
+     * @return expiration day as epoch day
+     */
+    public static int getExpirationEpochDay(int startEpochDay, int duration) {
+        int _duration = duration & 0xFF;
+        PeriodType period = PeriodType.decode((_duration >> 6) & 0b11);
+        int trips = _duration & 0b00111111;
+
+        switch (period) {
+            case MONTH:
+                return CalypsoDates.plusMonths(startEpochDay, trips);
+            case WEEK:
+                return startEpochDay + trips * 7;
+            case DAY:
+                return startEpochDay + trips;
+        }
+
+        throw new IllegalArgumentException("Invalid duration format this most be 0bnnpppppp, n: period, p: trips");
+    }
 }
@@ -1,15 +1,17 @@
 package com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant;
 
 import com.idear.devices.card.cardkit.core.datamodel.IDataModel;
+import com.idear.devices.card.cardkit.core.datamodel.decoder.EnumLookup;
+import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 @Getter
-@RequiredArgsConstructor
 public enum Profile implements IDataModel {
     // -----------------------------
     // MULTIMODAL
@@ -56,18 +58,77 @@ public enum Profile implements IDataModel {
     private final int passBack;
     private final List<Equipment> equipmentsExceptions;
 
+    @Getter(AccessLevel.NONE)
+    private final Set<Equipment> equipmentsExceptionSet;
+
+    @Getter(AccessLevel.NONE)
+    private final String code;
+
+    private static final EnumLookup<Profile> LOOKUP = EnumLookup.of(Profile.class);
+
+    /**
+     * Profile indexed by its three profile nibbles {@code prof1 << 8 | prof2 << 4 | prof3},
+     * the first declared profile wins
+     */
+    private static final Profile[] BY_PROFILE_CODE = new Profile[1 << 12];
+
+    static {
+        for (Profile p : values()) {
+            int index = profileCodeIndex(p.prof1, p.prof2, p.prof3);
+            if (index >= 0 && BY_PROFILE_CODE[index] == null)
+                BY_PROFILE_CODE[index] = p;
+        }
+    }
+
+    Profile(int value,
+            int prof1,
+            int prof2,
+            int prof3,
+            int validityCard,
+            int validityProfile,
+            int validityContract,
+            Tariff tariff,
+            int passBack,
+            List<Equipment> equipmentsExceptions) {
+        this.value = value;
+        this.prof1 = prof1;
+        this.prof2 = prof2;
+        this.prof3 = prof3;
+        this.validityCard = validityCard;
+        this.validityProfile = validityProfile;
+        this.validityContract = validityContract;
+        this.tariff = tariff;
+        this.passBack = passBack;
+        this.equipmentsExceptions = equipmentsExceptions;
+        this.equipmentsExceptionSet = equipmentsExceptions.isEmpty()
+                ? Collections.emptySet()
+                : Collections.unmodifiableSet(EnumSet.copyOf(equipmentsExceptions));
+        this.code = String.format("%d%d%d", prof1, prof2, prof3);
+    }
+
+    private static int profileCodeIndex(int prof1, int prof2, int prof3) {
+        if ((prof1 | prof2 | prof3) >>> 4 != 0)
+            return -1;
+        return prof1 << 8 | prof2 << 4 | prof3;
+    }
+
     public static Profile decode(int prof1, int prof2, int prof3) {
-        return Arrays.stream(values())
-                .filter(p -> p.prof1 == prof1 && p.prof2 == prof2 && p.prof3 == prof3)
-                .findFirst()
-                .orElse(RFU);
+        int index = profileCodeIndex(prof1, prof2, prof3);
+        if (index < 0)
+            return RFU;
+        Profile profile = BY_PROFILE_CODE[index];
+        return profile != null ? profile : RFU;
+    }
+
+    public static Profile decode(int value) {
+        return LOOKUP.decode(value, RFU);
     }
 
     public String getCode() {
-        return String.format("%d%d%d", prof1, prof2, prof3);
+        return code;
     }
 
     public boolean isAllowedOn(Equipment equipment) {
-        return !equipmentsExceptions.contains(equipment);
+        return !equipmentsExceptionSet.contains(equipment);
     }
 }
@@ -1,6 +1,7 @@
 package com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant;
 
 import com.idear.devices.card.cardkit.core.datamodel.IDataModel;
+import com.idear.devices.card.cardkit.core.datamodel.decoder.EnumLookup;
 import lombok.Getter;
 
 @Getter
@@ -32,12 +33,9 @@ public enum Provider implements IDataModel {
         this.value = value;
     }
 
+    private static final EnumLookup<Provider> LOOKUP = EnumLookup.of(Provider.class);
+
     public static Provider decode(int value) {
-        for (Provider v : values()) {
-            if (v.value == value) {
-                return v;
-            }
-        }
-        return RFU;
+        return LOOKUP.decode(value, RFU);
     }
 }
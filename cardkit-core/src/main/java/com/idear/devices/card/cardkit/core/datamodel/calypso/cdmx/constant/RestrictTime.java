@@ -1,6 +1,7 @@
 package com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant;
 
 import com.idear.devices.card.cardkit.core.datamodel.IDataModel;
+import com.idear.devices.card.cardkit.core.datamodel.decoder.EnumLookup;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
@@ -19,13 +20,10 @@ public enum RestrictTime implements IDataModel {
 
     private final int value;
 
+    private static final EnumLookup<RestrictTime> LOOKUP = EnumLookup.of(RestrictTime.class);
+
     public static RestrictTime decode(int value) {
-        for (RestrictTime v : values()) {
-            if (v.value == value) {
-                return v;
-            }
-        }
-        return RFU;
+        return LOOKUP.decode(value, RFU);
     }
 
 }
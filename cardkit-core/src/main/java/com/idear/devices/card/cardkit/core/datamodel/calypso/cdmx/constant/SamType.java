@@ -1,6 +1,7 @@
 package com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant;
 
 import com.idear.devices.card.cardkit.core.datamodel.IDataModel;
+import com.idear.devices.card.cardkit.core.datamodel.decoder.EnumLookup;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
@@ -27,12 +28,9 @@ public enum SamType implements IDataModel {
 
     private final int value;
 
+    private static final EnumLookup<SamType> LOOKUP = EnumLookup.of(SamType.class);
+
     public static SamType decode(int samType) {
-        for (SamType v : values()) {
-            if (v.value == samType) {
-                return v;
-            }
-        }
-        return RFU;
+        return LOOKUP.decode(samType, RFU);
     }
 }
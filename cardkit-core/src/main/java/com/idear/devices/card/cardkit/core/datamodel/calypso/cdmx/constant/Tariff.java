@@ -1,6 +1,7 @@
 package com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant;
 
 import com.idear.devices.card.cardkit.core.datamodel.IDataModel;
+import com.idear.devices.card.cardkit.core.datamodel.decoder.EnumLookup;
 import lombok.Getter;
 
 @Getter
@@ -19,12 +20,9 @@ public enum Tariff implements IDataModel {
         this.value = value;
     }
 
+    private static final EnumLookup<Tariff> LOOKUP = EnumLookup.of(Tariff.class);
+
     public static Tariff decode(int value) {
-        for (Tariff v : values()) {
-            if (v.value == value) {
-                return v;
-            }
-        }
-        return RFU;
+        return LOOKUP.decode(value, RFU);
     }
 }
@@ -1,8 +1,14 @@
 package com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant;
 
 import com.idear.devices.card.cardkit.core.datamodel.IDataModel;
+import com.idear.devices.card.cardkit.core.datamodel.decoder.EnumLookup;
 import lombok.Getter;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
 @Getter
 public enum TransactionType implements IDataModel {
     /*
@@ -90,13 +96,28 @@ public enum TransactionType implements IDataModel {
         this.isSigned = isSigned;
     }
 
-    public static TransactionType decode(int value) {
+    private static final EnumLookup<TransactionType> LOOKUP = EnumLookup.of(TransactionType.class);
+
+    /** Types of the events written in the card */
+    public static final Set<TransactionType> WRITTEN = flagged(TransactionType::isWritten);
+
+    /** Types of the events reported to the back-office */
+    public static final Set<TransactionType> REPORTED = flagged(TransactionType::isReported);
+
+    /** Types of the events signed with a MAC */
+    public static final Set<TransactionType> SIGNED = flagged(TransactionType::isSigned);
+
+    private static Set<TransactionType> flagged(Predicate<TransactionType> flag) {
+        EnumSet<TransactionType> set = EnumSet.noneOf(TransactionType.class);
         for (TransactionType v : values()) {
-            if (v.value == value) {
-                return v;
-            }
+            if (flag.test(v))
+                set.add(v);
         }
-        return RFU;
+        return Collections.unmodifiableSet(set);
+    }
+
+    public static TransactionType decode(int value) {
+        return LOOKUP.decode(value, RFU);
     }
 
     @Override
@@ -1,6 +1,7 @@
 package com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant;
 
 import com.idear.devices.card.cardkit.core.datamodel.IDataModel;
+import com.idear.devices.card.cardkit.core.datamodel.decoder.EnumLookup;
 import lombok.Getter;
 
 @Getter
@@ -15,13 +16,10 @@ public enum Version implements IDataModel {
         this.value = value;
     }
 
+    private static final EnumLookup<Version> LOOKUP = EnumLookup.of(Version.class);
+
     public static Version decode(int value) {
-        for (Version v : values()) {
-            if (v.value == value) {
-                return v;
-            }
-        }
-        return RFU;
+        return LOOKUP.decode(value, RFU);
     }
 
 }
@@ -5,11 +5,12 @@ import com.idear.devices.card.cardkit.core.datamodel.decoder.ValueDecoder;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.Calypso;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.*;
 import com.idear.devices.card.cardkit.core.io.card.file.File;
+import com.idear.devices.card.cardkit.core.datamodel.date.CalypsoDates;
+import com.idear.devices.card.cardkit.core.datamodel.date.CardClock;
 import com.idear.devices.card.cardkit.core.datamodel.date.CompactDate;
 import com.idear.devices.card.cardkit.core.datamodel.date.ReverseDate;
 import com.idear.devices.card.cardkit.core.utils.BitUtil;
 import com.idear.devices.card.cardkit.core.utils.ByteUtils;
-import com.idear.devices.card.cardkit.core.utils.Strings;
 import lombok.*;
 
 import java.time.LocalDate;
@@ -83,7 +84,30 @@ public class Contract extends File<Contract> {
     }
 
     public boolean isExpired(int daysOffset) {
-        return LocalDate.now().isAfter(getExpirationDate().minusDays(daysOffset));
+        return isExpired(daysOffset, CalypsoDates.currentEpochDay());
+    }
+
+    /**
+     * Same as {@link Contract#isExpired(int)} with the current day read from the given clock.
+     *
+     * @param daysOffset days before the expiration date from which the contract is considered expired
+     * @param clock      the clock of the transaction
+     * @return {@code true} if the contract is expired
+     */
+    public boolean isExpired(int daysOffset, CardClock clock) {
+        return isExpired(daysOffset, clock.currentEpochDay());
+    }
+
+    /**
+     * Same as {@link Contract#isExpired(int)} but with the current day supplied by the caller,
+     * useful to evaluate several contracts against the same day without reading the clock each time.
+     *
+     * @param daysOffset days before the expiration date from which the contract is considered expired
+     * @param todayEpochDay the current day as epoch day {@link LocalDate#toEpochDay()}
+     * @return {@code true} if the contract is expired
+     */
+    public boolean isExpired(int daysOffset, int todayEpochDay) {
+        return CalypsoDates.isExpired(getExpirationEpochDay(), todayEpochDay, daysOffset);
     }
 
     @JsonIgnore
@@ -113,7 +137,7 @@ public class Contract extends File<Contract> {
         bit.setNextInteger(authKvc, 8);
         bit.setNextInteger(authenticator, 24);
 
-        setContent(Strings.bytesToHex(bit.getData()));
+        setRawContent(bit.getData());
         return bit.getData();
     }
 
@@ -131,7 +155,7 @@ public class Contract extends File<Contract> {
             data = tmp;
         }
 
-        setContent(Strings.bytesToHex(data));
+        setRawContent(data);
 
         this.version.setValue(data[0] & 0xff);
         this.status.setValue(data[1] & 0xff);
@@ -166,6 +190,16 @@ public class Contract extends File<Contract> {
        return PeriodType.getExpirationDate(startDate, duration);
     }
 
+    /**
+     * @return the expiration date as epoch day, {@link Integer#MIN_VALUE} if the contract has no start date
+     */
+    @JsonIgnore
+    public int getExpirationEpochDay() {
+        if (startDate == null || startDate.getEpochDay() == Integer.MIN_VALUE)
+            return Integer.MIN_VALUE;
+        return PeriodType.getExpirationEpochDay(startDate.getEpochDay(), duration);
+    }
+
     public static Contract buildContract(
             int id,
             int networkCode,
@@ -174,6 +208,19 @@ public class Contract extends File<Contract> {
             int tariff,
             int restrictTime,
             String saleSam) {
+        return buildContract(id, networkCode, provider, modality, tariff, restrictTime, saleSam, CardClock.system());
+    }
+
+    public static Contract buildContract(
+            int id,
+            int networkCode,
+            int provider,
+            int modality,
+            int tariff,
+            int restrictTime,
+            String saleSam,
+            CardClock clock) {
+        int today = clock.currentEpochDay();
         Contract contract = new Contract(id);
 
 
@@ -186,8 +233,8 @@ public class Contract extends File<Contract> {
 
         contract.getVersion().setValue(Version.VERSION_3_3);
         contract.getStatus().setValue(ContractStatus.CONTRACT_PARTLY_USED);
-        contract.setStartDate(ReverseDate.now());
-        contract.setSaleDate(CompactDate.now());
+        contract.setStartDate(ReverseDate.fromEpochDay(today));
+        contract.setSaleDate(CompactDate.fromEpochDay(today));
         contract.setDuration(60);
 
         return contract;
@@ -0,0 +1,332 @@
+package com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file;
+
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.ContractStatus;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.Modality;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.Tariff;
+import com.idear.devices.card.cardkit.core.datamodel.date.ReverseDate;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Precomputed lookup structure over a list of {@link Contract}.
+ * <p>
+ * Every contract is identified by its position in the source list, and each position is a bit
+ * of a {@code long} mask. Status, tariff, modality and provider are decoded once when the index
+ * is built, so validity queries are reduced to a few bit operations instead of a stream over the
+ * list with a decode per contract.
+ * </p>
+ *
+ * <p>
+ * Expiration dates are stored as epoch days ({@link java.time.LocalDate#toEpochDay()}), the caller
+ * supplies the current day once per tap and every expiration check is an integer comparison. A contract
+ * whose duration cannot be decoded gets {@link #UNDECODABLE} as expiration, it is always expired.
+ * </p>
+ *
+ * <p>
+ * The index is a snapshot, it keeps the raw fields it was built from so {@link #isCurrent(List)}
+ * can tell whether the list or any of its contracts changed since, {@link Contracts#getIndex()}
+ * rebuilds it in that case. The check compares raw values and references only, it decodes nothing.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+public final class ContractIndex {
+
+    /** Maximum number of contracts that can be indexed, one bit per contract */
+    public static final int CAPACITY = Long.SIZE;
+
+    /** Empty mask, no contract matches */
+    public static final long NONE = 0L;
+
+    /** Expiration of a contract whose duration cannot be decoded, before any day */
+    public static final int UNDECODABLE = Integer.MIN_VALUE;
+
+    /**
+     * Raw values kept per contract to detect in place modifications: id, status, tariff, modality,
+     * provider and duration
+     */
+    private static final int RAW_FIELDS = 6;
+
+    private static final ContractStatus[] STATUSES = ContractStatus.values();
+    private static final Tariff[] TARIFFS = Tariff.values();
+    private static final Modality[] MODALITIES = Modality.values();
+
+    private final Contract[] contracts;
+    private final Contract[] byId;
+    private final long[] statusMasks = new long[STATUSES.length];
+    private final long[] tariffMasks = new long[TARIFFS.length];
+    private final long[] modalityMasks = new long[MODALITIES.length];
+    private final int[] providers;
+    private final long[] providerMasks;
+    private final int[] expirationEpochDays;
+    private final ReverseDate[] startDates;
+    private final int[] rawFields;
+    private final long acceptedMask;
+    private final long allMask;
+    private int providerCount;
+
+    private ContractIndex(List<Contract> source) {
+        int size = source.size();
+        if (size > CAPACITY)
+            throw new IllegalArgumentException("Contracts overflow, max " + CAPACITY + ", actual " + size);
+
+        this.contracts = source.toArray(new Contract[0]);
+        this.providers = new int[size];
+        this.providerMasks = new long[size];
+        this.expirationEpochDays = new int[size];
+        this.startDates = new ReverseDate[size];
+        this.rawFields = new int[size * RAW_FIELDS];
+
+        int maxId = 0;
+        for (Contract contract : contracts)
+            maxId = Math.max(maxId, contract.getId());
+        this.byId = new Contract[maxId + 1];
+
+        long accepted = NONE;
+        for (int i = 0; i < size; i++) {
+            Contract contract = contracts[i];
+            long bit = 1L << i;
+
+            if (contract.getId() >= 0 && byId[contract.getId()] == null)
+                byId[contract.getId()] = contract;
+
+            ContractStatus status = contract.getStatus().decode(ContractStatus.RFU);
+            statusMasks[status.ordinal()] |= bit;
+            if (status.isAccepted())
+                accepted |= bit;
+
+            tariffMasks[contract.getTariff().decode(Tariff.RFU).ordinal()] |= bit;
+            modalityMasks[contract.getModality().decode(Modality.FORBIDDEN).ordinal()] |= bit;
+            indexProvider(contract.getProvider().getValue(), bit);
+
+            expirationEpochDays[i] = expirationOf(contract);
+            startDates[i] = contract.getStartDate();
+            readRawFields(contract, rawFields, i * RAW_FIELDS);
+        }
+
+        this.acceptedMask = accepted;
+        this.allMask = size == CAPACITY ? -1L : (1L << size) - 1;
+    }
+
+    /**
+     * Builds the index of the given contracts, the bit {@code i} of every mask is the contract
+     * at position {@code i} of the list.
+     *
+     * @param contracts the contracts to index
+     * @return the contract index
+     * @throws IllegalArgumentException if there are more than {@link #CAPACITY} contracts
+     */
+    public static ContractIndex of(List<Contract> contracts) {
+        return new ContractIndex(contracts);
+    }
+
+    private static int expirationOf(Contract contract) {
+        try {
+            return contract.getExpirationEpochDay();
+        } catch (IllegalArgumentException e) {
+            return UNDECODABLE;
+        }
+    }
+
+    private static void readRawFields(Contract contract, int[] target, int offset) {
+        target[offset] = contract.getId();
+        target[offset + 1] = contract.getStatus().getValue();
+        target[offset + 2] = contract.getTariff().getValue();
+        target[offset + 3] = contract.getModality().getValue();
+        target[offset + 4] = contract.getProvider().getValue();
+        target[offset + 5] = contract.getDuration();
+    }
+
+    /**
+     * Checks that the index still matches the given list: same contracts at the same positions, and
+     * none of the indexed fields (id, status, tariff, modality, provider, start date and duration)
+     * modified. Only raw values and references are compared, nothing is decoded or allocated.
+     *
+     * @param source the list the index was built from
+     * @return {@code true} if the index can still be used for this list
+     */
+    public boolean isCurrent(List<Contract> source) {
+        if (source.size() != contracts.length)
+            return false;
+
+        for (int i = 0; i < contracts.length; i++) {
+            Contract contract = source.get(i);
+            int offset = i * RAW_FIELDS;
+            if (contract != contracts[i] || contract.getStartDate() != startDates[i] ||
+                    contract.getId() != rawFields[offset] ||
+                    contract.getStatus().getValue() != rawFields[offset + 1] ||
+                    contract.getTariff().getValue() != rawFields[offset + 2] ||
+                    contract.getModality().getValue() != rawFields[offset + 3] ||
+                    contract.getProvider().getValue() != rawFields[offset + 4] ||
+                    contract.getDuration() != rawFields[offset + 5])
+                return false;
+        }
+        return true;
+    }
+
+    private void indexProvider(int provider, long bit) {
+        for (int i = 0; i < providerCount; i++) {
+            if (providers[i] == provider) {
+                providerMasks[i] |= bit;
+                return;
+            }
+        }
+        providers[providerCount] = provider;
+        providerMasks[providerCount++] = bit;
+    }
+
+    /**
+     * @return number of contracts indexed
+     */
+    public int size() {
+        return contracts.length;
+    }
+
+    /**
+     * @return mask with a bit for every contract indexed
+     */
+    public long all() {
+        return allMask;
+    }
+
+    /**
+     * Get the contract at the given position (bit index).
+     *
+     * @param position position of the contract in the indexed list
+     * @return the contract
+     */
+    public Contract get(int position) {
+        return contracts[position];
+    }
+
+    /**
+     * Find a contract by its record number {@link Contract#getId()}.
+     *
+     * @param id the contract record number
+     * @return the contract, or {@code null} if there is no contract with this id
+     */
+    public Contract getById(int id) {
+        return id >= 0 && id < byId.length ? byId[id] : null;
+    }
+
+    /**
+     * Get the position (bit index) of the given contract, compared by identity.
+     *
+     * @param contract the contract to find
+     * @return the position of the contract, or -1 if it is not indexed
+     */
+    public int positionOf(Contract contract) {
+        for (int i = 0; i < contracts.length; i++)
+            if (contracts[i] == contract)
+                return i;
+        return -1;
+    }
+
+    /**
+     * @return mask of contracts whose status is accepted {@link ContractStatus#isAccepted()}
+     */
+    public long accepted() {
+        return acceptedMask;
+    }
+
+    /**
+     * @param status the contract status
+     * @return mask of contracts with the given status
+     */
+    public long status(ContractStatus status) {
+        return statusMasks[status.ordinal()];
+    }
+
+    /**
+     * @param tariff the contract tariff
+     * @return mask of contracts with the given tariff
+     */
+    public long tariff(Tariff tariff) {
+        return tariffMasks[tariff.ordinal()];
+    }
+
+    /**
+     * @param modality the contract modality
+     * @return mask of contracts with the given modality
+     */
+    public long modality(Modality modality) {
+        return modalityMasks[modality.ordinal()];
+    }
+
+    /**
+     * @param provider the raw provider code
+     * @return mask of contracts issued by the given provider
+     */
+    public long provider(int provider) {
+        for (int i = 0; i < providerCount; i++)
+            if (providers[i] == provider)
+                return providerMasks[i];
+        return NONE;
+    }
+
+    /**
+     * Get the expiration date of the contract at the given position.
+     *
+     * @param position position of the contract
+     * @return expiration date as epoch day, {@link Integer#MIN_VALUE} if the contract has no start date
+     * or an undecodable duration ({@link #UNDECODABLE})
+     */
+    public int getExpirationEpochDay(int position) {
+        return expirationEpochDays[position];
+    }
+
+    /**
+     * Mask of contracts expired on the given day, same rule as {@link Contract#isExpired(int)}.
+     *
+     * @param todayEpochDay the current day as epoch day
+     * @param daysOffset days before the expiration date from which the contract is considered expired
+     * @return mask of expired contracts
+     */
+    public long expired(int todayEpochDay, int daysOffset) {
+        long mask = NONE;
+        for (int i = 0; i < expirationEpochDays.length; i++)
+            if (todayEpochDay > (long) expirationEpochDays[i] - daysOffset)
+                mask |= 1L << i;
+        return mask;
+    }
+
+    /**
+     * Mask of contracts with accepted status and not expired on the given day.
+     *
+     * @param todayEpochDay the current day as epoch day
+     * @return mask of valid contracts
+     */
+    public long valid(int todayEpochDay) {
+        return acceptedMask & ~expired(todayEpochDay, 0);
+    }
+
+    /**
+     * Get the first contract of the given mask.
+     *
+     * @param mask contracts mask
+     * @return the contract with the lowest position in the mask, or {@code null} if the mask is empty
+     */
+    public Contract first(long mask) {
+        return mask == NONE ? null : contracts[Long.numberOfTrailingZeros(mask)];
+    }
+
+    /**
+     * Checks if the contract at the given position is in the mask.
+     *
+     * @param mask contracts mask
+     * @param position position of the contract
+     * @return {@code true} if the bit of the position is set
+     */
+    public static boolean contains(long mask, int position) {
+        return position >= 0 && position < CAPACITY && (mask & (1L << position)) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ContractIndex{size=" + contracts.length +
+                ", accepted=" + Long.toBinaryString(acceptedMask) +
+                ", expiration=" + Arrays.toString(expirationEpochDays) + "}";
+    }
+}
@@ -5,12 +5,40 @@ import com.idear.devices.card.cardkit.core.exception.CardException;
 
 import java.util.*;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 public class Contracts implements List<Contract> {
 
     private final List<Contract> contracts = new ArrayList<>();
 
+    /** Lookup index, built on first query and rebuilt when the list or a contract changes */
+    private ContractIndex index;
+
+    /**
+     * Get the lookup index of the contracts. It is built once and reused until the list is modified,
+     * through this class, an iterator or a sub list, or until an indexed field of a contract is
+     * modified in place. The check of the in place modifications compares raw values only, a query
+     * should call it once.
+     *
+     * @return the contract index
+     * @throws IllegalArgumentException if more than {@link ContractIndex#CAPACITY} contracts were added
+     * through an iterator or a sub list
+     */
+    public ContractIndex getIndex() {
+        if (index == null || !index.isCurrent(contracts))
+            index = ContractIndex.of(contracts);
+        return index;
+    }
+
+    /**
+     * Rebuild the lookup index unconditionally.
+     *
+     * @return the new contract index
+     */
+    public ContractIndex reindex() {
+        index = null;
+        return getIndex();
+    }
+
     /**
      * Find first contract that status is accepted {@link ContractStatus#isAccepted()}
      *
@@ -18,8 +46,27 @@ public class Contracts implements List<Contract> {
      * @throws CardException if the card have any valid contract
      */
     public Contract getFirstContractValid() {
-        return this.findFirst(c -> c.getStatus().decode(ContractStatus.RFU).isAccepted())
-                .orElseThrow(() -> new CardException("card without valid contract"));
+        ContractIndex index = getIndex();
+        Contract contract = index.first(index.accepted());
+        if (contract == null)
+            throw new CardException("card without valid contract");
+        return contract;
+    }
+
+    /**
+     * Find first contract that status is accepted {@link ContractStatus#isAccepted()} and is not expired
+     * on the given day.
+     *
+     * @param todayEpochDay the current day as epoch day, read once per tap
+     * @return first valid contract
+     * @throws CardException if the card have any valid contract
+     */
+    public Contract getFirstContractValid(int todayEpochDay) {
+        ContractIndex index = getIndex();
+        Contract contract = index.first(index.valid(todayEpochDay));
+        if (contract == null)
+            throw new CardException("card without valid contract");
+        return contract;
     }
 
     /**
@@ -29,9 +76,12 @@ public class Contracts implements List<Contract> {
      * @return list of matching contracts
      */
     public List<Contract> find(Predicate<Contract> condition) {
-        return contracts.stream()
-                .filter(condition)
-                .collect(Collectors.toList());
+        List<Contract> found = new ArrayList<>(contracts.size());
+        for (Contract contract : contracts) {
+            if (condition.test(contract))
+                found.add(contract);
+        }
+        return found;
     }
 
     /**
@@ -41,9 +91,11 @@ public class Contracts implements List<Contract> {
      * @return optional containing the first matching contract, or empty if none
      */
     public Optional<Contract> findFirst(Predicate<Contract> condition) {
-        return contracts.stream()
-                .filter(condition)
-                .findFirst();
+        for (Contract contract : contracts) {
+            if (condition.test(contract))
+                return Optional.of(contract);
+        }
+        return Optional.empty();
     }
 
     /**
@@ -114,13 +166,26 @@ public class Contracts implements List<Contract> {
         return contracts.toArray(a);
     }
 
+    /**
+     * The index has one bit per contract, adding more than {@link ContractIndex#CAPACITY} contracts
+     * is rejected here rather than on the next query.
+     */
+    private void ensureCapacity(int added) {
+        if (contracts.size() + added > ContractIndex.CAPACITY)
+            throw new IllegalStateException("Contracts overflow, max " + ContractIndex.CAPACITY +
+                    ", actual " + contracts.size() + ", adding " + added);
+    }
+
     @Override
     public boolean add(Contract contract) {
+        ensureCapacity(1);
+        this.index = null;
         return contracts.add(contract);
     }
 
     @Override
     public boolean remove(Object o) {
+        this.index = null;
         return contracts.remove(o);
     }
 
@@ -131,26 +196,33 @@ public class Contracts implements List<Contract> {
 
     @Override
     public boolean addAll(Collection<? extends Contract> c) {
+        ensureCapacity(c.size());
+        this.index = null;
         return contracts.addAll(c);
     }
 
     @Override
     public boolean addAll(int index, Collection<? extends Contract> c) {
+        ensureCapacity(c.size());
+        this.index = null;
         return contracts.addAll(index, c);
     }
 
     @Override
     public boolean removeAll(Collection<?> c) {
+        this.index = null;
         return contracts.removeAll(c);
     }
 
     @Override
     public boolean retainAll(Collection<?> c) {
+        this.index = null;
         return contracts.retainAll(c);
     }
 
     @Override
     public void clear() {
+        this.index = null;
         contracts.clear();
     }
 
@@ -171,16 +243,20 @@ public class Contracts implements List<Contract> {
 
     @Override
     public Contract set(int index, Contract element) {
+        this.index = null;
         return contracts.set(index, element);
     }
 
     @Override
     public void add(int index, Contract element) {
+        ensureCapacity(1);
+        this.index = null;
         contracts.add(index, element);
     }
 
     @Override
     public Contract remove(int index) {
+        this.index = null;
         return contracts.remove(index);
     }
 
@@ -7,7 +7,6 @@ import com.idear.devices.card.cardkit.core.datamodel.date.CompactTime;
 import com.idear.devices.card.cardkit.core.io.card.file.File;
 import com.idear.devices.card.cardkit.core.utils.BitUtil;
 import com.idear.devices.card.cardkit.core.utils.ByteUtils;
-import com.idear.devices.card.cardkit.core.utils.Strings;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import org.eclipse.keypop.calypso.card.card.SvDebitLogRecord;
@@ -59,7 +58,7 @@ public class DebitLog extends File<DebitLog> {
         this.balance = ByteUtils.extractInt(data, 13, 4, false);
         this.samNum = data[17] & 0xff;
 
-        setContent(Strings.bytesToHex(data));
+        setRawContent(data);
         return this;
     }
 
@@ -73,7 +72,7 @@ public class DebitLog extends File<DebitLog> {
         balance = data.getBalance();
         svtNum = data.getSamTNum();
 
-        setContent(Strings.bytesToHex(data.getRawData()));
+        setRawContent(data.getRawData());
         return this;
     }
 
@@ -6,17 +6,17 @@ import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.Count
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.NetworkCode;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.Profile;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.Version;
+import com.idear.devices.card.cardkit.core.datamodel.date.CalypsoDates;
+import com.idear.devices.card.cardkit.core.datamodel.date.CardClock;
 import com.idear.devices.card.cardkit.core.datamodel.date.LongDate;
 import com.idear.devices.card.cardkit.core.datamodel.decoder.ValueDecoder;
 import com.idear.devices.card.cardkit.core.io.card.file.File;
 import com.idear.devices.card.cardkit.core.datamodel.date.CompactDate;
 import com.idear.devices.card.cardkit.core.utils.BitUtil;
 import com.idear.devices.card.cardkit.core.utils.ByteUtils;
-import com.idear.devices.card.cardkit.core.utils.Strings;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
-import java.time.LocalDate;
 
 /**
  * It contains general information about the transportation application and the cardholder.
@@ -91,8 +91,18 @@ public class Environment extends File<Environment> {
      */
     @JsonIgnore
     public boolean isApplicationExpired() {
+        return isApplicationExpired(CardClock.system());
+    }
+
+    /**
+     * Same as {@link Environment#isApplicationExpired()} with the current day read from the given clock.
+     *
+     * @param clock the clock of the transaction
+     * @return {@code true} if {@link Environment#endDate} is not empty and is expired
+     */
+    public boolean isApplicationExpired(CardClock clock) {
         return !endDate.isEmpty() &&
-                LocalDate.now().isAfter(endDate.getDate());
+                clock.currentEpochDay() > endDate.getEpochDay();
     }
 
     @Override
@@ -170,13 +180,21 @@ public class Environment extends File<Environment> {
 
         this.holderPadding = ByteUtils.leastSignificantNibble(data[28]);
 
-        setContent(Strings.bytesToHex(data));
+        setRawContent(data);
         return this;
     }
 
     public static Environment buildEnvironment(
             int network,
             int profile) {
+        return buildEnvironment(network, profile, CardClock.system());
+    }
+
+    public static Environment buildEnvironment(
+            int network,
+            int profile,
+            CardClock clock) {
+        int today = clock.currentEpochDay();
         Environment env = new Environment();
 
         env.getProfile().setValue(profile);
@@ -188,8 +206,8 @@ public class Environment extends File<Environment> {
         env.setIssuer(1);
         env.setApplication(0);
 
-        env.setIssuingDate(CompactDate.now());
-        env.setEndDate(CompactDate.fromLocalDate(LocalDate.now().plusYears(5)));
+        env.setIssuingDate(CompactDate.fromEpochDay(today));
+        env.setEndDate(CompactDate.fromLocalDate(CalypsoDates.toLocalDate(today).plusYears(5)));
         env.setHolderBirthDate(LongDate.empty());
 
         env.setHolderCompany(0);
@@ -5,13 +5,13 @@ import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.Netwo
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.Provider;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.TransactionType;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.Version;
+import com.idear.devices.card.cardkit.core.datamodel.date.CardClock;
 import com.idear.devices.card.cardkit.core.datamodel.date.DateTimeReal;
 import com.idear.devices.card.cardkit.core.datamodel.location.LocationCode;
 import com.idear.devices.card.cardkit.core.datamodel.decoder.ValueDecoder;
 import com.idear.devices.card.cardkit.core.io.card.file.File;
 import com.idear.devices.card.cardkit.core.utils.BitUtil;
 import com.idear.devices.card.cardkit.core.utils.ByteUtils;
-import com.idear.devices.card.cardkit.core.utils.Strings;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
@@ -60,7 +60,7 @@ public class Event extends File<Event> {
         bit.setNextInteger(firstContractsUsed, 8);
         bit.setNextInteger(data, 16);
 
-        setContent(Strings.bytesToHex(bit.getData()));
+        setRawContent(bit.getData());
         return bit.getData();
     }
 
@@ -81,7 +81,7 @@ public class Event extends File<Event> {
         this.firstContractsUsed   = data[26] & 0xff;
         this.data                 = ByteUtils.extractInt(data, 27, 2, false);
 
-        setContent(Strings.bytesToHex(data));
+        setRawContent(data);
         return this;
     }
 
@@ -94,7 +94,29 @@ public class Event extends File<Event> {
             int transactionNumber,
             int locationId,
             int amount) {
+        return builEvent(transactionType, networkCode, provider, contractId, passenger,
+                transactionNumber, locationId, amount, CardClock.system());
+    }
+
+    /**
+     * Same as {@link #builEvent(int, int, int, int, int, int, int, int)} with the event date-time
+     * taken from the given clock, read once for both time stamps.
+     *
+     * @param clock the clock of the transaction
+     * @return the event, already unparsed
+     */
+    public static Event builEvent(
+            int transactionType,
+            int networkCode,
+            int provider,
+            int contractId,
+            int passenger,
+            int transactionNumber,
+            int locationId,
+            int amount,
+            CardClock clock) {
         Event event = new Event(1);
+        DateTimeReal now = DateTimeReal.now(clock);
 
         event.getTransactionType().setValue(transactionType);
         event.getNetworkId().setValue(networkCode);
@@ -105,8 +127,8 @@ public class Event extends File<Event> {
 
         event.getVersion().setValue(Version.VERSION_3_3);
         event.getProvider().setValue(provider);
-        event.setDateTimeStamp(DateTimeReal.now());
-        event.setFirstDateTimeStamp(DateTimeReal.now());
+        event.setDateTimeStamp(now);
+        event.setFirstDateTimeStamp(now);
         event.getFirstServiceProvider().setValue(provider);
         event.getFirstLocationId().setValue(locationId);
         event.setFirstContractsUsed(getContractBitmap(contractId));
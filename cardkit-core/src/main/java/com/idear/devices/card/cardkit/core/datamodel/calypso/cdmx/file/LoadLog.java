@@ -5,7 +5,6 @@ import com.idear.devices.card.cardkit.core.datamodel.date.CompactDate;
 import com.idear.devices.card.cardkit.core.datamodel.date.CompactTime;
 import com.idear.devices.card.cardkit.core.io.card.file.File;
 import com.idear.devices.card.cardkit.core.utils.ByteUtils;
-import com.idear.devices.card.cardkit.core.utils.Strings;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import org.eclipse.keypop.calypso.card.card.SvLoadLogRecord;
@@ -60,7 +59,7 @@ public class LoadLog extends File<LoadLog> {
         samTNum = ByteUtils.extractInt(data, 160, 3, false);
         svNum = ByteUtils.extractInt(data, 176, 2, false);
 
-        setContent(Strings.bytesToHex(data));
+        setRawContent(data);
         return this;
     }
 
@@ -79,7 +78,7 @@ public class LoadLog extends File<LoadLog> {
         samTNum = data.getSamTNum();
         svNum = data.getSvTNum();
 
-        setContent(Strings.bytesToHex(data.getRawData()));
+        setRawContent(data.getRawData());
         return this;
     }
 
@@ -0,0 +1,317 @@
+package com.idear.devices.card.cardkit.core.datamodel.date;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.TimeZone;
+
+/**
+ * Arithmetic over primitive dates, used by the Calypso date types to avoid building
+ * {@code java.time} objects while records are decoded.
+ * <p>
+ * Dates are handled as epoch days ({@link LocalDate#toEpochDay()}) and date-times as
+ * local epoch seconds ({@link LocalDateTime#toEpochSecond(ZoneOffset)} with {@link ZoneOffset#UTC}),
+ * the Calypso formats are converted with plain integer operations:
+ * <ul>
+ *     <li>Compact date: days since {@code 1997-01-01}.</li>
+ *     <li>Reverse date: compact date with the 14 LSB inverted.</li>
+ *     <li>Long date: {@code AAAAMMDD} numeric value.</li>
+ *     <li>Date time real: seconds since {@code 1997-01-01T00:00:00}.</li>
+ *     <li>Compact time: minutes since midnight.</li>
+ * </ul>
+ * {@link LocalDate} and {@link LocalDateTime} are only created by the {@code to*} methods.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+public abstract class CalypsoDates {
+
+    /** Epoch day of the Calypso reference date {@code 1997-01-01} */
+    public static final int OFFSET_EPOCH_DAY = 9862;
+
+    /** Epoch second of the Calypso reference date-time {@code 1997-01-01T00:00:00} */
+    public static final long OFFSET_EPOCH_SECOND = OFFSET_EPOCH_DAY * 86_400L;
+
+    public static final int SECONDS_PER_DAY = 86_400;
+    public static final int MINUTES_PER_DAY = 1_440;
+
+    /** Mask of the 14 bits of a reverse date */
+    public static final int REVERSE_MASK = 0x3FFF;
+
+    /** Days from {@code 0000-03-01} to {@code 1970-01-01} */
+    private static final int DAYS_0000_TO_1970 = 719_468;
+
+    /** Days of a 400 years cycle */
+    private static final int DAYS_PER_CYCLE = 146_097;
+
+    // ---------------------------------------------------------------------------------------------
+    // Calypso formats
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * @param compactDate days since {@code 1997-01-01}
+     * @return the epoch day
+     */
+    public static int compactToEpochDay(int compactDate) {
+        return OFFSET_EPOCH_DAY + compactDate;
+    }
+
+    /**
+     * @param epochDay the epoch day
+     * @return days since {@code 1997-01-01}
+     */
+    public static int epochDayToCompact(int epochDay) {
+        return epochDay - OFFSET_EPOCH_DAY;
+    }
+
+    /**
+     * @param reverseDate compact date with the 14 LSB inverted
+     * @return the epoch day
+     */
+    public static int reverseToEpochDay(int reverseDate) {
+        return OFFSET_EPOCH_DAY + ((reverseDate & REVERSE_MASK) ^ REVERSE_MASK);
+    }
+
+    /**
+     * @param epochDay the epoch day
+     * @return compact date with the 14 LSB inverted
+     */
+    public static int epochDayToReverse(int epochDay) {
+        return (epochDay - OFFSET_EPOCH_DAY) ^ REVERSE_MASK;
+    }
+
+    /**
+     * @param longDate date in {@code AAAAMMDD} format
+     * @return the epoch day
+     */
+    public static int longDateToEpochDay(int longDate) {
+        return epochDayOf(longDate / 10_000, (longDate / 100) % 100, longDate % 100);
+    }
+
+    /**
+     * @param epochDay the epoch day
+     * @return date in {@code AAAAMMDD} format
+     */
+    public static int epochDayToLongDate(int epochDay) {
+        return civilOf(epochDay);
+    }
+
+    /**
+     * @param dateTimeReal seconds since {@code 1997-01-01T00:00:00}
+     * @return the local epoch second
+     */
+    public static long realToEpochSecond(int dateTimeReal) {
+        return OFFSET_EPOCH_SECOND + dateTimeReal;
+    }
+
+    /**
+     * @param epochSecond the local epoch second
+     * @return seconds since {@code 1997-01-01T00:00:00}
+     */
+    public static int epochSecondToReal(long epochSecond) {
+        return (int) (epochSecond - OFFSET_EPOCH_SECOND);
+    }
+
+    /**
+     * @param epochSecond the local epoch second
+     * @return the epoch day of the second
+     */
+    public static int epochSecondToEpochDay(long epochSecond) {
+        return (int) Math.floorDiv(epochSecond, (long) SECONDS_PER_DAY);
+    }
+
+    /**
+     * @param epochSecond the local epoch second
+     * @return the compact time, minutes since midnight
+     */
+    public static int epochSecondToCompactTime(long epochSecond) {
+        return (int) Math.floorMod(epochSecond, (long) SECONDS_PER_DAY) / 60;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Calendar arithmetic
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Epoch day of a calendar date, proleptic gregorian calendar.
+     *
+     * @param year  the year
+     * @param month the month, 1 to 12
+     * @param day   the day of month, 1 to 31
+     * @return the epoch day
+     */
+    public static int epochDayOf(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yoe = y - era * 400;
+        int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * DAYS_PER_CYCLE + doe - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * Calendar date of an epoch day packed as {@code AAAAMMDD}.
+     *
+     * @param epochDay the epoch day
+     * @return the date in {@code AAAAMMDD} format
+     */
+    public static int civilOf(int epochDay) {
+        int z = epochDay + DAYS_0000_TO_1970;
+        int era = Math.floorDiv(z, DAYS_PER_CYCLE);
+        int doe = z - era * DAYS_PER_CYCLE;
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int day = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 10_000 + month * 100 + day;
+    }
+
+    /**
+     * Adds months to an epoch day, the day of month is clamped to the length of the resulting month,
+     * same rule as {@link LocalDate#plusMonths(long)}.
+     *
+     * @param epochDay the epoch day
+     * @param months   months to add
+     * @return the resulting epoch day
+     */
+    public static int plusMonths(int epochDay, int months) {
+        int civil = civilOf(epochDay);
+        int year = civil / 10_000;
+        int month = (civil / 100) % 100;
+        int day = civil % 100;
+
+        int total = year * 12 + (month - 1) + months;
+        int newYear = Math.floorDiv(total, 12);
+        int newMonth = Math.floorMod(total, 12) + 1;
+        return epochDayOf(newYear, newMonth, Math.min(day, lengthOfMonth(newYear, newMonth)));
+    }
+
+    /**
+     * @param year  the year
+     * @param month the month, 1 to 12
+     * @return number of days of the month
+     */
+    public static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * @param year the year
+     * @return {@code true} if the year is a leap year
+     */
+    public static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * Checks if a date is expired, the date is considered expired {@code daysOffset} days
+     * before the expiration day.
+     *
+     * @param expirationEpochDay the expiration day
+     * @param todayEpochDay      the current day
+     * @param daysOffset         days before the expiration day
+     * @return {@code true} if today is after the expiration day minus the offset
+     */
+    public static boolean isExpired(int expirationEpochDay, int todayEpochDay, int daysOffset) {
+        return todayEpochDay > (long) expirationEpochDay - daysOffset;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Current time
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * The default zone is read on every call so a change of {@link TimeZone#setDefault(TimeZone)} is
+     * seen by the next call, use {@link CardClock#coarse(long)} on hot paths.
+     *
+     * @return the current local epoch second, system clock and default zone
+     */
+    public static long currentEpochSecond() {
+        long millis = System.currentTimeMillis();
+        return Math.floorDiv(millis + TimeZone.getDefault().getOffset(millis), 1000L);
+    }
+
+    /**
+     * @return the current local epoch day, system clock and default zone
+     */
+    public static int currentEpochDay() {
+        return epochSecondToEpochDay(currentEpochSecond());
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Output
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Writes the lower 16 bits of a value, MSB first.
+     *
+     * @param value  the value
+     * @param out    the output buffer
+     * @param offset position of the MSB in the buffer
+     * @return the position after the written bytes
+     */
+    public static int write16(int value, byte[] out, int offset) {
+        out[offset] = (byte) (value >> 8);
+        out[offset + 1] = (byte) value;
+        return offset + 2;
+    }
+
+    /**
+     * Writes a 32 bits value, MSB first.
+     *
+     * @param value  the value
+     * @param out    the output buffer
+     * @param offset position of the MSB in the buffer
+     * @return the position after the written bytes
+     */
+    public static int write32(int value, byte[] out, int offset) {
+        out[offset] = (byte) (value >> 24);
+        out[offset + 1] = (byte) (value >> 16);
+        out[offset + 2] = (byte) (value >> 8);
+        out[offset + 3] = (byte) value;
+        return offset + 4;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // java.time
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * @param epochDay the epoch day
+     * @return the local date
+     */
+    public static LocalDate toLocalDate(int epochDay) {
+        return LocalDate.ofEpochDay(epochDay);
+    }
+
+    /**
+     * @param epochSecond the local epoch second
+     * @return the local date time
+     */
+    public static LocalDateTime toLocalDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * @param compactTime minutes since midnight
+     * @return the local time
+     */
+    public static LocalTime toLocalTime(int compactTime) {
+        return LocalTime.ofSecondOfDay((long) Math.floorMod(compactTime, MINUTES_PER_DAY) * 60);
+    }
+
+}
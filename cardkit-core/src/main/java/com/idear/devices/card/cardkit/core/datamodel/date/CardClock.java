@@ -0,0 +1,84 @@
+package com.idear.devices.card.cardkit.core.datamodel.date;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Source of the current local date-time used by transactions and the data model.
+ * <p>
+ * The time is exposed as a local epoch second (see {@link CalypsoDates}), so the Calypso date types
+ * are built from it with integer arithmetic. Available clocks:
+ * <ul>
+ *     <li>{@link #system()}: reads the system clock on every call.</li>
+ *     <li>{@link #coarse(long)}: caches the system time and refreshes it at most once per resolution,
+ *     for hot loops where second precision is enough.</li>
+ *     <li>{@link #fixed(long)}: always returns the same instant, used by {@link #snapshot()} to give
+ *     a transaction a single consistent instant and to make replayable runs deterministic.</li>
+ * </ul>
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@FunctionalInterface
+public interface CardClock {
+
+    /**
+     * @return the current local epoch second
+     */
+    long currentEpochSecond();
+
+    /**
+     * @return the current local epoch day
+     */
+    default int currentEpochDay() {
+        return CalypsoDates.epochSecondToEpochDay(currentEpochSecond());
+    }
+
+    /**
+     * @return the current local date-time, built on each call
+     */
+    default LocalDateTime now() {
+        return CalypsoDates.toLocalDateTime(currentEpochSecond());
+    }
+
+    /**
+     * Capture the current instant of this clock.
+     *
+     * @return a fixed clock with the current instant
+     */
+    default CardClock snapshot() {
+        return fixed(currentEpochSecond());
+    }
+
+    /**
+     * @return clock reading the system time and the default zone on every call
+     */
+    static CardClock system() {
+        return CalypsoDates::currentEpochSecond;
+    }
+
+    /**
+     * @param epochSecond the local epoch second to return
+     * @return clock always returning the given instant
+     */
+    static CardClock fixed(long epochSecond) {
+        return () -> epochSecond;
+    }
+
+    /**
+     * @param dateTime the local date-time to return
+     * @return clock always returning the given instant
+     */
+    static CardClock fixed(LocalDateTime dateTime) {
+        return fixed(dateTime.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    /**
+     * @param resolutionMillis maximum age of the cached time in milliseconds
+     * @return clock caching the system time
+     */
+    static CardClock coarse(long resolutionMillis) {
+        return new CoarseCardClock(system(), resolutionMillis);
+    }
+}
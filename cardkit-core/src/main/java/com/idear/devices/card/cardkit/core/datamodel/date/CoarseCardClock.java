@@ -0,0 +1,43 @@
+package com.idear.devices.card.cardkit.core.datamodel.date;
+
+/**
+ * {@link CardClock} caching the time of another clock, the source is read again only when the cached
+ * value is older than the resolution. Reading the cached value costs a {@link System#nanoTime()} call.
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+public class CoarseCardClock implements CardClock {
+
+    private final CardClock source;
+    private final long resolutionNanos;
+
+    private volatile long epochSecond;
+    private volatile long expiresAt;
+
+    /**
+     * @param source           clock to cache
+     * @param resolutionMillis maximum age of the cached time in milliseconds
+     */
+    public CoarseCardClock(CardClock source, long resolutionMillis) {
+        if (resolutionMillis <= 0)
+            throw new IllegalArgumentException("Resolution must be greater than 0");
+
+        this.source = source;
+        this.resolutionNanos = resolutionMillis * 1_000_000L;
+        refresh(System.nanoTime());
+    }
+
+    @Override
+    public long currentEpochSecond() {
+        long now = System.nanoTime();
+        if (now - expiresAt >= 0)
+            refresh(now);
+        return epochSecond;
+    }
+
+    private void refresh(long now) {
+        epochSecond = source.currentEpochSecond();
+        expiresAt = now + resolutionNanos;
+    }
+}
@@ -5,9 +5,7 @@ import com.idear.devices.card.cardkit.core.datamodel.IDataModel;
 import com.idear.devices.card.cardkit.core.io.Item;
 import lombok.Getter;
 
-import java.awt.*;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 
 /**
  * Represents a compact date format where the date is stored
@@ -37,6 +35,12 @@ import java.time.temporal.ChronoUnit;
  * </ul>
  * </p>
  *
+ * <p>
+ * The {@link LocalDate} is only built when {@link #getDate()} is called, comparisons and expiry checks
+ * can use {@link #getEpochDay()} instead.
+ * </p>
+ *
+ * @see CalypsoDates
  * @see java.time.LocalDate
  * @see <a href="https://en.wikipedia.org/wiki/ISO_8601">ISO 8601 Standard</a>
  */
@@ -52,8 +56,8 @@ public class CompactDate extends Item implements IDataModel {
     /** Maximum number of days representable (2 bytes → 65,535). */
     public static final int MAX_DAYS = 65_535;
 
-    private final LocalDate date;
     private final int value;
+    private LocalDate date;
 
     /**
      * Returns a CompactDate representing the current system date,
@@ -62,7 +66,17 @@ public class CompactDate extends Item implements IDataModel {
      * @return CompactDate instance representing today's date
      */
     public static CompactDate now() {
-        return fromLocalDate(LocalDate.now());
+        return fromEpochDay(CalypsoDates.currentEpochDay());
+    }
+
+    /**
+     * Returns a CompactDate representing the current date of the given clock.
+     *
+     * @param clock the clock to read
+     * @return CompactDate instance representing the clock date
+     */
+    public static CompactDate now(CardClock clock) {
+        return fromEpochDay(clock.currentEpochDay());
     }
 
     /**
@@ -85,8 +99,17 @@ public class CompactDate extends Item implements IDataModel {
      * @return CompactDate instance
      */
     public static CompactDate fromLocalDate(LocalDate localDate) {
-        int days = (int) ChronoUnit.DAYS.between(OFFSET, localDate);
-        return new CompactDate(days);
+        return fromEpochDay((int) localDate.toEpochDay());
+    }
+
+    /**
+     * Creates a CompactDate instance from an epoch day {@link LocalDate#toEpochDay()}.
+     *
+     * @param epochDay the epoch day
+     * @return CompactDate instance
+     */
+    public static CompactDate fromEpochDay(int epochDay) {
+        return new CompactDate(CalypsoDates.epochDayToCompact(epochDay));
     }
 
     /**
@@ -99,7 +122,22 @@ public class CompactDate extends Item implements IDataModel {
         if (days > MAX_DAYS)
             throw new IllegalArgumentException("Compact date days cannot be greater than " + MAX_DAYS);
         this.value = days;
-        this.date = OFFSET.plusDays(days);
+    }
+
+    /**
+     * @return the date as {@link LocalDate}, built on the first call
+     */
+    public LocalDate getDate() {
+        if (date == null)
+            date = CalypsoDates.toLocalDate(getEpochDay());
+        return date;
+    }
+
+    /**
+     * @return the date as epoch day {@link LocalDate#toEpochDay()}
+     */
+    public int getEpochDay() {
+        return CalypsoDates.compactToEpochDay(value);
     }
 
     /**
@@ -109,9 +147,20 @@ public class CompactDate extends Item implements IDataModel {
      * @return byte array of size 2 representing this date
      */
     public byte[] toBytes() {
-        byte msb = (byte) ((getValue() & 0xFF00) >> 8);
-        byte lsb = (byte) (getValue() & 0x00FF);
-        return new byte[]{msb, lsb};
+        byte[] bytes = new byte[2];
+        writeTo(bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Writes the 2-byte representation of this date into the given buffer, MSB first.
+     *
+     * @param out    output buffer
+     * @param offset position of the MSB in the buffer
+     * @return the position after the written bytes
+     */
+    public int writeTo(byte[] out, int offset) {
+        return CalypsoDates.write16(value, out, offset);
     }
 
     /**
@@ -120,7 +169,7 @@ public class CompactDate extends Item implements IDataModel {
      * @return {@code true} if the date equals the OFFSET, {@code false} otherwise
      */
     public boolean isEmpty() {
-        return getDate().equals(OFFSET);
+        return value == 0;
     }
 
     /**
@@ -130,7 +179,7 @@ public class CompactDate extends Item implements IDataModel {
      */
     @JsonValue
     public String toJsonValue() {
-        return isEmpty() ? "" : date.toString();
+        return isEmpty() ? "" : getDate().toString();
     }
 
     @Override
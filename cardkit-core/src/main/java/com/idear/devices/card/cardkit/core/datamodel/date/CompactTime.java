@@ -7,7 +7,6 @@ import lombok.Getter;
 
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.temporal.ChronoUnit;
 
 /**
  * Represents a compact time format where the time of day is stored as
@@ -28,6 +27,11 @@ import java.time.temporal.ChronoUnit;
  * </ul>
  * </p>
  *
+ * <p>
+ * The {@link LocalTime} is only built when {@link #getTime()} is called.
+ * </p>
+ *
+ * @see CalypsoDates
  * @see java.time.LocalTime
  * @see java.time.LocalDateTime
  * @see <a href="https://en.wikipedia.org/wiki/ISO_8601">ISO 8601 Standard</a>
@@ -41,12 +45,12 @@ public class CompactTime extends Item implements IDataModel {
      */
     public static final LocalTime OFFSET = LocalTime.MIDNIGHT;
 
-    /** The LocalTime representation of this compact time. */
-    private final LocalTime time;
-
     /** The number of minutes since {@link #OFFSET}. */
     private final int value;
 
+    /** The LocalTime representation of this compact time, built on demand. */
+    private LocalTime time;
+
     /**
      * Constructs a CompactTime from the specified minute value.
      *
@@ -54,7 +58,15 @@ public class CompactTime extends Item implements IDataModel {
      */
     public CompactTime(int value) {
         this.value = value;
-        this.time = OFFSET.plusMinutes(value);
+    }
+
+    /**
+     * @return the time as {@link LocalTime}, built on the first call
+     */
+    public LocalTime getTime() {
+        if (time == null)
+            time = CalypsoDates.toLocalTime(value);
+        return time;
     }
 
     /**
@@ -64,7 +76,27 @@ public class CompactTime extends Item implements IDataModel {
      * @return CompactTime instance representing the current time
      */
     public static CompactTime now() {
-        return fromLocalDateTime(LocalDateTime.now());
+        return fromEpochSecond(CalypsoDates.currentEpochSecond());
+    }
+
+    /**
+     * Returns a CompactTime representing the current time of the given clock.
+     *
+     * @param clock the clock to read
+     * @return CompactTime instance representing the clock time
+     */
+    public static CompactTime now(CardClock clock) {
+        return fromEpochSecond(clock.currentEpochSecond());
+    }
+
+    /**
+     * Creates a CompactTime from a local epoch second, keeping the minutes since midnight.
+     *
+     * @param epochSecond the local epoch second
+     * @return CompactTime instance
+     */
+    public static CompactTime fromEpochSecond(long epochSecond) {
+        return new CompactTime(CalypsoDates.epochSecondToCompactTime(epochSecond));
     }
 
     /**
@@ -75,9 +107,20 @@ public class CompactTime extends Item implements IDataModel {
      * @return byte array of size 2 representing this time
      */
     public byte[] toBytes() {
-        byte msb = (byte) ((value & 0xFF00) >> 8);
-        byte lsb = (byte) (value & 0x00FF);
-        return new byte[]{msb, lsb};
+        byte[] bytes = new byte[2];
+        writeTo(bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Writes the 2-byte representation of this time into the given buffer, MSB first.
+     *
+     * @param out    output buffer
+     * @param offset position of the MSB in the buffer
+     * @return the position after the written bytes
+     */
+    public int writeTo(byte[] out, int offset) {
+        return CalypsoDates.write16(value, out, offset);
     }
 
     /**
@@ -98,8 +141,7 @@ public class CompactTime extends Item implements IDataModel {
      * @return CompactTime instance
      */
     public static CompactTime fromLocalDateTime(LocalDateTime localDateTime) {
-        int minutes = (int) ChronoUnit.MINUTES.between(OFFSET, localDateTime.toLocalTime());
-        return new CompactTime(minutes);
+        return fromLocalTime(localDateTime.toLocalTime());
     }
 
     /**
@@ -110,8 +152,7 @@ public class CompactTime extends Item implements IDataModel {
      * @return CompactTime instance
      */
     public static CompactTime fromLocalTime(LocalTime localTime) {
-        int minutes = (int) ChronoUnit.MINUTES.between(OFFSET, localTime);
-        return new CompactTime(minutes);
+        return new CompactTime(localTime.toSecondOfDay() / 60);
     }
 
     /**
@@ -120,7 +161,7 @@ public class CompactTime extends Item implements IDataModel {
      * @return {@code true} if the time equals the OFFSET, {@code false} otherwise
      */
     public boolean isEmpty() {
-        return time.equals(OFFSET);
+        return Math.floorMod(value, CalypsoDates.MINUTES_PER_DAY) == 0;
     }
 
     /**
@@ -130,7 +171,7 @@ public class CompactTime extends Item implements IDataModel {
      */
     @JsonValue
     public String toJsonValue() {
-        return time.toString();
+        return getTime().toString();
     }
 
     @Override
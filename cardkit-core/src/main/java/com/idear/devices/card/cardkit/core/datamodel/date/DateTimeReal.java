@@ -3,11 +3,13 @@ package com.idear.devices.card.cardkit.core.datamodel.date;
 import com.fasterxml.jackson.annotation.JsonValue;
 import com.idear.devices.card.cardkit.core.datamodel.IDataModel;
 import com.idear.devices.card.cardkit.core.io.Item;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
 
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 
 /**
  * Represents a real date-time value as the number of seconds elapsed
@@ -25,6 +27,12 @@ import java.time.temporal.ChronoUnit;
  * </ul>
  * </p>
  *
+ * <p>
+ * The {@link LocalDateTime} is only built when {@link #getDateTime()} is called, comparisons can use
+ * {@link #getEpochSecond()} instead.
+ * </p>
+ *
+ * @see CalypsoDates
  * @see java.time.LocalDateTime
  * @see <a href="https://en.wikipedia.org/wiki/ISO_8601">ISO 8601 Standard</a>
  */
@@ -38,19 +46,32 @@ public class DateTimeReal extends Item implements IDataModel {
      */
     public static final LocalDateTime OFFSET = LocalDateTime.of(1997, 1, 1, 0, 0, 0);
 
-    /** The LocalDateTime represented by this instance. */
-    private final LocalDateTime dateTime;
-
     /** The number of seconds elapsed since {@link #OFFSET}. */
     private final int value;
 
+    /** The LocalDateTime represented by this instance, built on demand. */
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private LocalDateTime dateTime;
+
     /**
      * Returns a DateTimeReal representing the current system date-time.
      *
      * @return DateTimeReal instance for now
      */
     public static DateTimeReal now() {
-        return fromLocalDateTime(LocalDateTime.now());
+        return fromEpochSecond(CalypsoDates.currentEpochSecond());
+    }
+
+    /**
+     * Returns a DateTimeReal representing the current date-time of the given clock.
+     *
+     * @param clock the clock to read
+     * @return DateTimeReal instance for the clock instant
+     */
+    public static DateTimeReal now(CardClock clock) {
+        return fromEpochSecond(clock.currentEpochSecond());
     }
 
     /**
@@ -60,7 +81,29 @@ public class DateTimeReal extends Item implements IDataModel {
      */
     private DateTimeReal(int value) {
         this.value = value;
-        this.dateTime = OFFSET.plusSeconds(value);
+    }
+
+    /**
+     * @return the date-time as {@link LocalDateTime}, built on the first call
+     */
+    public LocalDateTime getDateTime() {
+        if (dateTime == null)
+            dateTime = CalypsoDates.toLocalDateTime(getEpochSecond());
+        return dateTime;
+    }
+
+    /**
+     * @return the local epoch second of this date-time
+     */
+    public long getEpochSecond() {
+        return CalypsoDates.realToEpochSecond(value);
+    }
+
+    /**
+     * @return the epoch day of this date-time
+     */
+    public int getEpochDay() {
+        return CalypsoDates.epochSecondToEpochDay(getEpochSecond());
     }
 
     /**
@@ -80,8 +123,17 @@ public class DateTimeReal extends Item implements IDataModel {
      * @return DateTimeReal instance
      */
     public static DateTimeReal fromLocalDateTime(LocalDateTime localDateTime) {
-        int seconds = (int) ChronoUnit.SECONDS.between(OFFSET, localDateTime);
-        return fromSeconds(seconds);
+        return fromEpochSecond(localDateTime.toEpochSecond(java.time.ZoneOffset.UTC));
+    }
+
+    /**
+     * Creates a DateTimeReal from a local epoch second.
+     *
+     * @param epochSecond the local epoch second
+     * @return DateTimeReal instance
+     */
+    public static DateTimeReal fromEpochSecond(long epochSecond) {
+        return fromSeconds(CalypsoDates.epochSecondToReal(epochSecond));
     }
 
     /**
@@ -90,15 +142,39 @@ public class DateTimeReal extends Item implements IDataModel {
      * and the second byte is the least significant byte (LSB).
      *
      * <p>
-     * Note: Only the lower 16 bits of the seconds value are stored.
+     * Note: Only the lower 16 bits of the seconds value are stored, see {@link #toFullBytes()} for the 4 bytes.
      * </p>
      *
      * @return byte array of size 2 representing this value
      */
     public byte[] toBytes() {
-        byte msb = (byte) ((value & 0xFF00) >> 8);
-        byte lsb = (byte) (value & 0x00FF);
-        return new byte[]{msb, lsb};
+        byte[] bytes = new byte[2];
+        CalypsoDates.write16(value, bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Converts this DateTimeReal to a 4-byte representation, MSB first, same layout as
+     * {@link #writeTo(byte[], int)}.
+     *
+     * @return byte array of size 4 representing this value
+     */
+    public byte[] toFullBytes() {
+        byte[] bytes = new byte[4];
+        writeTo(bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Writes the full 4-byte representation of the seconds value into the given buffer, MSB first,
+     * as stored in the event records.
+     *
+     * @param out    output buffer
+     * @param offset position of the MSB in the buffer
+     * @return the position after the written bytes
+     */
+    public int writeTo(byte[] out, int offset) {
+        return CalypsoDates.write32(value, out, offset);
     }
 
     /**
@@ -109,7 +185,7 @@ public class DateTimeReal extends Item implements IDataModel {
      */
     @JsonValue
     public String toJsonValue() {
-        return dateTime.toString();
+        return getDateTime().toString();
     }
 
     @Override
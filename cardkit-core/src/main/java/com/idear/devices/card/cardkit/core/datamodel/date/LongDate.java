@@ -5,6 +5,7 @@ import com.idear.devices.card.cardkit.core.datamodel.IDataModel;
 import com.idear.devices.card.cardkit.core.io.Item;
 import lombok.Getter;
 
+import java.time.DateTimeException;
 import java.time.LocalDate;
 
 /**
@@ -28,6 +29,12 @@ import java.time.LocalDate;
  *     <li>{@code LongDate.fromValue(0)} // represents empty date</li>
  * </ul>
  * </p>
+ *
+ * <p>
+ * The {@link LocalDate} is only built when {@link #getDate()} is called.
+ * </p>
+ *
+ * @see CalypsoDates
  */
 @Getter
 public class LongDate extends Item implements IDataModel {
@@ -35,8 +42,8 @@ public class LongDate extends Item implements IDataModel {
     /** Numeric value of the date in AAAAMMDD format. 0 represents an empty date. */
     private final int value;
 
-    /** LocalDate representation of this LongDate. Null if value is 0. */
-    private final LocalDate date;
+    /** LocalDate representation of this LongDate, built on demand. Null if value is 0. */
+    private LocalDate date;
 
     /**
      * Constructs a LongDate from an integer value in AAAAMMDD format.
@@ -44,16 +51,30 @@ public class LongDate extends Item implements IDataModel {
      * @param value numeric date value (e.g., 20251013), or 0 for empty
      */
     private LongDate(int value) {
-        this.value = value;
-
-        if (value == 0) {
-            this.date = null;
-        } else {
+        if (value != 0) {
             int year = value / 10000;
             int month = (value / 100) % 100;
             int day = value % 100;
-            this.date = LocalDate.of(year, month, day);
+            if (month < 1 || month > 12 || day < 1 || day > CalypsoDates.lengthOfMonth(year, month))
+                throw new DateTimeException("Invalid long date: " + value);
         }
+        this.value = value;
+    }
+
+    /**
+     * @return the date as {@link LocalDate}, built on the first call, null if empty
+     */
+    public LocalDate getDate() {
+        if (date == null && value != 0)
+            date = CalypsoDates.toLocalDate(getEpochDay());
+        return date;
+    }
+
+    /**
+     * @return the date as epoch day, {@link Integer#MIN_VALUE} if empty
+     */
+    public int getEpochDay() {
+        return value == 0 ? Integer.MIN_VALUE : CalypsoDates.longDateToEpochDay(value);
     }
 
     /**
@@ -66,8 +87,7 @@ public class LongDate extends Item implements IDataModel {
         if (date == null) {
             return new LongDate(0);
         }
-        int value = date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth();
-        return new LongDate(value);
+        return new LongDate(CalypsoDates.epochDayToLongDate((int) date.toEpochDay()));
     }
 
     /**
@@ -96,15 +116,38 @@ public class LongDate extends Item implements IDataModel {
      * and the second byte is the least significant byte (LSB).
      *
      * <p>
-     * Note: Only the lower 16 bits of the value are stored.
+     * Note: Only the lower 16 bits of the value are stored, see {@link #toFullBytes()} for the 4 bytes.
      * </p>
      *
      * @return byte array of size 2 representing this value
      */
     public byte[] toBytes() {
-        byte msb = (byte) ((value & 0xFF00) >> 8);
-        byte lsb = (byte) (value & 0x00FF);
-        return new byte[]{msb, lsb};
+        byte[] bytes = new byte[2];
+        CalypsoDates.write16(value, bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Converts this LongDate to a 4-byte representation, MSB first, same layout as
+     * {@link #writeTo(byte[], int)}.
+     *
+     * @return byte array of size 4 representing this value
+     */
+    public byte[] toFullBytes() {
+        byte[] bytes = new byte[4];
+        writeTo(bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Writes the full 4-byte {@code AAAAMMDD} value into the given buffer, MSB first.
+     *
+     * @param out    output buffer
+     * @param offset position of the MSB in the buffer
+     * @return the position after the written bytes
+     */
+    public int writeTo(byte[] out, int offset) {
+        return CalypsoDates.write32(value, out, offset);
     }
 
     /**
@@ -114,7 +157,7 @@ public class LongDate extends Item implements IDataModel {
      */
     @JsonValue
     public String toJsonValue() {
-        return date != null ? date.toString() : "";
+        return value != 0 ? getDate().toString() : "";
     }
 
     /**
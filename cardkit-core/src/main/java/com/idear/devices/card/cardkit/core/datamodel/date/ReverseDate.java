@@ -3,10 +3,10 @@ package com.idear.devices.card.cardkit.core.datamodel.date;
 import com.fasterxml.jackson.annotation.JsonValue;
 import com.idear.devices.card.cardkit.core.datamodel.IDataModel;
 import com.idear.devices.card.cardkit.core.io.Item;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 
 /**
  * Represents a compact date format similar to {@link CompactDate},
@@ -30,6 +30,13 @@ import java.time.temporal.ChronoUnit;
  *     <li>{@code unReverseDays()} returns the original day count before inversion.</li>
  * </ul>
  * </p>
+ *
+ * <p>
+ * The {@link LocalDate} is only built when {@link #getDate()} is called, expiry checks can use
+ * {@link #getEpochDay()} instead.
+ * </p>
+ *
+ * @see CalypsoDates
  */
 @Getter
 public class ReverseDate extends Item implements IDataModel {
@@ -43,8 +50,12 @@ public class ReverseDate extends Item implements IDataModel {
     /** Stored inverted value (14 bits). */
     private final int value;
 
-    /** Human-readable date computed from the non-inverted value. */
-    private final LocalDate date;
+    /** Human-readable date computed from the non-inverted value, built on demand. */
+    private LocalDate date;
+
+    /** True for {@link #zero()}, a reverse date without date */
+    @Getter(AccessLevel.NONE)
+    private final boolean zero;
 
     /**
      * Internal constructor from a reversed day value.
@@ -55,23 +66,38 @@ public class ReverseDate extends Item implements IDataModel {
         validate14Bits(reversedDays);
 
         this.value = reversedDays;
-
-        int normalDays = reversedDays ^ MASK_14_BITS;
-        this.date = OFFSET.plusDays(normalDays);
+        this.zero = false;
     }
 
     /**
-     * Internal constructor from a reversed day value.
+     * Internal constructor of a reverse date without date.
      *
      * @param value 14-bit inverted day count
+     * @param zero  true if there is no date
      */
-    private ReverseDate(int value, LocalDate localDate) {
+    private ReverseDate(int value, boolean zero) {
         this.value = value;
-        this.date = localDate;
+        this.zero = zero;
     }
 
     public static ReverseDate zero() {
-        return new ReverseDate(0, null);
+        return new ReverseDate(0, true);
+    }
+
+    /**
+     * @return the date as {@link LocalDate}, built on the first call, null for {@link #zero()}
+     */
+    public LocalDate getDate() {
+        if (date == null && !zero)
+            date = CalypsoDates.toLocalDate(getEpochDay());
+        return date;
+    }
+
+    /**
+     * @return the date as epoch day, {@link Integer#MIN_VALUE} for {@link #zero()}
+     */
+    public int getEpochDay() {
+        return zero ? Integer.MIN_VALUE : CalypsoDates.reverseToEpochDay(value);
     }
 
     /**
@@ -102,7 +128,27 @@ public class ReverseDate extends Item implements IDataModel {
      * @return ReverseDate instance for today
      */
     public static ReverseDate now() {
-        return fromLocalDate(LocalDate.now());
+        return fromEpochDay(CalypsoDates.currentEpochDay());
+    }
+
+    /**
+     * Returns a ReverseDate representing the current date of the given clock.
+     *
+     * @param clock the clock to read
+     * @return ReverseDate instance for the clock date
+     */
+    public static ReverseDate now(CardClock clock) {
+        return fromEpochDay(clock.currentEpochDay());
+    }
+
+    /**
+     * Creates a ReverseDate from an epoch day {@link LocalDate#toEpochDay()}.
+     *
+     * @param epochDay the epoch day
+     * @return ReverseDate instance
+     */
+    public static ReverseDate fromEpochDay(int epochDay) {
+        return fromDays(CalypsoDates.epochDayToCompact(epochDay));
     }
 
     public static ReverseDate fromReversedValue(int reversedDays) {
@@ -116,8 +162,7 @@ public class ReverseDate extends Item implements IDataModel {
      * @return ReverseDate instance
      */
     public static ReverseDate fromLocalDate(LocalDate localDate) {
-        int days = (int) ChronoUnit.DAYS.between(CompactDate.OFFSET, localDate);
-        return fromDays(days);
+        return fromEpochDay((int) localDate.toEpochDay());
     }
 
     /**
@@ -136,10 +181,20 @@ public class ReverseDate extends Item implements IDataModel {
      * @return byte array of size 2 representing this date
      */
     public byte[] toBytes() {
-        return new byte[]{
-                (byte) ((value >> 8) & 0xFF),
-                (byte) (value & 0xFF)
-        };
+        byte[] bytes = new byte[2];
+        writeTo(bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Writes the 2-byte representation of this date into the given buffer, MSB first.
+     *
+     * @param out    output buffer
+     * @param offset position of the MSB in the buffer
+     * @return the position after the written bytes
+     */
+    public int writeTo(byte[] out, int offset) {
+        return CalypsoDates.write16(value, out, offset);
     }
 
     /**
@@ -149,7 +204,7 @@ public class ReverseDate extends Item implements IDataModel {
      */
     @JsonValue
     public String toJsonValue() {
-        return date.toString();
+        return zero ? "" : getDate().toString();
     }
 
     private static void validate14Bits(int value) {
@@ -0,0 +1,143 @@
+package com.idear.devices.card.cardkit.core.datamodel.decoder;
+
+import com.idear.devices.card.cardkit.core.datamodel.IDataModel;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable lookup table from {@link IDataModel#getValue()} and from constant name to the constant
+ * of an enum, built once per enum class and shared.
+ * <p>
+ * When the values of the enum fit in a range of {@link #MAX_DENSE_RANGE} entries the table is a dense
+ * array indexed by {@code value - min}, otherwise a sorted array searched by binary search.
+ * If several constants share a value the first declared wins, same as a linear scan over {@code values()}.
+ * </p>
+ *
+ * @param <E> the enum type that implements {@link IDataModel}
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+public final class EnumLookup<E extends Enum<E> & IDataModel> {
+
+    /** Maximum range of values stored in a dense array */
+    public static final int MAX_DENSE_RANGE = 4096;
+
+    private static final ClassValue<EnumLookup<?>> CACHE = new ClassValue<EnumLookup<?>>() {
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        protected EnumLookup<?> computeValue(Class<?> type) {
+            return new EnumLookup(type);
+        }
+    };
+
+    private final Class<E> enumClass;
+    private final int min;
+    private final E[] dense;
+    private final int[] sortedValues;
+    private final E[] sortedConstants;
+    private final Map<String, E> byName;
+
+    private EnumLookup(Class<E> enumClass) {
+        this.enumClass = enumClass;
+        E[] constants = enumClass.getEnumConstants();
+
+        int lo = Integer.MAX_VALUE;
+        int hi = Integer.MIN_VALUE;
+        Map<String, E> names = new HashMap<>(constants.length * 2);
+        for (E constant : constants) {
+            lo = Math.min(lo, constant.getValue());
+            hi = Math.max(hi, constant.getValue());
+            names.put(constant.name().toUpperCase(Locale.ROOT), constant);
+        }
+        this.byName = Collections.unmodifiableMap(names);
+
+        if (constants.length > 0 && (long) hi - lo < MAX_DENSE_RANGE) {
+            this.min = lo;
+            this.dense = Arrays.copyOf(constants, hi - lo + 1);
+            Arrays.fill(dense, null);
+            for (E constant : constants) {
+                int index = constant.getValue() - lo;
+                if (dense[index] == null)
+                    dense[index] = constant;
+            }
+            this.sortedValues = null;
+            this.sortedConstants = null;
+        } else {
+            E[] sorted = constants.clone();
+            // stable sort, the first declared constant of a value stays first
+            Arrays.sort(sorted, (a, b) -> Integer.compare(a.getValue(), b.getValue()));
+            int[] values = new int[sorted.length];
+            int size = 0;
+            for (E constant : sorted) {
+                if (size > 0 && values[size - 1] == constant.getValue())
+                    continue;
+                values[size] = constant.getValue();
+                sorted[size++] = constant;
+            }
+            this.min = 0;
+            this.dense = null;
+            this.sortedValues = Arrays.copyOf(values, size);
+            this.sortedConstants = Arrays.copyOf(sorted, size);
+        }
+    }
+
+    /**
+     * Get the shared lookup table of the given enum.
+     *
+     * @param enumClass the enum class
+     * @param <E>       the enum type that implements {@link IDataModel}
+     * @return the lookup table
+     */
+    @SuppressWarnings("unchecked")
+    public static <E extends Enum<E> & IDataModel> EnumLookup<E> of(Class<E> enumClass) {
+        return (EnumLookup<E>) CACHE.get(enumClass);
+    }
+
+    /**
+     * Find the constant of the given value.
+     *
+     * @param value the raw value
+     * @return the constant, or {@code null} if no constant has this value
+     */
+    public E get(int value) {
+        if (dense != null) {
+            int index = value - min;
+            return index >= 0 && index < dense.length ? dense[index] : null;
+        }
+        int index = Arrays.binarySearch(sortedValues, value);
+        return index >= 0 ? sortedConstants[index] : null;
+    }
+
+    /**
+     * Find the constant of the given value.
+     *
+     * @param value         the raw value
+     * @param defaultDecode the constant returned if no constant has this value
+     * @return the constant, or the default
+     */
+    public E decode(int value, E defaultDecode) {
+        E constant = get(value);
+        return constant != null ? constant : defaultDecode;
+    }
+
+    /**
+     * Find a constant by name, case-insensitive.
+     *
+     * @param name the constant name
+     * @return the constant, or {@code null} if there is no constant with this name
+     */
+    public E byName(String name) {
+        return name != null ? byName.get(name.toUpperCase(Locale.ROOT)) : null;
+    }
+
+    /**
+     * @return the enum class of the table
+     */
+    public Class<E> getEnumClass() {
+        return enumClass;
+    }
+}
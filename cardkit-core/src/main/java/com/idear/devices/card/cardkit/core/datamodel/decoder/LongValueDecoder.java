@@ -56,10 +56,9 @@ public class LongValueDecoder<E extends Enum<E> & IDataModel> {
      * @throws IllegalArgumentException if no matching constant is found
      */
     public E decode() {
-        for (E constant : enumClass.getEnumConstants()) {
-            if (constant.getValue() == value)
-                return constant;
-        }
+        E constant = value == (int) value ? EnumLookup.of(enumClass).get((int) value) : null;
+        if (constant != null)
+            return constant;
 
         throw new IllegalArgumentException(
                 String.format(
@@ -78,11 +77,8 @@ public class LongValueDecoder<E extends Enum<E> & IDataModel> {
      * @return the decoded enum constant or the fallback
      */
     public E decode(E defaultDecode) {
-        try {
-            return decode();
-        } catch (Exception e) {
-            return defaultDecode;
-        }
+        E constant = value == (int) value ? EnumLookup.of(enumClass).get((int) value) : null;
+        return constant != null ? constant : defaultDecode;
     }
 
     /**
@@ -94,11 +90,8 @@ public class LongValueDecoder<E extends Enum<E> & IDataModel> {
      */
     @JsonValue
     public String toJsonValue() {
-        try {
-            return decode().name();
-        } catch (Exception e) {
-            return Long.toHexString(value);
-        }
+        E constant = value == (int) value ? EnumLookup.of(enumClass).get((int) value) : null;
+        return constant != null ? constant.name() : Long.toHexString(value);
     }
 
     @Override
@@ -118,11 +111,9 @@ public class LongValueDecoder<E extends Enum<E> & IDataModel> {
      * @throws IllegalArgumentException if the input is neither a valid enum name nor a hex value
      */
     public static <E extends Enum<E> & IDataModel> LongValueDecoder<E> fromHexStringValue(String input, Class<E> enumClass, long defaultValue) {
-        for (E constant : enumClass.getEnumConstants()) {
-            if (constant.name().equalsIgnoreCase(input)) {
-                return new LongValueDecoder<>(constant.getValue(), enumClass, defaultValue);
-            }
-        }
+        E constant = EnumLookup.of(enumClass).byName(input);
+        if (constant != null)
+            return new LongValueDecoder<>(constant.getValue(), enumClass, defaultValue);
 
         try {
             int parsedValue = Integer.parseInt(input, 16);
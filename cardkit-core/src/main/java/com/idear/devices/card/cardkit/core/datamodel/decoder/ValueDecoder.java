@@ -66,10 +66,9 @@ public class ValueDecoder<E extends Enum<E> & IDataModel> implements IDataModel
      * @throws IllegalArgumentException if no matching constant is found
      */
     public E decode() {
-        for (E constant : enumClass.getEnumConstants()) {
-            if (constant.getValue() == value)
-                return constant;
-        }
+        E constant = EnumLookup.of(enumClass).get(value);
+        if (constant != null)
+            return constant;
 
         throw new IllegalArgumentException(
                 String.format(
@@ -88,11 +87,8 @@ public class ValueDecoder<E extends Enum<E> & IDataModel> implements IDataModel
      * @return the decoded enum constant or the fallback
      */
     public E decode(E defaultDecode) {
-        try {
-            return decode();
-        } catch (Exception e) {
-            return defaultDecode;
-        }
+        E constant = EnumLookup.of(enumClass).get(value);
+        return constant != null ? constant : defaultDecode;
     }
 
     /**
@@ -104,11 +100,8 @@ public class ValueDecoder<E extends Enum<E> & IDataModel> implements IDataModel
      */
     @JsonValue
     public String toJsonValue() {
-        try {
-            return decode().name();
-        } catch (Exception e) {
-            return Integer.toHexString(value);
-        }
+        E constant = EnumLookup.of(enumClass).get(value);
+        return constant != null ? constant.name() : Integer.toHexString(value);
     }
 
     @Override
@@ -128,11 +121,9 @@ public class ValueDecoder<E extends Enum<E> & IDataModel> implements IDataModel
      * @throws IllegalArgumentException if the input is neither a valid enum name nor a hex value
      */
     public static <E extends Enum<E> & IDataModel> ValueDecoder<E> fromHexStringValue(String input, Class<E> enumClass, int defaultValue) {
-        for (E constant : enumClass.getEnumConstants()) {
-            if (constant.name().equalsIgnoreCase(input)) {
-                return new ValueDecoder<>(constant.getValue(), enumClass, defaultValue);
-            }
-        }
+        E constant = EnumLookup.of(enumClass).byName(input);
+        if (constant != null)
+            return new ValueDecoder<>(constant.getValue(), enumClass, defaultValue);
 
         try {
             int parsedValue = Integer.parseInt(input, 16);
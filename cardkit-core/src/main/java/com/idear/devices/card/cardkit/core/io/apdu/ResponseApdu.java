@@ -4,33 +4,111 @@ import com.idear.devices.card.cardkit.core.exception.ApduResponseException;
 
 import javax.smartcardio.ResponseAPDU;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.function.Predicate;
 
+/**
+ * Response APDU, a view on the raw response array: data followed by SW1 SW2.
+ * <p>
+ * The array is not copied, the status word and the data are read in place. {@link #getBytes()} and
+ * {@link #getData()} return copies, {@link #getDataByte(int)}, {@link #getDataBuffer()} and
+ * {@link #copyOfRange(int, int)} give access to the data without copying the whole response.
+ * The array must not be modified while the response is used.
+ * </p>
+ */
 public class ResponseApdu implements Serializable {
-    private ResponseAPDU apdu;
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
 
+    /**
+     * @param bytes the response, data followed by SW1 SW2, not copied
+     */
     public ResponseApdu(byte[] bytes) {
-        this.apdu = new ResponseAPDU(bytes);
+        this(bytes, 0, bytes.length);
+    }
+
+    /**
+     * @param bytes  array holding the response, not copied
+     * @param offset offset of the response in the array
+     * @param length length of the response, data followed by SW1 SW2
+     */
+    public ResponseApdu(byte[] bytes, int offset, int length) {
+        if (length < 2)
+            throw new IllegalArgumentException("apdu must be at least 2 bytes long");
+        if (offset < 0 || offset + length > bytes.length)
+            throw new IllegalArgumentException("response out of the array bounds");
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
     }
 
     public int getSW() {
-        return apdu.getSW();
+        return (getSW1() << 8) | getSW2();
     }
 
     public int getSW1() {
-        return apdu.getSW1();
+        return bytes[offset + length - 2] & 0xff;
     }
 
     public int getSW2() {
-        return apdu.getSW2();
+        return bytes[offset + length - 1] & 0xff;
     }
 
     public byte[] getBytes() {
-        return apdu.getBytes();
+        return Arrays.copyOfRange(bytes, offset, offset + length);
     }
 
     public byte[] getData() {
-        return apdu.getData();
+        return Arrays.copyOfRange(bytes, offset, offset + getDataLength());
+    }
+
+    /**
+     * @return the length of the data, without SW1 SW2
+     */
+    public int getDataLength() {
+        return length - 2;
+    }
+
+    /**
+     * @param index index in the data
+     * @return the data byte, read in place
+     */
+    public byte getDataByte(int index) {
+        if (index < 0 || index >= getDataLength())
+            throw new IndexOutOfBoundsException("index " + index + ", data length " + getDataLength());
+        return bytes[offset + index];
+    }
+
+    /**
+     * @return a read-only buffer on the data, sharing the response array
+     */
+    public ByteBuffer getDataBuffer() {
+        return ByteBuffer.wrap(bytes, offset, getDataLength()).slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Copies a range of the response, offsets relative to the start of the response.
+     *
+     * @param from start of the range, inclusive
+     * @param to   end of the range, exclusive, may be past the response end, the copy is then padded with zeros
+     * @return the copy
+     */
+    public byte[] copyOfRange(int from, int to) {
+        if (from < 0 || from > length)
+            throw new IndexOutOfBoundsException("from " + from + ", response length " + length);
+
+        byte[] copy = new byte[to - from];
+        System.arraycopy(bytes, offset + from, copy, 0, Math.min(to, length) - from);
+        return copy;
+    }
+
+    /**
+     * @return the response as a {@link ResponseAPDU}, created on each call
+     */
+    public ResponseAPDU toResponseAPDU() {
+        return new ResponseAPDU(getBytes());
     }
 
     public boolean isSuccess() {
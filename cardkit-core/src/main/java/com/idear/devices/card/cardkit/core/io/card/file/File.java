@@ -2,29 +2,53 @@ package com.idear.devices.card.cardkit.core.io.card.file;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.idear.devices.card.cardkit.core.io.Item;
-import com.idear.devices.card.cardkit.core.utils.Strings;
-import lombok.AllArgsConstructor;
+import com.idear.devices.card.cardkit.core.utils.ByteUtils;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 /**
  * Represents a generic file stored on a card.
  * Subclasses must implement their own parsing and unparsing logic.
  *
+ * <p>
+ * The file retains the raw bytes of its last parse or unparse, the hex representation
+ * {@link #getContent()} is only computed when it is requested (JSON, {@code toString}) and then cached.
+ * The file owns its raw bytes, arrays are copied when they are set and when they are read.
+ * </p>
+ *
  * @param <T> the specific subclass type extending File
  */
 @EqualsAndHashCode(callSuper = true)
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public abstract class File<T extends File<T>> extends Item {
 
+    /**
+     * Raw bytes of the file, a private copy
+     */
+    @JsonIgnore
+    private byte[] rawContent;
+
+    /**
+     * Hex form of {@link #rawContent}, computed on demand
+     */
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
     private String content;
 
     @JsonIgnore
     private byte fileId;
 
+    protected File(byte[] rawContent, byte fileId) {
+        this.rawContent = rawContent != null ? rawContent.clone() : null;
+        this.fileId = fileId;
+    }
+
     /**
      * Converts the file object into a byte array representation.
      *
@@ -41,10 +65,50 @@ public abstract class File<T extends File<T>> extends Item {
     public abstract T parse(byte[] data);
 
     /**
-     * Update the {@link File#content} unparsing the file
+     * Set the raw bytes of the file and discard the cached hex content.
+     *
+     * @param rawContent the raw bytes, copied
+     */
+    public void setRawContent(byte[] rawContent) {
+        this.rawContent = rawContent != null ? rawContent.clone() : null;
+        this.content = null;
+    }
+
+    /**
+     * Get the raw bytes of the file.
+     *
+     * @return a copy of the raw bytes, or {@code null} if the file has no raw bytes
+     */
+    public byte[] getRawContent() {
+        return rawContent != null ? rawContent.clone() : null;
+    }
+
+    /**
+     * Get the hex representation of the raw bytes, computed on the first call.
+     *
+     * @return the hex content, or {@code null} if the file has no raw bytes
+     */
+    public String getContent() {
+        if (content == null && rawContent != null)
+            content = ByteUtils.toHex(rawContent);
+        return content;
+    }
+
+    /**
+     * Set the content from its hex representation.
+     *
+     * @param content the hex content
+     */
+    public void setContent(String content) {
+        this.rawContent = content != null ? ByteUtils.hexToBytes(content) : null;
+        this.content = content;
+    }
+
+    /**
+     * Update the {@link File#rawContent} unparsing the file
      */
     public void update() {
-        this.content = Strings.bytesToHex(unparse());
+        setRawContent(unparse());
     }
 
 }
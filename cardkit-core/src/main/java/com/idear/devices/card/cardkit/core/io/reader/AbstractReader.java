@@ -6,6 +6,8 @@ import lombok.extern.slf4j.Slf4j;
 
 import javax.smartcardio.CommandAPDU;
 import javax.smartcardio.ResponseAPDU;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Base abstraction for a card reader device.
@@ -71,6 +73,40 @@ public abstract class AbstractReader {
      */
     abstract public ResponseApdu simpleCommand(CommandAPDU command);
 
+    /**
+     * Sends several commands to the card, all of them are sent whatever their status.
+     *
+     * @param commands to send, in order
+     * @return the apdu responses, in the order of the commands
+     * @see #transmitBatch(List, boolean)
+     */
+    public List<ResponseApdu> transmitBatch(List<CommandAPDU> commands) {
+        return transmitBatch(commands, false);
+    }
+
+    /**
+     * Sends several commands to the card.
+     * <p>
+     * The default implementation sends the commands one by one with {@link #simpleCommand(CommandAPDU)},
+     * readers able to send a list of commands in a single exchange override it.
+     * </p>
+     *
+     * @param commands    to send, in order
+     * @param stopOnError {@code true} to stop after the first response whose status is not {@code 9000}
+     * @return the apdu responses, in the order of the commands, the last one is the failed one
+     * when stopped on error
+     */
+    public List<ResponseApdu> transmitBatch(List<CommandAPDU> commands, boolean stopOnError) {
+        List<ResponseApdu> responses = new ArrayList<>(commands.size());
+        for (CommandAPDU command : commands) {
+            ResponseApdu response = simpleCommand(command);
+            responses.add(response);
+            if (stopOnError && !response.isSuccess())
+                break;
+        }
+        return responses;
+    }
+
     /**
      * Blocks execution until a card is presented on the reader or the timeout
      * expires.
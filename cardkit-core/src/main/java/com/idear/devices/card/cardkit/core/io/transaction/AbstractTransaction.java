@@ -5,4 +5,15 @@ import lombok.Data;
 @Data
 public abstract class AbstractTransaction<T, R extends AbstractTransactionContext> {
     public abstract TransactionResult<T> execute(R context);
+
+    /**
+     * Whether the transaction sends commands to the SAM or runs in a secure session of the card. A
+     * transaction manager may serialize these transactions with the other users of the SAM, a
+     * transaction that returns {@code false} does not wait for them.
+     *
+     * @return {@code true} unless overridden
+     */
+    public boolean isUsingSam() {
+        return true;
+    }
 }
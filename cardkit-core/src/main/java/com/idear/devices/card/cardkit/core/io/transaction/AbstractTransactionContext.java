@@ -1,4 +1,21 @@
 package com.idear.devices.card.cardkit.core.io.transaction;
 
+import com.idear.devices.card.cardkit.core.datamodel.date.CardClock;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Base context given to {@link AbstractTransaction#execute(AbstractTransactionContext)}.
+ * <p>
+ * The {@link #clock} is set by {@link AbstractTransactionManager#execute(AbstractTransaction)} with a
+ * snapshot of the manager clock, so every date written during the transaction is the same instant.
+ * </p>
+ */
+@Getter
+@Setter
 public abstract class AbstractTransactionContext {
+
+    /** Clock of the transaction, one instant per execution */
+    private CardClock clock = CardClock.system();
+
 }
@@ -1,16 +1,19 @@
 package com.idear.devices.card.cardkit.core.io.transaction;
 
+import com.idear.devices.card.cardkit.core.datamodel.date.CardClock;
 import com.idear.devices.card.cardkit.core.exception.CardKitException;
 import com.idear.devices.card.cardkit.core.io.reader.AbstractReader;
 import com.idear.devices.card.cardkit.core.utils.Strings;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.Function;
 
 /**
  * Base transaction manager responsible for coordinating card and SAM readers,
@@ -77,6 +80,13 @@ public abstract class AbstractTransactionManager<
     /** Reader used to detect and communicate with the SAM. */
     protected final S samReader;
 
+    /** Name of the aggregate result of a {@link TransactionChain} */
+    private static final String CHAIN_NAME = "transaction chain";
+
+    /** Clock of the transactions, a snapshot is taken for every execution. */
+    @Setter
+    private volatile CardClock clock = CardClock.system();
+
     /**
      * Callback invoked when a card is detected on the reader.
      */
@@ -104,6 +114,27 @@ public abstract class AbstractTransactionManager<
      */
     protected abstract X createContext();
 
+    /**
+     * Checks at the end of a chain if the modifications of the steps reported
+     * {@link TransactionStatus#PENDING} are still waiting to be committed, e.g. a secure session left open.
+     *
+     * @param context the context of the chain
+     * @return {@code true} by default, the pending steps make the chain pending
+     */
+    protected boolean isPending(X context) {
+        return true;
+    }
+
+    /**
+     * Callback invoked in a chain right after a step {@link TransactionStatus#ERROR} or
+     * {@link TransactionStatus#ABORTED}, before the next step is executed.
+     *
+     * @param context the context of the chain
+     * @param result  the result of the failed step
+     */
+    protected void onStepFailure(X context, TransactionResult<?> result) {
+    }
+
     /**
      * Background loop that monitors card presence and absence events
      * and dispatches the corresponding {@link CardStatus} notifications.
@@ -203,13 +234,103 @@ public abstract class AbstractTransactionManager<
     }
 
     /**
-     * Executes a transaction using a newly created transaction context.
+     * Executes a transaction using a newly created transaction context, the context clock
+     * is a snapshot of {@link #clock} taken before the execution.
      *
      * @param abstractTransaction the transaction to execute
      * @param <T> transaction result payload type
      * @return the transaction execution result
      */
     public <T> TransactionResult<T> execute(AbstractTransaction<T, X> abstractTransaction) {
+        long start = System.currentTimeMillis();
+        X context;
+        try {
+            context = newContext();
+        } catch (Throwable e) {
+            return failure(abstractTransaction, e, start);
+        }
+        return run(abstractTransaction, context);
+    }
+
+    /**
+     * Executes the steps of a chain in order against a single context, created once, with one
+     * clock snapshot for every step.
+     * <p>
+     * Every step result keeps its own status and time, the aggregate result is
+     * {@link TransactionStatus#OK} if no step failed, {@link TransactionStatus#PENDING} if a step is
+     * still waiting to be committed (see {@link #isPending(AbstractTransactionContext)}), otherwise it has the
+     * status, message and exception of the first failure.
+     * </p>
+     *
+     * @param chain the transactions to execute
+     * @return the aggregate result with the result of every executed step
+     */
+    public TransactionResult<ChainResult> execute(TransactionChain<X> chain) {
+        long start = System.currentTimeMillis();
+        ChainResult chainResult = new ChainResult(chain.size());
+
+        X context;
+        try {
+            context = newContext();
+            List<Function<ChainResult, ? extends AbstractTransaction<?, X>>> steps = chain.getSteps();
+            for (int i = 0; i < steps.size(); i++) {
+                TransactionResult<?> result;
+                try {
+                    result = run(steps.get(i).apply(chainResult), context);
+                } catch (Throwable e) {
+                    result = failure(chain.getStepName(i), e, System.currentTimeMillis());
+                }
+                chainResult.add(result);
+
+                if (ChainResult.isFailure(result)) {
+                    onStepFailure(context, result);
+                    if (chain.isStopOnFailure())
+                        break;
+                }
+            }
+        } catch (Throwable e) {
+            log.error("Transaction chain: {} - {}", e.getClass().getSimpleName(), e.getMessage());
+            return TransactionResult.<ChainResult>builder()
+                    .transactionStatus(e instanceof CardKitException ? TransactionStatus.ABORTED : TransactionStatus.ERROR)
+                    .transactionName(CHAIN_NAME)
+                    .data(chainResult)
+                    .message(e.getMessage())
+                    .exception(e)
+                    .time(System.currentTimeMillis() - start)
+                    .build();
+        }
+
+        TransactionResult<?> failure = chainResult.firstFailure();
+        TransactionStatus status = failure != null
+                ? failure.getTransactionStatus()
+                : chainResult.getSteps().stream().anyMatch(TransactionResult::isPending) && isPending(context)
+                ? TransactionStatus.PENDING
+                : TransactionStatus.OK;
+        return TransactionResult.<ChainResult>builder()
+                .transactionStatus(status)
+                .transactionName(CHAIN_NAME)
+                .data(chainResult)
+                .message(failure == null
+                        ? chainResult.getSteps().size() + " transactions executed"
+                        : failure.getTransactionName() + ": " + failure.getMessage())
+                .exception(failure == null ? null : failure.getException())
+                .time(System.currentTimeMillis() - start)
+                .build();
+    }
+
+    /**
+     * Creates the context of an execution with a snapshot of the clock.
+     */
+    private X newContext() {
+        X context = createContext();
+        context.setClock(clock.snapshot());
+        return context;
+    }
+
+    /**
+     * Executes a transaction against the given context, exceptions are returned as a failed result.
+     */
+    private <T> TransactionResult<T> run(AbstractTransaction<T, X> abstractTransaction, X context) {
         String transactionName =
                 Strings.normalizeClassName(abstractTransaction.getClass().getSimpleName());
 
@@ -217,34 +338,45 @@ public abstract class AbstractTransactionManager<
 
         try {
             log.debug("Executing transaction {}", transactionName);
-            TransactionResult<T> result =
-                    abstractTransaction.execute(createContext());
+            TransactionResult<T> result = abstractTransaction.execute(context);
 
             result.setTransactionName(transactionName);
             result.setTime(System.currentTimeMillis() - start);
             return result;
 
-        } catch (CardKitException aborted) {
-            return TransactionResult.<T>builder()
-                    .transactionStatus(TransactionStatus.ABORTED)
-                    .transactionName(transactionName)
-                    .message(aborted.getMessage())
-                    .exception(aborted)
-                    .time(System.currentTimeMillis() - start)
-                    .build();
-
         } catch (Throwable e) {
-            log.error("{}: {} - {}", transactionName,
-                    e.getClass().getSimpleName(), e.getMessage());
+            return failure(abstractTransaction, e, start);
+        }
+    }
+
+    /**
+     * Builds the result of a failed transaction, {@link TransactionStatus#ABORTED} for a
+     * {@link CardKitException} and {@link TransactionStatus#ERROR} for any other exception.
+     */
+    private <T> TransactionResult<T> failure(AbstractTransaction<T, X> abstractTransaction, Throwable e, long start) {
+        return failure(Strings.normalizeClassName(abstractTransaction.getClass().getSimpleName()), e, start);
+    }
 
+    private <T> TransactionResult<T> failure(String transactionName, Throwable e, long start) {
+        if (e instanceof CardKitException)
             return TransactionResult.<T>builder()
-                    .transactionStatus(TransactionStatus.ERROR)
+                    .transactionStatus(TransactionStatus.ABORTED)
                     .transactionName(transactionName)
                     .message(e.getMessage())
                     .exception(e)
                     .time(System.currentTimeMillis() - start)
                     .build();
-        }
+
+        log.error("{}: {} - {}", transactionName,
+                e.getClass().getSimpleName(), e.getMessage());
+
+        return TransactionResult.<T>builder()
+                .transactionStatus(TransactionStatus.ERROR)
+                .transactionName(transactionName)
+                .message(e.getMessage())
+                .exception(e)
+                .time(System.currentTimeMillis() - start)
+                .build();
     }
 }
 
@@ -0,0 +1,118 @@
+package com.idear.devices.card.cardkit.core.io.transaction;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.idear.devices.card.cardkit.core.io.Item;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Aggregate result of a {@link TransactionChain}, the result of every executed step in order.
+ * <p>
+ * Each step result keeps its own status, message and execution time
+ * ({@link TransactionResult#getTime()}), the steps not executed after a failure are not listed.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@EqualsAndHashCode(callSuper = false)
+@ToString
+public class ChainResult extends Item {
+
+    private final List<TransactionResult<?>> steps = new ArrayList<>();
+
+    /** Number of steps of the chain */
+    @Getter
+    private final int size;
+
+    ChainResult(int size) {
+        this.size = size;
+    }
+
+    void add(TransactionResult<?> result) {
+        steps.add(result);
+    }
+
+    /**
+     * @return results of the executed steps, in order
+     */
+    public List<TransactionResult<?>> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    /**
+     * @param index step index, starting at 0
+     * @return the result of the step
+     * @throws IndexOutOfBoundsException if the step was not executed
+     */
+    public TransactionResult<?> get(int index) {
+        return steps.get(index);
+    }
+
+    /**
+     * Gets the data of a step.
+     *
+     * @param index step index, starting at 0
+     * @param type  type of the data
+     * @param <T>   type of the data
+     * @return the data of the step
+     * @throws IndexOutOfBoundsException if the step was not executed
+     * @throws ClassCastException if the data is not of the given type
+     */
+    public <T> T getData(int index, Class<T> type) {
+        return type.cast(steps.get(index).getData());
+    }
+
+    /**
+     * @return the result of the last executed step, {@code null} if no step was executed
+     */
+    @JsonIgnore
+    public TransactionResult<?> last() {
+        return steps.isEmpty() ? null : steps.get(steps.size() - 1);
+    }
+
+    /**
+     * @return the first step {@link TransactionStatus#ERROR} or {@link TransactionStatus#ABORTED},
+     * {@code null} if no step failed
+     */
+    @JsonIgnore
+    public TransactionResult<?> firstFailure() {
+        for (TransactionResult<?> step : steps)
+            if (isFailure(step))
+                return step;
+        return null;
+    }
+
+    /**
+     * @param result a step result
+     * @return {@code true} if the step status is {@link TransactionStatus#ERROR} or {@link TransactionStatus#ABORTED}
+     */
+    static boolean isFailure(TransactionResult<?> result) {
+        return result.getTransactionStatus() == TransactionStatus.ERROR ||
+                result.getTransactionStatus() == TransactionStatus.ABORTED;
+    }
+
+    /**
+     * @return {@code true} if every step of the chain was executed without failure
+     */
+    @JsonIgnore
+    public boolean isComplete() {
+        return steps.size() == size && firstFailure() == null;
+    }
+
+    /**
+     * @return execution time of every step in milliseconds, in order
+     */
+    @JsonIgnore
+    public long[] getStepTimes() {
+        long[] times = new long[steps.size()];
+        for (int i = 0; i < times.length; i++)
+            times[i] = steps.get(i).getTime();
+        return times;
+    }
+}
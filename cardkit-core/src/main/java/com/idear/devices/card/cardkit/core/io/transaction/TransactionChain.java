@@ -0,0 +1,126 @@
+package com.idear.devices.card.cardkit.core.io.transaction;
+
+import com.idear.devices.card.cardkit.core.utils.Strings;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Ordered list of transactions executed by {@link AbstractTransactionManager#execute(TransactionChain)}
+ * against a single context.
+ * <p>
+ * A step is either a transaction or a function that builds the transaction from the results of the
+ * previous steps, so a later step can consume the data read by an earlier one:
+ * </p>
+ *
+ * <pre>{@code
+ * TransactionResult<ChainResult> result = manager.execute(TransactionChain.<KeypleTransactionContext>create()
+ *         .then(new ReadAllCard(WriteAccessLevel.DEBIT))
+ *         .then(previous -> new DebitCard(previous.getData(0, CalypsoCardCDMX.class), ...))
+ *         .then(new AuditWrite(...)));
+ * }</pre>
+ *
+ * <p>
+ * By default the chain stops at the first step {@link TransactionStatus#ERROR} or {@link TransactionStatus#ABORTED}.
+ * A step is reported under the name of its transaction, a built step under the name given to
+ * {@link #then(String, Function)}, {@code STEP_<n>} otherwise, even if the function fails.
+ * </p>
+ *
+ * @param <X> transaction context type
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+public class TransactionChain<X extends AbstractTransactionContext> {
+
+    private final List<Function<ChainResult, ? extends AbstractTransaction<?, X>>> steps = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+
+    /** {@code true} to stop the chain at the first step {@link TransactionStatus#ERROR} or {@link TransactionStatus#ABORTED} */
+    @Getter
+    private boolean stopOnFailure = true;
+
+    /**
+     * @param <X> transaction context type
+     * @return an empty chain
+     */
+    public static <X extends AbstractTransactionContext> TransactionChain<X> create() {
+        return new TransactionChain<>();
+    }
+
+    /**
+     * Adds a step.
+     *
+     * @param transaction the transaction to execute
+     * @return this chain
+     */
+    public TransactionChain<X> then(AbstractTransaction<?, X> transaction) {
+        if (transaction == null)
+            throw new IllegalArgumentException("Null transaction");
+        steps.add(previous -> transaction);
+        names.add(Strings.normalizeClassName(transaction.getClass().getSimpleName()));
+        return this;
+    }
+
+    /**
+     * Adds a step built from the results of the previous steps, the function is called
+     * when the step is reached.
+     *
+     * @param step function returning the transaction to execute
+     * @return this chain
+     */
+    public TransactionChain<X> then(Function<ChainResult, ? extends AbstractTransaction<?, X>> step) {
+        return then("STEP_" + (steps.size() + 1), step);
+    }
+
+    /**
+     * Adds a named step built from the results of the previous steps, the name reports the step
+     * when the function fails, e.g. {@code "DEBIT_CARD"}.
+     *
+     * @param name name of the step
+     * @param step function returning the transaction to execute
+     * @return this chain
+     */
+    public TransactionChain<X> then(String name, Function<ChainResult, ? extends AbstractTransaction<?, X>> step) {
+        if (name == null || name.isEmpty())
+            throw new IllegalArgumentException("Empty step name");
+        if (step == null)
+            throw new IllegalArgumentException("Null step");
+        steps.add(step);
+        names.add(name);
+        return this;
+    }
+
+    /**
+     * @param stopOnFailure {@code false} to execute every step whatever the result of the previous ones
+     * @return this chain
+     */
+    public TransactionChain<X> stopOnFailure(boolean stopOnFailure) {
+        this.stopOnFailure = stopOnFailure;
+        return this;
+    }
+
+    /**
+     * @return the steps of the chain, in order
+     */
+    public List<Function<ChainResult, ? extends AbstractTransaction<?, X>>> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    /**
+     * @param index step index, starting at 0
+     * @return the name of the step
+     */
+    public String getStepName(int index) {
+        return names.get(index);
+    }
+
+    /**
+     * @return number of steps
+     */
+    public int size() {
+        return steps.size();
+    }
+}
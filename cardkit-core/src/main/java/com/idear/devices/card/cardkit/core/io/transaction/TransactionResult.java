@@ -82,6 +82,16 @@ public class TransactionResult<T> extends Item {
         return is(TransactionStatus.OK);
     }
 
+    /**
+     * Checks if the transaction is waiting for the secure session to be closed.
+     *
+     * @return {@code true} if the transaction status is {@link TransactionStatus#PENDING}, otherwise {@code false}.
+     */
+    @JsonIgnore
+    public boolean isPending() {
+        return is(TransactionStatus.PENDING);
+    }
+
     /**
      * Prints the JSON representation of this transaction result to the console.
      *
@@ -8,6 +8,9 @@ import com.idear.devices.card.cardkit.core.io.reader.AbstractReader;
 public enum TransactionStatus {
     /** Status returned when the transaction was successful */
     OK,
+    /** Status returned when the transaction was accepted in a secure session that is still open, e.g. with the
+     * session reuse mode, the card commits it only when the session is closed */
+    PENDING,
     /** Status returned when a card kit exception [{@link CardException}, {@link SamException} and {@link ReaderException}]
      * is throwing on {@link AbstractTransaction#execute(AbstractReader)}*/
     ABORTED,
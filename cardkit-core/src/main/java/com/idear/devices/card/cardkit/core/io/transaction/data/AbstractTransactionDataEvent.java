@@ -1,5 +1,6 @@
 package com.idear.devices.card.cardkit.core.io.transaction.data;
 
+import com.idear.devices.card.cardkit.core.datamodel.date.CardClock;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -7,7 +8,18 @@ import java.time.LocalDateTime;
 @Data
 public abstract class AbstractTransactionDataEvent implements ITransactionDataEvent {
 
-    private final LocalDateTime timestamp = LocalDateTime.now();
+    private final LocalDateTime timestamp;
+
+    protected AbstractTransactionDataEvent() {
+        this(CardClock.system());
+    }
+
+    /**
+     * @param clock the clock of the transaction, read once for the timestamp
+     */
+    protected AbstractTransactionDataEvent(CardClock clock) {
+        this.timestamp = clock.now();
+    }
 
     @Override
     public LocalDateTime timestamp() {
@@ -54,6 +54,26 @@ public abstract class ByteUtils {
      */
     private static final char CHAR_SPACE = (char) 0x20;
 
+    /**
+     * Upper case hex digit of every nibble value
+     */
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * Nibble value of every ASCII char, -1 if the char is not a hex digit
+     */
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    static {
+        java.util.Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++)
+            HEX_VALUES['0' + i] = (byte) i;
+        for (int i = 0; i < 6; i++) {
+            HEX_VALUES['A' + i] = (byte) (10 + i);
+            HEX_VALUES['a' + i] = (byte) (10 + i);
+        }
+    }
+
     /**
      * Method used to convert byte array to int
      *
@@ -428,18 +448,61 @@ public abstract class ByteUtils {
     }
 
     public static String toHex(byte... b) {
-        StringBuilder sb = new StringBuilder();
-        for (byte x : b) sb.append(String.format("%02X", x & 0xFF));
-        return sb.toString();
+        return toHex(b, 0, b.length);
     }
 
+    /**
+     * Encode a range of bytes as upper case hex, two chars per byte, using a lookup table.
+     *
+     * @param src    source bytes
+     * @param offset first byte to encode
+     * @param length number of bytes to encode
+     * @return the hex string
+     */
+    public static String toHex(byte[] src, int offset, int length) {
+        char[] chars = new char[length * 2];
+        for (int i = 0, j = 0; i < length; i++) {
+            int v = src[offset + i] & 0xFF;
+            chars[j++] = HEX_DIGITS[v >>> 4];
+            chars[j++] = HEX_DIGITS[v & RIGHT_MASK];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Decode a hex string, spaces between digits are ignored.
+     *
+     * @param hex hex string
+     * @return the decoded bytes
+     * @throws IllegalArgumentException if the string contains a char that is not a hex digit or an odd
+     * number of digits
+     */
     public static byte[] hexToBytes(String hex) {
-        hex = hex.replace(" ", "");
         int len = hex.length();
-        byte[] data = new byte[len / 2];
-        for (int i = 0; i < len; i += 2) {
-            data[i / 2] = (byte) ((Character.digit(hex.charAt(i), 16) << 4)
-                    + Character.digit(hex.charAt(i+1), 16));
+        int digits = 0;
+        for (int i = 0; i < len; i++)
+            if (hex.charAt(i) != CHAR_SPACE)
+                digits++;
+        if ((digits & 1) != 0)
+            throw new IllegalArgumentException("Odd number of hex digits: " + digits);
+
+        byte[] data = new byte[digits / 2];
+        int high = -1;
+        for (int i = 0, j = 0; i < len; i++) {
+            char c = hex.charAt(i);
+            if (c == CHAR_SPACE)
+                continue;
+
+            int value = c < HEX_VALUES.length ? HEX_VALUES[c] : -1;
+            if (value < 0)
+                throw new IllegalArgumentException("Invalid hex char '" + c + "' at index " + i);
+
+            if (high < 0) {
+                high = value;
+            } else {
+                data[j++] = (byte) ((high << 4) | value);
+                high = -1;
+            }
         }
         return data;
     }
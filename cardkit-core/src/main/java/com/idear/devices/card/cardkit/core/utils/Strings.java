@@ -32,17 +32,13 @@ public class Strings {
     }
 
     public static String bytesToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder(bytes.length * 2);
-        for (byte b : bytes) {
-            sb.append(String.format("%02X", b));
-        }
-        return sb.toString();
+        return ByteUtils.toHex(bytes);
     }
 
     public static String intToHexByte(int value) {
         if (value < 0 || value > 0xFF) {
             throw new IllegalArgumentException("Value out of byte range");
         }
-        return String.format("%02X", value);
+        return ByteUtils.toHex((byte) value);
     }
 }
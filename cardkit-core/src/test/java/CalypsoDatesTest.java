@@ -0,0 +1,141 @@
+import com.idear.devices.card.cardkit.core.datamodel.date.CalypsoDates;
+import com.idear.devices.card.cardkit.core.datamodel.date.CompactDate;
+import com.idear.devices.card.cardkit.core.datamodel.date.DateTimeReal;
+import com.idear.devices.card.cardkit.core.datamodel.date.LongDate;
+import com.idear.devices.card.cardkit.core.datamodel.date.ReverseDate;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CalypsoDatesTest {
+
+    @Test
+    public void calypsoEpoch() {
+        assertEquals(LocalDate.of(1997, 1, 1).toEpochDay(), CalypsoDates.OFFSET_EPOCH_DAY);
+        assertEquals(LocalDateTime.of(1997, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC), CalypsoDates.OFFSET_EPOCH_SECOND);
+        assertEquals(0, CalypsoDates.epochDayToCompact(CalypsoDates.OFFSET_EPOCH_DAY));
+        assertEquals(CalypsoDates.REVERSE_MASK, CalypsoDates.epochDayToReverse(CalypsoDates.OFFSET_EPOCH_DAY));
+        assertEquals(CalypsoDates.OFFSET_EPOCH_DAY, CalypsoDates.reverseToEpochDay(CalypsoDates.REVERSE_MASK));
+        assertEquals(0, CalypsoDates.epochSecondToReal(CalypsoDates.OFFSET_EPOCH_SECOND));
+    }
+
+    @Test
+    public void calendarAgainstJavaTime() {
+        for (int epochDay = -800_000; epochDay <= 800_000; epochDay += 37) {
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+            int civil = date.getYear() * 10_000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+
+            assertEquals(civil, CalypsoDates.civilOf(epochDay));
+            assertEquals(epochDay, CalypsoDates.epochDayOf(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+            assertEquals(date.lengthOfMonth(), CalypsoDates.lengthOfMonth(date.getYear(), date.getMonthValue()));
+        }
+    }
+
+    @Test
+    public void calendarBoundaries() {
+        assertEquals(0, CalypsoDates.epochDayOf(1970, 1, 1));
+        assertEquals(19700101, CalypsoDates.civilOf(0));
+        assertEquals(19691231, CalypsoDates.civilOf(-1));
+        assertEquals(20000229, CalypsoDates.civilOf(CalypsoDates.epochDayOf(2000, 2, 29)));
+        assertTrue(CalypsoDates.isLeapYear(2000));
+        assertFalse(CalypsoDates.isLeapYear(1900));
+        assertTrue(CalypsoDates.isLeapYear(2024));
+    }
+
+    @Test
+    public void plusMonths() {
+        LocalDate[] dates = {
+                LocalDate.of(2024, 1, 31), LocalDate.of(2023, 12, 31), LocalDate.of(2024, 2, 29),
+                LocalDate.of(1997, 1, 1), LocalDate.of(2099, 11, 30)
+        };
+        for (LocalDate date : dates) {
+            for (int months = -25; months <= 25; months++) {
+                assertEquals(date.plusMonths(months).toEpochDay(),
+                        CalypsoDates.plusMonths((int) date.toEpochDay(), months));
+            }
+        }
+    }
+
+    @Test
+    public void epochSecondSplit() {
+        long midnight = LocalDateTime.of(2025, 10, 13, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+        assertEquals(LocalDate.of(2025, 10, 13).toEpochDay(), CalypsoDates.epochSecondToEpochDay(midnight));
+        assertEquals(LocalDate.of(2025, 10, 12).toEpochDay(), CalypsoDates.epochSecondToEpochDay(midnight - 1));
+        assertEquals(0, CalypsoDates.epochSecondToCompactTime(midnight));
+        assertEquals(CalypsoDates.MINUTES_PER_DAY - 1, CalypsoDates.epochSecondToCompactTime(midnight - 1));
+        assertEquals(-1, CalypsoDates.epochSecondToEpochDay(-1));
+        assertEquals(CalypsoDates.MINUTES_PER_DAY - 1, CalypsoDates.epochSecondToCompactTime(-1));
+    }
+
+    @Test
+    public void compactAndReverseRoundTrip() {
+        for (int compact = 0; compact <= CalypsoDates.REVERSE_MASK; compact++) {
+            int epochDay = CalypsoDates.compactToEpochDay(compact);
+            assertEquals(compact, CalypsoDates.epochDayToCompact(epochDay));
+            assertEquals(epochDay, CalypsoDates.reverseToEpochDay(CalypsoDates.epochDayToReverse(epochDay)));
+        }
+
+        LocalDate date = LocalDate.of(2025, 10, 13);
+        assertEquals(date, CompactDate.fromLocalDate(date).getDate());
+        assertEquals(date, ReverseDate.fromLocalDate(date).getDate());
+    }
+
+    @Test
+    public void longDateRoundTrip() {
+        LocalDate date = LocalDate.of(2025, 10, 13);
+        LongDate longDate = LongDate.fromLocalDate(date);
+
+        assertEquals(20251013, longDate.getValue());
+        assertEquals(date, longDate.getDate());
+        assertEquals(date.toEpochDay(), CalypsoDates.longDateToEpochDay(20251013));
+        assertEquals(20251013, CalypsoDates.epochDayToLongDate((int) date.toEpochDay()));
+        assertTrue(LongDate.fromValue(0).isEmpty());
+    }
+
+    @Test
+    public void dateTimeRealRoundTrip() {
+        LocalDateTime dateTime = LocalDateTime.of(2025, 10, 13, 17, 45, 12);
+        DateTimeReal real = DateTimeReal.fromLocalDateTime(dateTime);
+
+        assertEquals(dateTime, real.getDateTime());
+        assertEquals(dateTime, DateTimeReal.fromSeconds(real.getValue()).getDateTime());
+        assertEquals(LocalDateTime.of(1997, 1, 1, 0, 0), DateTimeReal.fromSeconds(0).getDateTime());
+    }
+
+    @Test
+    public void toBytesLayouts() {
+        DateTimeReal real = DateTimeReal.fromSeconds(0x01020304);
+        byte[] written = new byte[4];
+        assertEquals(4, real.writeTo(written, 0));
+        assertArrayEquals(written, real.toFullBytes());
+        assertArrayEquals(new byte[]{0x01, 0x02, 0x03, 0x04}, real.toFullBytes());
+        assertArrayEquals(new byte[]{0x03, 0x04}, real.toBytes());
+
+        LongDate longDate = LongDate.fromValue(20251013);
+        assertEquals(4, longDate.writeTo(written, 0));
+        assertArrayEquals(written, longDate.toFullBytes());
+        assertArrayEquals(new byte[]{written[2], written[3]}, longDate.toBytes());
+    }
+
+    @Test
+    public void defaultZoneChange() {
+        TimeZone previous = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+            long utc = CalypsoDates.currentEpochSecond();
+            TimeZone.setDefault(TimeZone.getTimeZone("GMT+05:00"));
+            long plusFive = CalypsoDates.currentEpochSecond();
+
+            long shift = plusFive - utc;
+            assertTrue(shift >= 5 * 3600 && shift <= 5 * 3600 + 5);
+        } finally {
+            TimeZone.setDefault(previous);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.idear.devices.card.cardkit.keyple;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.keypop.calypso.card.card.CalypsoCard;
+import org.eclipse.keypop.calypso.card.card.CalypsoCardSelectionExtension;
+import org.eclipse.keypop.reader.CardReader;
+import org.eclipse.keypop.reader.selection.CardSelectionManager;
+import org.eclipse.keypop.reader.selection.spi.SmartCard;
+
+/**
+ * Precompiled Calypso card selection scenario, prepared once and processed on every card presented.
+ * <p>
+ * {@link KeypleUtil#selectCard(CardReader, String)} creates a {@link CardSelectionManager}, a
+ * {@link CalypsoCardSelectionExtension} and an ISO selector on each call. This class keeps the prepared
+ * {@link CardSelectionManager}, so only {@code processCardSelectionScenario} runs on the first exchange
+ * with the card.
+ * </p>
+ *
+ * <p>
+ * The scenario can be exported to a string with {@link #export()} and imported back with
+ * {@link #importScenario(String, String)}, so it can be prepared and stored at startup.
+ * </p>
+ *
+ * <p>
+ * A {@link SelectionReadPlan} can be added to read records together with the selection.
+ * </p>
+ *
+ * <p>
+ * Instances are not thread-safe, use one scenario per reader.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@Slf4j
+@Getter
+public class CardSelectionScenario {
+
+    /** AID selected by this scenario, empty for a selection without application filter */
+    private final String aid;
+
+    /** Records read with the selection */
+    private final SelectionReadPlan readPlan;
+
+    private final CardSelectionManager cardSelectionManager;
+
+    private CardSelectionScenario(String aid, SelectionReadPlan readPlan, CardSelectionManager cardSelectionManager) {
+        this.aid = aid;
+        this.readPlan = readPlan;
+        this.cardSelectionManager = cardSelectionManager;
+    }
+
+    /**
+     * Prepares the selection scenario of a Calypso card, invalidated cards are accepted.
+     *
+     * @param aid the application identifier (AID), empty to select without application filter
+     * @return the prepared scenario
+     */
+    public static CardSelectionScenario build(String aid) {
+        return build(aid, SelectionReadPlan.NONE);
+    }
+
+    /**
+     * Prepares the selection scenario of a Calypso card reading the records of the plan
+     * with the selection, invalidated cards are accepted.
+     *
+     * @param aid      the application identifier (AID), empty to select without application filter
+     * @param readPlan the records to read on selection
+     * @return the prepared scenario
+     */
+    public static CardSelectionScenario build(String aid, SelectionReadPlan readPlan) {
+        String _aid = aid == null ? "" : aid;
+        SelectionReadPlan _readPlan = readPlan == null ? SelectionReadPlan.NONE : readPlan;
+
+        CardSelectionManager cardSelectionManager = KeypleUtil.READER_API_FACTORY.createCardSelectionManager();
+        CalypsoCardSelectionExtension calypsoCardSelection = KeypleUtil.CALYPSO_CARD_API_FACTORY
+                .createCalypsoCardSelectionExtension()
+                .acceptInvalidatedCard();
+
+        for (SelectionReadPlan.Record record : _readPlan.getRecords())
+            calypsoCardSelection.prepareReadRecord(record.getSfi(), record.getRecordNumber());
+
+        if (!_aid.isEmpty())
+            cardSelectionManager.prepareSelection(
+                    KeypleUtil.READER_API_FACTORY.createIsoCardSelector()
+                            .filterByDfName(_aid),
+                    calypsoCardSelection
+            );
+        else
+            cardSelectionManager.prepareSelection(
+                    KeypleUtil.READER_API_FACTORY.createIsoCardSelector(),
+                    calypsoCardSelection
+            );
+
+        log.debug("Card selection scenario prepared for aid '{}', read plan {}", _aid, _readPlan);
+        return new CardSelectionScenario(_aid, _readPlan, cardSelectionManager);
+    }
+
+    /**
+     * Restores a scenario exported with {@link #export()}.
+     *
+     * @param aid      the application identifier (AID) of the exported scenario
+     * @param scenario the exported scenario
+     * @return the restored scenario
+     * @throws IllegalArgumentException if the scenario cannot be imported
+     */
+    public static CardSelectionScenario importScenario(String aid, String scenario) {
+        return importScenario(aid, SelectionReadPlan.NONE, scenario);
+    }
+
+    /**
+     * Restores a scenario exported with {@link #export()}.
+     *
+     * @param aid      the application identifier (AID) of the exported scenario
+     * @param readPlan the read plan of the exported scenario
+     * @param scenario the exported scenario
+     * @return the restored scenario
+     * @throws IllegalArgumentException if the scenario cannot be imported
+     */
+    public static CardSelectionScenario importScenario(String aid, SelectionReadPlan readPlan, String scenario) {
+        CardSelectionManager cardSelectionManager = KeypleUtil.READER_API_FACTORY.createCardSelectionManager();
+        try {
+            cardSelectionManager.importCardSelectionScenario(scenario);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid card selection scenario for aid " + aid, e);
+        }
+        return new CardSelectionScenario(
+                aid == null ? "" : aid,
+                readPlan == null ? SelectionReadPlan.NONE : readPlan,
+                cardSelectionManager);
+    }
+
+    /**
+     * @return the scenario as a string, to be restored with {@link #importScenario(String, String)}
+     */
+    public String export() {
+        return cardSelectionManager.exportCardSelectionScenario();
+    }
+
+    /**
+     * Processes the scenario on the given reader.
+     *
+     * @param cardReader the reader where the card is inserted
+     * @return the selected {@link CalypsoCard}
+     * @throws IllegalStateException if the application selection fails
+     */
+    public CalypsoCard select(CardReader cardReader) {
+        SmartCard smartCard = cardSelectionManager
+                .processCardSelectionScenario(cardReader)
+                .getActiveSmartCard();
+
+        if (smartCard == null)
+            throw new IllegalStateException("The selection of the application " + aid + " failed.");
+
+        return (CalypsoCard) smartCard;
+    }
+}
@@ -0,0 +1,292 @@
+package com.idear.devices.card.cardkit.keyple;
+
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.Calypso;
+import com.idear.devices.card.cardkit.core.io.transaction.TransactionStatus;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.keypop.calypso.card.WriteAccessLevel;
+import org.eclipse.keypop.calypso.card.card.CalypsoCard;
+import org.eclipse.keypop.calypso.card.transaction.ChannelControl;
+import org.eclipse.keypop.calypso.card.transaction.SecureRegularModeTransactionManager;
+
+/**
+ * State of the secure session opened on the card currently present.
+ * <p>
+ * Transactions open and close the session through this class instead of calling
+ * {@code prepareOpenSecureSession} and {@code prepareCloseSecureSession} on the transaction manager,
+ * so the session opened by {@link KeypleTransactionManager#readCardData(WriteAccessLevel)} is known by
+ * the following operations.
+ * </p>
+ *
+ * <p>
+ * In reuse mode the session is not closed at the end of an operation, the next operation on the
+ * same card continues in it. A new session is opened only when:
+ * </p>
+ * <ul>
+ *     <li>the operation requires a higher access level than the current session,</li>
+ *     <li>the modifications of the operation do not fit in the card modification buffer,</li>
+ *     <li>the operation modifies the stored value and the session already did, one SV operation per session.</li>
+ * </ul>
+ * <p>
+ * The modifications are only committed by the card when the session is closed,
+ * {@link #close()} must be called before the card is released.
+ * </p>
+ *
+ * <p>
+ * The SAM reader is told when a session is opened and ended, the background SAM work such as the
+ * {@link KeyPairPool} waits until no session is open, see {@link KeypleCalypsoSamReader#awaitNoCardSession()}.
+ * </p>
+ *
+ * <p>
+ * Instances are bound to one card presentation and are not thread-safe.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@Slf4j
+@Getter
+public class CardSession {
+
+    /** Bytes used in the modification buffer by a command, in addition to its data */
+    private static final int COMMAND_OVERHEAD = 6;
+
+    private final SecureRegularModeTransactionManager cardTransactionManager;
+    private final CalypsoCard calypsoCard;
+    @Getter(AccessLevel.NONE)
+    private final KeypleCalypsoSamReader samReader;
+    private final boolean reuse;
+
+    /** Access level of the open session, {@code null} if no session is open */
+    private WriteAccessLevel accessLevel;
+
+    /** Modification buffer used by the open session, in bytes or commands depending on the card */
+    private int bufferUsed;
+
+    /** {@code true} if an SV operation was done in the open session */
+    private boolean svModified;
+
+    /** Number of sessions opened on the card */
+    private int openings;
+
+    /**
+     * @param cardTransactionManager the secure transaction manager of the card
+     * @param calypsoCard            the selected card
+     * @param samReader              the SAM reader of the secure sessions
+     * @param reuse                  {@code true} to keep the session open between operations
+     */
+    public CardSession(
+            SecureRegularModeTransactionManager cardTransactionManager,
+            CalypsoCard calypsoCard,
+            KeypleCalypsoSamReader samReader,
+            boolean reuse) {
+        this.cardTransactionManager = cardTransactionManager;
+        this.calypsoCard = calypsoCard;
+        this.samReader = samReader;
+        this.reuse = reuse;
+    }
+
+    /**
+     * @return {@code true} if a session is open on the card
+     */
+    public boolean isOpen() {
+        return accessLevel != null;
+    }
+
+    /**
+     * Prepares the opening of a session for an operation without modification.
+     *
+     * @param writeAccessLevel the access level required
+     * @return the transaction manager, with the opening prepared if needed
+     * @see #ensureOpen(WriteAccessLevel, int, boolean)
+     */
+    public SecureRegularModeTransactionManager ensureOpen(WriteAccessLevel writeAccessLevel) {
+        return ensureOpen(writeAccessLevel, 0, false);
+    }
+
+    /**
+     * Prepares the opening of a session for an operation, the commands are processed by the caller.
+     * <p>
+     * If a session is already open it is kept, e.g. the session opened by
+     * {@link KeypleTransactionManager#readCardData(WriteAccessLevel)}, unless the access level, the
+     * modification buffer or a previous SV operation requires a new one. The open session is then
+     * closed and a new one is opened, in both modes.
+     * </p>
+     *
+     * @param writeAccessLevel the access level required
+     * @param records          number of records written by the operation
+     * @param svOperation      {@code true} if the operation reloads or debits the stored value
+     * @return the transaction manager, with the opening prepared if needed
+     */
+    public SecureRegularModeTransactionManager ensureOpen(
+            WriteAccessLevel writeAccessLevel,
+            int records,
+            boolean svOperation) {
+        int cost = records * modificationCost(Calypso.RECORD_SIZE);
+
+        if (isOpen() && !fits(writeAccessLevel, cost, svOperation)) {
+            log.debug("Session {} renewed for {}, buffer used {}", accessLevel, writeAccessLevel, bufferUsed);
+            cardTransactionManager.prepareCloseSecureSession();
+            ended();
+        }
+
+        return reserve(writeAccessLevel, cost, svOperation);
+    }
+
+    /**
+     * Reserves room in the modification buffer for a command, splitting the operation in several
+     * sessions when the buffer is full, with or without reuse mode.
+     * <p>
+     * If the open session has not enough room left or a lower access level, the commands prepared
+     * so far are processed and the session is closed, committing them, then the opening of a new
+     * session is prepared.
+     * </p>
+     *
+     * @param writeAccessLevel the access level required
+     * @param cost             cost of the command, see {@link #modificationCost(int)}
+     * @return the transaction manager, with the opening prepared if needed
+     * @throws IllegalArgumentException if the command does not fit in an empty buffer
+     */
+    public SecureRegularModeTransactionManager ensureBuffer(WriteAccessLevel writeAccessLevel, int cost) {
+        if (cost > getBufferCapacity())
+            throw new IllegalArgumentException("Modification of " + cost + " exceeds the card buffer of "
+                    + getBufferCapacity());
+
+        if (isOpen() && !fits(writeAccessLevel, cost, false)) {
+            log.debug("Session {} split for {}, buffer used {}", accessLevel, writeAccessLevel, bufferUsed);
+            close();
+        }
+
+        return reserve(writeAccessLevel, cost, false);
+    }
+
+    private SecureRegularModeTransactionManager reserve(
+            WriteAccessLevel writeAccessLevel,
+            int cost,
+            boolean svOperation) {
+        if (!isOpen()) {
+            cardTransactionManager.prepareOpenSecureSession(writeAccessLevel);
+            samReader.cardSessionOpened();
+            accessLevel = writeAccessLevel;
+            bufferUsed = 0;
+            svModified = false;
+            openings++;
+        }
+
+        bufferUsed += cost;
+        svModified |= svOperation;
+        return cardTransactionManager;
+    }
+
+    /**
+     * Cost of a record write in the modification buffer, the buffer of the card is counted
+     * either in bytes ({@code data + 6} per command) or in commands.
+     *
+     * @param dataLength length of the record data
+     * @return the cost of the command
+     */
+    public int modificationCost(int dataLength) {
+        return calypsoCard.isModificationsCounterInBytes() ? dataLength + COMMAND_OVERHEAD : 1;
+    }
+
+    /**
+     * @return size of the card modification buffer, in bytes or commands
+     */
+    public int getBufferCapacity() {
+        return calypsoCard.getModificationsCounter();
+    }
+
+    /**
+     * Prepares the end of an operation, the session is closed out of reuse mode and kept open
+     * in reuse mode, the commands are processed by the caller.
+     *
+     * @return the transaction manager
+     */
+    public SecureRegularModeTransactionManager prepareClose() {
+        if (!reuse && isOpen()) {
+            cardTransactionManager.prepareCloseSecureSession();
+            ended();
+        }
+        return cardTransactionManager;
+    }
+
+    /**
+     * Status of an operation whose commands were processed after {@link #prepareClose()}.
+     *
+     * @return {@link TransactionStatus#PENDING} if the session is still open, the modifications are
+     * not committed yet, otherwise {@link TransactionStatus#OK}
+     */
+    public TransactionStatus completionStatus() {
+        return isOpen() ? TransactionStatus.PENDING : TransactionStatus.OK;
+    }
+
+    /**
+     * Closes the open session, the modifications of every operation done in the session are committed.
+     */
+    public void close() {
+        if (!isOpen())
+            return;
+
+        try {
+            cardTransactionManager
+                    .prepareCloseSecureSession()
+                    .processCommands(ChannelControl.KEEP_OPEN);
+        } finally {
+            ended();
+        }
+    }
+
+    /**
+     * Cancels the open session, the modifications done in the session are discarded.
+     */
+    public void cancel() {
+        if (!isOpen())
+            return;
+
+        try {
+            cardTransactionManager
+                    .prepareCancelSecureSession()
+                    .processCommands(ChannelControl.KEEP_OPEN);
+        } finally {
+            ended();
+        }
+    }
+
+    /**
+     * Forgets the open session without command to the card, e.g. the card was removed,
+     * the modifications done in the session are discarded by the card.
+     */
+    public void abandon() {
+        if (isOpen())
+            ended();
+    }
+
+    private void ended() {
+        accessLevel = null;
+        samReader.cardSessionClosed();
+    }
+
+    private boolean fits(WriteAccessLevel writeAccessLevel, int cost, boolean svOperation) {
+        if (rank(accessLevel) < rank(writeAccessLevel))
+            return false;
+        if (svOperation && svModified)
+            return false;
+        return bufferUsed + cost <= getBufferCapacity();
+    }
+
+    /**
+     * Access rights of the session keys are nested, personalization includes load and load includes debit.
+     */
+    private static int rank(WriteAccessLevel writeAccessLevel) {
+        switch (writeAccessLevel) {
+            case PERSONALIZATION:
+                return 3;
+            case LOAD:
+                return 2;
+            case DEBIT:
+            default:
+                return 1;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.idear.devices.card.cardkit.keyple;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.keypop.calypso.crypto.legacysam.sam.LegacySam;
+import org.eclipse.keypop.calypso.crypto.legacysam.transaction.KeyPairContainer;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pool of card asymmetric key pairs generated in background by the SAM, used by the
+ * {@link com.idear.devices.card.cardkit.keyple.transaction.PrePersonalization} with
+ * {@link com.idear.devices.card.cardkit.keyple.transaction.PrePersonalization.KeyGenerated#LEGACY_SAM}.
+ *
+ * <p>
+ * The key pair generation does not depend on the card, the pool generates the pairs while the operator
+ * swaps cards, so the card only waits for the certificate computation and the PUT DATA commands.
+ * When the pool is empty the key pair is generated with the card on the reader, as without pool.
+ * </p>
+ *
+ * <p>
+ * The SAM is shared with the transactions, the generation and the transactions using the SAM
+ * lock the {@link KeypleCalypsoSamReader} instance. The generation is also paused while a card
+ * secure session is open, the SAM keeps the session digest between two transactions.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@Slf4j
+@Getter
+public class KeyPairPool implements AutoCloseable {
+
+    /** Length of the private key at the start of a key pair */
+    public static final int PRIVATE_KEY_LENGTH = 32;
+
+    /** Length of the public key at the end of a key pair, uncompressed point {@code X || Y} */
+    public static final int PUBLIC_KEY_LENGTH = 64;
+
+    /** Length of a key pair generated by the SAM, {@code private key || public key} */
+    public static final int KEY_PAIR_LENGTH = PRIVATE_KEY_LENGTH + PUBLIC_KEY_LENGTH;
+
+    private static final long RETRY_DELAY = 1_000;
+
+    private final KeypleCalypsoSamReader samReader;
+    private final int capacity;
+    private final BlockingQueue<KeyPairContainer> keyPairs;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "key-pair-pool");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean running;
+    private LegacySam legacySam;
+
+    /**
+     * @param samReader the SAM reader, a SAM C1 is required for the generation
+     * @param capacity  number of key pairs kept ready
+     */
+    public KeyPairPool(KeypleCalypsoSamReader samReader, int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+        this.samReader = samReader;
+        this.capacity = capacity;
+        this.keyPairs = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Starts the background generation.
+     */
+    public void start() {
+        running = true;
+        executor.submit(this::fill);
+    }
+
+    /**
+     * Stops the background generation, the key pairs already generated are kept.
+     */
+    @Override
+    public void close() {
+        running = false;
+        executor.shutdownNow();
+    }
+
+    /**
+     * Takes a pre-generated key pair.
+     *
+     * @return a key pair, or {@code null} if the pool is empty
+     */
+    public KeyPairContainer poll() {
+        return keyPairs.poll();
+    }
+
+    /**
+     * @return number of key pairs ready
+     */
+    public int size() {
+        return keyPairs.size();
+    }
+
+    /**
+     * Public key of a key pair generated by the SAM.
+     * <p>
+     * The key pair of {@link KeyPairContainer#getKeyPair()} is the ECC P-256 private key
+     * ({@link #PRIVATE_KEY_LENGTH} bytes) followed by the public key as the uncompressed point
+     * {@code X || Y} without the {@code 04} prefix ({@link #PUBLIC_KEY_LENGTH} bytes).
+     * </p>
+     *
+     * @param keyPair the key pair
+     * @return the public key
+     * @throws IllegalArgumentException if the key pair is not of {@link #KEY_PAIR_LENGTH} bytes
+     */
+    public static byte[] publicKeyOf(byte[] keyPair) {
+        if (keyPair == null || keyPair.length != KEY_PAIR_LENGTH)
+            throw new IllegalArgumentException("Key pair of " + KEY_PAIR_LENGTH + " bytes expected, got "
+                    + (keyPair == null ? 0 : keyPair.length));
+        return Arrays.copyOfRange(keyPair, PRIVATE_KEY_LENGTH, KEY_PAIR_LENGTH);
+    }
+
+    private void fill() {
+        while (running) {
+            try {
+                keyPairs.put(generate());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("Key pair generation failed: {}", e.getMessage());
+                legacySam = null;
+                try {
+                    Thread.sleep(RETRY_DELAY);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private KeyPairContainer generate() throws InterruptedException {
+        KeyPairContainer keyPairContainer = KeypleUtil.LEGACY_SAM_API_FACTORY.createKeyPairContainer();
+        synchronized (samReader) {
+            samReader.awaitNoCardSession();
+            if (legacySam == null)
+                legacySam = KeypleUtil.selectLegacySamByProduct(samReader.getSamReader(), LegacySam.ProductType.SAM_C1);
+
+            KeypleUtil.LEGACY_SAM_API_FACTORY
+                    .createFreeTransactionManager(samReader.getSamReader(), legacySam)
+                    .prepareGenerateCardAsymmetricKeyPair(keyPairContainer)
+                    .processCommands();
+        }
+        log.debug("Key pair generated, {} ready", keyPairs.size() + 1);
+        return keyPairContainer;
+    }
+}
@@ -8,9 +8,14 @@ import com.idear.devices.card.cardkit.core.exception.SamException;
 import com.idear.devices.card.cardkit.core.io.apdu.ResponseApdu;
 import com.idear.devices.card.cardkit.core.io.reader.AbstractReader;
 import com.idear.devices.card.cardkit.core.utils.ByteUtils;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.ToString;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
 import org.eclipse.keyple.card.calypso.crypto.legacysam.LegacySamExtensionService;
 import org.eclipse.keyple.card.generic.CardTransactionManager;
 import org.eclipse.keyple.card.generic.ChannelControl;
@@ -24,7 +29,25 @@ import org.eclipse.keypop.reader.CardReader;
 import javax.smartcardio.CommandAPDU;
 import javax.smartcardio.ResponseAPDU;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * SAM reader of the Keyple transactions.
+ *
+ * <p>
+ * Every SAM exchange locks this instance: the methods of the reader, the transactions of the
+ * {@link KeypleTransactionManager} that use the SAM, the {@link PrePersonalizationSession} and the
+ * {@link KeyPairPool}.
+ * The card secure sessions also send commands to the SAM between two transactions (digest), the
+ * background work waits with {@link #awaitNoCardSession()} until no secure session is open.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@Slf4j
 @EqualsAndHashCode(callSuper = true)
 @Data
 public class KeypleCalypsoSamReader extends AbstractReader {
@@ -52,6 +75,32 @@ public class KeypleCalypsoSamReader extends AbstractReader {
     private int samNetworkCode;
     private final ValueDecoder<Provider> samProviderCode = ValueDecoder.emptyDecoder(Provider.class);
 
+    /**
+     * Parameters read on the SAM ({@code 80 BE 00 A0 30}) keyed by SAM serial, restored when the same SAM
+     * is connected again, and revalidated by {@link #revalidateParameters()} while the lane is idle.
+     */
+    private static final Map<String, byte[]> SAM_PARAMETERS = new ConcurrentHashMap<>();
+
+    /** {@code false} while the parameters restored from the cache are not read again on the SAM */
+    private volatile boolean parametersValidated;
+
+    /**
+     * Warm-up of the last SAM connected on this reader, reused when the same SAM is connected again,
+     * only the selection and the unlock are then done on the SAM.
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private WarmUp warmUp;
+
+    /** Number of card secure sessions using the SAM, see {@link CardSession} */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int cardSessions;
+
     public static final LegacySamExtensionService legacySamExtensionService = LegacySamExtensionService.getInstance();
     private static final LegacySamApiFactory legacySamApiFactory = legacySamExtensionService.getLegacySamApiFactory();
 
@@ -83,7 +132,7 @@ public class KeypleCalypsoSamReader extends AbstractReader {
     }
 
     @Override
-    public void disconnect() {
+    public synchronized void disconnect() {
         if (genericSamTransactionManager == null)
             return;
 
@@ -98,33 +147,121 @@ public class KeypleCalypsoSamReader extends AbstractReader {
         return samReader != null && samReader.isCardPresent();
     }
 
+    /**
+     * Selects and unlocks the SAM, the unlock is lost at every power-up of the SAM and is always done.
+     * If the same SAM was already connected on this reader, its security settings, transaction manager
+     * and parameters are taken from the previous warm-up, otherwise they are prepared and the
+     * parameters are read from the cache of every reader or from the SAM.
+     * <p>
+     * Synchronized with every other SAM exchange of this reader.
+     * </p>
+     */
     @Override
-    public void connectToCard() {
+    public synchronized void connectToCard() {
         if (samReader == null)
             return;
-        legacySam = KeypleUtil.selectAndUnlockSam(samReader, lockSecret);
-        symmetricCryptoSettingsRT = KeypleUtil.startSymmetricSecuritySettings(samReader, legacySam);
-        genericSamTransactionManager = GenericExtensionService.getInstance()
-                .createCardTransaction(samReader, legacySam);
+        LegacySam selected = KeypleUtil.selectAndUnlockSam(samReader, lockSecret);
+        String selectedSerial = HexUtil.toHex(selected.getSerialNumber());
+
+        if (warmUp != null && warmUp.getSerial().equals(selectedSerial) && warmUp.getSamReader() == samReader) {
+            log.debug("SAM {} warm-up restored", selectedSerial);
+            legacySam = warmUp.getLegacySam();
+            symmetricCryptoSettingsRT = warmUp.getSymmetricCryptoSettings();
+            genericSamTransactionManager = warmUp.getGenericSamTransactionManager();
+        } else {
+            legacySam = selected;
+            symmetricCryptoSettingsRT = KeypleUtil.startSymmetricSecuritySettings(samReader, legacySam);
+            genericSamTransactionManager = GenericExtensionService.getInstance()
+                    .createCardTransaction(samReader, legacySam);
+            warmUp = new WarmUp(selectedSerial, samReader, legacySam, symmetricCryptoSettingsRT, genericSamTransactionManager);
+        }
+
+        serial = selectedSerial;
+        byte[] parameters = SAM_PARAMETERS.get(serial);
+        if (parameters != null) {
+            this.parse(parameters);
+            parametersValidated = false;
+            return;
+        }
+
+        this.parse(readParameters());
+        parametersValidated = true;
+    }
+
+    /**
+     * Reads the SAM parameters again and updates the cache, used to revalidate the parameters
+     * restored from the cache when the SAM was reconnected, see {@link #isParametersValidated()}.
+     *
+     * @throws SamException if the SAM is not connected or the command fails
+     */
+    public synchronized void revalidateParameters() {
+        byte[] cached = SAM_PARAMETERS.get(serial);
+        byte[] parameters = readParameters();
+        if (cached != null && !Arrays.equals(cached, parameters))
+            log.warn("SAM {} parameters changed since last connection", serial);
+
+        this.parse(parameters);
+        parametersValidated = true;
+    }
 
-        serial = HexUtil.toHex(legacySam.getSerialNumber());
+    /**
+     * Removes the parameters of every SAM from the cache.
+     */
+    public static void clearParametersCache() {
+        SAM_PARAMETERS.clear();
+    }
+
+    private byte[] readParameters() {
         ResponseApdu dataout = simpleCommand(
                 new CommandAPDU(0x80, 0xBE, 0x00, 0xA0, 0x30)
         ).throwIsNotSuccess();
 
-        byte[] parameters = Arrays.copyOfRange(dataout.getBytes(), 8, 37);
-        this.parse(parameters);
+        byte[] parameters = dataout.copyOfRange(8, 37);
+        SAM_PARAMETERS.put(serial, parameters);
+        return parameters;
     }
 
     @Override
-    public void disconnectFromCard() {
+    public synchronized void disconnectFromCard() {
         legacySam = null;
         serial = "";
         genericSamTransactionManager = null;
+        symmetricCryptoSettingsRT = null;
+    }
+
+    /**
+     * Checks if the SAM is selected and its security settings are prepared,
+     * so a secure session can be opened without any work on the SAM side.
+     *
+     * @return {@code true} if the SAM is ready for a secure session
+     */
+    public boolean isReady() {
+        return legacySam != null && symmetricCryptoSettingsRT != null;
+    }
+
+    /**
+     * Prepares the SAM before the next card, intended to be called while the lane is idle.
+     * <p>
+     * If the SAM is on the reader but not selected, it is selected, unlocked and its
+     * {@link SymmetricCryptoSecuritySetting} is created, this work is then kept out of the
+     * first transaction after the card tap.
+     * </p>
+     *
+     * <p>
+     * Synchronized, it can be called from the card and SAM monitors.
+     * </p>
+     *
+     * @return {@code true} if the SAM is ready for a secure session
+     * @throws SamException if the SAM cannot be selected or unlocked
+     */
+    public synchronized boolean preWarm() {
+        if (!isReady() && isCardOnReader())
+            connectToCard();
+        return isReady();
     }
 
     @Override
-    public ResponseApdu simpleCommand(CommandAPDU command) {
+    public synchronized ResponseApdu simpleCommand(CommandAPDU command) {
         if (genericSamTransactionManager == null)
             throw new SamException("connection to sam not started");
 
@@ -132,4 +269,60 @@ public class KeypleCalypsoSamReader extends AbstractReader {
                 .prepareApdu(command.getBytes())
                 .processApdusToByteArrays(ChannelControl.KEEP_OPEN).get(0));
     }
+
+    /**
+     * Sends the commands in a single exchange with the generic transaction manager. Stopping on error
+     * is not supported by the generic extension, the commands are then sent one by one.
+     */
+    @Override
+    public synchronized List<ResponseApdu> transmitBatch(List<CommandAPDU> commands, boolean stopOnError) {
+        if (stopOnError)
+            return super.transmitBatch(commands, true);
+        if (genericSamTransactionManager == null)
+            throw new SamException("connection to sam not started");
+
+        return KeypleUtil.transmitBatch(genericSamTransactionManager, commands);
+    }
+
+    /**
+     * Called when a card secure session is opened with this SAM.
+     */
+    public synchronized void cardSessionOpened() {
+        cardSessions++;
+    }
+
+    /**
+     * Called when a card secure session opened with this SAM is closed, cancelled or abandoned.
+     */
+    public synchronized void cardSessionClosed() {
+        if (cardSessions > 0)
+            cardSessions--;
+        notifyAll();
+    }
+
+    /**
+     * Waits until no card secure session uses the SAM. The caller must hold the lock of this
+     * instance, kept on return so no session can be opened until it is released.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void awaitNoCardSession() throws InterruptedException {
+        if (!Thread.holdsLock(this))
+            throw new IllegalStateException("SAM reader lock not held");
+        while (cardSessions > 0)
+            wait();
+    }
+
+    /**
+     * SAM selection and the objects prepared for it, bound to one reader
+     */
+    @Value
+    private static class WarmUp {
+        String serial;
+        CardReader samReader;
+        LegacySam legacySam;
+        SymmetricCryptoSecuritySetting symmetricCryptoSettings;
+        CardTransactionManager genericSamTransactionManager;
+    }
+
 }
@@ -16,6 +16,7 @@ import org.eclipse.keypop.reader.*;
 
 import javax.smartcardio.CommandAPDU;
 import javax.smartcardio.ResponseAPDU;
+import java.util.List;
 
 /**
  * Represents a PC/SC-based Calypso card reader.
@@ -59,6 +60,77 @@ public class KeypleCardReader extends AbstractReader {
     @ToString.Exclude
     private CalypsoCard calypsoCard;
 
+    /** Records read with the selection, see {@link SelectionReadPlan} */
+    @Setter(AccessLevel.NONE)
+    private SelectionReadPlan selectionReadPlan = SelectionReadPlan.NONE;
+
+    /** Read plan of the selection of the current card, {@link SelectionReadPlan#NONE} without card */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Setter(AccessLevel.NONE)
+    private SelectionReadPlan selectedReadPlan = SelectionReadPlan.NONE;
+
+    /** Selection scenario of {@link #aid}, prepared on first use and reused on every card */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Setter(AccessLevel.NONE)
+    private CardSelectionScenario selectionScenario;
+
+    /**
+     * Sets the AID to select, the prepared selection scenario is kept if the AID does not change.
+     *
+     * @param aid the application identifier (AID)
+     */
+    public void setAid(String aid) {
+        String _aid = aid == null ? "" : aid;
+        if (!_aid.equals(this.aid))
+            selectionScenario = null;
+        this.aid = _aid;
+    }
+
+    /**
+     * Sets the records to read with the selection, the prepared selection scenario is rebuilt
+     * if the plan changes.
+     *
+     * @param selectionReadPlan the read plan, {@code null} for {@link SelectionReadPlan#NONE}
+     */
+    public void setSelectionReadPlan(SelectionReadPlan selectionReadPlan) {
+        SelectionReadPlan plan = selectionReadPlan == null ? SelectionReadPlan.NONE : selectionReadPlan;
+        if (!plan.equals(this.selectionReadPlan))
+            selectionScenario = null;
+        this.selectionReadPlan = plan;
+    }
+
+    /**
+     * Get the selection scenario of the current AID, preparing it if needed.
+     *
+     * @return the selection scenario
+     */
+    public CardSelectionScenario getSelectionScenario() {
+        if (selectionScenario == null)
+            selectionScenario = CardSelectionScenario.build(aid, selectionReadPlan);
+        return selectionScenario;
+    }
+
+    /**
+     * Exports the selection scenario of the current AID, see {@link CardSelectionScenario#export()}.
+     *
+     * @return the exported scenario
+     */
+    public String exportSelectionScenario() {
+        return getSelectionScenario().export();
+    }
+
+    /**
+     * Imports a selection scenario exported for the current AID and read plan,
+     * used instead of preparing a new one.
+     *
+     * @param scenario the exported scenario
+     */
+    public void importSelectionScenario(String scenario) {
+        selectionScenario = CardSelectionScenario.importScenario(aid, selectionReadPlan, scenario);
+    }
+
     /**
      * Initializes the reader by binding to the physical PCSC reader
      * and initializing the associated SAM.
@@ -77,6 +149,7 @@ public class KeypleCardReader extends AbstractReader {
 
         genericTransactionManager.processApdusToByteArrays(ChannelControl.CLOSE_AFTER);
         calypsoCard = null;
+        selectedReadPlan = SelectionReadPlan.NONE;
         genericTransactionManager = null;
     }
 
@@ -100,7 +173,9 @@ public class KeypleCardReader extends AbstractReader {
     public void connectToCard() {
         if (!isCardOnReader())
             throw new ReaderException("no card on reader");
-        calypsoCard = KeypleUtil.selectCard(cardReader, aid);
+        CardSelectionScenario scenario = getSelectionScenario();
+        calypsoCard = KeypleUtil.selectCard(cardReader, scenario);
+        selectedReadPlan = scenario.getReadPlan();
 
         genericTransactionManager = GenericExtensionService.getInstance()
                 .createCardTransaction(cardReader, calypsoCard);
@@ -109,6 +184,7 @@ public class KeypleCardReader extends AbstractReader {
     @Override
     public void disconnectFromCard() {
         calypsoCard = null;
+        selectedReadPlan = SelectionReadPlan.NONE;
         genericTransactionManager = null;
     }
 
@@ -122,4 +198,19 @@ public class KeypleCardReader extends AbstractReader {
                         .prepareApdu(command.getBytes())
                         .processApdusToByteArrays(ChannelControl.KEEP_OPEN).get(0));
     }
+
+    /**
+     * Sends the commands in a single exchange with the generic transaction manager. Stopping on error
+     * is not supported by the generic extension, the commands are then sent one by one.
+     */
+    @Override
+    public List<ResponseApdu> transmitBatch(List<CommandAPDU> commands, boolean stopOnError) {
+        if (stopOnError)
+            return super.transmitBatch(commands, true);
+        if (genericTransactionManager == null)
+            throw new RuntimeException("connection to card not started");
+
+        return KeypleUtil.transmitBatch(genericTransactionManager, commands);
+    }
+
 }
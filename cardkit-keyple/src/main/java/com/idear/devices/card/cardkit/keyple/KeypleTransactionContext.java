@@ -1,5 +1,6 @@
 package com.idear.devices.card.cardkit.keyple;
 
+import com.idear.devices.card.cardkit.core.exception.CardException;
 import com.idear.devices.card.cardkit.core.io.transaction.AbstractTransactionContext;
 import lombok.Builder;
 import lombok.Getter;
@@ -11,4 +12,33 @@ public class KeypleTransactionContext extends AbstractTransactionContext {
     private final KeypleCardReader keypleCardReader;
     private final KeypleCalypsoSamReader keypleCalypsoSamReader;
     private final SecureRegularModeTransactionManager cardTransactionManager;
+    private final CardSession cardSession;
+    private final PrePersonalizationSession prePersonalizationSession;
+
+    /**
+     * @return the secure transaction manager of the card
+     * @throws CardException if no card is present or the SAM was not ready when the card was presented
+     */
+    public SecureRegularModeTransactionManager getCardTransactionManager() {
+        if (cardTransactionManager == null)
+            throw new CardException("no secure session available, card absent or SAM not ready");
+        return cardTransactionManager;
+    }
+
+    /**
+     * @return the secure session state of the card
+     * @throws CardException if no card is present or the SAM was not ready when the card was presented
+     */
+    public CardSession getCardSession() {
+        if (cardSession == null)
+            throw new CardException("no secure session available, card absent or SAM not ready");
+        return cardSession;
+    }
+
+    /**
+     * @return {@code true} if a secure session can be opened on the card
+     */
+    public boolean hasCardSession() {
+        return cardSession != null;
+    }
 }
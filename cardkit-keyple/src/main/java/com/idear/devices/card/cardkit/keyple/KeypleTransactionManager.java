@@ -3,16 +3,27 @@ package com.idear.devices.card.cardkit.keyple;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.CalypsoCardCDMX;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Contract;
 import com.idear.devices.card.cardkit.core.datamodel.date.ReverseDate;
+import com.idear.devices.card.cardkit.core.exception.ReaderException;
+import com.idear.devices.card.cardkit.core.io.transaction.AbstractTransaction;
 import com.idear.devices.card.cardkit.core.io.transaction.AbstractTransactionManager;
+import com.idear.devices.card.cardkit.core.io.transaction.ChainResult;
 import com.idear.devices.card.cardkit.core.io.transaction.TransactionResult;
+import com.idear.devices.card.cardkit.core.io.transaction.TransactionChain;
+import com.idear.devices.card.cardkit.core.io.transaction.TransactionStatus;
 import com.idear.devices.card.cardkit.keyple.transaction.*;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.keypop.calypso.card.WriteAccessLevel;
 import org.eclipse.keypop.calypso.card.transaction.ChannelControl;
 import org.eclipse.keypop.calypso.card.transaction.SecureRegularModeTransactionManager;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Transaction manager implementation based on Keyple for Calypso cards.
@@ -26,12 +37,20 @@ import java.time.LocalDate;
  * Unless explicitly stated otherwise, all transaction methods
  * <b>open and close a secure session internally</b>.
  * </p>
+ *
+ * <p>
+ * With {@link #setSessionReuse(boolean)} the session is kept open between operations on the
+ * same card and closed by {@link #closeSession()}, see {@link CardSession}.
+ * </p>
  */
 @Getter
 @Slf4j
 public class KeypleTransactionManager extends AbstractTransactionManager
         <KeypleCardReader, KeypleCalypsoSamReader, KeypleTransactionContext> {
 
+    /** Idle time after which the thread of the SAM revalidation ends */
+    private static final long REVALIDATION_IDLE_SECONDS = 30;
+
     private final String aid;
 
     /**
@@ -39,6 +58,43 @@ public class KeypleTransactionManager extends AbstractTransactionManager
      */
     private volatile SecureRegularModeTransactionManager ctm;
 
+    /**
+     * Secure session state of the current card, {@code null} while no card is present.
+     */
+    private volatile CardSession cardSession;
+
+    /**
+     * Keeps the secure session open between operations on the same card, see {@link CardSession}.
+     * Applied from the next card presented.
+     */
+    @Setter
+    private volatile boolean sessionReuse;
+
+    /**
+     * Key pairs generated in advance for {@link PrePersonalization.KeyGenerated#LEGACY_SAM},
+     * {@code null} to generate them with the card on the reader. Started and closed by the caller.
+     */
+    @Setter
+    private volatile KeyPairPool keyPairPool;
+
+    /**
+     * SAM state of the pre-personalization, kept from one card to the next.
+     */
+    private final PrePersonalizationSession prePersonalizationSession;
+
+    /**
+     * Runs the SAM parameters revalidation out of the card monitor thread. Never shut down, its thread
+     * ends when idle, so the revalidation still runs after the card monitor was stopped and restarted
+     * or when the cards are handled with {@link #awaitCard(long)}.
+     */
+    @Getter(AccessLevel.NONE)
+    private final ThreadPoolExecutor samRevalidation = new ThreadPoolExecutor(
+            1, 1, REVALIDATION_IDLE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+        Thread thread = new Thread(runnable, "sam-revalidation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     /**
      * Creates a new Keyple-based transaction manager.
      *
@@ -51,29 +107,134 @@ public class KeypleTransactionManager extends AbstractTransactionManager
             String aid) {
         super(cardReader, samReader);
         this.aid = aid;
+        this.prePersonalizationSession = new PrePersonalizationSession(samReader);
+        this.samRevalidation.allowCoreThreadTimeOut(true);
         cardReader.setAid(aid);
     }
 
+    /**
+     * Reads again the SAM parameters restored from the cache when the SAM was reconnected. Submitted
+     * while the lane is idle so neither the reconnection nor the card monitor wait for the SAM command,
+     * the SAM reader serializes it with the other SAM exchanges.
+     */
+    private void revalidateSam() {
+        if (!samReader.isReady() || samReader.isParametersValidated())
+            return;
+
+        samRevalidation.execute(() -> {
+            try {
+                if (samReader.isReady() && !samReader.isParametersValidated())
+                    samReader.revalidateParameters();
+            } catch (Exception e) {
+                log.warn("SAM parameters revalidation failed: {}", e.getMessage());
+            }
+        });
+    }
+
     @Override
     public void startCardMonitor() {
         cardReader.setAid(aid);
+        preWarm();
         super.startCardMonitor();
     }
 
+    /**
+     * Prepares the readers for the next card while the lane is idle.
+     * <p>
+     * The card selection scenario is prepared and the SAM is selected with its security
+     * settings if needed, see {@link KeypleCalypsoSamReader#preWarm()}. After the card tap only
+     * the selection and the transaction exchanges remain. Called at start, when the SAM is
+     * inserted and when the card is removed, it can also be called by the application.
+     * </p>
+     *
+     * <p>
+     * The SAM challenge is not pre-fetched, it is requested by the crypto extension when
+     * the secure session is opened and is bound to that session.
+     * </p>
+     *
+     * @return {@code true} if the SAM is ready for a secure session
+     */
+    public boolean preWarm() {
+        cardReader.getSelectionScenario();
+        try {
+            return samReader.preWarm();
+        } catch (Exception e) {
+            log.warn("SAM pre-warm failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Waits for a card and prepares its transaction manager, for callers driving the reader
+     * without the card monitor, e.g. a card feeder.
+     *
+     * @param timeout maximum waiting time in milliseconds, {@code 0} to wait indefinitely
+     * @return {@code true} if a card was selected
+     */
+    public boolean awaitCard(long timeout) {
+        try {
+            cardReader.waitForCardPresent(timeout);
+        } catch (ReaderException e) {
+            return false;
+        }
+        if (cardReader.getCalypsoCard() == null)
+            return false;
+
+        onCardPresent();
+        return true;
+    }
+
+    /**
+     * Waits for the card removal and releases its transaction manager, counterpart of {@link #awaitCard(long)}.
+     *
+     * @param timeout maximum waiting time in milliseconds, {@code 0} to wait indefinitely
+     */
+    public void releaseCard(long timeout) {
+        cardReader.waitForCarAbsent(timeout);
+        onCardAbsent();
+    }
+
     /**
      * Invoked when a card is detected.
      * <p>
      * Initializes the secure transaction manager and prepares the
      * cryptographic context required for further operations.
      * </p>
+     *
+     * <p>
+     * Without SAM security settings no secure transaction manager is prepared,
+     * only {@link #inquireBalance()} can be executed on the card until the SAM is ready,
+     * see {@code prepareCardSession()}.
+     * </p>
      */
     @Override
     protected void onCardPresent() {
+        releaseCardSession();
+        if (!prepareCardSession())
+            log.warn("SAM not ready, the card is only available for read-only inquiry");
+    }
+
+    /**
+     * Prepares the secure transaction manager of the card present if it has none yet and the SAM
+     * security settings are available. Called when the card is presented, when the SAM is inserted
+     * and before each operation, so a SAM made ready while the card is on the reader is used by the
+     * next operation.
+     *
+     * @return {@code true} if the card has a secure transaction manager
+     */
+    private synchronized boolean prepareCardSession() {
+        if (cardSession != null)
+            return true;
+        if (cardReader.getCalypsoCard() == null || samReader.getSymmetricCryptoSettingsRT() == null)
+            return false;
+
         ctm = KeypleUtil.prepareCardTransactionManger(
                 cardReader.getCardReader(),
                 cardReader.getCalypsoCard(),
                 samReader.getSymmetricCryptoSettingsRT()
         );
+        cardSession = new CardSession(ctm, cardReader.getCalypsoCard(), samReader, sessionReuse);
+        return true;
     }
 
     /**
@@ -85,17 +246,34 @@ public class KeypleTransactionManager extends AbstractTransactionManager
      */
     @Override
     protected void onCardAbsent() {
-        ctm.processCommands(ChannelControl.CLOSE_AFTER);
+        CardSession session = cardSession;
+        if (session != null && session.isOpen()) {
+            log.warn("Card removed with a secure session open, {} modifications discarded",
+                    session.getAccessLevel());
+            session.abandon();
+        }
+        if (ctm != null)
+            ctm.processCommands(ChannelControl.CLOSE_AFTER);
+        releaseCardSession();
+        preWarm();
+        revalidateSam();
+    }
+
+    private synchronized void releaseCardSession() {
         ctm = null;
+        cardSession = null;
     }
 
     @Override
     protected void onSamPresent() {
-
+        if (preWarm() && cardSession == null && prepareCardSession())
+            log.info("SAM ready, secure session available for the card present");
+        revalidateSam();
     }
 
     @Override
     protected void onSamAbsent() {
+        prePersonalizationSession.invalidate();
         samReader.getGenericSamTransactionManager()
                 .processApdusToByteArrays(org.eclipse.keyple.card.generic.ChannelControl.CLOSE_AFTER);
     }
@@ -108,14 +286,86 @@ public class KeypleTransactionManager extends AbstractTransactionManager
     @Override
     protected KeypleTransactionContext createContext() {
         cardReader.setAid(aid);
+        prepareCardSession();
         return KeypleTransactionContext
                 .builder()
                 .cardTransactionManager(ctm)
+                .cardSession(cardSession)
+                .prePersonalizationSession(prePersonalizationSession)
                 .keypleCalypsoSamReader(samReader)
                 .keypleCardReader(cardReader)
                 .build();
     }
 
+    /**
+     * A chain is pending while the card session is still open, the reuse mode keeps it open
+     * until {@link CloseSession} or the card removal.
+     */
+    @Override
+    protected boolean isPending(KeypleTransactionContext context) {
+        return context.hasCardSession() && context.getCardSession().isOpen();
+    }
+
+    /**
+     * Executes a transaction, if it fails with an error while a secure session is open the session
+     * is cancelled, the modifications of the session are discarded and the next operation opens a new one.
+     * Aborted transactions ({@link TransactionStatus#ABORTED}) are rejected before any command and keep the session.
+     * The SAM reader is locked during the transactions that use the SAM ({@link AbstractTransaction#isUsingSam()}),
+     * see {@link KeypleCalypsoSamReader}, the others run while the SAM is busy.
+     */
+    @Override
+    public <T> TransactionResult<T> execute(
+            AbstractTransaction<T, KeypleTransactionContext> abstractTransaction) {
+        if (!abstractTransaction.isUsingSam())
+            return cancelSessionOnError(super.execute(abstractTransaction));
+
+        synchronized (samReader) {
+            return cancelSessionOnError(super.execute(abstractTransaction));
+        }
+    }
+
+    /**
+     * Executes the steps of the chain against a single context, the SAM reader is locked for the
+     * whole chain, see {@link KeypleCalypsoSamReader}.
+     */
+    @Override
+    public TransactionResult<ChainResult> execute(TransactionChain<KeypleTransactionContext> chain) {
+        synchronized (samReader) {
+            return super.execute(chain);
+        }
+    }
+
+    /**
+     * Cancels the open session when a step of a chain fails with an error, before the next step,
+     * even if the chain goes on with {@link TransactionChain#stopOnFailure(boolean)} disabled.
+     */
+    @Override
+    protected void onStepFailure(KeypleTransactionContext context, TransactionResult<?> result) {
+        cancelSessionOnError(result);
+    }
+
+    private <T> TransactionResult<T> cancelSessionOnError(TransactionResult<T> result) {
+        CardSession session = cardSession;
+        if (result.getTransactionStatus() == TransactionStatus.ERROR && session != null && session.isOpen()) {
+            try {
+                session.cancel();
+            } catch (Exception e) {
+                log.warn("Secure session cancellation failed: {}", e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Closes the secure session kept open by the session reuse mode, committing
+     * the modifications of every operation done since it was opened.
+     *
+     * @return a {@link TransactionResult} with {@code true} if a session was closed
+     */
+    public TransactionResult<Boolean> closeSession() {
+        return execute(new CloseSession());
+    }
+
     /**
      * Reads all card data using the specified write access level.
      * <p>
@@ -135,6 +385,25 @@ public class KeypleTransactionManager extends AbstractTransactionManager
         return execute(new ReadAllCard(writeAccessLevel));
     }
 
+    /**
+     * Reads the balance, environment, events and contracts without secure session.
+     * <p>
+     * No secure session is opened and the SAM is not used, the inquiry can be executed
+     * while the SAM is absent or busy. The data read is not authenticated,
+     * use {@link #readCardData(WriteAccessLevel)} before any write operation.
+     * </p>
+     *
+     * <p>
+     * Rejected ({@link TransactionStatus#ABORTED}) while a secure session is open, the session is kept,
+     * see {@link #closeSession()}.
+     * </p>
+     *
+     * @return a {@link TransactionResult} containing the populated {@link CalypsoCardCDMX}
+     */
+    public TransactionResult<CalypsoCardCDMX> inquireBalance() {
+        return execute(new BalanceInquiry());
+    }
+
     /**
      * Executes a debit transaction on the specified contract.
      * <p>
@@ -398,6 +667,20 @@ public class KeypleTransactionManager extends AbstractTransactionManager
         return execute(new AppendPersonalization(fileId, data));
     }
 
+    /**
+     * Writes many records in as few secure sessions as the card modification buffer allows,
+     * the sessions are split when the buffer is full.
+     *
+     * @param writeAccessLevel the access level of the sessions
+     * @param writes           the record updates and appends, in order
+     * @return a {@link TransactionResult} with the number of secure sessions used
+     */
+    public TransactionResult<Integer> bulkWrite(
+            WriteAccessLevel writeAccessLevel,
+            List<BulkWrite.RecordWrite> writes) {
+        return execute(new BulkWrite(writeAccessLevel, writes));
+    }
+
     /**
      * Executes the pre-personalization phase.
      * <p>Closes the secure session after execution.</p>
@@ -406,6 +689,6 @@ public class KeypleTransactionManager extends AbstractTransactionManager
             PrePersonalization.KeyGenerated keyGenerated,
             LocalDate startDate,
             LocalDate endDate) {
-        return execute(new PrePersonalization(keyGenerated, startDate, endDate));
+        return execute(new PrePersonalization(keyGenerated, startDate, endDate, keyPairPool));
     }
 }
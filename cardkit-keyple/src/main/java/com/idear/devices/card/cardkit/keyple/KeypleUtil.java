@@ -3,12 +3,14 @@ package com.idear.devices.card.cardkit.keyple;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.CalypsoCardCDMX;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.*;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.*;
+import com.idear.devices.card.cardkit.core.datamodel.date.CardClock;
 import com.idear.devices.card.cardkit.core.datamodel.date.CompactDate;
 import com.idear.devices.card.cardkit.core.datamodel.date.CompactTime;
 import com.idear.devices.card.cardkit.core.datamodel.date.DateTimeReal;
 import com.idear.devices.card.cardkit.core.datamodel.date.ReverseDate;
 import com.idear.devices.card.cardkit.core.exception.CardException;
 import com.idear.devices.card.cardkit.core.exception.SamException;
+import com.idear.devices.card.cardkit.core.io.apdu.ResponseApdu;
 import com.idear.devices.card.cardkit.core.io.reader.GenericApduResponse;
 import com.idear.devices.card.cardkit.core.utils.BitUtil;
 import com.idear.devices.card.cardkit.core.utils.ByteUtils;
@@ -43,8 +45,8 @@ import org.eclipse.keypop.reader.CardReader;
 import org.eclipse.keypop.reader.ConfigurableCardReader;
 import org.eclipse.keypop.reader.ReaderApiFactory;
 import org.eclipse.keypop.reader.selection.*;
-import org.eclipse.keypop.reader.selection.spi.SmartCard;
 
+import javax.smartcardio.CommandAPDU;
 import java.time.LocalDate;
 import java.util.*;
 
@@ -135,34 +137,57 @@ public abstract class KeypleUtil {
     public static CalypsoCard selectCard(
             CardReader cardReader,
             String aid) {
+        return CardSelectionScenario.build(aid).select(cardReader);
+    }
 
-        CardSelectionManager cardSelectionManager = READER_API_FACTORY.createCardSelectionManager();
-        CalypsoCardSelectionExtension calypsoCardSelection = CALYPSO_CARD_API_FACTORY
-                .createCalypsoCardSelectionExtension()
-                .acceptInvalidatedCard();
-
-        if (!aid.isEmpty())
-            cardSelectionManager.prepareSelection(
-                    READER_API_FACTORY.createIsoCardSelector()
-                            .filterByDfName(aid),
-                    calypsoCardSelection
-            );
-        else
-            cardSelectionManager.prepareSelection(
-                    READER_API_FACTORY.createIsoCardSelector(),
-                    calypsoCardSelection
-            );
+    /**
+     * Selects a Calypso card application on the given reader using a prepared scenario,
+     * see {@link CardSelectionScenario}.
+     *
+     * @param cardReader the reader where the card is inserted
+     * @param scenario the prepared selection scenario
+     * @return the selected {@link CalypsoCard}
+     * @throws IllegalStateException if the application selection fails
+     */
+    public static CalypsoCard selectCard(
+            CardReader cardReader,
+            CardSelectionScenario scenario) {
+        return scenario.select(cardReader);
+    }
 
-        SmartCard smartCard;
+    /**
+     * Counts the records of a file read with the selection of the current card, starting at record 1
+     * and stopping at the first record that is not part of the {@link SelectionReadPlan} or missing
+     * from the card image. Records of the image that were not read by this selection (e.g. left by an
+     * earlier transaction) are not counted, they may be stale.
+     *
+     * @param calypsoCard the Calypso card
+     * @param selectedReadPlan the read plan of the selection of this card,
+     *                         see {@link KeypleCardReader#getSelectedReadPlan()}
+     * @param fileId the file identifier (SFI)
+     * @param maxRecord the last record number to check
+     * @return number of consecutive records read on selection from record 1
+     */
+    public static int countRecordsRead(
+            CalypsoCard calypsoCard,
+            SelectionReadPlan selectedReadPlan,
+            byte fileId,
+            int maxRecord) {
+        if (selectedReadPlan.isEmpty())
+            return 0;
 
-        smartCard = cardSelectionManager
-                .processCardSelectionScenario(cardReader)
-                .getActiveSmartCard();
+        ElementaryFile elementaryFile = calypsoCard.getFileBySfi(fileId);
+        if (elementaryFile == null)
+            return 0;
 
-        if (smartCard == null)
-            throw new IllegalStateException("The selection of the application " + aid + " failed.");
+        SortedMap<Integer, byte[]> records = elementaryFile.getData().getAllRecordsContent();
+        if (records == null)
+            return 0;
 
-        return  (CalypsoCard) smartCard;
+        int count = 0;
+        while (count < maxRecord && selectedReadPlan.contains(fileId, count + 1) && records.containsKey(count + 1))
+            count++;
+        return count;
     }
 
     /**
@@ -542,11 +567,14 @@ public abstract class KeypleUtil {
         bit.setNextInteger(0, 16);
         bit.setNextInteger(0, 24);
 
-        GenericApduResponse response = digestMacCompute(
-                keypleCalypsoSamReader.getGenericSamTransactionManager(),
-                (byte) 0xEB,
-                (byte) 0xC0,
-                bit.getData());
+        GenericApduResponse response;
+        synchronized (keypleCalypsoSamReader) {
+            response = digestMacCompute(
+                    keypleCalypsoSamReader.getGenericSamTransactionManager(),
+                    (byte) 0xEB,
+                    (byte) 0xC0,
+                    bit.getData());
+        }
 
         log.debug("Digest MAC compute: {}h", response.getSw());
         return HexUtil.toHex(response.getDataOut());
@@ -562,7 +590,7 @@ public abstract class KeypleUtil {
     }
 
     /**
-     * Computes a transaction MAC using the SAM.
+     * Computes a transaction MAC using the SAM, dated with the system clock.
      *
      * @param keypleCalypsoSamReader the SAM reader wrapper
      * @param event the event to use
@@ -575,13 +603,32 @@ public abstract class KeypleUtil {
             Event event,
             CalypsoCardCDMX calypsoCardCDMX,
             int prevSvBalance) {
+        return computeTransactionSignature(keypleCalypsoSamReader, event, calypsoCardCDMX, prevSvBalance, CardClock.system());
+    }
+
+    /**
+     * Computes a transaction MAC using the SAM.
+     *
+     * @param keypleCalypsoSamReader the SAM reader wrapper
+     * @param event the event to use
+     * @param calypsoCardCDMX the calypso card data to use
+     * @param prevSvBalance the previous stored value balance
+     * @param clock the clock of the transaction
+     * @return the computed MAC as a hexadecimal string
+     */
+    public static String computeTransactionSignature(
+            KeypleCalypsoSamReader keypleCalypsoSamReader,
+            Event event,
+            CalypsoCardCDMX calypsoCardCDMX,
+            int prevSvBalance,
+            CardClock clock) {
         if (!event.getTransactionType().decode(TransactionType.RFU).isSigned())
             return "";
 
         return computeTransactionSignature(
                 keypleCalypsoSamReader,
                 event.getTransactionType().getValue(),
-                DateTimeReal.now().getValue(),
+                DateTimeReal.now(clock).getValue(),
                 event.getAmount(),
                 event.getLocationId().getValue(),
                 calypsoCardCDMX.getCalypsoProduct().getValue(),
@@ -596,10 +643,20 @@ public abstract class KeypleUtil {
             Event event,
             CalypsoCardCDMX calypsoCardCDMX,
             int prevSvBalance) {
+        return computeTransactionSignature(ctm, keypleCalypsoSamReader, event, calypsoCardCDMX, prevSvBalance, CardClock.system());
+    }
+
+    public static String computeTransactionSignature(
+            SecureRegularModeTransactionManager ctm,
+            KeypleCalypsoSamReader keypleCalypsoSamReader,
+            Event event,
+            CalypsoCardCDMX calypsoCardCDMX,
+            int prevSvBalance,
+            CardClock clock) {
         if (event.getTransactionType().decode(TransactionType.RFU).isWritten())
             ctm.prepareAppendRecord(event.getFileId(), event.unparse());
 
-        return computeTransactionSignature(keypleCalypsoSamReader, event, calypsoCardCDMX, prevSvBalance);
+        return computeTransactionSignature(keypleCalypsoSamReader, event, calypsoCardCDMX, prevSvBalance, clock);
     }
 
     /**
@@ -678,11 +735,28 @@ public abstract class KeypleUtil {
             SecureRegularModeTransactionManager ctm,
             int amount,
             ChannelControl channelControl) {
+        performDebit(ctm, amount, channelControl, CardClock.system());
+    }
+
+    /**
+     * Performs a debit operation on the card stored value.
+     *
+     * @param ctm the transaction manager
+     * @param amount the amount to debit
+     * @param channelControl the channel control
+     * @param clock the clock of the transaction
+     */
+    public static void performDebit(
+            SecureRegularModeTransactionManager ctm,
+            int amount,
+            ChannelControl channelControl,
+            CardClock clock) {
+        CardClock instant = clock.snapshot();
         ctm.prepareSvGet(SvOperation.DEBIT, SvAction.DO)
                 .prepareSvDebit(
                         amount,
-                        CompactDate.now().toBytes(),
-                        CompactTime.now().toBytes())
+                        CompactDate.now(instant).toBytes(),
+                        CompactTime.now(instant).toBytes())
                 .prepareCloseSecureSession()
                 .processCommands(channelControl);
     }
@@ -741,13 +815,28 @@ public abstract class KeypleUtil {
     public static void reloadCard(
             SecureRegularModeTransactionManager ctm,
             int amount) {
+        reloadCard(ctm, amount, CardClock.system());
+    }
+
+    /**
+     * Increases or decreases the balance card
+     *
+     * @param ctm the transaction manager
+     * @param amount the amount
+     * @param clock the clock of the transaction
+     */
+    public static void reloadCard(
+            SecureRegularModeTransactionManager ctm,
+            int amount,
+            CardClock clock) {
+        CardClock instant = clock.snapshot();
         ctm
 //                .prepareOpenSecureSession(WriteAccessLevel.LOAD)
                 .prepareSvGet(SvOperation.RELOAD, SvAction.DO)
                 .prepareSvReload(
                         amount,
-                        CompactDate.now().toBytes(),
-                        CompactTime.now().toBytes(),
+                        CompactDate.now(instant).toBytes(),
+                        CompactTime.now(instant).toBytes(),
                         ByteUtils.extractBytes(0, 2))
 //                .prepareCloseSecureSession()
                 .processCommands(ChannelControl.KEEP_OPEN);
@@ -877,6 +966,47 @@ public abstract class KeypleUtil {
                 );
     }
 
+    /**
+     * Creates a free transaction manager for a Calypso card, commands are sent outside
+     * of a secure session and the SAM is not used.
+     *
+     * @param cardReader the reader hosting the card
+     * @param calypsoCard the selected Calypso card
+     * @return a {@link FreeTransactionManager}
+     */
+    public static FreeTransactionManager prepareFreeTransactionManager(
+            CardReader cardReader,
+            CalypsoCard calypsoCard) {
+        return CALYPSO_CARD_API_FACTORY
+                .createFreeTransactionManager(cardReader, calypsoCard);
+    }
+
+    /**
+     * Sends a list of commands in a single exchange with the generic transaction manager of a reader,
+     * every command is sent whatever the status of the previous ones.
+     *
+     * @param cardTransactionManager the generic transaction manager of the reader
+     * @param commands the commands, in order
+     * @return the responses, in the order of the commands
+     */
+    public static List<ResponseApdu> transmitBatch(
+            CardTransactionManager cardTransactionManager,
+            List<CommandAPDU> commands) {
+        if (commands.isEmpty())
+            return new ArrayList<>();
+
+        for (CommandAPDU command : commands)
+            cardTransactionManager.prepareApdu(command.getBytes());
+
+        List<byte[]> responses = cardTransactionManager
+                .processApdusToByteArrays(org.eclipse.keyple.card.generic.ChannelControl.KEEP_OPEN);
+
+        List<ResponseApdu> responseApdus = new ArrayList<>(responses.size());
+        for (byte[] response : responses)
+            responseApdus.add(new ResponseApdu(response));
+        return responseApdus;
+    }
+
     public static LegacySam selectLegacySamByProduct(
             CardReader samReader,
             LegacySam.ProductType productType) {
@@ -913,6 +1043,23 @@ public abstract class KeypleUtil {
             CalypsoCard calypsoCard,
             LocalDate startDate,
             LocalDate endDate) {
+        cardSamKeyPair(cardReader, samReader, legacySam, calypsoCard, startDate, endDate, null);
+    }
+
+    /**
+     * Same as {@link #cardSamKeyPair(CardReader, CardReader, LegacySam, CalypsoCard, LocalDate, LocalDate)}
+     * with the CA certificate already read on the SAM, see {@link PrePersonalizationSession}.
+     *
+     * @param caCertificate CA certificate of the SAM, {@code null} to read it now
+     */
+    public static void cardSamKeyPair(
+            CardReader cardReader,
+            CardReader samReader,
+            LegacySam legacySam,
+            CalypsoCard calypsoCard,
+            LocalDate startDate,
+            LocalDate endDate,
+            byte[] caCertificate) {
         FreeTransactionManager freeTransactionManager = CALYPSO_CARD_API_FACTORY
                 .createFreeTransactionManager(cardReader, calypsoCard);
         try {
@@ -934,9 +1081,11 @@ public abstract class KeypleUtil {
                         .setCardStartupInfo(calypsoCard.getStartupInfoRawData());
 
         try {
-            LEGACY_SAM_API_FACTORY
-                    .createFreeTransactionManager(samReader, legacySam)
-                    .prepareGetData(GetDataTag.CA_CERTIFICATE)
+            org.eclipse.keypop.calypso.crypto.legacysam.transaction.FreeTransactionManager samTransactionManager =
+                    LEGACY_SAM_API_FACTORY.createFreeTransactionManager(samReader, legacySam);
+            if (caCertificate == null)
+                samTransactionManager.prepareGetData(GetDataTag.CA_CERTIFICATE);
+            samTransactionManager
                     .prepareComputeCardCertificate(cardCertificateComputationData)
                     .processCommands();
         } catch (Exception e) {
@@ -946,7 +1095,8 @@ public abstract class KeypleUtil {
         try {
             CALYPSO_CARD_API_FACTORY
                     .createFreeTransactionManager(cardReader, calypsoCard)
-                    .preparePutData(PutDataTag.CA_CERTIFICATE, legacySam.getCaCertificate())
+                    .preparePutData(PutDataTag.CA_CERTIFICATE,
+                            caCertificate != null ? caCertificate : legacySam.getCaCertificate())
                     .preparePutData(PutDataTag.CARD_CERTIFICATE, cardCertificateComputationData.getCertificate())
                     .processCommands(ChannelControl.KEEP_OPEN);
         } catch (Exception e) {
@@ -961,7 +1111,47 @@ public abstract class KeypleUtil {
             CalypsoCard calypsoCard,
             LocalDate startDate,
             LocalDate endDate) {
-        KeyPairContainer keyPairContainer = LEGACY_SAM_API_FACTORY.createKeyPairContainer();
+        legacySamKeyPair(cardReader, samReader, legacySam, calypsoCard, startDate, endDate, null);
+    }
+
+    /**
+     * Same as {@link #legacySamKeyPair(CardReader, CardReader, LegacySam, CalypsoCard, LocalDate, LocalDate)}
+     * with a key pair already generated by the SAM, see {@link KeyPairPool}. Only the card certificate is
+     * computed with the card on the reader.
+     *
+     * @param keyPairContainer key pair generated in advance, {@code null} to generate it now
+     */
+    public static void legacySamKeyPair(
+            CardReader cardReader,
+            CardReader samReader,
+            LegacySam legacySam,
+            CalypsoCard calypsoCard,
+            LocalDate startDate,
+            LocalDate endDate,
+            KeyPairContainer keyPairContainer) {
+        legacySamKeyPair(cardReader, samReader, legacySam, calypsoCard, startDate, endDate, keyPairContainer, null);
+    }
+
+    /**
+     * Same as {@link #legacySamKeyPair(CardReader, CardReader, LegacySam, CalypsoCard, LocalDate, LocalDate, KeyPairContainer)}
+     * with the CA certificate already read on the SAM, see {@link PrePersonalizationSession}.
+     *
+     * @param keyPairContainer key pair generated in advance, {@code null} to generate it now
+     * @param caCertificate    CA certificate of the SAM, {@code null} to read it now
+     */
+    public static void legacySamKeyPair(
+            CardReader cardReader,
+            CardReader samReader,
+            LegacySam legacySam,
+            CalypsoCard calypsoCard,
+            LocalDate startDate,
+            LocalDate endDate,
+            KeyPairContainer keyPairContainer,
+            byte[] caCertificate) {
+        boolean generate = keyPairContainer == null;
+        if (generate)
+            keyPairContainer = LEGACY_SAM_API_FACTORY.createKeyPairContainer();
+
         LegacyCardCertificateComputationData cardCertificateComputationData =
                 LEGACY_SAM_API_FACTORY
                         .createLegacyCardCertificateComputationData()
@@ -970,12 +1160,17 @@ public abstract class KeypleUtil {
                         .setStartDate(startDate)
                         .setEndDate(endDate)
                         .setCardStartupInfo(calypsoCard.getStartupInfoRawData());
+        if (!generate)
+            cardCertificateComputationData.setCardPublicKey(KeyPairPool.publicKeyOf(keyPairContainer.getKeyPair()));
 
         try {
-            LEGACY_SAM_API_FACTORY
-                    .createFreeTransactionManager(samReader, legacySam)
-                    .prepareGetData(GetDataTag.CA_CERTIFICATE)
-                    .prepareGenerateCardAsymmetricKeyPair(keyPairContainer)
+            org.eclipse.keypop.calypso.crypto.legacysam.transaction.FreeTransactionManager samTransactionManager =
+                    LEGACY_SAM_API_FACTORY.createFreeTransactionManager(samReader, legacySam);
+            if (caCertificate == null)
+                samTransactionManager.prepareGetData(GetDataTag.CA_CERTIFICATE);
+            if (generate)
+                samTransactionManager.prepareGenerateCardAsymmetricKeyPair(keyPairContainer);
+            samTransactionManager
                     .prepareComputeCardCertificate(cardCertificateComputationData)
                     .processCommands();
         } catch (Exception e) {
@@ -985,7 +1180,8 @@ public abstract class KeypleUtil {
         try {
             CALYPSO_CARD_API_FACTORY
                     .createFreeTransactionManager(cardReader, calypsoCard)
-                    .preparePutData(PutDataTag.CA_CERTIFICATE, legacySam.getCaCertificate())
+                    .preparePutData(PutDataTag.CA_CERTIFICATE,
+                            caCertificate != null ? caCertificate : legacySam.getCaCertificate())
                     .preparePutData(PutDataTag.CARD_KEY_PAIR, keyPairContainer.getKeyPair())
                     .preparePutData(PutDataTag.CA_CERTIFICATE, cardCertificateComputationData.getCertificate())
                     .processCommands(ChannelControl.KEEP_OPEN);
@@ -0,0 +1,164 @@
+package com.idear.devices.card.cardkit.keyple;
+
+import com.idear.devices.card.cardkit.core.exception.SamException;
+import com.idear.devices.card.cardkit.keyple.transaction.PrePersonalization;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.keypop.calypso.card.card.CalypsoCard;
+import org.eclipse.keypop.calypso.crypto.legacysam.GetDataTag;
+import org.eclipse.keypop.calypso.crypto.legacysam.sam.LegacySam;
+import org.eclipse.keypop.calypso.crypto.legacysam.transaction.KeyPairContainer;
+import org.eclipse.keypop.reader.CardReader;
+
+import java.time.LocalDate;
+
+/**
+ * SAM side state of a pre-personalization batch, kept from one card to the next.
+ *
+ * <p>
+ * The SAM of the required product is selected once and its CA certificate is read once, the
+ * following cards only send the card specific commands: key pair generation, certificate
+ * computation and PUT DATA. The state is bound to the SAM serial, it is read again when
+ * another SAM is connected or after a SAM error.
+ * </p>
+ *
+ * <p>
+ * The SAM commands lock the {@link KeypleCalypsoSamReader} instance, the same as {@link KeyPairPool}.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@Slf4j
+@Getter
+public class PrePersonalizationSession {
+
+    private final KeypleCalypsoSamReader samReader;
+    private final LegacySam.ProductType productType;
+
+    private LegacySam legacySam;
+    private byte[] caCertificate;
+    private String samSerial;
+
+    /**
+     * @param samReader the SAM reader, a SAM C1 is required
+     */
+    public PrePersonalizationSession(KeypleCalypsoSamReader samReader) {
+        this(samReader, LegacySam.ProductType.SAM_C1);
+    }
+
+    /**
+     * @param samReader   the SAM reader
+     * @param productType product of the SAM used for the PKI commands
+     */
+    public PrePersonalizationSession(KeypleCalypsoSamReader samReader, LegacySam.ProductType productType) {
+        this.samReader = samReader;
+        this.productType = productType;
+    }
+
+    /**
+     * @return {@code true} if the SAM is selected and its CA certificate is read for the SAM connected
+     */
+    public boolean isOpen() {
+        return legacySam != null && caCertificate != null
+                && samSerial != null && samSerial.equals(samReader.getSerial());
+    }
+
+    /**
+     * Selects the SAM and reads its CA certificate if not done yet for the SAM connected.
+     * <p>
+     * The SAM already selected by the reader is used when it is of the required product,
+     * otherwise the SAM is selected by product.
+     * </p>
+     *
+     * @throws SamException if the SAM cannot be selected or the CA certificate cannot be read
+     */
+    public void open() {
+        synchronized (samReader) {
+            if (isOpen())
+                return;
+
+            LegacySam selected = samReader.getLegacySam();
+            if (selected == null || selected.getProductType() != productType)
+                selected = KeypleUtil.selectLegacySamByProduct(samReader.getSamReader(), productType);
+
+            try {
+                KeypleUtil.LEGACY_SAM_API_FACTORY
+                        .createFreeTransactionManager(samReader.getSamReader(), selected)
+                        .prepareGetData(GetDataTag.CA_CERTIFICATE)
+                        .processCommands();
+            } catch (Exception e) {
+                throw new SamException("Error reading sam CA certificate: " + e.getMessage());
+            }
+
+            legacySam = selected;
+            caCertificate = selected.getCaCertificate();
+            samSerial = samReader.getSerial();
+            log.info("Pre personalization session opened on SAM {} {}", samSerial, productType);
+        }
+    }
+
+    /**
+     * Forgets the SAM state, the next card selects the SAM and reads the CA certificate again.
+     */
+    public void invalidate() {
+        synchronized (samReader) {
+            legacySam = null;
+            caCertificate = null;
+            samSerial = null;
+        }
+    }
+
+    /**
+     * Pre-personalizes a card, opening the session first if needed.
+     *
+     * @param cardReader       the card reader
+     * @param calypsoCard      the selected card
+     * @param keyGenerated     where the card key pair is generated
+     * @param startDate        start date of the card certificate
+     * @param endDate          end date of the card certificate
+     * @param keyPairContainer key pair generated in advance for {@link PrePersonalization.KeyGenerated#LEGACY_SAM},
+     *                         {@code null} to generate it now
+     */
+    public void prePersonalize(
+            CardReader cardReader,
+            CalypsoCard calypsoCard,
+            PrePersonalization.KeyGenerated keyGenerated,
+            LocalDate startDate,
+            LocalDate endDate,
+            KeyPairContainer keyPairContainer) {
+        synchronized (samReader) {
+            open();
+            try {
+                switch (keyGenerated) {
+                    case CARD:
+                        KeypleUtil.cardSamKeyPair(
+                                cardReader,
+                                samReader.getSamReader(),
+                                legacySam,
+                                calypsoCard,
+                                startDate,
+                                endDate,
+                                caCertificate
+                        );
+                        break;
+                    case LEGACY_SAM:
+                        KeypleUtil.legacySamKeyPair(
+                                cardReader,
+                                samReader.getSamReader(),
+                                legacySam,
+                                calypsoCard,
+                                startDate,
+                                endDate,
+                                keyPairContainer,
+                                caCertificate
+                        );
+                        break;
+                }
+            } catch (SamException e) {
+                invalidate();
+                throw e;
+            }
+        }
+    }
+}
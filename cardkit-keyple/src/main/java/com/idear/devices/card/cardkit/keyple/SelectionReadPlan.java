@@ -0,0 +1,95 @@
+package com.idear.devices.card.cardkit.keyple;
+
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.Calypso;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.Value;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records read together with the SELECT APPLICATION exchange.
+ * <p>
+ * Each record of the plan is added to the Calypso selection extension of the {@link CardSelectionScenario},
+ * the card returns them with the selection response and they are available on the selected
+ * {@link org.eclipse.keypop.calypso.card.card.CalypsoCard} without a dedicated read command.
+ * Transactions such as {@link com.idear.devices.card.cardkit.keyple.transaction.ReadAllCard} skip the
+ * records already present.
+ * </p>
+ *
+ * <p>
+ * Records read on selection are outside of the secure session, they are not covered by the session MAC.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class SelectionReadPlan {
+
+    /** No record read on selection */
+    public static final SelectionReadPlan NONE = new SelectionReadPlan(Collections.emptyList());
+
+    /** Environment record 1 and the first contract */
+    public static final SelectionReadPlan ENVIRONMENT_AND_FIRST_CONTRACT = of(
+            record(Calypso.ENVIRONMENT_FILE, 1),
+            record(Calypso.CONTRACT_FILE, 1));
+
+    private final List<Record> records;
+
+    private SelectionReadPlan(List<Record> records) {
+        this.records = records;
+    }
+
+    /**
+     * @param records records to read on selection, in order
+     * @return the read plan
+     */
+    public static SelectionReadPlan of(Record... records) {
+        return new SelectionReadPlan(Collections.unmodifiableList(Arrays.asList(records.clone())));
+    }
+
+    /**
+     * @param sfi          short file identifier
+     * @param recordNumber record number, starting at 1
+     * @return a record of the plan
+     */
+    public static Record record(byte sfi, int recordNumber) {
+        if (recordNumber < 1)
+            throw new IllegalArgumentException("Record number must be greater than 0");
+        return new Record(sfi, recordNumber);
+    }
+
+    /**
+     * @param sfi          short file identifier
+     * @param recordNumber record number
+     * @return {@code true} if the record is part of the plan
+     */
+    public boolean contains(byte sfi, int recordNumber) {
+        for (Record record : records)
+            if (record.getSfi() == sfi && record.getRecordNumber() == recordNumber)
+                return true;
+        return false;
+    }
+
+    /**
+     * @return {@code true} if the plan has no record
+     */
+    public boolean isEmpty() {
+        return records.isEmpty();
+    }
+
+    /**
+     * A record of a card file
+     */
+    @Value
+    public static class Record {
+        byte sfi;
+        int recordNumber;
+    }
+}
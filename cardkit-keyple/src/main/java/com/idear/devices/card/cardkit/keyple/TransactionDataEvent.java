@@ -5,6 +5,7 @@ import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Contract;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.DebitLog;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Event;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.LoadLog;
+import com.idear.devices.card.cardkit.core.datamodel.date.CardClock;
 import com.idear.devices.card.cardkit.core.datamodel.location.LocationCode;
 import com.idear.devices.card.cardkit.core.io.Item;
 import lombok.Builder;
@@ -29,7 +30,8 @@ public class TransactionDataEvent extends Item {
     private final Contract contract;
     private final String mac;
 
+    /** Instant of the transaction, set from the transaction clock {@code context.getClock()} */
     @Builder.Default
     @JsonIgnore
-    private final LocalDateTime transactionDateTime = LocalDateTime.now();
+    private final LocalDateTime transactionDateTime = CardClock.system().now();
 }
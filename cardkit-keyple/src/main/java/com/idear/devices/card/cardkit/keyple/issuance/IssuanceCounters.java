@@ -0,0 +1,152 @@
+package com.idear.devices.card.cardkit.keyple.issuance;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput counters of an {@link IssuanceEngine}, updated concurrently by every lane.
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+public class IssuanceCounters {
+
+    private final Map<IssuanceStage, LongAdder> completed = new EnumMap<>(IssuanceStage.class);
+    private final Map<IssuanceStage, LongAdder> failed = new EnumMap<>(IssuanceStage.class);
+    private final Map<IssuanceStage, LongAdder> times = new EnumMap<>(IssuanceStage.class);
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder steals = new LongAdder();
+    private final LongAdder readerErrors = new LongAdder();
+    private final LongAdder unissued = new LongAdder();
+    private volatile long startNanos = System.nanoTime();
+
+    public IssuanceCounters() {
+        for (IssuanceStage stage : IssuanceStage.values()) {
+            completed.put(stage, new LongAdder());
+            failed.put(stage, new LongAdder());
+            times.put(stage, new LongAdder());
+        }
+    }
+
+    void start() {
+        startNanos = System.nanoTime();
+    }
+
+    void stage(IssuanceStage stage, boolean ok, long timeMillis) {
+        (ok ? completed : failed).get(stage).increment();
+        times.get(stage).add(timeMillis);
+    }
+
+    void card(boolean ok) {
+        (ok ? issued : rejected).increment();
+    }
+
+    void steal() {
+        steals.increment();
+    }
+
+    void readerError() {
+        readerErrors.increment();
+    }
+
+    void unissued() {
+        unissued.increment();
+    }
+
+    /**
+     * @param stage the stage
+     * @return number of cards that passed the stage
+     */
+    public long getCompleted(IssuanceStage stage) {
+        return completed.get(stage).sum();
+    }
+
+    /**
+     * @param stage the stage
+     * @return number of cards that failed at the stage
+     */
+    public long getFailed(IssuanceStage stage) {
+        return failed.get(stage).sum();
+    }
+
+    /**
+     * @param stage the stage
+     * @return average time of the stage in milliseconds, 0 if not executed
+     */
+    public double getAverageTime(IssuanceStage stage) {
+        long count = getCompleted(stage) + getFailed(stage);
+        return count == 0 ? 0 : (double) times.get(stage).sum() / count;
+    }
+
+    /**
+     * @param stage the stage
+     * @return cards per hour passing the stage since the start, all lanes together
+     */
+    public double getStagePerHour(IssuanceStage stage) {
+        return perHour(getCompleted(stage));
+    }
+
+    /**
+     * @return number of cards issued
+     */
+    public long getIssued() {
+        return issued.sum();
+    }
+
+    /**
+     * @return number of cards rejected
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return number of profiles taken by a lane from the queue of another lane
+     */
+    public long getSteals() {
+        return steals.sum();
+    }
+
+    /**
+     * @return number of card waits that failed with a reader error
+     */
+    public long getReaderErrors() {
+        return readerErrors.sum();
+    }
+
+    /**
+     * @return number of profiles left when every lane retired or the issuance was stopped
+     */
+    public long getUnissued() {
+        return unissued.sum();
+    }
+
+    /**
+     * @return cards issued per hour since the start, all lanes together
+     */
+    public double getCardsPerHour() {
+        return perHour(getIssued());
+    }
+
+    private double perHour(long count) {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed <= 0 ? 0 : count * 3_600_000_000_000d / elapsed;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("IssuanceCounters{issued=").append(getIssued())
+                .append(", rejected=").append(getRejected())
+                .append(", steals=").append(getSteals())
+                .append(", readerErrors=").append(getReaderErrors())
+                .append(", unissued=").append(getUnissued())
+                .append(String.format(", cardsPerHour=%.1f", getCardsPerHour()));
+        for (IssuanceStage stage : IssuanceStage.values())
+            sb.append(", ").append(stage).append("=").append(getCompleted(stage))
+                    .append("/").append(getFailed(stage))
+                    .append(String.format(" %.1fms", getAverageTime(stage)));
+        return sb.append("}").toString();
+    }
+}
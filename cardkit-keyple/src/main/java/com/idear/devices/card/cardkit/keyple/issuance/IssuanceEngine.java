@@ -0,0 +1,321 @@
+package com.idear.devices.card.cardkit.keyple.issuance;
+
+import com.idear.devices.card.cardkit.core.io.transaction.ChainResult;
+import com.idear.devices.card.cardkit.core.io.transaction.TransactionChain;
+import com.idear.devices.card.cardkit.core.io.transaction.TransactionResult;
+import com.idear.devices.card.cardkit.core.io.transaction.TransactionStatus;
+import com.idear.devices.card.cardkit.keyple.KeypleTransactionContext;
+import com.idear.devices.card.cardkit.keyple.KeypleTransactionManager;
+import com.idear.devices.card.cardkit.keyple.transaction.BulkWrite;
+import com.idear.devices.card.cardkit.keyple.transaction.CloseSession;
+import com.idear.devices.card.cardkit.keyple.transaction.PrePersonalization;
+import com.idear.devices.card.cardkit.keyple.transaction.VerifyRecords;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.keyple.core.util.HexUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Issues a batch of cards in parallel on several lanes, a lane being a {@link KeypleTransactionManager}
+ * with its own card reader and SAM.
+ *
+ * <p>
+ * For every card the lane waits for the card, executes in a single {@link TransactionChain} the stages
+ * of {@link IssuanceStage}: pre-personalization, personalization of the records in as few sessions
+ * as possible ({@link BulkWrite}) and read-back ({@link VerifyRecords}), then waits for the card removal.
+ * </p>
+ *
+ * <p>
+ * The profiles are distributed round robin in one queue per lane. A lane takes the profiles from the
+ * head of its own queue and, when it is empty, steals from the tail of the other queues, so a slow or
+ * stopped reader does not hold the end of the batch and the throughput grows with the number of lanes.
+ * A lane without work stays available until every profile is issued, another lane can give one back.
+ * A lane that misses the card {@link #maxMissedCards} times in a row, timeout or reader error, gives
+ * its profile back and retires. The profiles left when every lane retired or {@link #stop()} was
+ * called are returned as {@link TransactionStatus#ABORTED} results.
+ * </p>
+ *
+ * <p>
+ * The card monitors of the managers must not be started, the lanes drive the readers with
+ * {@link KeypleTransactionManager#awaitCard(long)} and {@link KeypleTransactionManager#releaseCard(long)}.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@Slf4j
+@Getter
+public class IssuanceEngine {
+
+    private final List<KeypleTransactionManager> lanes;
+    private final IssuanceCounters counters = new IssuanceCounters();
+
+    /** Maximum waiting time of a card in milliseconds before looking for work again */
+    @Setter
+    private long cardTimeout = 5_000;
+
+    /** Maximum waiting time of the card removal in milliseconds */
+    @Setter
+    private long removalTimeout = 5_000;
+
+    /** Consecutive waits without card, timeout or reader error, after which a lane retires */
+    @Setter
+    private int maxMissedCards = 3;
+
+    /** Waiting time in milliseconds of a lane without work before looking for work again */
+    @Setter
+    private long idleTimeout = 100;
+
+    /** Called by the lanes with the result of every card */
+    @Setter
+    private Consumer<IssuanceResult> resultListener = result -> { };
+
+    private volatile boolean running;
+
+    /**
+     * @param lanes the transaction managers, one per reader / SAM pair
+     */
+    public IssuanceEngine(List<KeypleTransactionManager> lanes) {
+        if (lanes == null || lanes.isEmpty())
+            throw new IllegalArgumentException("At least one lane is required");
+        this.lanes = Collections.unmodifiableList(new ArrayList<>(lanes));
+    }
+
+    /**
+     * Issues the profiles, blocking until every profile is issued, every lane retired or {@link #stop()} is called.
+     *
+     * @param profiles the cards to issue
+     * @return the result of every profile, in completion order, followed by the profiles not issued
+     */
+    public List<IssuanceResult> run(List<IssuanceProfile> profiles) {
+        int laneCount = lanes.size();
+        List<ConcurrentLinkedDeque<IssuanceProfile>> queues = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++)
+            queues.add(new ConcurrentLinkedDeque<>());
+        for (int i = 0; i < profiles.size(); i++)
+            queues.get(i % laneCount).offerLast(profiles.get(i));
+
+        List<IssuanceResult> results = Collections.synchronizedList(new ArrayList<>(profiles.size()));
+        AtomicInteger pending = new AtomicInteger(profiles.size());
+        CountDownLatch done = new CountDownLatch(laneCount);
+        ExecutorService executor = Executors.newFixedThreadPool(laneCount);
+
+        running = true;
+        counters.start();
+        log.info("Issuing {} cards on {} lanes", profiles.size(), laneCount);
+
+        for (int i = 0; i < laneCount; i++) {
+            int lane = i;
+            executor.submit(() -> {
+                try {
+                    runLane(lane, queues, pending, results);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (ConcurrentLinkedDeque<IssuanceProfile> queue : queues) {
+            IssuanceProfile profile;
+            while ((profile = queue.pollFirst()) != null)
+                publish(results, unissued(profile));
+        }
+
+        log.info("Issuance done: {}", counters);
+        return new ArrayList<>(results);
+    }
+
+    /**
+     * Stops the lanes after the card in progress.
+     */
+    public void stop() {
+        running = false;
+    }
+
+    private void runLane(
+            int lane,
+            List<ConcurrentLinkedDeque<IssuanceProfile>> queues,
+            AtomicInteger pending,
+            List<IssuanceResult> results) {
+        KeypleTransactionManager manager = lanes.get(lane);
+        int missed = 0;
+
+        while (running && pending.get() > 0) {
+            IssuanceProfile profile = next(lane, queues);
+            if (profile == null) {
+                // the last profiles are held by other lanes, one of them may give its profile back
+                try {
+                    Thread.sleep(idleTimeout);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                continue;
+            }
+
+            boolean present;
+            try {
+                present = manager.awaitCard(cardTimeout);
+            } catch (RuntimeException e) {
+                log.error("Lane {} reader error: {}", lane, e.getMessage());
+                counters.readerError();
+                present = false;
+            }
+
+            if (!present) {
+                // no card on this lane, give the profile back, another lane can steal it
+                queues.get(lane).offerFirst(profile);
+                if (++missed >= maxMissedCards) {
+                    log.warn("Lane {} retired after {} waits without card", lane, missed);
+                    return;
+                }
+                continue;
+            }
+            missed = 0;
+
+            IssuanceResult result;
+            try {
+                result = issue(lane, manager, profile);
+            } catch (Exception e) {
+                log.error("Lane {} profile {}: {}", lane, profile.getId(), e.getMessage());
+                result = IssuanceResult.builder()
+                        .profileId(profile.getId())
+                        .serial("")
+                        .lane(lane)
+                        .status(TransactionStatus.ERROR)
+                        .message(e.getMessage())
+                        .stageTimes(Collections.emptyMap())
+                        .build();
+            } finally {
+                try {
+                    manager.releaseCard(removalTimeout);
+                } catch (Exception e) {
+                    log.warn("Lane {} card release error: {}", lane, e.getMessage());
+                }
+            }
+
+            pending.decrementAndGet();
+            counters.card(result.isOk());
+            publish(results, result);
+        }
+    }
+
+    private void publish(List<IssuanceResult> results, IssuanceResult result) {
+        results.add(result);
+        try {
+            resultListener.accept(result);
+        } catch (Exception e) {
+            log.warn("Issuance result listener error: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Result of a profile left in the queues, no lane was able to issue it.
+     */
+    private IssuanceResult unissued(IssuanceProfile profile) {
+        counters.unissued();
+        return IssuanceResult.builder()
+                .profileId(profile.getId())
+                .serial("")
+                .lane(-1)
+                .status(TransactionStatus.ABORTED)
+                .message(running ? "no lane left to issue the card" : "issuance stopped")
+                .stageTimes(Collections.emptyMap())
+                .build();
+    }
+
+    /**
+     * Next profile of the lane, from the head of its own queue or stolen from the tail of another one.
+     */
+    private IssuanceProfile next(int lane, List<ConcurrentLinkedDeque<IssuanceProfile>> queues) {
+        IssuanceProfile profile = queues.get(lane).pollFirst();
+        if (profile != null)
+            return profile;
+
+        for (int i = 1; i < queues.size(); i++) {
+            profile = queues.get((lane + i) % queues.size()).pollLast();
+            if (profile != null) {
+                counters.steal();
+                return profile;
+            }
+        }
+        return null;
+    }
+
+    private IssuanceResult issue(int lane, KeypleTransactionManager manager, IssuanceProfile profile) {
+        long start = System.currentTimeMillis();
+        String serial = HexUtil.toHex(manager.getCardReader().getCalypsoCard().getApplicationSerialNumber());
+
+        TransactionChain<KeypleTransactionContext> chain = TransactionChain.create();
+        List<IssuanceStage> stages = new ArrayList<>();
+
+        if (profile.getKeyGenerated() != null) {
+            chain.then(new PrePersonalization(
+                    profile.getKeyGenerated(), profile.getStartDate(), profile.getEndDate(), manager.getKeyPairPool()));
+            stages.add(IssuanceStage.PRE_PERSONALIZATION);
+        }
+        if (!profile.getRecords().isEmpty()) {
+            chain.then(new BulkWrite(profile.getWriteAccessLevel(), profile.getRecords()))
+                    .then(new CloseSession());
+            stages.add(IssuanceStage.PERSONALIZATION);
+            stages.add(IssuanceStage.PERSONALIZATION);
+            if (profile.isVerify()) {
+                chain.then(new VerifyRecords(profile.getRecords()));
+                stages.add(IssuanceStage.VERIFICATION);
+            }
+        }
+
+        TransactionResult<ChainResult> chainResult = manager.execute(chain);
+
+        Map<IssuanceStage, Long> stageTimes = new EnumMap<>(IssuanceStage.class);
+        IssuanceStage failedStage = null;
+        List<TransactionResult<?>> steps = chainResult.getData() != null
+                ? chainResult.getData().getSteps()
+                : Collections.emptyList();
+        for (int i = 0; i < steps.size(); i++) {
+            TransactionResult<?> step = steps.get(i);
+            IssuanceStage stage = stages.get(i);
+            stageTimes.merge(stage, step.getTime(), Long::sum);
+
+            boolean ok = step.isOk() || step.isPending();
+            if (!ok && failedStage == null)
+                failedStage = stage;
+            // a stage made of several steps is counted once, on its last step or on failure
+            if (!ok || i + 1 == steps.size() || stages.get(i + 1) != stage)
+                counters.stage(stage, ok, stageTimes.get(stage));
+        }
+
+        log.info("Card {} profile {} lane {}: {}", serial, profile.getId(), lane, chainResult.getTransactionStatus());
+        return IssuanceResult.builder()
+                .profileId(profile.getId())
+                .serial(serial)
+                .lane(lane)
+                .status(chainResult.getTransactionStatus())
+                .failedStage(failedStage)
+                .message(chainResult.getMessage())
+                .stageTimes(stageTimes)
+                .time(System.currentTimeMillis() - start)
+                .build();
+    }
+}
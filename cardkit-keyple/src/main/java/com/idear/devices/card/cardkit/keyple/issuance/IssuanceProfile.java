@@ -0,0 +1,44 @@
+package com.idear.devices.card.cardkit.keyple.issuance;
+
+import com.idear.devices.card.cardkit.keyple.transaction.BulkWrite;
+import com.idear.devices.card.cardkit.keyple.transaction.PrePersonalization;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+import lombok.ToString;
+import org.eclipse.keypop.calypso.card.WriteAccessLevel;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Data to issue on one card: pre-personalization parameters and the records to write.
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@Getter
+@Builder
+@ToString
+public class IssuanceProfile {
+
+    /** Identifier of the profile in the batch, reported in the result */
+    private final String id;
+
+    /** Key pair generation, {@code null} to skip the pre-personalization */
+    private final PrePersonalization.KeyGenerated keyGenerated;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+
+    /** Access level of the personalization sessions */
+    @Builder.Default
+    private final WriteAccessLevel writeAccessLevel = WriteAccessLevel.PERSONALIZATION;
+
+    /** Environment, contracts and other records, in order */
+    @Singular
+    private final List<BulkWrite.RecordWrite> records;
+
+    /** {@code true} to read back and compare the records written */
+    @Builder.Default
+    private final boolean verify = true;
+}
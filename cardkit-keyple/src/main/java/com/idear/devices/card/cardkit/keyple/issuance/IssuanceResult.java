@@ -0,0 +1,53 @@
+package com.idear.devices.card.cardkit.keyple.issuance;
+
+import com.idear.devices.card.cardkit.core.io.Item;
+import com.idear.devices.card.cardkit.core.io.transaction.TransactionStatus;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Map;
+
+/**
+ * Result of the issuance of one card.
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@Getter
+@Builder
+@ToString
+@EqualsAndHashCode(callSuper = false)
+public class IssuanceResult extends Item {
+
+    /** Identifier of the profile issued */
+    private final String profileId;
+
+    /** Serial of the card, empty if no card was selected */
+    private final String serial;
+
+    /** Index of the lane (reader / SAM pair) that issued the card, -1 if the card was not issued by any lane */
+    private final int lane;
+
+    /** {@link TransactionStatus#OK} if every stage succeeded */
+    private final TransactionStatus status;
+
+    /** Stage that failed, {@code null} if the card was issued */
+    private final IssuanceStage failedStage;
+
+    private final String message;
+
+    /** Execution time of every stage executed, in milliseconds */
+    private final Map<IssuanceStage, Long> stageTimes;
+
+    /** Total time of the card, in milliseconds */
+    private final long time;
+
+    /**
+     * @return {@code true} if the card was issued
+     */
+    public boolean isOk() {
+        return status == TransactionStatus.OK;
+    }
+}
@@ -0,0 +1,16 @@
+package com.idear.devices.card.cardkit.keyple.issuance;
+
+/**
+ * Stages of the issuance of a card by the {@link IssuanceEngine}, in order.
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+public enum IssuanceStage {
+    /** Key pair and certificates, {@link com.idear.devices.card.cardkit.keyple.transaction.PrePersonalization} */
+    PRE_PERSONALIZATION,
+    /** Environment, contracts and other records, {@link com.idear.devices.card.cardkit.keyple.transaction.BulkWrite} */
+    PERSONALIZATION,
+    /** Read-back of the records written, {@link com.idear.devices.card.cardkit.keyple.transaction.VerifyRecords} */
+    VERIFICATION
+}
@@ -19,13 +19,16 @@ public class AppendPersonalization extends AbstractTransaction<Boolean, KeypleTr
     @Override
     public TransactionResult<Boolean> execute(KeypleTransactionContext context) {
 
-        context.getCardTransactionManager()
-                .prepareAppendRecord(fileId, data)
-                .prepareCloseSecureSession()
+        context.getCardSession()
+                .ensureOpen(WriteAccessLevel.PERSONALIZATION, 1, false)
+                .prepareAppendRecord(fileId, data);
+        context.getCardSession()
+                .prepareClose()
                 .processCommands(ChannelControl.KEEP_OPEN);
 
         return TransactionResult
                 .<Boolean>builder()
+                .transactionStatus(context.getCardSession().completionStatus())
                 .data(true)
                 .build();
     }
@@ -15,6 +15,7 @@ import com.idear.devices.card.cardkit.core.io.transaction.TransactionStatus;
 import com.idear.devices.card.cardkit.keyple.KeypleUtil;
 import com.idear.devices.card.cardkit.keyple.TransactionDataEvent;
 import lombok.RequiredArgsConstructor;
+import org.eclipse.keypop.calypso.card.WriteAccessLevel;
 import org.eclipse.keypop.calypso.card.transaction.ChannelControl;
 import org.eclipse.keypop.calypso.card.transaction.SvAction;
 import org.eclipse.keypop.calypso.card.transaction.SvOperation;
@@ -29,7 +30,8 @@ import org.eclipse.keypop.calypso.card.transaction.SvOperation;
  *
  * <p>
  * The cancellation is performed through a {@link ReloadCard} transaction.
- * If the process is successful, the result will contain {@code true} and a status of {@link TransactionStatus#OK}.
+ * If the process is successful, the result will contain {@code true} and a status of {@link TransactionStatus#OK},
+ * or {@link TransactionStatus#PENDING} while the secure session is kept open by the reuse mode.
  * Otherwise, it will contain {@code false} and a status of {@link TransactionStatus#ERROR}.
  * </p>
  *
@@ -61,20 +63,24 @@ public class BalanceCancellation extends AbstractTransaction<TransactionDataEven
                 passenger,
                 calypsoCardCDMX.getEvents().getNextTransactionNumber(),
                 locationId,
-                negativeAmount
+                negativeAmount,
+                context.getClock()
         );
 
-        context.getCardTransactionManager()
+        context.getCardSession()
+                .ensureOpen(WriteAccessLevel.LOAD, 1, true)
                 .prepareSvGet(SvOperation.RELOAD, SvAction.DO)
                 .prepareSvReload(
                         negativeAmount,
-                        CompactDate.now().toBytes(),
-                        CompactTime.now().toBytes(),
+                        CompactDate.now(context.getClock()).toBytes(),
+                        CompactTime.now(context.getClock()).toBytes(),
                         ByteUtils.extractBytes(0, 2)
                 ).prepareAppendRecord(
                         event.getFileId(),
                         event.unparse()
-                ).prepareCloseSecureSession()
+                );
+        context.getCardSession()
+                .prepareClose()
                 .processCommands(ChannelControl.KEEP_OPEN);
 
         Logs logs = KeypleUtil.readCardLogs(
@@ -86,12 +92,13 @@ public class BalanceCancellation extends AbstractTransaction<TransactionDataEven
                 context.getKeypleCalypsoSamReader(),
                 event,
                 calypsoCardCDMX,
-                calypsoCardCDMX.getBalance()
+                calypsoCardCDMX.getBalance(),
+                context.getClock()
         );
 
         return TransactionResult
                 .<TransactionDataEvent>builder()
-                .transactionStatus(TransactionStatus.OK)
+                .transactionStatus(context.getCardSession().completionStatus())
                 .data(TransactionDataEvent
                         .builder()
                         .mac(mac)
@@ -103,6 +110,7 @@ public class BalanceCancellation extends AbstractTransaction<TransactionDataEven
                         .transactionAmount(event.getAmount())
                         .balanceBeforeTransaction(calypsoCardCDMX.getBalance())
                         .locationCode(event.getLocationId())
+                        .transactionDateTime(context.getClock().now())
                         .build()
                 ).build();
     }
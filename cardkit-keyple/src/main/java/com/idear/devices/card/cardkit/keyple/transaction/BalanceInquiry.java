@@ -0,0 +1,161 @@
+package com.idear.devices.card.cardkit.keyple.transaction;
+
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.Calypso;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.CalypsoCardCDMX;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Contracts;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Environment;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Events;
+import com.idear.devices.card.cardkit.core.exception.CardException;
+import com.idear.devices.card.cardkit.core.io.transaction.AbstractTransaction;
+import com.idear.devices.card.cardkit.core.io.transaction.TransactionResult;
+import com.idear.devices.card.cardkit.core.io.transaction.TransactionStatus;
+import com.idear.devices.card.cardkit.core.utils.ByteUtils;
+import com.idear.devices.card.cardkit.keyple.KeypleTransactionContext;
+import com.idear.devices.card.cardkit.keyple.KeypleUtil;
+import com.idear.devices.card.cardkit.keyple.SelectionReadPlan;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.keyple.core.util.HexUtil;
+import org.eclipse.keypop.calypso.card.card.CalypsoCard;
+import org.eclipse.keypop.calypso.card.card.ElementaryFile;
+import org.eclipse.keypop.calypso.card.transaction.ChannelControl;
+import org.eclipse.keypop.calypso.card.transaction.FreeTransactionManager;
+
+/**
+ * Read-only transaction that reads the balance, environment, events and contracts of a Calypso card
+ * without secure session.
+ *
+ * <p>
+ * The records are read with a {@link FreeTransactionManager}, no secure session is opened and the SAM
+ * is not used, so the inquiry works while the SAM is absent or busy with another transaction and
+ * costs a single exchange with the card. Records already read with the card selection are not read again.
+ * </p>
+ *
+ * <p>
+ * SV Get is only available in a secure session, the balance is taken from the SV load and debit
+ * log records, the most recent of both (greater SV transaction number) holds the current balance.
+ * The data read is not authenticated by the session MAC, use {@link ReadAllCard} before writing on the card.
+ * </p>
+ *
+ * <p>
+ * The inquiry is rejected ({@link TransactionStatus#ABORTED}) while a secure session is open, e.g. with
+ * the session reuse mode: reads out of the session are not in the SAM digest and the closing would fail,
+ * losing the modifications of the session.
+ * </p>
+ *
+ * @see ReadAllCard
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@Slf4j
+public class BalanceInquiry extends AbstractTransaction<CalypsoCardCDMX, KeypleTransactionContext> {
+
+    private static final int EVENT_RECORDS = 3;
+    private static final int CONTRACT_RECORDS = 8;
+
+    /** Offsets of the balance and SV transaction number in the SV load log record */
+    private static final int LOAD_LOG_BALANCE = 5;
+    private static final int LOAD_LOG_SV_TNUM = 20;
+
+    /** Offsets of the balance and SV transaction number in the SV debit log record */
+    private static final int DEBIT_LOG_BALANCE = 14;
+    private static final int DEBIT_LOG_SV_TNUM = 17;
+
+    private final CalypsoCardCDMX calypsoCardCDMX = new CalypsoCardCDMX();
+
+    @Override
+    public TransactionResult<CalypsoCardCDMX> execute(KeypleTransactionContext context) {
+        CalypsoCard calypsoCard = context.getKeypleCardReader().getCalypsoCard();
+        if (context.hasCardSession() && context.getCardSession().isOpen())
+            throw new CardException("balance inquiry rejected on card %s, secure session open, close it first",
+                    HexUtil.toHex(calypsoCard.getApplicationSerialNumber()));
+
+        SelectionReadPlan readPlan = context.getKeypleCardReader().getSelectedReadPlan();
+        calypsoCardCDMX.setEnabled(!calypsoCard.isDfInvalidated());
+        calypsoCardCDMX.setSerial(HexUtil.toHex(calypsoCard.getApplicationSerialNumber()));
+        calypsoCardCDMX.setCalypsoProduct(ReadAllCard.parseByCalypsoCard(calypsoCard));
+
+        log.info("Balance inquiry card {}", calypsoCardCDMX.getSerial());
+
+        int environmentRead = KeypleUtil.countRecordsRead(calypsoCard, readPlan, Calypso.ENVIRONMENT_FILE, 1);
+        int eventsRead = KeypleUtil.countRecordsRead(calypsoCard, readPlan, Calypso.EVENT_FILE, EVENT_RECORDS);
+        int contractsRead = KeypleUtil.countRecordsRead(calypsoCard, readPlan, Calypso.CONTRACT_FILE, CONTRACT_RECORDS);
+
+        try {
+            FreeTransactionManager ftm = KeypleUtil.prepareFreeTransactionManager(
+                    context.getKeypleCardReader().getCardReader(), calypsoCard);
+
+            if (environmentRead == 0)
+                ftm.prepareReadRecord(Calypso.ENVIRONMENT_FILE, 1);
+            if (eventsRead < EVENT_RECORDS)
+                ftm.prepareReadRecordsPartially(Calypso.EVENT_FILE, eventsRead + 1, EVENT_RECORDS, 0, Calypso.RECORD_SIZE);
+            if (contractsRead < CONTRACT_RECORDS)
+                ftm.prepareReadRecordsPartially(Calypso.CONTRACT_FILE, contractsRead + 1, CONTRACT_RECORDS, 0, Calypso.RECORD_SIZE);
+            if (calypsoCard.isSvFeatureAvailable())
+                ftm.prepareReadRecord(Calypso.SV_LOAD_LOG_FILE, 1)
+                        .prepareReadRecord(Calypso.SV_DEBIT_LOG_FILE, 1);
+
+            ftm.processCommands(ChannelControl.KEEP_OPEN);
+        } catch (Exception e) {
+            throw new CardException("Error reading card " + calypsoCardCDMX.getSerial() + ": " + e.getMessage());
+        }
+
+        ElementaryFile elementaryFileEnv = calypsoCard.getFileBySfi(Calypso.ENVIRONMENT_FILE);
+        calypsoCardCDMX.setEnvironment(new Environment().parse(elementaryFileEnv != null ? elementaryFileEnv.getData().getContent() : null));
+
+        Events events = ReadAllCard.parseEvents(calypsoCard);
+        if (events != null)
+            calypsoCardCDMX.setEvents(events);
+        Contracts contracts = ReadAllCard.parseContracts(calypsoCard);
+        if (contracts != null)
+            calypsoCardCDMX.setContracts(contracts);
+
+        calypsoCardCDMX.setBalance(lastSvBalance(
+                readRecord(calypsoCard, Calypso.SV_LOAD_LOG_FILE),
+                readRecord(calypsoCard, Calypso.SV_DEBIT_LOG_FILE)));
+
+        return TransactionResult
+                .<CalypsoCardCDMX>builder()
+                .transactionStatus(TransactionStatus.OK)
+                .data(calypsoCardCDMX)
+                .message("Balance inquiry of card '" + calypsoCardCDMX.getSerial() + "' done")
+                .build();
+    }
+
+    /**
+     * The inquiry reads the card out of session, it does not wait for the SAM.
+     */
+    @Override
+    public boolean isUsingSam() {
+        return false;
+    }
+
+    private static byte[] readRecord(CalypsoCard calypsoCard, byte sfi) {
+        ElementaryFile elementaryFile = calypsoCard.getFileBySfi(sfi);
+        return elementaryFile != null ? elementaryFile.getData().getContent(1) : null;
+    }
+
+    /**
+     * Balance after the last SV operation, the record with the greater SV transaction number wins.
+     *
+     * @param loadLog  SV load log record, {@code null} if not read
+     * @param debitLog SV debit log record, {@code null} if not read
+     * @return the current SV balance, 0 if no log was read
+     */
+    static int lastSvBalance(byte[] loadLog, byte[] debitLog) {
+        boolean load = loadLog != null && loadLog.length >= LOAD_LOG_SV_TNUM + 2;
+        boolean debit = debitLog != null && debitLog.length >= DEBIT_LOG_SV_TNUM + 2;
+
+        if (load && debit) {
+            int loadTNum = ByteUtils.extractInt(loadLog, LOAD_LOG_SV_TNUM, 2, false);
+            int debitTNum = ByteUtils.extractInt(debitLog, DEBIT_LOG_SV_TNUM, 2, false);
+            load = loadTNum >= debitTNum;
+        }
+
+        if (load)
+            return ByteUtils.extractInt(loadLog, LOAD_LOG_BALANCE, 3, true);
+        if (debit)
+            return ByteUtils.extractInt(debitLog, DEBIT_LOG_BALANCE, 3, true);
+        return 0;
+    }
+}
@@ -0,0 +1,135 @@
+package com.idear.devices.card.cardkit.keyple.transaction;
+
+import com.idear.devices.card.cardkit.core.io.transaction.AbstractTransaction;
+import com.idear.devices.card.cardkit.core.io.transaction.TransactionResult;
+import com.idear.devices.card.cardkit.keyple.CardSession;
+import com.idear.devices.card.cardkit.keyple.KeypleTransactionContext;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.keypop.calypso.card.WriteAccessLevel;
+import org.eclipse.keypop.calypso.card.transaction.ChannelControl;
+import org.eclipse.keypop.calypso.card.transaction.SecureRegularModeTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes many records in as few secure sessions as the card modification buffer allows.
+ *
+ * <p>
+ * The updates and appends are prepared in order, the cost of each one in the modification buffer
+ * is computed from the capabilities of the card ({@link CardSession#modificationCost(int)}). When the
+ * next record does not fit in the open session, the session is closed and a new one is opened,
+ * so the records of a session are committed together and the split is transparent for the caller.
+ * </p>
+ *
+ * <p>
+ * The result data is the number of secure sessions used. In reuse mode the last session is kept
+ * open and the result is {@link com.idear.devices.card.cardkit.core.io.transaction.TransactionStatus#PENDING}
+ * until it is closed, e.g. by {@link CloseSession}.
+ * </p>
+ *
+ * @see Personalization
+ * @see AppendPersonalization
+ * @see CardSession#ensureBuffer(WriteAccessLevel, int)
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@Slf4j
+@Getter
+public class BulkWrite extends AbstractTransaction<Integer, KeypleTransactionContext> {
+
+    private final WriteAccessLevel writeAccessLevel;
+    private final List<RecordWrite> writes;
+
+    /**
+     * @param writeAccessLevel access level of the sessions
+     * @param writes           records to write, in order
+     */
+    public BulkWrite(WriteAccessLevel writeAccessLevel, List<RecordWrite> writes) {
+        if (writes == null || writes.isEmpty())
+            throw new IllegalArgumentException("No record to write");
+        this.writeAccessLevel = writeAccessLevel;
+        this.writes = Collections.unmodifiableList(new ArrayList<>(writes));
+    }
+
+    @Override
+    public TransactionResult<Integer> execute(KeypleTransactionContext context) {
+        CardSession cardSession = context.getCardSession();
+
+        int openings = cardSession.getOpenings();
+        boolean alreadyOpen = cardSession.isOpen();
+
+        for (RecordWrite write : writes) {
+            SecureRegularModeTransactionManager ctm = cardSession.ensureBuffer(
+                    writeAccessLevel, cardSession.modificationCost(write.getData().length));
+
+            if (write.isAppend())
+                ctm.prepareAppendRecord(write.getSfi(), write.getData());
+            else
+                ctm.prepareUpdateRecord(write.getSfi(), write.getRecordNumber(), write.getData());
+        }
+
+        cardSession.prepareClose()
+                .processCommands(ChannelControl.KEEP_OPEN);
+
+        int sessions = cardSession.getOpenings() - openings + (alreadyOpen ? 1 : 0);
+        log.info("{} records written in {} secure sessions", writes.size(), sessions);
+
+        return TransactionResult
+                .<Integer>builder()
+                .transactionStatus(cardSession.completionStatus())
+                .data(sessions)
+                .message(writes.size() + " records written in " + sessions + " sessions")
+                .build();
+    }
+
+    /**
+     * A record update or append, built with {@link #update(byte, int, byte[])} or {@link #append(byte, byte[])}.
+     */
+    @Value
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class RecordWrite {
+        byte sfi;
+        /** Record number, 0 for an append */
+        int recordNumber;
+        byte[] data;
+
+        /**
+         * @param sfi          short file identifier
+         * @param recordNumber record number, starting at 1
+         * @param data         record data
+         * @return an update of the record
+         */
+        public static RecordWrite update(byte sfi, int recordNumber, byte[] data) {
+            if (recordNumber < 1)
+                throw new IllegalArgumentException("Record number must be greater than 0");
+            if (data == null)
+                throw new IllegalArgumentException("Null data");
+            return new RecordWrite(sfi, recordNumber, data);
+        }
+
+        /**
+         * @param sfi  short file identifier of a cyclic file
+         * @param data record data
+         * @return an append of a record
+         */
+        public static RecordWrite append(byte sfi, byte[] data) {
+            if (data == null)
+                throw new IllegalArgumentException("Null data");
+            return new RecordWrite(sfi, 0, data);
+        }
+
+        /**
+         * @return {@code true} for an append
+         */
+        public boolean isAppend() {
+            return recordNumber == 0;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.idear.devices.card.cardkit.keyple.transaction;
+
+import com.idear.devices.card.cardkit.core.exception.CardException;
+import com.idear.devices.card.cardkit.core.io.transaction.AbstractTransaction;
+import com.idear.devices.card.cardkit.core.io.transaction.TransactionResult;
+import com.idear.devices.card.cardkit.core.io.transaction.TransactionStatus;
+import com.idear.devices.card.cardkit.keyple.CardSession;
+import com.idear.devices.card.cardkit.keyple.KeypleTransactionContext;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Closes the secure session kept open by the session reuse mode, the modifications of every
+ * operation done in the session are committed by the card.
+ *
+ * @see CardSession
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@Slf4j
+public class CloseSession extends AbstractTransaction<Boolean, KeypleTransactionContext> {
+
+    @Override
+    public TransactionResult<Boolean> execute(KeypleTransactionContext context) {
+        if (!context.hasCardSession())
+            throw new CardException("no card session to close");
+        CardSession cardSession = context.getCardSession();
+
+        boolean open = cardSession.isOpen();
+        cardSession.close();
+
+        return TransactionResult
+                .<Boolean>builder()
+                .transactionStatus(TransactionStatus.OK)
+                .data(open)
+                .message(open ? "Secure session closed" : "No secure session open")
+                .build();
+    }
+}
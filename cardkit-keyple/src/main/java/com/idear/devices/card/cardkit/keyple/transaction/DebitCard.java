@@ -4,6 +4,7 @@ import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.CalypsoCardCDM
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Event;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.*;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Contract;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.ContractIndex;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Logs;
 import com.idear.devices.card.cardkit.core.datamodel.date.CompactDate;
 import com.idear.devices.card.cardkit.core.datamodel.date.CompactTime;
@@ -18,6 +19,7 @@ import com.idear.devices.card.cardkit.keyple.TransactionDataEvent;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.keypop.calypso.card.WriteAccessLevel;
 import org.eclipse.keypop.calypso.card.transaction.ChannelControl;
 import org.eclipse.keypop.calypso.card.transaction.SvAction;
 import org.eclipse.keypop.calypso.card.transaction.SvOperation;
@@ -64,11 +66,10 @@ public class DebitCard
         if (amount > calypsoCardCDMX.getBalance())
             throw new CardException("insufficient balance for debit, balance: " + calypsoCardCDMX.getBalance());
 
-        if (contract.getModality().decode(Modality.FORBIDDEN).equals(Modality.MONOMODAL) &&
-                contract.getProvider().decode(Provider.RFU).getValue() != provider)
-            throw new CardException("inconsistent provider, monomodal contract, provider most be equal");
+        validateMonomodalProvider(provider);
 
-        context.getCardTransactionManager()
+        context.getCardSession()
+                .ensureOpen(WriteAccessLevel.DEBIT, 1, true)
                 .prepareSvGet(SvOperation.DEBIT, SvAction.DO)
                 .processCommands(ChannelControl.KEEP_OPEN);
 
@@ -80,19 +81,22 @@ public class DebitCard
                 passenger,
                 getCalypsoCardCDMX().getEvents().getNextTransactionNumber(),
                 locationId,
-                amount
+                amount,
+                context.getClock()
         );
 
         context.getCardTransactionManager()
                 .prepareSvGet(SvOperation.DEBIT, SvAction.DO)
                 .prepareSvDebit(
                         amount,
-                        CompactDate.now().toBytes(),
-                        CompactTime.now().toBytes()
+                        CompactDate.now(context.getClock()).toBytes(),
+                        CompactTime.now(context.getClock()).toBytes()
                 ).prepareAppendRecord(
                         event.getFileId(),
                         event.unparse()
-                ).prepareCloseSecureSession()
+                );
+        context.getCardSession()
+                .prepareClose()
                 .processCommands(ChannelControl.KEEP_OPEN);
 
         Logs logs = KeypleUtil.readCardLogs(
@@ -104,12 +108,13 @@ public class DebitCard
                 context.getKeypleCalypsoSamReader(),
                 event,
                 calypsoCardCDMX,
-                calypsoCardCDMX.getBalance()
+                calypsoCardCDMX.getBalance(),
+                context.getClock()
         );
 
         return TransactionResult
                 .<TransactionDataEvent>builder()
-                .transactionStatus(TransactionStatus.OK)
+                .transactionStatus(context.getCardSession().completionStatus())
                 .data(TransactionDataEvent
                         .builder()
                         .mac(mac)
@@ -122,6 +127,7 @@ public class DebitCard
                         .balanceBeforeTransaction(calypsoCardCDMX.getBalance())
                         .samSerial(context.getKeypleCalypsoSamReader().getSerial())
                         .locationCode(event.getLocationId())
+                        .transactionDateTime(context.getClock().now())
                         .build()
                 ).build();
     }
@@ -160,6 +166,32 @@ public class DebitCard
         }
     }
 
+    /**
+     * Checks that a monomodal contract was issued by the provider of the device, using the
+     * precomputed masks of the card {@link ContractIndex} when the contract is part of the card contracts.
+     *
+     * @param deviceProvider The provider performing the transaction.
+     * @throws CardException if the contract is monomodal and the providers differ.
+     */
+    private void validateMonomodalProvider(int deviceProvider) {
+        ContractIndex index = calypsoCardCDMX.getContracts() != null
+                ? calypsoCardCDMX.getContracts().getIndex()
+                : null;
+        int position = index != null ? index.positionOf(contract) : -1;
+
+        boolean inconsistent;
+        if (position >= 0) {
+            inconsistent = ContractIndex.contains(
+                    index.modality(Modality.MONOMODAL) & ~index.provider(deviceProvider), position);
+        } else {
+            inconsistent = contract.getModality().decode(Modality.FORBIDDEN).equals(Modality.MONOMODAL) &&
+                    contract.getProvider().decode(Provider.RFU).getValue() != deviceProvider;
+        }
+
+        if (inconsistent)
+            throw new CardException("inconsistent provider, monomodal contract, provider most be equal");
+    }
+
     /**
      * Validates contract status, expiration, modality, and tariff restrictions.
      *
@@ -6,7 +6,6 @@ import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Event;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Logs;
 import com.idear.devices.card.cardkit.core.datamodel.date.CompactDate;
 import com.idear.devices.card.cardkit.core.datamodel.date.CompactTime;
-import com.idear.devices.card.cardkit.core.io.transaction.TransactionStatus;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Contract;
 import com.idear.devices.card.cardkit.core.utils.ByteUtils;
 import com.idear.devices.card.cardkit.keyple.KeypleTransactionContext;
@@ -44,16 +43,19 @@ public class InvalidateCard extends AbstractTransaction<TransactionDataEvent, Ke
                 passenger,
                 calypsoCardCDMX.getEvents().getNextTransactionNumber(),
                 locationId,
-                0
+                0,
+                context.getClock()
         );
 
-        context.getCardTransactionManager()
-                .prepareOpenSecureSession(WriteAccessLevel.DEBIT)
+        context.getCardSession()
+                .ensureOpen(WriteAccessLevel.DEBIT, 2, false)
                 .prepareInvalidate()
                 .prepareAppendRecord(
                         event.getFileId(),
                         event.unparse()
-                ).prepareCloseSecureSession()
+                );
+        context.getCardSession()
+                .prepareClose()
                 .processCommands(ChannelControl.KEEP_OPEN);
 
         Logs logs = KeypleUtil.readCardLogs(
@@ -65,12 +67,13 @@ public class InvalidateCard extends AbstractTransaction<TransactionDataEvent, Ke
                 context.getKeypleCalypsoSamReader(),
                 event,
                 calypsoCardCDMX,
-                calypsoCardCDMX.getBalance()
+                calypsoCardCDMX.getBalance(),
+                context.getClock()
         );
 
         return TransactionResult
                 .<TransactionDataEvent>builder()
-                .transactionStatus(TransactionStatus.OK)
+                .transactionStatus(context.getCardSession().completionStatus())
                 .data(TransactionDataEvent
                         .builder()
                         .mac(mac)
@@ -82,6 +85,7 @@ public class InvalidateCard extends AbstractTransaction<TransactionDataEvent, Ke
                         .transactionAmount(event.getAmount())
                         .balanceBeforeTransaction(calypsoCardCDMX.getBalance())
                         .locationCode(event.getLocationId())
+                        .transactionDateTime(context.getClock().now())
                         .build()
                 ).build();
     }
@@ -22,13 +22,16 @@ public class Personalization extends AbstractTransaction<Boolean, KeypleTransact
     @Override
     public TransactionResult<Boolean> execute(KeypleTransactionContext context) {
 
-        context.getCardTransactionManager()
-                .prepareUpdateRecord(fileId, recordNumber, data)
-                .prepareCloseSecureSession()
+        context.getCardSession()
+                .ensureOpen(WriteAccessLevel.PERSONALIZATION, 1, false)
+                .prepareUpdateRecord(fileId, recordNumber, data);
+        context.getCardSession()
+                .prepareClose()
                 .processCommands(ChannelControl.KEEP_OPEN);
 
         return TransactionResult
                 .<Boolean>builder()
+                .transactionStatus(context.getCardSession().completionStatus())
                 .data(true)
                 .build();
     }
@@ -3,20 +3,19 @@ package com.idear.devices.card.cardkit.keyple.transaction;
 import com.idear.devices.card.cardkit.core.io.transaction.AbstractTransaction;
 import com.idear.devices.card.cardkit.core.io.transaction.TransactionResult;
 import com.idear.devices.card.cardkit.core.io.transaction.TransactionStatus;
+import com.idear.devices.card.cardkit.keyple.KeyPairPool;
 import com.idear.devices.card.cardkit.keyple.KeypleTransactionContext;
-import com.idear.devices.card.cardkit.keyple.KeypleUtil;
-import lombok.RequiredArgsConstructor;
+import com.idear.devices.card.cardkit.keyple.PrePersonalizationSession;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.keyple.core.util.HexUtil;
 import org.eclipse.keypop.calypso.card.card.CalypsoCard;
-import org.eclipse.keypop.calypso.crypto.legacysam.sam.LegacySam;
+import org.eclipse.keypop.calypso.crypto.legacysam.transaction.KeyPairContainer;
 import org.eclipse.keypop.reader.CardReader;
 
 
 import java.time.LocalDate;
 
 @Slf4j
-@RequiredArgsConstructor
 public class PrePersonalization extends AbstractTransaction<Boolean, KeypleTransactionContext> {
 
     public enum KeyGenerated {
@@ -27,46 +26,45 @@ public class PrePersonalization extends AbstractTransaction<Boolean, KeypleTrans
     private final KeyGenerated keyGenerate;
     private final LocalDate startDate;
     private final LocalDate endDate;
+    private final KeyPairPool keyPairPool;
+
+    public PrePersonalization(KeyGenerated keyGenerate, LocalDate startDate, LocalDate endDate) {
+        this(keyGenerate, startDate, endDate, null);
+    }
+
+    /**
+     * @param keyPairPool key pairs generated in advance for {@link KeyGenerated#LEGACY_SAM},
+     *                    {@code null} to generate the key pair with the card on the reader
+     */
+    public PrePersonalization(KeyGenerated keyGenerate, LocalDate startDate, LocalDate endDate, KeyPairPool keyPairPool) {
+        this.keyGenerate = keyGenerate;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.keyPairPool = keyPairPool;
+    }
 
     @Override
     public TransactionResult<Boolean> execute(KeypleTransactionContext context) {
         CalypsoCard calypsoCard = context.getKeypleCardReader().getCalypsoCard();
         CardReader cardReader = context.getKeypleCardReader().getCardReader();
-        CardReader samReader = context.getKeypleCalypsoSamReader().getSamReader();
 
         log.info("Pre personalization card {} with {}, from {} to {}",
                 HexUtil.toHex(calypsoCard.getApplicationSerialNumber()),
                 keyGenerate, startDate, endDate
         );
 
-        LegacySam legacySam = KeypleUtil.selectLegacySamByProduct(
-                context.getKeypleCalypsoSamReader().getSamReader(),
-                LegacySam.ProductType.SAM_C1
-        );
-
-        switch (keyGenerate) {
-            case CARD:
-                KeypleUtil.cardSamKeyPair(
-                        cardReader,
-                        samReader,
-                        legacySam,
-                        calypsoCard,
-                        startDate,
-                        endDate
-                );
-            break;
-            case LEGACY_SAM:
-                KeypleUtil.legacySamKeyPair(
-                        cardReader,
-                        samReader,
-                        legacySam,
-                        calypsoCard,
-                        startDate,
-                        endDate
-                );
-                break;
+        KeyPairContainer keyPairContainer = null;
+        if (keyGenerate == KeyGenerated.LEGACY_SAM && keyPairPool != null) {
+            keyPairContainer = keyPairPool.poll();
+            if (keyPairContainer == null)
+                log.warn("Key pair pool empty, generating the key pair on the SAM");
         }
 
+        PrePersonalizationSession session = context.getPrePersonalizationSession() != null
+                ? context.getPrePersonalizationSession()
+                : new PrePersonalizationSession(context.getKeypleCalypsoSamReader());
+        session.prePersonalize(cardReader, calypsoCard, keyGenerate, startDate, endDate, keyPairContainer);
+
         return TransactionResult.<Boolean>builder()
                 .transactionStatus(TransactionStatus.OK)
                 .data(true)
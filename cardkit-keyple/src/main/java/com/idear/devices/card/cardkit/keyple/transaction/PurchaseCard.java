@@ -11,16 +11,14 @@ import com.idear.devices.card.cardkit.core.datamodel.date.ReverseDate;
 import com.idear.devices.card.cardkit.keyple.KeypleTransactionContext;
 import com.idear.devices.card.cardkit.core.io.transaction.AbstractTransaction;
 import com.idear.devices.card.cardkit.core.io.transaction.TransactionResult;
-import com.idear.devices.card.cardkit.core.io.transaction.TransactionStatus;
 import com.idear.devices.card.cardkit.keyple.KeypleUtil;
 import com.idear.devices.card.cardkit.keyple.TransactionDataEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.keyple.core.util.HexUtil;
+import org.eclipse.keypop.calypso.card.WriteAccessLevel;
 import org.eclipse.keypop.calypso.card.transaction.ChannelControl;
 
-import java.time.LocalDate;
-
 @Slf4j
 @RequiredArgsConstructor
 public class PurchaseCard extends AbstractTransaction<TransactionDataEvent, KeypleTransactionContext> {
@@ -38,7 +36,8 @@ public class PurchaseCard extends AbstractTransaction<TransactionDataEvent, Keyp
 
     public TransactionResult<TransactionDataEvent> execute(KeypleTransactionContext context) {
         log.info("Purchasing card {}, modality: {}, tariff: {}, expiration: {}, restrict: {}",
-                calypsoCardCDMX.getSerial(), modality, tariff, PeriodType.getExpirationDate(LocalDate.now(), duration), restrictTime);
+                calypsoCardCDMX.getSerial(), modality, tariff,
+                PeriodType.getExpirationDate(context.getClock().now().toLocalDate(), duration), restrictTime);
 
         Contract contract = Contract.buildContract(
                 contractId,
@@ -47,10 +46,11 @@ public class PurchaseCard extends AbstractTransaction<TransactionDataEvent, Keyp
                 modality,
                 tariff,
                 restrictTime,
-                context.getKeypleCalypsoSamReader().getSerial()
+                context.getKeypleCalypsoSamReader().getSerial(),
+                context.getClock()
         );
 
-        contract.setSaleDate(CompactDate.now());
+        contract.setSaleDate(CompactDate.now(context.getClock()));
         contract.setSaleSam(context.getKeypleCalypsoSamReader().getSerial());
 
         Contract _contract = KeypleUtil.setupRenewContract(
@@ -58,7 +58,7 @@ public class PurchaseCard extends AbstractTransaction<TransactionDataEvent, Keyp
                 HexUtil.toByteArray(calypsoCardCDMX.getSerial()),
                 contract,
                 provider,
-                ReverseDate.now(),
+                ReverseDate.now(context.getClock()),
                 duration
         );
 
@@ -70,15 +70,19 @@ public class PurchaseCard extends AbstractTransaction<TransactionDataEvent, Keyp
                 passenger,
                 calypsoCardCDMX.getEvents().getNextTransactionNumber(),
                 locationId,
-                amount
+                amount,
+                context.getClock()
         );
 
-        context.getCardTransactionManager()
+        context.getCardSession()
+                .ensureOpen(WriteAccessLevel.LOAD, 1, false)
                 .prepareUpdateRecord(
                         _contract.getFileId(),
                         _contract.getId(),
                         _contract.unparse()
-                ).prepareCloseSecureSession()
+                );
+        context.getCardSession()
+                .prepareClose()
                 .processCommands(ChannelControl.KEEP_OPEN);
 
         Logs logs = KeypleUtil.readCardLogs(
@@ -90,12 +94,13 @@ public class PurchaseCard extends AbstractTransaction<TransactionDataEvent, Keyp
                 context.getKeypleCalypsoSamReader(),
                 event,
                 calypsoCardCDMX,
-                calypsoCardCDMX.getBalance()
+                calypsoCardCDMX.getBalance(),
+                context.getClock()
         );
 
         return TransactionResult
                 .<TransactionDataEvent>builder()
-                .transactionStatus(TransactionStatus.OK)
+                .transactionStatus(context.getCardSession().completionStatus())
                 .data(TransactionDataEvent
                         .builder()
                         .mac(mac)
@@ -107,6 +112,7 @@ public class PurchaseCard extends AbstractTransaction<TransactionDataEvent, Keyp
                         .transactionAmount(event.getAmount())
                         .balanceBeforeTransaction(calypsoCardCDMX.getBalance())
                         .locationCode(event.getLocationId())
+                        .transactionDateTime(context.getClock().now())
                         .build()
                 ).build();
     }
@@ -4,6 +4,8 @@ import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.CalypsoCardCDM
 import com.idear.devices.card.cardkit.core.io.transaction.AbstractTransaction;
 import com.idear.devices.card.cardkit.keyple.KeypleCardReader;
 import com.idear.devices.card.cardkit.keyple.KeypleTransactionContext;
+import com.idear.devices.card.cardkit.keyple.KeypleUtil;
+import com.idear.devices.card.cardkit.keyple.SelectionReadPlan;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.CalypsoProduct;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.Calypso;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.*;
@@ -20,6 +22,7 @@ import org.eclipse.keypop.calypso.card.WriteAccessLevel;
 import org.eclipse.keypop.calypso.card.card.CalypsoCard;
 import org.eclipse.keypop.calypso.card.card.ElementaryFile;
 import org.eclipse.keypop.calypso.card.transaction.ChannelControl;
+import org.eclipse.keypop.calypso.card.transaction.SecureRegularModeTransactionManager;
 import org.eclipse.keypop.calypso.card.transaction.SvAction;
 import org.eclipse.keypop.calypso.card.transaction.SvOperation;
 
@@ -34,8 +37,13 @@ import java.util.SortedMap;
  * {@link CardException} is thrown, depending on the cause.
  * </p>
  *
+ * <p>
+ * Records already read with the card selection ({@link SelectionReadPlan}) are not read again.
+ * </p>
+ *
  * @see CalypsoCardCDMX
  * @see KeypleCardReader
+ * @see SelectionReadPlan
  * @see AbstractTransaction
  * @see TransactionResult
  * @see TransactionStatus
@@ -47,12 +55,16 @@ import java.util.SortedMap;
 @RequiredArgsConstructor
 public class ReadAllCard extends AbstractTransaction<CalypsoCardCDMX, KeypleTransactionContext> {
 
+    private static final int EVENT_RECORDS = 3;
+    private static final int CONTRACT_RECORDS = 8;
+
     private final WriteAccessLevel writeAccessLevel;
     private final CalypsoCardCDMX calypsoCardCDMX = new CalypsoCardCDMX();
 
     @Override
     public TransactionResult<CalypsoCardCDMX> execute(KeypleTransactionContext context) {
         CalypsoCard calypsoCard = context.getKeypleCardReader().getCalypsoCard();
+        SelectionReadPlan readPlan = context.getKeypleCardReader().getSelectedReadPlan();
         calypsoCardCDMX.setEnabled(!calypsoCard.isDfInvalidated());
         calypsoCardCDMX.setSerial(HexUtil.toHex(calypsoCard.getApplicationSerialNumber()));
         calypsoCardCDMX.setCalypsoProduct(parseByCalypsoCard(calypsoCard));
@@ -60,20 +72,33 @@ public class ReadAllCard extends AbstractTransaction<CalypsoCardCDMX, KeypleTran
         log.info("Reading card {}", calypsoCardCDMX.getSerial());
 
         try {
-            context.getCardTransactionManager()
-                    .prepareOpenSecureSession(writeAccessLevel)
-                    .prepareReadRecord(Calypso.ENVIRONMENT_FILE, 1)
-                    .prepareReadRecordsPartially(Calypso.EVENT_FILE, 1, 3, 0, 29)
-                    .prepareReadRecordsPartially(Calypso.CONTRACT_FILE, 1, 8, 0, 29)
-                    .prepareSvGet(SvOperation.DEBIT, SvAction.DO)
+            int environmentRead = KeypleUtil.countRecordsRead(calypsoCard, readPlan, Calypso.ENVIRONMENT_FILE, 1);
+            int eventsRead = KeypleUtil.countRecordsRead(calypsoCard, readPlan, Calypso.EVENT_FILE, EVENT_RECORDS);
+            int contractsRead = KeypleUtil.countRecordsRead(calypsoCard, readPlan, Calypso.CONTRACT_FILE, CONTRACT_RECORDS);
+
+            SecureRegularModeTransactionManager ctm = context.getCardSession()
+                    .ensureOpen(writeAccessLevel);
+
+            if (environmentRead == 0)
+                ctm.prepareReadRecord(Calypso.ENVIRONMENT_FILE, 1);
+            if (eventsRead < EVENT_RECORDS)
+                ctm.prepareReadRecordsPartially(Calypso.EVENT_FILE, eventsRead + 1, EVENT_RECORDS, 0, Calypso.RECORD_SIZE);
+            if (contractsRead < CONTRACT_RECORDS)
+                ctm.prepareReadRecordsPartially(Calypso.CONTRACT_FILE, contractsRead + 1, CONTRACT_RECORDS, 0, Calypso.RECORD_SIZE);
+
+            ctm.prepareSvGet(SvOperation.DEBIT, SvAction.DO)
                     .processCommands(ChannelControl.KEEP_OPEN);
 
             calypsoCardCDMX.setBalance(calypsoCard.getSvBalance());
             ElementaryFile elementaryFileEnv = calypsoCard.getFileBySfi(Calypso.ENVIRONMENT_FILE);
             calypsoCardCDMX.setEnvironment(new Environment().parse(elementaryFileEnv != null ? elementaryFileEnv.getData().getContent() : null));
 
-            readEventFiles(calypsoCard);
-            readContractFiles(calypsoCard);
+            Events events = parseEvents(calypsoCard);
+            if (events != null)
+                calypsoCardCDMX.setEvents(events);
+            Contracts contracts = parseContracts(calypsoCard);
+            if (contracts != null)
+                calypsoCardCDMX.setContracts(contracts);
             readLogFiles(calypsoCard);
         } catch (Exception exception) {
             log.debug("Error reading files card data: {}", exception.getMessage());
@@ -93,37 +118,51 @@ public class ReadAllCard extends AbstractTransaction<CalypsoCardCDMX, KeypleTran
         calypsoCardCDMX.setLoadLog(new LoadLog().parse(calypsoCard.getSvLoadLogRecord()));
     }
 
-    private void readEventFiles(CalypsoCard calypsoCard) {
-        SortedMap<Integer, byte[]> readFilesBytes = calypsoCard.getFileBySfi(Calypso.EVENT_FILE)
-                .getData()
-                .getAllRecordsContent();
+    /**
+     * Parses the event records present on the card image.
+     *
+     * @param calypsoCard the Calypso card
+     * @return the events, {@code null} if the file was not read
+     */
+    static Events parseEvents(CalypsoCard calypsoCard) {
+        ElementaryFile elementaryFile = calypsoCard.getFileBySfi(Calypso.EVENT_FILE);
+        SortedMap<Integer, byte[]> readFilesBytes = elementaryFile != null
+                ? elementaryFile.getData().getAllRecordsContent()
+                : null;
 
         if (readFilesBytes == null)
-            return;
+            return null;
 
         Events events = new Events();
         for (var entry : readFilesBytes.entrySet()) {
             events.add(new Event(entry.getKey()).parse(entry.getValue()));
         }
-        calypsoCardCDMX.setEvents(events);
+        return events;
     }
 
-    private void readContractFiles(CalypsoCard calypsoCard) {
-        SortedMap<Integer, byte[]> readFilesBytes = calypsoCard.getFileBySfi(Calypso.CONTRACT_FILE)
-                .getData()
-                .getAllRecordsContent();
+    /**
+     * Parses the contract records present on the card image.
+     *
+     * @param calypsoCard the Calypso card
+     * @return the contracts, {@code null} if the file was not read
+     */
+    static Contracts parseContracts(CalypsoCard calypsoCard) {
+        ElementaryFile elementaryFile = calypsoCard.getFileBySfi(Calypso.CONTRACT_FILE);
+        SortedMap<Integer, byte[]> readFilesBytes = elementaryFile != null
+                ? elementaryFile.getData().getAllRecordsContent()
+                : null;
 
         if (readFilesBytes == null)
-            return;
+            return null;
 
         Contracts contracts = new Contracts();
         for (var entry : readFilesBytes.entrySet()) {
             contracts.add(new Contract(entry.getKey()).parse(entry.getValue()));
         }
-        calypsoCardCDMX.setContracts(contracts);
+        return contracts;
     }
 
-    private CalypsoProduct parseByCalypsoCard(CalypsoCard calypsoCard) {
+    static CalypsoProduct parseByCalypsoCard(CalypsoCard calypsoCard) {
         if (calypsoCard.isHce())
             return CalypsoProduct.CALYPSO_HCE;
 
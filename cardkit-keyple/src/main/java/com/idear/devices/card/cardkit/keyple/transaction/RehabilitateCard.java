@@ -9,7 +9,6 @@ import com.idear.devices.card.cardkit.core.datamodel.date.CompactTime;
 import com.idear.devices.card.cardkit.core.io.transaction.AbstractTransaction;
 import com.idear.devices.card.cardkit.core.exception.CardException;
 import com.idear.devices.card.cardkit.core.io.transaction.TransactionResult;
-import com.idear.devices.card.cardkit.core.io.transaction.TransactionStatus;
 import com.idear.devices.card.cardkit.core.utils.ByteUtils;
 import com.idear.devices.card.cardkit.keyple.KeypleTransactionContext;
 import com.idear.devices.card.cardkit.keyple.KeypleUtil;
@@ -31,15 +30,16 @@ public class RehabilitateCard extends AbstractTransaction<Boolean, KeypleTransac
         if (calypsoCardCDMX.isEnabled())
             throw new CardException("card already rehabilitate");
 
-        context.getCardTransactionManager()
-                .prepareOpenSecureSession(WriteAccessLevel.PERSONALIZATION)
-                .prepareRehabilitate()
-                .prepareCloseSecureSession()
+        context.getCardSession()
+                .ensureOpen(WriteAccessLevel.PERSONALIZATION, 1, false)
+                .prepareRehabilitate();
+        context.getCardSession()
+                .prepareClose()
                 .processCommands(ChannelControl.KEEP_OPEN);
 
         return TransactionResult
                 .<Boolean>builder()
-                .transactionStatus(TransactionStatus.OK)
+                .transactionStatus(context.getCardSession().completionStatus())
                 .data(true)
                 .build();
     }
@@ -11,11 +11,11 @@ import com.idear.devices.card.cardkit.keyple.KeypleTransactionContext;
 import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.TransactionType;
 import com.idear.devices.card.cardkit.core.io.transaction.AbstractTransaction;
 import com.idear.devices.card.cardkit.core.io.transaction.TransactionResult;
-import com.idear.devices.card.cardkit.core.io.transaction.TransactionStatus;
 import com.idear.devices.card.cardkit.keyple.KeypleUtil;
 import com.idear.devices.card.cardkit.keyple.TransactionDataEvent;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.eclipse.keypop.calypso.card.WriteAccessLevel;
 import org.eclipse.keypop.calypso.card.transaction.ChannelControl;
 import org.eclipse.keypop.calypso.card.transaction.SvAction;
 import org.eclipse.keypop.calypso.card.transaction.SvOperation;
@@ -54,20 +54,24 @@ public class ReloadCard extends AbstractTransaction<TransactionDataEvent, Keyple
                 passenger,
                 getCalypsoCardCDMX().getEvents().getNextTransactionNumber(),
                 locationId,
-                amount
+                amount,
+                context.getClock()
         );
 
-        context.getCardTransactionManager()
+        context.getCardSession()
+                .ensureOpen(WriteAccessLevel.LOAD, 1, true)
                 .prepareSvGet(SvOperation.RELOAD, SvAction.DO)
                 .prepareSvReload(
                         amount,
-                        CompactDate.now().toBytes(),
-                        CompactTime.now().toBytes(),
+                        CompactDate.now(context.getClock()).toBytes(),
+                        CompactTime.now(context.getClock()).toBytes(),
                         ByteUtils.extractBytes(0, 2)
                 ).prepareAppendRecord(
                         event.getFileId(),
                         event.unparse()
-                ).prepareCloseSecureSession()
+                );
+        context.getCardSession()
+                .prepareClose()
                 .processCommands(ChannelControl.KEEP_OPEN);
 
         Logs logs = KeypleUtil.readCardLogs(
@@ -79,12 +83,13 @@ public class ReloadCard extends AbstractTransaction<TransactionDataEvent, Keyple
                 context.getKeypleCalypsoSamReader(),
                 event,
                 calypsoCardCDMX,
-                calypsoCardCDMX.getBalance()
+                calypsoCardCDMX.getBalance(),
+                context.getClock()
         );
 
         return TransactionResult
                 .<TransactionDataEvent>builder()
-                .transactionStatus(TransactionStatus.OK)
+                .transactionStatus(context.getCardSession().completionStatus())
                 .data(TransactionDataEvent
                         .builder()
                         .mac(mac)
@@ -96,6 +101,7 @@ public class ReloadCard extends AbstractTransaction<TransactionDataEvent, Keyple
                         .transactionAmount(event.getAmount())
                         .balanceBeforeTransaction(calypsoCardCDMX.getBalance())
                         .locationCode(event.getLocationId())
+                        .transactionDateTime(context.getClock().now())
                         .build()
                 ).build();
     }
@@ -10,12 +10,12 @@ import com.idear.devices.card.cardkit.core.datamodel.date.ReverseDate;
 import com.idear.devices.card.cardkit.core.exception.CardException;
 import com.idear.devices.card.cardkit.core.io.transaction.AbstractTransaction;
 import com.idear.devices.card.cardkit.core.io.transaction.TransactionResult;
-import com.idear.devices.card.cardkit.core.io.transaction.TransactionStatus;
 import com.idear.devices.card.cardkit.keyple.KeypleUtil;
 import com.idear.devices.card.cardkit.keyple.TransactionDataEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.keyple.core.util.HexUtil;
+import org.eclipse.keypop.calypso.card.WriteAccessLevel;
 import org.eclipse.keypop.calypso.card.transaction.ChannelControl;
 
 /**
@@ -83,15 +83,19 @@ public class RenewedCard extends AbstractTransaction<TransactionDataEvent, Keypl
                 passenger,
                 calypsoCardCDMX.getEvents().getNextTransactionNumber(),
                 locationId,
-                0
+                0,
+                context.getClock()
         );
 
-        context.getCardTransactionManager()
+        context.getCardSession()
+                .ensureOpen(WriteAccessLevel.LOAD, 1, false)
                 .prepareUpdateRecord(
                         _contract.getFileId(),
                         _contract.getId(),
                         _contract.unparse()
-                ).prepareCloseSecureSession()
+                );
+        context.getCardSession()
+                .prepareClose()
                 .processCommands(ChannelControl.KEEP_OPEN);
 
         Logs logs = KeypleUtil.readCardLogs(
@@ -103,12 +107,13 @@ public class RenewedCard extends AbstractTransaction<TransactionDataEvent, Keypl
                 context.getKeypleCalypsoSamReader(),
                 event,
                 calypsoCardCDMX,
-                calypsoCardCDMX.getBalance()
+                calypsoCardCDMX.getBalance(),
+                context.getClock()
         );
 
         return TransactionResult
                 .<TransactionDataEvent>builder()
-                .transactionStatus(TransactionStatus.OK)
+                .transactionStatus(context.getCardSession().completionStatus())
                 .data(TransactionDataEvent
                         .builder()
                         .mac(mac)
@@ -120,6 +125,7 @@ public class RenewedCard extends AbstractTransaction<TransactionDataEvent, Keypl
                         .transactionAmount(event.getAmount())
                         .balanceBeforeTransaction(calypsoCardCDMX.getBalance())
                         .locationCode(event.getLocationId())
+                        .transactionDateTime(context.getClock().now())
                         .build()
                 ).build();
     }
@@ -0,0 +1,108 @@
+package com.idear.devices.card.cardkit.keyple.transaction;
+
+import com.idear.devices.card.cardkit.core.exception.CardException;
+import com.idear.devices.card.cardkit.core.io.transaction.AbstractTransaction;
+import com.idear.devices.card.cardkit.core.io.transaction.TransactionResult;
+import com.idear.devices.card.cardkit.core.io.transaction.TransactionStatus;
+import com.idear.devices.card.cardkit.keyple.KeypleTransactionContext;
+import com.idear.devices.card.cardkit.keyple.KeypleUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.keyple.core.util.HexUtil;
+import org.eclipse.keypop.calypso.card.card.CalypsoCard;
+import org.eclipse.keypop.calypso.card.card.ElementaryFile;
+import org.eclipse.keypop.calypso.card.transaction.ChannelControl;
+import org.eclipse.keypop.calypso.card.transaction.FreeTransactionManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads back the records written by a {@link BulkWrite} and compares them with the data written.
+ *
+ * <p>
+ * The records are read outside of a secure session in a single exchange. Appended records are
+ * expected in the order of a cyclic file, the last record appended is record 1. The data written
+ * is compared with the beginning of the record read.
+ * </p>
+ *
+ * @see BulkWrite
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class VerifyRecords extends AbstractTransaction<Boolean, KeypleTransactionContext> {
+
+    private final List<BulkWrite.RecordWrite> writes;
+
+    @Override
+    public TransactionResult<Boolean> execute(KeypleTransactionContext context) {
+        CalypsoCard calypsoCard = context.getKeypleCardReader().getCalypsoCard();
+        int[] recordNumbers = recordNumbers();
+
+        FreeTransactionManager ftm = KeypleUtil.prepareFreeTransactionManager(
+                context.getKeypleCardReader().getCardReader(), calypsoCard);
+        for (int i = 0; i < writes.size(); i++)
+            ftm.prepareReadRecord(writes.get(i).getSfi(), recordNumbers[i]);
+
+        try {
+            ftm.processCommands(ChannelControl.KEEP_OPEN);
+        } catch (Exception e) {
+            throw new CardException("Error reading back card records: " + e.getMessage());
+        }
+
+        for (int i = 0; i < writes.size(); i++) {
+            BulkWrite.RecordWrite write = writes.get(i);
+            ElementaryFile elementaryFile = calypsoCard.getFileBySfi(write.getSfi());
+            byte[] record = elementaryFile != null ? elementaryFile.getData().getContent(recordNumbers[i]) : null;
+
+            if (!startsWith(record, write.getData()))
+                throw new CardException("Record %d of file %02X does not match, expected %s, read %s",
+                        recordNumbers[i], write.getSfi(),
+                        HexUtil.toHex(write.getData()), record != null ? HexUtil.toHex(record) : "none");
+        }
+
+        log.debug("{} records verified", writes.size());
+        return TransactionResult
+                .<Boolean>builder()
+                .transactionStatus(TransactionStatus.OK)
+                .data(true)
+                .message(writes.size() + " records verified")
+                .build();
+    }
+
+    /**
+     * Record number of every write once all of them are done, appends are shifted by the following appends.
+     */
+    private int[] recordNumbers() {
+        Map<Byte, Integer> appendsLeft = new HashMap<>();
+        for (BulkWrite.RecordWrite write : writes)
+            if (write.isAppend())
+                appendsLeft.merge(write.getSfi(), 1, Integer::sum);
+
+        int[] recordNumbers = new int[writes.size()];
+        for (int i = 0; i < writes.size(); i++) {
+            BulkWrite.RecordWrite write = writes.get(i);
+            if (!write.isAppend()) {
+                recordNumbers[i] = write.getRecordNumber();
+                continue;
+            }
+            int left = appendsLeft.get(write.getSfi());
+            recordNumbers[i] = left;
+            appendsLeft.put(write.getSfi(), left - 1);
+        }
+        return recordNumbers;
+    }
+
+    private static boolean startsWith(byte[] record, byte[] data) {
+        if (record == null || record.length < data.length)
+            return false;
+        for (int i = 0; i < data.length; i++)
+            if (record[i] != data[i])
+                return false;
+        return true;
+    }
+}
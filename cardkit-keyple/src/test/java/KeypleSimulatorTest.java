@@ -0,0 +1,150 @@
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.Calypso;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.CalypsoCardCDMX;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.constant.*;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Contract;
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.file.Environment;
+import com.idear.devices.card.cardkit.core.datamodel.location.LocationCode;
+import com.idear.devices.card.cardkit.core.utils.ByteUtils;
+import com.idear.devices.card.cardkit.keyple.KeypleCalypsoSamReader;
+import com.idear.devices.card.cardkit.keyple.KeypleCardReader;
+import com.idear.devices.card.cardkit.keyple.KeypleTransactionManager;
+import com.idear.devices.card.cardkit.keyple.KeypleUtil;
+import com.idear.devices.card.cardkit.simulator.SimulatedCalypsoCard;
+import com.idear.devices.card.cardkit.simulator.SimulatedSam;
+import com.idear.devices.card.cardkit.simulator.keyple.SimulatedKeyplePluginFactory;
+import com.idear.devices.card.cardkit.simulator.keyple.SimulatedKeypleReader;
+import org.eclipse.keyple.core.service.Plugin;
+import org.eclipse.keypop.calypso.card.WriteAccessLevel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link KeypleTransactionManager} on a simulated card and SAM, registered in Keyple with
+ * {@link SimulatedKeyplePluginFactory}, no reader is needed.
+ */
+public class KeypleSimulatorTest {
+    public static final String CARD_READER = "simulated card";
+    public static final String SAM_READER = "simulated sam";
+    public static final String lockSecret = "A40B01C39C99CB910FE62A23192A0C5C";
+
+    private static final byte[] CARD_SERIAL = ByteUtils.hexToBytes("0000000012345678");
+    private static final byte[] SAM_SERIAL = ByteUtils.hexToBytes("AABBCCDD");
+    private static final int BALANCE = 100_00;
+
+    private static final LocationCode locationCode = new LocationCode(0xAAAAAA);
+    private static final Provider provider = Provider.CABLEBUS;
+
+    public static SimulatedKeypleReader cardReader;
+    public static KeypleTransactionManager ktm;
+
+    private SimulatedCalypsoCard card;
+
+    @BeforeAll
+    static void initOnce() {
+        cardReader = new SimulatedKeypleReader(CARD_READER, true);
+        SimulatedKeypleReader samReader = new SimulatedKeypleReader(
+                SAM_READER, false, new SimulatedSam(SAM_SERIAL, ByteUtils.hexToBytes(lockSecret)));
+        Plugin plugin = KeypleUtil.SMART_CARD_SERVICE.registerPlugin(
+                new SimulatedKeyplePluginFactory("simulator", cardReader, samReader));
+
+        KeypleCalypsoSamReader kcsr = new KeypleCalypsoSamReader(SAM_READER, lockSecret);
+        kcsr.setSamReader(plugin.getReader(SAM_READER));
+        kcsr.connectToCard();
+
+        KeypleCardReader kcr = new KeypleCardReader(CARD_READER);
+        kcr.setCardReader(plugin.getReader(CARD_READER));
+        ktm = new KeypleTransactionManager(kcr, kcsr, Calypso.AID_CDMX);
+    }
+
+    @BeforeEach
+    public void insertCard() {
+        card = new SimulatedCalypsoCard(ByteUtils.hexToBytes(Calypso.AID_CDMX), CARD_SERIAL);
+        card.setSvBalance(BALANCE);
+        card.setRecord(Calypso.ENVIRONMENT_FILE, 1, Environment.buildEnvironment(
+                NetworkCode.CDMX.getValue(),
+                Profile.GENERAL.getValue()).unparse());
+        card.setRecord(Calypso.CONTRACT_FILE, 1, Contract.buildContract(
+                1,
+                NetworkCode.CDMX.getValue(),
+                provider.getValue(),
+                Modality.MONOMODAL.getValue(),
+                Tariff.STORED_VALUE.getValue(),
+                RestrictTime.WITHOUT_RESTRICTION.getValue(),
+                ByteUtils.toHex(SAM_SERIAL)).unparse());
+
+        cardReader.insert(card);
+        assertTrue(ktm.awaitCard(1000));
+    }
+
+    @AfterEach
+    public void removeCard() {
+        cardReader.remove();
+    }
+
+    private CalypsoCardCDMX read(WriteAccessLevel writeAccessLevel) throws Throwable {
+        return ktm.readCardData(writeAccessLevel)
+                .throwException()
+                .getData();
+    }
+
+    @Test
+    public void readCardData() throws Throwable {
+        CalypsoCardCDMX calypsoCardCDMX = read(WriteAccessLevel.DEBIT);
+
+        assertEquals(BALANCE, calypsoCardCDMX.getBalance());
+        assertFalse(calypsoCardCDMX.getContracts().getFirstContractValid().isExpired(0));
+    }
+
+    @Test
+    public void debitCard() throws Throwable {
+        int amount = 10_00;
+
+        ktm.debitCard(
+                read(WriteAccessLevel.DEBIT),
+                TransactionType.GENERAL_DEBIT.getValue(),
+                locationCode.getValue(),
+                provider.getValue(),
+                0,
+                amount
+        ).throwException();
+
+        assertEquals(BALANCE - amount, card.getSvBalance());
+        assertFalse(card.isSessionOpen());
+    }
+
+    @Test
+    public void reloadCard() throws Throwable {
+        int amount = 10_00;
+
+        ktm.reloadCard(
+                read(WriteAccessLevel.LOAD),
+                locationCode.getValue(),
+                provider.getValue(),
+                0,
+                amount
+        ).throwException();
+
+        assertEquals(BALANCE + amount, card.getSvBalance());
+        assertFalse(card.isSessionOpen());
+    }
+
+    @Test
+    public void cardRemoved() throws Throwable {
+        CalypsoCardCDMX calypsoCardCDMX = read(WriteAccessLevel.DEBIT);
+        cardReader.remove();
+
+        assertFalse(ktm.debitCard(
+                calypsoCardCDMX,
+                TransactionType.GENERAL_DEBIT.getValue(),
+                locationCode.getValue(),
+                provider.getValue(),
+                0,
+                10_00
+        ).isOk());
+        assertEquals(BALANCE, card.getSvBalance());
+    }
+}
@@ -0,0 +1,162 @@
+package com.idear.devices.card.cardkit.pcsc;
+
+import com.idear.devices.card.cardkit.core.utils.ByteUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Command APDU parsed once from its hex form, filled into a caller buffer for every command sent.
+ *
+ * <p>
+ * Two kinds of templates are supported:
+ * </p>
+ * <ul>
+ *     <li>{@link #command(String)}, a complete command where {@code %s} stands for a one byte parameter,
+ *     e.g. {@code "9412 FF00 03 %s%s 00 20"},</li>
+ *     <li>{@link #withData(String, boolean)}, a header {@code CLA INS P1 P2} followed by {@code Lc},
+ *     the data and optionally {@code Le = 00}, as {@link PcscUtil#buildCommand(String, byte...)}.</li>
+ * </ul>
+ *
+ * <p>
+ * Templates are immutable and can be shared, the buffer filled belongs to the caller,
+ * see {@link PcscAbstractReader#transmit(byte[], int, int)}.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+public final class ApduTemplate {
+
+    private static final String PARAMETER = "%s";
+
+    private final byte[] bytes;
+    private final int[] parameterOffsets;
+    private final boolean data;
+    private final boolean le;
+
+    private ApduTemplate(byte[] bytes, int[] parameterOffsets, boolean data, boolean le) {
+        this.bytes = bytes;
+        this.parameterOffsets = parameterOffsets;
+        this.data = data;
+        this.le = le;
+    }
+
+    /**
+     * @param hex the command in hex, spaces are ignored and {@code %s} is a one byte parameter
+     * @return the template
+     */
+    public static ApduTemplate command(String hex) {
+        String compact = hex.replace(" ", "");
+        List<Integer> offsets = new ArrayList<>();
+        StringBuilder fixed = new StringBuilder(compact.length());
+
+        for (int i = 0; i < compact.length(); ) {
+            if (compact.startsWith(PARAMETER, i)) {
+                offsets.add(fixed.length() / 2);
+                fixed.append("00");
+                i += PARAMETER.length();
+            } else {
+                fixed.append(compact, i, i + 2);
+                i += 2;
+            }
+        }
+
+        int[] parameterOffsets = new int[offsets.size()];
+        for (int i = 0; i < parameterOffsets.length; i++)
+            parameterOffsets[i] = offsets.get(i);
+
+        return new ApduTemplate(ByteUtils.hexToBytes(fixed.toString()), parameterOffsets, false, false);
+    }
+
+    /**
+     * @param header the header {@code CLA INS P1 P2} in hex, spaces are ignored
+     * @param le     {@code true} to end the command with {@code Le = 00}
+     * @return the template
+     */
+    public static ApduTemplate withData(String header, boolean le) {
+        byte[] bytes = ByteUtils.hexToBytes(header);
+        if (bytes.length != 4)
+            throw new IllegalArgumentException("Header of 4 bytes expected: " + header);
+        return new ApduTemplate(bytes, new int[0], true, le);
+    }
+
+    /**
+     * @return number of one byte parameters of the template
+     */
+    public int getParameterCount() {
+        return parameterOffsets.length;
+    }
+
+    /**
+     * Fills a command without parameter.
+     *
+     * @param buffer the buffer of the command
+     * @return the length of the command
+     */
+    public int fill(byte[] buffer) {
+        checkKind(false, 0);
+        System.arraycopy(bytes, 0, buffer, 0, bytes.length);
+        return bytes.length;
+    }
+
+    /**
+     * Fills a command with two parameters.
+     *
+     * @param buffer the buffer of the command
+     * @param p0     first parameter
+     * @param p1     second parameter
+     * @return the length of the command
+     */
+    public int fill(byte[] buffer, byte p0, byte p1) {
+        checkKind(false, 2);
+        System.arraycopy(bytes, 0, buffer, 0, bytes.length);
+        buffer[parameterOffsets[0]] = p0;
+        buffer[parameterOffsets[1]] = p1;
+        return bytes.length;
+    }
+
+    /**
+     * Fills a command with data, {@code CLA INS P1 P2 Lc data [Le]}.
+     *
+     * @param buffer the buffer of the command
+     * @param data   the data of the command
+     * @return the length of the command
+     */
+    public int fill(byte[] buffer, byte[] data) {
+        checkKind(true, 0);
+        if (data.length > 255)
+            throw new IllegalArgumentException("Data of " + data.length + " bytes exceeds 255");
+
+        System.arraycopy(bytes, 0, buffer, 0, 4);
+        buffer[4] = (byte) data.length;
+        System.arraycopy(data, 0, buffer, 5, data.length);
+        int length = 5 + data.length;
+        if (le)
+            buffer[length++] = 0x00;
+        return length;
+    }
+
+    /**
+     * @param data the data of the command
+     * @return the command filled in a new array, for the callers using {@link javax.smartcardio.CommandAPDU}
+     * @see #fill(byte[], byte[])
+     */
+    public byte[] toBytes(byte[] data) {
+        byte[] buffer = new byte[4 + 1 + data.length + (le ? 1 : 0)];
+        fill(buffer, data);
+        return buffer;
+    }
+
+    private void checkKind(boolean withData, int parameters) {
+        if (data != withData || parameterOffsets.length != parameters)
+            throw new IllegalStateException("Template " + this + " does not take these parameters");
+    }
+
+    @Override
+    public String toString() {
+        return ByteUtils.toHex(bytes) + (data ? " Lc data" + (le ? " 00" : "") : "")
+                + (parameterOffsets.length > 0 ? " parameters " + Arrays.toString(parameterOffsets) : "");
+    }
+}
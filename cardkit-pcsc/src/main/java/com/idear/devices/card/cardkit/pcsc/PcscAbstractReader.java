@@ -1,13 +1,21 @@
 package com.idear.devices.card.cardkit.pcsc;
 
+import com.idear.devices.card.cardkit.core.io.apdu.ResponseApdu;
 import com.idear.devices.card.cardkit.core.io.reader.AbstractReader;
+import com.idear.devices.card.cardkit.core.utils.ByteUtils;
+import com.idear.devices.card.cardkit.pcsc.exception.APDUResponseException;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
-import org.eclipse.keyple.core.util.HexUtil;
 
 import javax.smartcardio.*;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 @EqualsAndHashCode(callSuper = true)
 @Data
@@ -21,10 +29,28 @@ public class PcscAbstractReader extends AbstractReader {
     @ToString.Exclude
     private CardTerminal cardTerminal;
 
+    /** Longest short APDU, header, Lc, 255 bytes of data and Le */
+    public static final int MAX_COMMAND_LENGTH = 261;
+    /** Longest short APDU response, 256 bytes of data and SW1 SW2 */
+    public static final int MAX_RESPONSE_LENGTH = 258;
+    public static final int SW_SUCCESS = 0x9000;
+
     @ToString.Exclude
     private Card card;
     private CardChannel cardChannel;
 
+    /** Command buffer reused by every {@link #transmit(byte[], int, int)} of the reader */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    private final ByteBuffer commandBuffer = ByteBuffer.allocateDirect(MAX_COMMAND_LENGTH);
+
+    /** Response buffer reused by every {@link #transmit(byte[], int, int)} of the reader */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    private final ByteBuffer responseBuffer = ByteBuffer.allocateDirect(MAX_RESPONSE_LENGTH);
+
     @Override
     public void connect() throws Exception {
         cardTerminal = PcscUtil.getCardTerminalMatchingName(name);
@@ -111,16 +137,16 @@ public class PcscAbstractReader extends AbstractReader {
     }
 
     @Override
-    public ResponseAPDU simpleCommand(CommandAPDU command) {
+    public ResponseApdu simpleCommand(CommandAPDU command) {
         if (cardChannel != null)
             try {
                 ResponseAPDU responseAPDU = cardChannel.transmit(command);
                 if (responseAPDU.getSW() != 0x9000)
                     throw new RuntimeException(
-                            String.format("bad status response, waited: %s, actual: %s, command: %s",
-                                    9000, HexUtil.toHex(responseAPDU.getSW()), HexUtil.toHex(command.getBytes()))
+                            String.format("bad status response, waited: %s, actual: %04X, command: %s",
+                                    9000, responseAPDU.getSW(), ByteUtils.toHex(command.getBytes()))
                     );
-                return responseAPDU;
+                return new ResponseApdu(responseAPDU.getBytes());
             } catch (CardException e) {
                 throw new RuntimeException(e);
             }
@@ -128,12 +154,114 @@ public class PcscAbstractReader extends AbstractReader {
         return null;
     }
 
+    /**
+     * Transmits a command without {@link CommandAPDU} or {@link ResponseAPDU}, the command is copied in
+     * the command buffer of the reader and the response is received in its response buffer. The
+     * smartcardio provider may still copy the buffers internally, the JDK one does.
+     * <p>
+     * The buffer returned is the response buffer of the reader, from position 0 to the end of
+     * SW1 SW2. Its content is valid until the next transmit on the reader, it must be read or
+     * copied before. Synchronized, the buffers are shared by the threads using the reader.
+     * </p>
+     *
+     * @param command bytes of the command APDU
+     * @param offset  offset of the command in the array
+     * @param length  length of the command
+     * @return the response, data followed by SW1 SW2
+     * @throws com.idear.devices.card.cardkit.core.exception.CardException if the card is not connected or the transmission fails
+     */
+    public synchronized ByteBuffer transmit(byte[] command, int offset, int length) {
+        if (cardChannel == null)
+            throw new com.idear.devices.card.cardkit.core.exception.CardException("card not connected");
+        if (length > MAX_COMMAND_LENGTH)
+            throw new IllegalArgumentException("Command of " + length + " bytes exceeds " + MAX_COMMAND_LENGTH);
+
+        // Buffer casts: ByteBuffer.clear() and flip() return ByteBuffer since Java 9, not found on Java 8
+        ((Buffer) commandBuffer).clear();
+        commandBuffer.put(command, offset, length);
+        ((Buffer) commandBuffer).flip();
+        ((Buffer) responseBuffer).clear();
+        try {
+            cardChannel.transmit(commandBuffer, responseBuffer);
+        } catch (CardException e) {
+            throw new com.idear.devices.card.cardkit.core.exception.CardException(e.getMessage());
+        }
+        ((Buffer) responseBuffer).flip();
+        return responseBuffer;
+    }
+
+    /**
+     * Same as {@link #transmit(byte[], int, int)} and checks the status word of the response,
+     * the error message is only built on failure.
+     *
+     * @param command bytes of the command APDU
+     * @param offset  offset of the command in the array
+     * @param length  length of the command
+     * @return the response, data followed by SW1 SW2
+     * @throws APDUResponseException if the status word is not {@code 9000}
+     */
+    public synchronized ByteBuffer transmitChecked(byte[] command, int offset, int length) {
+        ByteBuffer response = transmit(command, offset, length);
+        int sw = sw(response);
+        if (sw != SW_SUCCESS)
+            throw new APDUResponseException(
+                    String.format("bad status response, waited: %04X, actual: %04X, command: %s",
+                            SW_SUCCESS, sw, ByteUtils.toHex(command, offset, length)),
+                    sw);
+        return response;
+    }
+
+    /**
+     * Sends the commands through the buffers of the reader, holding the reader for the whole batch.
+     *
+     * @param commands    to send, in order
+     * @param stopOnError {@code true} to stop after the first response whose status is not {@code 9000}
+     * @return the apdu responses, in the order of the commands
+     */
+    @Override
+    public synchronized List<ResponseApdu> transmitBatch(List<CommandAPDU> commands, boolean stopOnError) {
+        List<ResponseApdu> responses = new ArrayList<>(commands.size());
+        for (CommandAPDU command : commands) {
+            byte[] bytes = command.getBytes();
+            ByteBuffer response = transmit(bytes, 0, bytes.length);
+            boolean success = sw(response) == SW_SUCCESS;
+
+            byte[] responseBytes = new byte[response.remaining()];
+            response.get(responseBytes);
+            responses.add(new ResponseApdu(responseBytes));
+            if (stopOnError && !success)
+                break;
+        }
+        return responses;
+    }
+
+    /**
+     * @param response a response received by {@link #transmit(byte[], int, int)}
+     * @return the status word, SW1 SW2, of the response
+     */
+    public static int sw(ByteBuffer response) {
+        int limit = response.limit();
+        if (limit < 2)
+            return 0;
+        return ((response.get(limit - 2) & 0xff) << 8) | (response.get(limit - 1) & 0xff);
+    }
+
+    /**
+     * @param response a response received by {@link #transmit(byte[], int, int)}
+     * @return the length of the response data, without SW1 SW2
+     */
+    public static int dataLength(ByteBuffer response) {
+        return Math.max(response.limit() - 2, 0);
+    }
+
     @RequiredArgsConstructor
     public static class Factory {
         private final PcscAbstractReader pcscReader;
 
-        public ResponseAPDU simpleCommand(CommandAPDU commandAPDU) {
-            return pcscReader.execute(new SimpleCommand(commandAPDU)).getData();
+        public ResponseApdu simpleCommand(CommandAPDU commandAPDU) {
+            return new SimpleCommand(commandAPDU)
+                    .execute(PcscTransactionContext.builder().reader(pcscReader).build())
+                    .getData();
         }
 
         public ATR getATR() {
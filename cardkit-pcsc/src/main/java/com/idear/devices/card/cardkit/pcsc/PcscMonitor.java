@@ -0,0 +1,201 @@
+package com.idear.devices.card.cardkit.pcsc;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.smartcardio.CardException;
+import javax.smartcardio.CardTerminal;
+import javax.smartcardio.CardTerminals;
+import javax.smartcardio.TerminalFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Watches every attached PC/SC terminal from a single thread with {@link CardTerminals#waitForChange(long)},
+ * instead of one thread blocked in {@link PcscAbstractReader#waitForCardPresent(long)} per terminal.
+ *
+ * <p>
+ * The card insertions and removals are dispatched as {@link PcscCardEvent} to the
+ * {@link PcscReaderEventListener} of the reader bound to the terminal, see {@link PcscReaderRegistry}.
+ * Before {@link PcscCardEvent#CARD_PRESENT} the reader is connected to the card, after a removal it is
+ * disconnected before {@link PcscCardEvent#CARD_ABSENT}, the same as the blocking waits.
+ * </p>
+ *
+ * <p>
+ * The listeners are called on the monitor thread, a listener running a transaction delays the events
+ * of the other readers and should hand the work to another thread.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@Slf4j
+@Getter
+public class PcscMonitor implements AutoCloseable {
+
+    private final PcscReaderRegistry registry;
+    private final CardTerminals cardTerminals;
+
+    /** Maximum time in milliseconds of a wait, the attached terminals are listed again after each one */
+    @Setter
+    private long pollTimeout = 1_000;
+
+    /** Card presence of the terminals bound to a reader, by terminal name */
+    private final Map<String, Boolean> present = new HashMap<>();
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public PcscMonitor() {
+        this(new PcscReaderRegistry(), TerminalFactory.getDefault().terminals());
+    }
+
+    /**
+     * @param registry      the readers watched
+     * @param cardTerminals the terminals of the PC/SC provider
+     */
+    public PcscMonitor(PcscReaderRegistry registry, CardTerminals cardTerminals) {
+        this.registry = registry;
+        this.cardTerminals = cardTerminals;
+    }
+
+    /**
+     * Watches a reader, see {@link PcscReaderRegistry#register(PcscAbstractReader, PcscReaderEventListener)}.
+     *
+     * @param reader   the reader
+     * @param listener listener of the card events of the reader
+     * @return this monitor
+     */
+    public PcscMonitor register(PcscAbstractReader reader, PcscReaderEventListener listener) {
+        registry.register(reader, listener);
+        return this;
+    }
+
+    /**
+     * Starts the monitor thread, a {@link PcscCardEvent#CARD_PRESENT} is dispatched for the cards
+     * already on the readers.
+     */
+    public synchronized void start() {
+        if (running)
+            return;
+
+        running = true;
+        thread = new Thread(this::run, "pcsc-monitor");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the monitor thread, the readers are left connected.
+     */
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (thread != null)
+            thread.interrupt();
+        thread = null;
+    }
+
+    private void run() {
+        log.info("PC/SC monitor started, {} readers", registry.size());
+        Set<String> removed = Collections.emptySet();
+        while (running) {
+            try {
+                scan(removed);
+                cardTerminals.waitForChange(pollTimeout);
+                removed = new HashSet<>(names(cardTerminals.list(CardTerminals.State.CARD_REMOVAL)));
+            } catch (CardException e) {
+                // no terminal attached or PC/SC service restarting
+                log.debug("PC/SC wait failed: {}", e.getMessage());
+                if (!sleep())
+                    break;
+            } catch (Exception e) {
+                log.warn("PC/SC monitor error: {}", e.getMessage());
+                if (!sleep())
+                    break;
+            }
+        }
+        log.info("PC/SC monitor stopped");
+    }
+
+    /**
+     * Compares the card presence of every terminal with the last one known and dispatches the changes,
+     * the removals of terminals detached are dispatched as card removals.
+     *
+     * @param removed terminals where a card was removed since the last scan, a card swapped between
+     *                two scans is dispatched as a removal and an insertion
+     */
+    private void scan(Set<String> removed) throws CardException {
+        List<CardTerminal> attached = cardTerminals.list();
+        List<String> names = names(attached);
+
+        for (CardTerminal cardTerminal : attached) {
+            PcscReaderRegistry.Entry entry = registry.resolve(cardTerminal);
+            if (entry == null)
+                continue;
+
+            boolean cardPresent = cardTerminal.isCardPresent();
+            Boolean wasPresent = present.put(cardTerminal.getName(), cardPresent);
+            boolean swapped = cardPresent && Boolean.TRUE.equals(wasPresent) && removed.contains(cardTerminal.getName());
+
+            if (swapped) {
+                dispatch(entry, PcscCardEvent.CARD_ABSENT);
+                dispatch(entry, PcscCardEvent.CARD_PRESENT);
+            } else if (wasPresent == null ? cardPresent : wasPresent != cardPresent) {
+                dispatch(entry, cardPresent ? PcscCardEvent.CARD_PRESENT : PcscCardEvent.CARD_ABSENT);
+            }
+        }
+
+        for (String name : new ArrayList<>(present.keySet())) {
+            if (names.contains(name))
+                continue;
+            PcscReaderRegistry.Entry entry = registry.resolveBound(name);
+            if (Boolean.TRUE.equals(present.remove(name)) && entry != null)
+                dispatch(entry, PcscCardEvent.CARD_ABSENT);
+        }
+        registry.retain(names);
+    }
+
+    private static List<String> names(List<CardTerminal> cardTerminals) {
+        List<String> names = new ArrayList<>(cardTerminals.size());
+        for (CardTerminal cardTerminal : cardTerminals)
+            names.add(cardTerminal.getName());
+        return names;
+    }
+
+    private void dispatch(PcscReaderRegistry.Entry entry, PcscCardEvent cardEvent) {
+        PcscAbstractReader reader = entry.getReader();
+        log.debug("{} on {}", cardEvent, reader.getName());
+
+        try {
+            if (cardEvent == PcscCardEvent.CARD_PRESENT)
+                reader.connectToCard();
+            else
+                reader.disconnectFromCard();
+        } catch (Exception e) {
+            log.warn("Reader {} {} failed: {}", reader.getName(), cardEvent, e.getMessage());
+        }
+
+        try {
+            entry.getListener().onCardEvent(cardEvent);
+        } catch (Exception e) {
+            log.warn("Reader {} listener error: {}", reader.getName(), e.getMessage());
+        }
+    }
+
+    private boolean sleep() {
+        try {
+            Thread.sleep(pollTimeout);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.idear.devices.card.cardkit.pcsc;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import javax.smartcardio.CardTerminal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+/**
+ * Readers watched by a {@link PcscMonitor}, each one with the precompiled pattern of its name
+ * ({@link PcscAbstractReader#getName()}) and its event listener.
+ *
+ * <p>
+ * The terminal names are matched once, when a terminal is seen for the first time, the reader of
+ * a terminal is then found by name without any regex evaluation.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+public class PcscReaderRegistry {
+
+    private final List<Entry> entries = new CopyOnWriteArrayList<>();
+
+    /** Entry of every terminal already bound to a reader, by terminal name */
+    private final Map<String, Entry> byTerminalName = new ConcurrentHashMap<>();
+
+    /** Terminal names matched by no reader */
+    private final Set<String> unmatched = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Registers a reader, it is bound to the first free terminal whose name matches the reader name when the terminal is seen.
+     *
+     * @param reader   the reader
+     * @param listener listener of the card events of the reader
+     */
+    public void register(PcscAbstractReader reader, PcscReaderEventListener listener) {
+        if (reader == null || listener == null)
+            throw new IllegalArgumentException("Null reader or listener");
+
+        entries.add(new Entry(reader, PcscUtil.pattern(reader.getName()), listener));
+        unmatched.clear();
+    }
+
+    /**
+     * Removes a reader.
+     *
+     * @param reader the reader
+     */
+    public void unregister(PcscAbstractReader reader) {
+        entries.removeIf(entry -> entry.getReader() == reader);
+        byTerminalName.values().removeIf(entry -> entry.getReader() == reader);
+    }
+
+    /**
+     * Finds the reader bound to a terminal, binding the terminal to the first free reader whose pattern
+     * matches its name if it is seen for the first time.
+     *
+     * @param cardTerminal the terminal
+     * @return the entry of the reader, or {@code null} if no reader is registered for the terminal
+     */
+    public Entry resolve(CardTerminal cardTerminal) {
+        String terminalName = cardTerminal.getName();
+        Entry entry = byTerminalName.get(terminalName);
+        if (entry != null || unmatched.contains(terminalName))
+            return entry;
+
+        synchronized (this) {
+            entry = byTerminalName.get(terminalName);
+            if (entry != null)
+                return entry;
+
+            for (Entry candidate : entries)
+                if (!byTerminalName.containsValue(candidate) && candidate.getPattern().matcher(terminalName).matches()) {
+                    candidate.getReader().setCardTerminal(cardTerminal);
+                    byTerminalName.put(terminalName, candidate);
+                    return candidate;
+                }
+            unmatched.add(terminalName);
+        }
+        return null;
+    }
+
+    /**
+     * @param terminalName name of a terminal
+     * @return the entry of the reader bound to the terminal, or {@code null} if the terminal is not bound
+     */
+    public Entry resolveBound(String terminalName) {
+        return byTerminalName.get(terminalName);
+    }
+
+    /**
+     * Forgets the terminals no longer attached, their readers can be bound to another terminal.
+     *
+     * @param attached the names of the terminals attached
+     */
+    public void retain(List<String> attached) {
+        byTerminalName.keySet().retainAll(attached);
+        unmatched.retainAll(attached);
+    }
+
+    /**
+     * @return the readers registered
+     */
+    public List<PcscAbstractReader> getReaders() {
+        List<PcscAbstractReader> readers = new ArrayList<>(entries.size());
+        for (Entry entry : entries)
+            readers.add(entry.getReader());
+        return Collections.unmodifiableList(readers);
+    }
+
+    /**
+     * @return number of readers registered
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * A registered reader.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Entry {
+        private final PcscAbstractReader reader;
+        private final Pattern pattern;
+        private final PcscReaderEventListener listener;
+    }
+}
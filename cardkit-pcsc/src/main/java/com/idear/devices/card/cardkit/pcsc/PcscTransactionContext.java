@@ -0,0 +1,17 @@
+package com.idear.devices.card.cardkit.pcsc;
+
+import com.idear.devices.card.cardkit.core.io.transaction.AbstractTransactionContext;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Context of the transactions executed on a {@link PcscAbstractReader}.
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@Builder
+@Getter
+public class PcscTransactionContext extends AbstractTransactionContext {
+    private final PcscAbstractReader reader;
+}
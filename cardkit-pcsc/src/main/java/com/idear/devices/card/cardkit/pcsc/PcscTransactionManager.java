@@ -1,16 +1,472 @@
 package com.idear.devices.card.cardkit.pcsc;
 
+import com.idear.devices.card.cardkit.core.exception.CardException;
+import com.idear.devices.card.cardkit.core.exception.SamException;
+import com.idear.devices.card.cardkit.core.utils.ByteUtils;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Calypso secure session engine working directly on the card and SAM channels of two
+ * {@link PcscAbstractReader}, a lightweight alternative to the Keyple backend.
+ *
+ * <p>
+ * Card revision 3 in compatible mode (4 bytes challenges and signatures) with a SAM C1 is supported:
+ * </p>
+ * <ul>
+ *     <li>card: Open Secure Session, Read Record, Update Record, Append Record, SV Get, SV Reload,
+ *     SV Debit and Close Secure Session,</li>
+ *     <li>SAM: Select Diversifier, Get Challenge, Digest Init, Digest Update, Digest Close,
+ *     Digest Authenticate, SV Prepare Load, SV Prepare Debit and SV Check.</li>
+ * </ul>
+ *
+ * <p>
+ * The card commands are prepared as raw APDUs and sent together by {@link #processCommands()}. Inside a
+ * secure session the commands and the responses are kept for the SAM digest, which is only sent to the
+ * SAM, Digest Init followed by the Digest Updates, before an SV operation and at the closing, so most
+ * of the session runs without any SAM exchange.
+ * </p>
+ *
+ * <p>
+ * Instances are bound to one card presentation and are not thread-safe.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@Slf4j
+@Getter
 public class PcscTransactionManager {
+
+    public static final byte KEY_PERSONALIZATION = 0x01;
+    public static final byte KEY_LOAD = 0x02;
+    public static final byte KEY_DEBIT = 0x03;
+
+    public static final byte SV_RELOAD = 0x07;
+    public static final byte SV_DEBIT = 0x09;
+
+    /** Default KIF of the session keys by key index, used when the card does not return one */
+    private static final byte[] DEFAULT_KIF = {0x00, 0x21, 0x27, 0x30};
+    private static final byte KIF_UNDEFINED = (byte) 0xFF;
+    private static final int SIGNATURE_LENGTH = 4;
+    private static final int SERIAL_TAG = 0xC7;
+
     private PcscAbstractReader cardReader;
     private PcscAbstractReader samReader;
 
+    /** Class byte of the card commands */
+    @Setter
+    private byte cardClass = 0x00;
+
+    /** Class byte of the SAM commands, {@code 0x80} for a SAM C1, {@code 0x94} for a legacy SAM */
+    @Setter
+    private byte samClass = (byte) 0x80;
+
+    /** Application serial number of the card, used as SAM diversifier */
+    @Setter
+    private byte[] cardSerial;
+
+    private boolean sessionOpen;
+    private byte kif;
+    private byte kvc;
+    private int transactionCounter;
+
+    /** Record read by the Open Secure Session, {@code null} if none */
+    private byte[] openRecord;
+
+    private byte[] svGetCommand;
+    private byte[] svGetResponse;
+    private int svBalance;
+    private int svTransactionNumber;
+    private boolean svOperation;
+
+    /** Card commands prepared, sent by {@link #processCommands()} */
+    @Getter(AccessLevel.NONE)
+    private final List<byte[]> commands = new ArrayList<>();
+
+    /** Open Secure Session response data, not sent to the SAM yet */
+    @Getter(AccessLevel.NONE)
+    private byte[] digestInit;
+
+    /** Commands and responses of the session, not sent to the SAM yet */
+    @Getter(AccessLevel.NONE)
+    private final List<byte[]> digest = new ArrayList<>();
+
     public PcscTransactionManager prepareTransactionManager(PcscAbstractReader cardReader, PcscAbstractReader samReader) throws Exception {
         this.cardReader = cardReader;
         this.samReader = samReader;
+        this.commands.clear();
+        this.digest.clear();
+        this.digestInit = null;
+        this.sessionOpen = false;
+        this.svOperation = false;
         return this;
     }
 
+    /**
+     * Selects the application and keeps the serial number of the FCI (tag {@code C7}) as SAM diversifier.
+     *
+     * @param aid the application identifier
+     * @return the FCI
+     */
+    public byte[] selectApplication(byte... aid) {
+        byte[] fci = data(transmit(cardReader, build(cardClass, 0xA4, 0x04, 0x00, aid, -1)));
+        for (int i = 0; i + 10 <= fci.length; i++)
+            if ((fci[i] & 0xff) == SERIAL_TAG && fci[i + 1] == 0x08) {
+                cardSerial = Arrays.copyOfRange(fci, i + 2, i + 10);
+                break;
+            }
+        return fci;
+    }
+
+    /**
+     * Opens a secure session without reading a record.
+     *
+     * @param key the key index, {@link #KEY_PERSONALIZATION}, {@link #KEY_LOAD} or {@link #KEY_DEBIT}
+     * @return this manager
+     */
     public PcscTransactionManager openSession(byte key) {
+        return openSession(key, (byte) 0, 0);
+    }
+
+    /**
+     * Opens a secure session, the pending commands are sent first out of the session.
+     * <p>
+     * The SAM diversifier is selected and a SAM challenge is requested, the Open Secure Session
+     * response is kept for the SAM Digest Init.
+     * </p>
+     *
+     * @param key          the key index, {@link #KEY_PERSONALIZATION}, {@link #KEY_LOAD} or {@link #KEY_DEBIT}
+     * @param sfi          file of the record read at the opening, {@code 0} for none
+     * @param recordNumber record read at the opening, {@code 0} for none
+     * @return this manager
+     */
+    public PcscTransactionManager openSession(byte key, byte sfi, int recordNumber) {
+        if (sessionOpen)
+            throw new IllegalStateException("Secure session already open");
+        if (key < KEY_PERSONALIZATION || key > KEY_DEBIT)
+            throw new IllegalArgumentException("Invalid key index " + key);
+        if (cardSerial == null)
+            throw new IllegalStateException("Card serial unknown, select the application first");
+
+        processCommands();
+
+        transmit(samReader, build(samClass, 0x14, 0x00, 0x00, cardSerial, -1));
+        byte[] samChallenge = data(transmit(samReader, build(samClass, 0x84, 0x00, 0x00, null, SIGNATURE_LENGTH)));
+
+        byte[] response = data(transmit(cardReader, build(
+                cardClass, 0x8A, (recordNumber * 8) + key, (sfi * 8) + 1, samChallenge, 0)));
+        if (response.length < 8)
+            throw new CardException("Invalid open secure session response %s", ByteUtils.toHex(response));
+
+        transactionCounter = ByteUtils.extractInt(response, 0, 3, false);
+        kif = response[5] == KIF_UNDEFINED ? DEFAULT_KIF[key] : response[5];
+        kvc = response[6];
+        int length = response[7] & 0xff;
+        openRecord = length > 0 ? Arrays.copyOfRange(response, 8, 8 + length) : null;
+
+        digestInit = response;
+        digest.clear();
+        sessionOpen = true;
+        svOperation = false;
+        log.debug("Secure session open, key {} KIF {} KVC {} counter {}", key, kif, kvc, transactionCounter);
         return this;
     }
+
+    public PcscTransactionManager prepareReadRecord(byte sfi, int recordNumber) {
+        return prepare(build(cardClass, 0xB2, recordNumber, (sfi * 8) + 4, null, 0));
+    }
+
+    public PcscTransactionManager prepareUpdateRecord(byte sfi, int recordNumber, byte[] data) {
+        return prepare(build(cardClass, 0xDC, recordNumber, (sfi * 8) + 4, data, -1));
+    }
+
+    public PcscTransactionManager prepareAppendRecord(byte sfi, byte[] data) {
+        return prepare(build(cardClass, 0xE2, 0x00, sfi * 8, data, -1));
+    }
+
+    private PcscTransactionManager prepare(byte[] command) {
+        commands.add(command);
+        return this;
+    }
+
+    /**
+     * Sends the prepared card commands, inside a secure session they are kept with their
+     * responses for the SAM digest.
+     *
+     * @return the responses, data followed by SW1 SW2, in the order of the commands
+     */
+    public List<byte[]> processCommands() {
+        List<byte[]> responses = new ArrayList<>(commands.size());
+        for (byte[] command : commands) {
+            byte[] response = transmit(cardReader, command);
+            if (sessionOpen) {
+                digest.add(command);
+                digest.add(response);
+            }
+            responses.add(response);
+        }
+        commands.clear();
+        return responses;
+    }
+
+    /**
+     * Reads the stored value, the pending commands are sent first.
+     *
+     * @param operation {@link #SV_RELOAD} or {@link #SV_DEBIT}, the operation that follows
+     * @return the balance
+     */
+    public int svGet(byte operation) {
+        if (operation != SV_RELOAD && operation != SV_DEBIT)
+            throw new IllegalArgumentException("Invalid SV operation " + operation);
+
+        processCommands();
+        svGetCommand = build(cardClass, 0x7C, 0x00, operation, null, 0);
+        svGetResponse = transmit(cardReader, svGetCommand);
+        if (sessionOpen) {
+            digest.add(svGetCommand);
+            digest.add(svGetResponse);
+        }
+
+        byte[] data = data(svGetResponse);
+        svTransactionNumber = ByteUtils.extractInt(data, 1, 2, false);
+        svBalance = ByteUtils.extractInt(data, 8, 3, true);
+        return svBalance;
+    }
+
+    /**
+     * Reloads the stored value, {@link #svGet(byte)} with {@link #SV_RELOAD} must be done before.
+     *
+     * @param amount the amount, signed on 3 bytes
+     * @param date   the date, 2 bytes
+     * @param time   the time, 2 bytes
+     * @param free   free bytes of the load log, 2 bytes
+     * @return this manager
+     */
+    public PcscTransactionManager svReload(int amount, byte[] date, byte[] time, byte[] free) {
+        byte[] data = new byte[10];
+        data[0] = date[0];
+        data[1] = date[1];
+        data[2] = free[0];
+        data[3] = svKvc();
+        data[4] = free[1];
+        data[5] = (byte) (amount >> 16);
+        data[6] = (byte) (amount >> 8);
+        data[7] = (byte) amount;
+        data[8] = time[0];
+        data[9] = time[1];
+        return svOperation(0xB8, 0x56, data);
+    }
+
+    /**
+     * Debits the stored value, {@link #svGet(byte)} with {@link #SV_DEBIT} must be done before.
+     *
+     * @param amount the positive amount debited, on 2 bytes
+     * @param date   the date, 2 bytes
+     * @param time   the time, 2 bytes
+     * @return this manager
+     */
+    public PcscTransactionManager svDebit(int amount, byte[] date, byte[] time) {
+        if (amount < 0 || amount > 0x7FFF)
+            throw new IllegalArgumentException("Invalid debit amount " + amount);
+
+        int value = -amount;
+        byte[] data = new byte[7];
+        data[0] = (byte) (value >> 8);
+        data[1] = (byte) value;
+        data[2] = date[0];
+        data[3] = date[1];
+        data[4] = time[0];
+        data[5] = time[1];
+        data[6] = svKvc();
+        return svOperation(0xBA, 0x54, data);
+    }
+
+    private byte svKvc() {
+        if (svGetResponse == null)
+            throw new IllegalStateException("SV Get required before an SV operation");
+        return svGetResponse[0];
+    }
+
+    /**
+     * Builds an SV command with the complementary data of the SAM.
+     * <p>
+     * The SAM receives the SV Get command header, the SV Get response and the SV command without its
+     * SAM part, it returns the SAM id (4), P1 P2 and the first data byte of the command (3), the SAM
+     * transaction number (3) and the signature (5).
+     * </p>
+     */
+    private PcscTransactionManager svOperation(int cardIns, int samIns, byte[] data) {
+        if (svOperation)
+            throw new IllegalStateException("One SV operation per session");
+
+        int lc = 1 + data.length + 12;
+        byte[] partial = new byte[5 + data.length];
+        partial[0] = cardClass;
+        partial[1] = (byte) cardIns;
+        partial[4] = (byte) lc;
+        System.arraycopy(data, 0, partial, 5, data.length);
+
+        byte[] prepare = new byte[4 + svGetResponse.length + partial.length];
+        System.arraycopy(svGetCommand, 0, prepare, 0, 4);
+        System.arraycopy(svGetResponse, 0, prepare, 4, svGetResponse.length);
+        System.arraycopy(partial, 0, prepare, 4 + svGetResponse.length, partial.length);
+
+        // out of session the diversifier was not selected by the opening
+        if (sessionOpen)
+            flushDigest();
+        else
+            transmit(samReader, build(samClass, 0x14, 0x00, 0x00, cardSerial, -1));
+        byte[] complement = data(transmit(samReader, build(samClass, samIns, 0x01, 0xFF, prepare, 0)));
+        if (complement.length < 15)
+            throw new SamException("Invalid SV complementary data %s", ByteUtils.toHex(complement));
+
+        byte[] command = new byte[5 + lc];
+        command[0] = cardClass;
+        command[1] = (byte) cardIns;
+        command[2] = complement[4];
+        command[3] = complement[5];
+        command[4] = (byte) lc;
+        command[5] = complement[6];
+        System.arraycopy(data, 0, command, 6, data.length);
+        System.arraycopy(complement, 0, command, 6 + data.length, 4);
+        System.arraycopy(complement, 7, command, 10 + data.length, 8);
+
+        svOperation = true;
+        if (sessionOpen)
+            return prepare(command);
+
+        // out of session the card returns the SV signature checked by the SAM at once
+        svCheck(data(transmit(cardReader, command)));
+        return this;
+    }
+
+    private void svCheck(byte[] svSignature) {
+        transmit(samReader, build(samClass, 0x58, 0x00, 0x00, svSignature, -1));
+    }
+
+    /**
+     * Sends the session digest not yet sent to the SAM, Digest Init first.
+     */
+    private void flushDigest() {
+        if (!sessionOpen)
+            return;
+
+        if (digestInit != null) {
+            byte[] data = new byte[2 + digestInit.length];
+            data[0] = kif;
+            data[1] = kvc;
+            System.arraycopy(digestInit, 0, data, 2, digestInit.length);
+            transmit(samReader, build(samClass, 0x8A, 0x00, 0xFF, data, -1));
+            digestInit = null;
+        }
+
+        for (byte[] entry : digest)
+            transmit(samReader, build(samClass, 0x8C, 0x00, 0x00, entry, -1));
+        digest.clear();
+    }
+
+    /**
+     * Closes the secure session, the modifications are committed by the card.
+     * <p>
+     * The pending commands are sent, then the digest, the SAM signature is sent to the card and the
+     * card signature is authenticated by the SAM. After an SV operation the SV signature returned
+     * by the card is checked by the SAM.
+     * </p>
+     *
+     * @param ratificationAsked {@code true} to ask the ratification of the session
+     * @return this manager
+     */
+    public PcscTransactionManager closeSession(boolean ratificationAsked) {
+        if (!sessionOpen)
+            throw new IllegalStateException("No secure session open");
+
+        processCommands();
+        flushDigest();
+        byte[] samSignature = data(transmit(samReader, build(samClass, 0x8E, 0x00, 0x00, null, SIGNATURE_LENGTH)));
+
+        sessionOpen = false;
+        byte[] response = data(transmit(cardReader, build(
+                cardClass, 0x8E, ratificationAsked ? 0x80 : 0x00, 0x00, samSignature, 0)));
+        if (response.length < SIGNATURE_LENGTH)
+            throw new CardException("Invalid close secure session response %s", ByteUtils.toHex(response));
+
+        byte[] cardSignature = Arrays.copyOfRange(response, response.length - SIGNATURE_LENGTH, response.length);
+        transmit(samReader, build(samClass, 0x82, 0x00, 0x00, cardSignature, -1));
+
+        if (svOperation && response.length > SIGNATURE_LENGTH) {
+            // postponed data: length followed by the SV signature
+            int length = response[0] & 0xff;
+            svCheck(Arrays.copyOfRange(response, 1, 1 + length));
+        }
+        svOperation = false;
+        log.debug("Secure session closed");
+        return this;
+    }
+
+    /**
+     * Cancels the secure session, the modifications are discarded by the card and the pending commands dropped.
+     */
+    public void cancelSession() {
+        commands.clear();
+        digest.clear();
+        digestInit = null;
+        if (!sessionOpen)
+            return;
+
+        sessionOpen = false;
+        svOperation = false;
+        transmit(cardReader, build(cardClass, 0x8E, 0x00, 0x00, null, 0));
+    }
+
+    /**
+     * Builds a command in a new array.
+     *
+     * @param data the data, {@code null} for none
+     * @param le   the expected length, {@code -1} for none
+     */
+    private static byte[] build(byte cla, int ins, int p1, int p2, byte[] data, int le) {
+        int dataLength = data != null ? data.length : 0;
+        byte[] command = new byte[4 + (dataLength > 0 ? 1 + dataLength : 0) + (le >= 0 ? 1 : 0)];
+        command[0] = cla;
+        command[1] = (byte) ins;
+        command[2] = (byte) p1;
+        command[3] = (byte) p2;
+        int offset = 4;
+        if (dataLength > 0) {
+            command[offset++] = (byte) dataLength;
+            System.arraycopy(data, 0, command, offset, dataLength);
+            offset += dataLength;
+        }
+        if (le >= 0)
+            command[offset] = (byte) le;
+        return command;
+    }
+
+    /**
+     * Sends a command through the reader buffers, the status word is checked.
+     *
+     * @return the response, data followed by SW1 SW2
+     */
+    private byte[] transmit(PcscAbstractReader reader, byte[] command) {
+        ByteBuffer response = reader.transmitChecked(command, 0, command.length);
+        byte[] bytes = new byte[response.remaining()];
+        response.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * @param response a response with its status word
+     * @return the data of the response
+     */
+    private static byte[] data(byte[] response) {
+        return Arrays.copyOf(response, Math.max(response.length - 2, 0));
+    }
 }
@@ -1,26 +1,41 @@
 package com.idear.devices.card.cardkit.pcsc;
 
-import com.idear.devices.card.cardkit.core.utils.ByteUtils;
-
 import javax.smartcardio.CardException;
 import javax.smartcardio.CardTerminal;
 import javax.smartcardio.CommandAPDU;
 import javax.smartcardio.TerminalFactory;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 public abstract class PcscUtil {
 
+    private static final Map<String, Pattern> PATTERNS = new ConcurrentHashMap<>();
+    private static final Map<String, ApduTemplate> HEADERS = new ConcurrentHashMap<>();
+
     public static List<CardTerminal> getCardTerminals() throws CardException {
         return TerminalFactory.getDefault().terminals().list();
     }
 
+    /**
+     * Compiled pattern of a reader name, compiled once per name.
+     *
+     * @param namePattern regular expression of the reader name
+     * @return the compiled pattern
+     */
+    public static Pattern pattern(String namePattern) {
+        return PATTERNS.computeIfAbsent(namePattern, Pattern::compile);
+    }
+
     public static CardTerminal getCardTerminalMatchingName(String namePattern) throws CardException {
         List<CardTerminal> cardTerminals = TerminalFactory.getDefault().terminals().list();
         if (cardTerminals.isEmpty())
             throw new RuntimeException("no readers available");
 
+        Pattern pattern = pattern(namePattern);
         for (CardTerminal cardTerminal : cardTerminals)
-            if (cardTerminal.getName().matches(namePattern))
+            if (pattern.matcher(cardTerminal.getName()).matches())
                 return cardTerminal;
 
         throw new RuntimeException(cardTerminals.size() + " card readers found, none matched the pattern");
@@ -30,21 +45,15 @@ public abstract class PcscUtil {
         return new CommandAPDU(bytes);
     }
 
+    /**
+     * Builds {@code CLA INS P1 P2 Lc data 00}, the header is parsed once per header.
+     *
+     * @param header the header {@code CLA INS P1 P2} in hex
+     * @param data   the data of the command
+     * @return the command
+     */
     public static CommandAPDU buildCommand(String header, byte... data) {
-        byte[] headerBytes = ByteUtils.hexToBytes(header);
-
-        byte[] apdu = new byte[5 + data.length + 1];
-        apdu[0] = headerBytes[0];   // CLA
-        apdu[1] = headerBytes[1];   // INS
-        apdu[2] = headerBytes[2];   // P1
-        apdu[3] = headerBytes[3];  // P2
-        apdu[4] = (byte) data.length; // Lc
-
-        System.arraycopy(data, 0, apdu, 5, data.length);
-
-        apdu[5 + data.length] = 0x00;
-
-        return new CommandAPDU(apdu);
+        return new CommandAPDU(HEADERS.computeIfAbsent(header, h -> ApduTemplate.withData(h, true)).toBytes(data));
     }
 
 }
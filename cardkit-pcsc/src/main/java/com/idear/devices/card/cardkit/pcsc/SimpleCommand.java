@@ -1,5 +1,6 @@
 package com.idear.devices.card.cardkit.pcsc;
 
+import com.idear.devices.card.cardkit.core.io.apdu.ResponseApdu;
 import com.idear.devices.card.cardkit.core.io.transaction.AbstractTransaction;
 import com.idear.devices.card.cardkit.core.io.transaction.TransactionResult;
 import com.idear.devices.card.cardkit.core.io.transaction.TransactionStatus;
@@ -8,17 +9,17 @@ import javax.smartcardio.CardException;
 import javax.smartcardio.CommandAPDU;
 import javax.smartcardio.ResponseAPDU;
 
-public class SimpleCommand extends AbstractTransaction<ResponseAPDU, PcscAbstractReader> {
+public class SimpleCommand extends AbstractTransaction<ResponseApdu, PcscTransactionContext> {
 
     private final CommandAPDU commandAPDU;
 
     public SimpleCommand(CommandAPDU commandAPDU) {
-        super("SIMPLE_COMMAND");
         this.commandAPDU = commandAPDU;
     }
 
     @Override
-    public TransactionResult<ResponseAPDU> execute(PcscAbstractReader reader) {
+    public TransactionResult<ResponseApdu> execute(PcscTransactionContext context) {
+        PcscAbstractReader reader = context.getReader();
         reader.connectToCard();
         ResponseAPDU responseAPDU;
         try {
@@ -26,9 +27,9 @@ public class SimpleCommand extends AbstractTransaction<ResponseAPDU, PcscAbstrac
         } catch (CardException e) {
             throw new com.idear.devices.card.cardkit.core.exception.CardException(e.getMessage());
         }
-        return TransactionResult.<ResponseAPDU>builder()
+        return TransactionResult.<ResponseApdu>builder()
                 .transactionStatus(TransactionStatus.OK)
-                .data(responseAPDU)
+                .data(new ResponseApdu(responseAPDU.getBytes()))
                 .build();
     }
 
@@ -1,14 +1,14 @@
 package com.idear.devices.card.cardkit.pcsc.transaction;
 
-import com.idear.devices.card.cardkit.core.utils.ByteUtils;
+import com.idear.devices.card.cardkit.pcsc.ApduTemplate;
 import com.idear.devices.card.cardkit.pcsc.PcscAbstractReader;
-import com.idear.devices.card.cardkit.pcsc.PcscUtil;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 
-import javax.smartcardio.CommandAPDU;
 import javax.smartcardio.ResponseAPDU;
+import java.nio.ByteBuffer;
 
 @RequiredArgsConstructor
 @Getter
@@ -37,69 +37,88 @@ public class FreeCalypsoTransactionManager {
     public static final String CARD_SELECT_APPLICATION = "00A4 0400";
     public static final String GET_CHALLENGE = "0084 0000 08";
     public static final String CHANGE_KEY = "00D8 0001 20";
+    /** {@link #CHANGE_KEY} without Lc, the length is set from the ciphered key */
+    public static final String CHANGE_KEY_HEADER = "00D8 0001";
+
+    // Templates parsed once from the commands above
+    private static final ApduTemplate SAM_UNLOCK_APP_TEMPLATE = ApduTemplate.withData(SAM_UNLOCK_APP, true);
+    private static final ApduTemplate CARD_GENERATE_KEY_APP_TEMPLATE = ApduTemplate.command(CARD_GENERATE_KEY_APP);
+    private static final ApduTemplate SELECT_DIVERSIFIER_APP_TEMPLATE = ApduTemplate.withData(SELECT_DIVERSIFIER_APP, true);
+    private static final ApduTemplate GIVE_RANDOM_APP_TEMPLATE = ApduTemplate.withData(GIVE_RANDOM_APP, true);
+
+    private static final ApduTemplate SAM_UNLOCK_LEGACY_TEMPLATE = ApduTemplate.withData(SAM_UNLOCK_LEGACY, true);
+    private static final ApduTemplate CARD_GENERATE_KEY_LEGACY_TEMPLATE = ApduTemplate.command(CARD_GENERATE_KEY_LEGACY);
+    private static final ApduTemplate SELECT_DIVERSIFIER_LEGACY_TEMPLATE = ApduTemplate.withData(SELECT_DIVERSIFIER_LEGACY, true);
+    private static final ApduTemplate GIVE_RANDOM_LEGACY_TEMPLATE = ApduTemplate.withData(GIVE_RANDOM_LEGACY, true);
+
+    private static final ApduTemplate SELECT_SAM_KEY_TEMPLATE = ApduTemplate.command("9484 0000");
+    private static final ApduTemplate CARD_SELECT_APPLICATION_TEMPLATE = ApduTemplate.withData(CARD_SELECT_APPLICATION, false);
+    private static final ApduTemplate GET_CHALLENGE_TEMPLATE = ApduTemplate.command(GET_CHALLENGE);
+    private static final ApduTemplate CHANGE_KEY_TEMPLATE = ApduTemplate.withData(CHANGE_KEY_HEADER, false);
 
     private final PcscAbstractReader cardReader;
     private final PcscAbstractReader samReader;
 
+    /** Command buffer reused by every command of the manager, not thread-safe */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final byte[] apdu = new byte[PcscAbstractReader.MAX_COMMAND_LENGTH];
+
     public ResponseAPDU unlockSam(byte... lockSecret) {
-        return samReader.simpleCommand(
-                PcscUtil.buildCommand(
-                        prePersonalizationMode.equals(PrePersonalizationMode.LEGACY) ?
-                                SAM_UNLOCK_LEGACY : SAM_UNLOCK_APP,
-                        lockSecret
-                )
-        );
+        ApduTemplate template = isLegacy() ? SAM_UNLOCK_LEGACY_TEMPLATE : SAM_UNLOCK_APP_TEMPLATE;
+        return transmit(samReader, template.fill(apdu, lockSecret));
     }
 
     public ResponseAPDU selectSamKey(byte KIF, byte KVC) {
-        return samReader.simpleCommand(new CommandAPDU(
-                0x94, 0x84, 0x00, 0x00
-        ));
+        return transmit(samReader, SELECT_SAM_KEY_TEMPLATE.fill(apdu));
     }
 
     public ResponseAPDU selectApplication(byte... aid) {
-        return cardReader.simpleCommand(new CommandAPDU(
-                0x00, 0xA4, 0x04, 0x00,
-                aid
-        ));
+        return transmit(cardReader, CARD_SELECT_APPLICATION_TEMPLATE.fill(apdu, aid));
     }
 
     public ResponseAPDU selectDiversifier(byte... applicationSerialNumber) {
-        return samReader.simpleCommand(
-                PcscUtil.buildCommand(
-                        prePersonalizationMode.equals(PrePersonalizationMode.LEGACY) ?
-                                SELECT_DIVERSIFIER_LEGACY : SELECT_DIVERSIFIER_APP,
-                        applicationSerialNumber
-                )
-        );
+        ApduTemplate template = isLegacy() ? SELECT_DIVERSIFIER_LEGACY_TEMPLATE : SELECT_DIVERSIFIER_APP_TEMPLATE;
+        return transmit(samReader, template.fill(apdu, applicationSerialNumber));
     }
 
     public ResponseAPDU getChallenge() {
-        return cardReader.simpleCommand(new CommandAPDU(
-                0x00, 0x84, 0x00, 0x00, 0x08
-        ));
+        return transmit(cardReader, GET_CHALLENGE_TEMPLATE.fill(apdu));
     }
 
     public ResponseAPDU giveRandom(byte... challengeCard) {
-        return samReader.simpleCommand(
-                PcscUtil.buildCommand(
-                        prePersonalizationMode.equals(PrePersonalizationMode.LEGACY) ?
-                                GIVE_RANDOM_LEGACY : GIVE_RANDOM_APP,
-                        challengeCard
-                )
-        );
+        ApduTemplate template = isLegacy() ? GIVE_RANDOM_LEGACY_TEMPLATE : GIVE_RANDOM_APP_TEMPLATE;
+        return transmit(samReader, template.fill(apdu, challengeCard));
     }
 
     public ResponseAPDU samGenerateKey(byte cipheringKIF, byte cipheringKVC, byte transferKIF, byte transferKVC) {
-        String command = prePersonalizationMode.equals(PrePersonalizationMode.LEGACY) ?
-                CARD_GENERATE_KEY_LEGACY : CARD_GENERATE_KEY_APP;
+        ApduTemplate template = isLegacy() ? CARD_GENERATE_KEY_LEGACY_TEMPLATE : CARD_GENERATE_KEY_APP_TEMPLATE;
+        return transmit(samReader, template.fill(apdu, cipheringKIF, cipheringKVC));
+    }
+
+    /**
+     * Sends the ciphered key generated by {@link #samGenerateKey(byte, byte, byte, byte)} to the card.
+     *
+     * @param cipheredKey the response data of the key generation
+     * @return the card response
+     */
+    public ResponseAPDU changeKey(byte... cipheredKey) {
+        return transmit(cardReader, CHANGE_KEY_TEMPLATE.fill(apdu, cipheredKey));
+    }
 
-        command = String.format(command,
-                ByteUtils.toHex(cipheringKIF), ByteUtils.toHex(cipheringKVC));
+    private boolean isLegacy() {
+        return prePersonalizationMode == PrePersonalizationMode.LEGACY;
+    }
 
-        return samReader.simpleCommand(new CommandAPDU(
-                ByteUtils.hexToBytes(command)
-        ));
+    /**
+     * Sends the command filled in the buffer, the status word is checked on the response buffer
+     * of the reader and only the successful response is copied.
+     */
+    private ResponseAPDU transmit(PcscAbstractReader reader, int length) {
+        ByteBuffer response = reader.transmitChecked(apdu, 0, length);
+        byte[] bytes = new byte[response.remaining()];
+        response.get(bytes);
+        return new ResponseAPDU(bytes);
     }
 
 }
@@ -0,0 +1,201 @@
+import com.idear.devices.card.cardkit.core.utils.ByteUtils;
+import com.idear.devices.card.cardkit.pcsc.PcscAbstractReader;
+import com.idear.devices.card.cardkit.pcsc.PcscTransactionManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.smartcardio.Card;
+import javax.smartcardio.CardChannel;
+import javax.smartcardio.CommandAPDU;
+import javax.smartcardio.ResponseAPDU;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Known-answer tests of the APDUs sent by {@link PcscTransactionManager}, every card and SAM
+ * exchange is checked in order against a script.
+ */
+public class PcscTransactionManagerTest {
+
+    private static final String CARD = "card";
+    private static final String SAM = "sam";
+    private static final String SERIAL = "0000000012345678";
+    private static final byte[] DATE = {0x12, 0x34};
+    private static final byte[] TIME = {0x05, 0x06};
+
+    private Script script;
+    private PcscTransactionManager transactionManager;
+
+    @BeforeEach
+    public void init() throws Exception {
+        script = new Script();
+        transactionManager = new PcscTransactionManager()
+                .prepareTransactionManager(reader(CARD), reader(SAM));
+        transactionManager.setCardSerial(ByteUtils.hexToBytes(SERIAL));
+    }
+
+    private PcscAbstractReader reader(String name) {
+        PcscAbstractReader reader = new PcscAbstractReader(name);
+        reader.setCardChannel(new ScriptedChannel(name, script));
+        return reader;
+    }
+
+    private void open(String openCommand, String openResponse) {
+        script.expect(SAM, "8014 0000 08 " + SERIAL, "9000")                  // Select Diversifier
+                .expect(SAM, "8084 0000 04", "11223344 9000")                  // Get Challenge
+                .expect(CARD, openCommand, openResponse);                      // Open Secure Session
+    }
+
+    @Test
+    public void sessionWithUpdate() {
+        open("008A 0B39 04 11223344 00", "0000052A00 30 79 02 1122 9000");
+        transactionManager.openSession(PcscTransactionManager.KEY_DEBIT, (byte) 0x07, 1);
+
+        assertEquals(5, transactionManager.getTransactionCounter());
+        assertEquals(0x30, transactionManager.getKif());
+        assertEquals(0x79, transactionManager.getKvc());
+        assertArrayEquals(ByteUtils.hexToBytes("1122"), transactionManager.getOpenRecord());
+
+        script.expect(CARD, "00DC 0144 02 0102", "9000")                       // Update Record
+                .expect(SAM, "808A 00FF 0C 3079 0000052A0030790211 22", "9000")  // Digest Init
+                .expect(SAM, "808C 0000 07 00DC0144020102", "9000")            // Digest Update
+                .expect(SAM, "808C 0000 02 9000", "9000")
+                .expect(SAM, "808E 0000 04", "AABBCCDD 9000")                  // Digest Close
+                .expect(CARD, "008E 8000 04 AABBCCDD 00", "01020304 9000")     // Close Secure Session
+                .expect(SAM, "8082 0000 04 01020304", "9000");                 // Digest Authenticate
+        transactionManager
+                .prepareUpdateRecord((byte) 0x08, 1, ByteUtils.hexToBytes("0102"))
+                .closeSession(true);
+
+        assertFalse(transactionManager.isSessionOpen());
+        script.assertDone();
+    }
+
+    @Test
+    public void svReloadInSession() {
+        open("008A 0201 04 11223344 00", "0000052A00 30 79 00 9000");
+        transactionManager.openSession(PcscTransactionManager.KEY_LOAD);
+
+        script.expect(CARD, "007C 0007 00", "79 0012 0000000000 000064 9000");   // SV Get
+        assertEquals(100, transactionManager.svGet(PcscTransactionManager.SV_RELOAD));
+
+        script.expect(SAM, "808A 00FF 0A 3079 0000052A00307900", "9000")
+                .expect(SAM, "808C 0000 05 007C000700", "9000")
+                .expect(SAM, "808C 0000 0D 7900120000000000000064 9000", "9000")
+                .expect(SAM, "8056 01FF 20 007C0007 7900120000000000000064 9000 "  // SV Prepare Load
+                                + "00B8000017 1234007900000032 0506 00",
+                        "AABBCCDD 010203 000001 1122334455 9000");
+        transactionManager.svReload(50, DATE, TIME, new byte[2]);
+
+        String svReload = "00B8 0102 17 03 1234007900000032 0506 AABBCCDD 000001 1122334455";
+        script.expect(CARD, svReload, "9000")                                   // SV Reload
+                .expect(SAM, "808C 0000 1C " + svReload, "9000")
+                .expect(SAM, "808C 0000 02 9000", "9000")
+                .expect(SAM, "808E 0000 04", "55667788 9000")
+                .expect(CARD, "008E 0000 04 55667788 00", "03 A1A2A3 01020304 9000")
+                .expect(SAM, "8082 0000 04 01020304", "9000")
+                .expect(SAM, "8058 0000 03 A1A2A3", "9000");                   // SV Check, postponed data
+        transactionManager.closeSession(false);
+
+        script.assertDone();
+    }
+
+    @Test
+    public void svDebitOutOfSession() {
+        script.expect(CARD, "007C 0009 00", "79 0012 0000000000 000064 9000");
+        assertEquals(100, transactionManager.svGet(PcscTransactionManager.SV_DEBIT));
+
+        script.expect(SAM, "8014 0000 08 " + SERIAL, "9000")
+                .expect(SAM, "8054 01FF 1D 007C0009 7900120000000000000064 9000 "  // SV Prepare Debit
+                                + "00BA000014 FFEC1234050679 00",
+                        "AABBCCDD 010203 000002 1122334455 9000")
+                .expect(CARD, "00BA 0102 14 03 FFEC1234050679 AABBCCDD 000002 1122334455",
+                        "B1B2B3 9000")                                         // SV Debit
+                .expect(SAM, "8058 0000 03 B1B2B3", "9000");
+        transactionManager.svDebit(20, DATE, TIME);
+
+        script.assertDone();
+    }
+
+    @Test
+    public void sessionCanceled() {
+        open("008A 0101 04 11223344 00", "0000052A00 30 79 00 9000");
+        transactionManager.openSession(PcscTransactionManager.KEY_PERSONALIZATION);
+
+        // the prepared update is dropped, never sent
+        script.expect(CARD, "008E 0000 00", "9000");
+        transactionManager.prepareUpdateRecord((byte) 0x08, 1, ByteUtils.hexToBytes("0102"));
+        transactionManager.cancelSession();
+
+        assertFalse(transactionManager.isSessionOpen());
+        script.assertDone();
+    }
+
+    /**
+     * Expected exchanges of the card and SAM readers, in order.
+     */
+    private static class Script {
+        private final Deque<String[]> exchanges = new ArrayDeque<>();
+
+        Script expect(String reader, String command, String response) {
+            exchanges.add(new String[]{reader, normalize(command), normalize(response)});
+            return this;
+        }
+
+        byte[] exchange(String reader, byte[] command) {
+            String[] expected = exchanges.poll();
+            assertNotNull(expected, "Unexpected " + reader + " command " + ByteUtils.toHex(command));
+            assertEquals(expected[0] + " " + expected[1], reader + " " + ByteUtils.toHex(command));
+            return ByteUtils.hexToBytes(expected[2]);
+        }
+
+        void assertDone() {
+            assertTrue(exchanges.isEmpty(), exchanges.size() + " exchanges not done");
+        }
+
+        private static String normalize(String hex) {
+            return ByteUtils.toHex(ByteUtils.hexToBytes(hex));
+        }
+    }
+
+    private static class ScriptedChannel extends CardChannel {
+        private final String reader;
+        private final Script script;
+
+        ScriptedChannel(String reader, Script script) {
+            this.reader = reader;
+            this.script = script;
+        }
+
+        @Override
+        public Card getCard() {
+            return null;
+        }
+
+        @Override
+        public int getChannelNumber() {
+            return 0;
+        }
+
+        @Override
+        public ResponseAPDU transmit(CommandAPDU command) {
+            return new ResponseAPDU(script.exchange(reader, command.getBytes()));
+        }
+
+        @Override
+        public int transmit(ByteBuffer command, ByteBuffer response) {
+            byte[] bytes = new byte[command.remaining()];
+            command.get(bytes);
+            byte[] result = script.exchange(reader, bytes);
+            response.put(result);
+            return result.length;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.idear.devices.card.cardkit.simulator;
+
+/**
+ * Card or SAM answering command APDUs in memory.
+ *
+ * <p>
+ * The PC/SC backend reaches it through {@link SimulatedCardTerminal} and {@link SimulatedReader}, the
+ * Keyple backend through the readers of the
+ * {@link com.idear.devices.card.cardkit.simulator.keyple.SimulatedKeyplePluginFactory} plugin.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+public interface ApduProcessor {
+
+    /**
+     * Processes a command, errors are returned as status words.
+     *
+     * @param command the command APDU
+     * @return the response, data followed by SW1 SW2
+     */
+    byte[] process(byte[] command);
+
+    /**
+     * Answer to reset given to the reader when the card or SAM is presented.
+     *
+     * @return the ATR, by default a contactless card without historical bytes
+     */
+    default byte[] getAtr() {
+        return new byte[]{0x3B, (byte) 0x80, (byte) 0x80, 0x01, 0x01};
+    }
+
+}
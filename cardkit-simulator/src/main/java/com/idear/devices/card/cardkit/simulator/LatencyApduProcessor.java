@@ -0,0 +1,67 @@
+package com.idear.devices.card.cardkit.simulator;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simulated card or SAM answering after the time of a {@link LatencyModel}, one exchange per command
+ * as through a {@link SimulatedCardTerminal}.
+ *
+ * <p>
+ * The time is counted in {@link #getInjectedNanos()} and the thread is parked, unless {@link #setPause(boolean)}
+ * is disabled to add the time to the measures instead of waiting it.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@Getter
+public class LatencyApduProcessor implements ApduProcessor {
+
+    private final ApduProcessor processor;
+    private final LatencyModel model;
+
+    /** {@code true} to park the thread for the time of each exchange */
+    @Setter
+    private volatile boolean pause = true;
+
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong injectedNanos = new AtomicLong();
+
+    public LatencyApduProcessor(ApduProcessor processor, LatencyModel model) {
+        this.processor = processor;
+        this.model = model;
+    }
+
+    @Override
+    public byte[] process(byte[] command) {
+        byte[] response = processor.process(command);
+        long nanos = model.exchangeNanos(command, response.length);
+        injectedNanos.addAndGet(nanos);
+        if (pause)
+            LatencyModel.pause(nanos);
+        return response;
+    }
+
+    @Override
+    public byte[] getAtr() {
+        return processor.getAtr();
+    }
+
+    /**
+     * @return time of the exchanges since the creation or the last reset
+     */
+    public long getInjectedNanos() {
+        return injectedNanos.get();
+    }
+
+    /**
+     * @return time of the exchanges since the creation or the last reset, counter reset to {@code 0}
+     */
+    public long resetInjectedNanos() {
+        return injectedNanos.getAndSet(0);
+    }
+}
@@ -0,0 +1,239 @@
+package com.idear.devices.card.cardkit.simulator;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Time taken by the APDUs on a real reader, injected by {@link LatencyApduProcessor} and {@link LatencyReader}.
+ *
+ * <p>
+ * The time of one exchange between the host and the reader is the host round trip (PC/SC and USB),
+ * plus for each APDU of the exchange:
+ * </p>
+ * <ul>
+ *     <li>the frame overhead, start and end of frame, CRC and frame delay time,</li>
+ *     <li>the transfer of the command and the response bytes at the bit rate of the link,</li>
+ *     <li>the processing time of the card or the SAM, by instruction.</li>
+ * </ul>
+ *
+ * <p>
+ * {@link #iso14443Card()} and {@link #contactSam()} give orders of magnitude of a contactless card and
+ * a contact SAM, to be adjusted with measures of the target readers.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@Getter
+@ToString
+public class LatencyModel {
+
+    /** No latency */
+    public static final LatencyModel NONE = LatencyModel.builder().build();
+
+    /** Time of one exchange with the reader, whatever the number of APDUs */
+    private final long hostRoundTripNanos;
+
+    /** Bit rate of the link in bits per second, {@code 0} for no transfer time */
+    private final int bitRate;
+
+    /** Bits sent per byte, with start, stop, parity or guard bits */
+    private final int bitsPerByte;
+
+    /** Time added to every APDU, framing and turnaround */
+    private final long frameOverheadNanos;
+
+    /** Processing time of an instruction not found in {@link #processingNanosByInstruction} */
+    private final long processingNanos;
+
+    /** Processing time by instruction byte */
+    private final Map<Integer, Long> processingNanosByInstruction;
+
+    private LatencyModel(LatencyModelBuilder builder) {
+        this.hostRoundTripNanos = builder.hostRoundTripNanos;
+        this.bitRate = builder.bitRate;
+        this.bitsPerByte = builder.bitsPerByte;
+        this.frameOverheadNanos = builder.frameOverheadNanos;
+        this.processingNanos = builder.processingNanos;
+        this.processingNanosByInstruction = Collections.unmodifiableMap(
+                new HashMap<>(builder.processingNanosByInstruction));
+    }
+
+    public static LatencyModelBuilder builder() {
+        return new LatencyModelBuilder();
+    }
+
+    /**
+     * Contactless Calypso card, ISO 14443 type B at 106 kbit/s: 10 bits per byte, about 0.4 ms of
+     * framing per APDU, a few milliseconds for the session opening and closing and the SV operations,
+     * which write the card memory.
+     *
+     * @return the model
+     */
+    public static LatencyModel iso14443Card() {
+        return LatencyModel.builder()
+                .hostRoundTripNanos(micros(1000))
+                .bitRate(106_000)
+                .bitsPerByte(10)
+                .frameOverheadNanos(micros(400))
+                .processingNanos(micros(1000))
+                .processingNanos(0xA4, micros(1500))
+                .processingNanos(0xB2, micros(500))
+                .processingNanos(0x7C, micros(700))
+                .processingNanos(0x8A, micros(6000))
+                .processingNanos(0x8E, micros(8000))
+                .processingNanos(0xB8, micros(3000))
+                .processingNanos(0xBA, micros(3000))
+                .build();
+    }
+
+    /**
+     * Contact SAM, ISO 7816 T=0 at 115.2 kbit/s after PPS: 12 bits per byte with the guard time,
+     * sub-millisecond cryptographic commands and slower key generation.
+     *
+     * @return the model
+     */
+    public static LatencyModel contactSam() {
+        return LatencyModel.builder()
+                .hostRoundTripNanos(micros(1000))
+                .bitRate(115_200)
+                .bitsPerByte(12)
+                .frameOverheadNanos(micros(200))
+                .processingNanos(micros(400))
+                .processingNanos(0x8E, micros(1000))
+                .processingNanos(0x82, micros(1000))
+                .processingNanos(0x56, micros(2000))
+                .processingNanos(0x54, micros(2000))
+                .processingNanos(0x12, micros(5000))
+                .build();
+    }
+
+    /**
+     * Builder initialized with the values of this model, to derive a model adjusted to a reader.
+     *
+     * @return a new builder
+     */
+    public LatencyModelBuilder toBuilder() {
+        return LatencyModel.builder()
+                .hostRoundTripNanos(hostRoundTripNanos)
+                .bitRate(bitRate)
+                .bitsPerByte(bitsPerByte)
+                .frameOverheadNanos(frameOverheadNanos)
+                .processingNanos(processingNanos)
+                .processingNanosByInstruction(processingNanosByInstruction);
+    }
+
+    private static long micros(long micros) {
+        return TimeUnit.MICROSECONDS.toNanos(micros);
+    }
+
+    /**
+     * @param instruction    instruction byte of the command
+     * @param commandLength  length of the command
+     * @param responseLength length of the response, SW1 SW2 included
+     * @return time of the APDU on the link and in the card, without the host round trip
+     */
+    public long apduNanos(int instruction, int commandLength, int responseLength) {
+        long transfer = bitRate > 0
+                ? (commandLength + responseLength) * (long) bitsPerByte * TimeUnit.SECONDS.toNanos(1) / bitRate
+                : 0;
+        Long processing = processingNanosByInstruction.get(instruction & 0xff);
+        return frameOverheadNanos + transfer + (processing != null ? processing : processingNanos);
+    }
+
+    /**
+     * @param command        the command
+     * @param responseLength length of the response, SW1 SW2 included
+     * @return time of an exchange of one APDU
+     */
+    public long exchangeNanos(byte[] command, int responseLength) {
+        return hostRoundTripNanos + apduNanos(command.length > 1 ? command[1] : 0, command.length, responseLength);
+    }
+
+    /**
+     * Waits the given time, parking the thread. An interruption ends the wait early and the interrupt
+     * flag is left set for the caller.
+     *
+     * @param nanos time to wait
+     */
+    public static void pause(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        for (long remaining = nanos; remaining > 0; remaining = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.currentThread().isInterrupted())
+                return;
+        }
+    }
+
+    /**
+     * Builder of {@link LatencyModel}, the values not set are {@code 0} except {@code bitsPerByte},
+     * {@code 10} by default.
+     */
+    public static final class LatencyModelBuilder {
+
+        private long hostRoundTripNanos;
+        private int bitRate;
+        private int bitsPerByte = 10;
+        private long frameOverheadNanos;
+        private long processingNanos;
+        private final Map<Integer, Long> processingNanosByInstruction = new HashMap<>();
+
+        private LatencyModelBuilder() {
+        }
+
+        public LatencyModelBuilder hostRoundTripNanos(long hostRoundTripNanos) {
+            this.hostRoundTripNanos = hostRoundTripNanos;
+            return this;
+        }
+
+        public LatencyModelBuilder bitRate(int bitRate) {
+            this.bitRate = bitRate;
+            return this;
+        }
+
+        public LatencyModelBuilder bitsPerByte(int bitsPerByte) {
+            this.bitsPerByte = bitsPerByte;
+            return this;
+        }
+
+        public LatencyModelBuilder frameOverheadNanos(long frameOverheadNanos) {
+            this.frameOverheadNanos = frameOverheadNanos;
+            return this;
+        }
+
+        /**
+         * @param processingNanos processing time of the instructions without their own time
+         * @return this builder
+         */
+        public LatencyModelBuilder processingNanos(long processingNanos) {
+            this.processingNanos = processingNanos;
+            return this;
+        }
+
+        /**
+         * @param instruction     instruction byte
+         * @param processingNanos processing time of the instruction
+         * @return this builder
+         */
+        public LatencyModelBuilder processingNanos(int instruction, long processingNanos) {
+            this.processingNanosByInstruction.put(instruction & 0xff, processingNanos);
+            return this;
+        }
+
+        public LatencyModelBuilder processingNanosByInstruction(Map<Integer, Long> processingNanosByInstruction) {
+            for (Map.Entry<Integer, Long> entry : processingNanosByInstruction.entrySet())
+                processingNanos(entry.getKey(), entry.getValue());
+            return this;
+        }
+
+        public LatencyModel build() {
+            return new LatencyModel(this);
+        }
+    }
+}
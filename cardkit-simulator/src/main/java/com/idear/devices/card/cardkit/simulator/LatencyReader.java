@@ -0,0 +1,78 @@
+package com.idear.devices.card.cardkit.simulator;
+
+import com.idear.devices.card.cardkit.core.io.apdu.ResponseApdu;
+import com.idear.devices.card.cardkit.core.io.reader.AbstractReader;
+import lombok.Getter;
+
+import javax.smartcardio.CommandAPDU;
+import java.util.List;
+
+/**
+ * {@link AbstractReader} adding the time of a {@link LatencyModel} to the commands of another reader.
+ *
+ * <p>
+ * {@link #simpleCommand(CommandAPDU)} is one exchange with the reader, {@link #transmitBatch(List, boolean)}
+ * one exchange for all its commands, so the gain of a batch is the host round trips saved. Only the
+ * commands sent through the {@link AbstractReader} API are delayed, a transaction manager talking to
+ * the reader by its own channel is not.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@Getter
+public class LatencyReader extends AbstractReader {
+
+    private final AbstractReader reader;
+    private final LatencyModel model;
+
+    public LatencyReader(AbstractReader reader, LatencyModel model) {
+        this.reader = reader;
+        this.model = model;
+    }
+
+    @Override
+    public void connect() throws Exception {
+        reader.connect();
+    }
+
+    @Override
+    public void disconnect() {
+        reader.disconnect();
+    }
+
+    @Override
+    public boolean isCardOnReader() {
+        return reader.isCardOnReader();
+    }
+
+    @Override
+    public void connectToCard() {
+        reader.connectToCard();
+    }
+
+    @Override
+    public void disconnectFromCard() {
+        reader.disconnectFromCard();
+    }
+
+    @Override
+    public ResponseApdu simpleCommand(CommandAPDU command) {
+        ResponseApdu response = reader.simpleCommand(command);
+        LatencyModel.pause(model.exchangeNanos(command.getBytes(), response.getDataLength() + 2));
+        return response;
+    }
+
+    @Override
+    public List<ResponseApdu> transmitBatch(List<CommandAPDU> commands, boolean stopOnError) {
+        List<ResponseApdu> responses = reader.transmitBatch(commands, stopOnError);
+        long nanos = model.getHostRoundTripNanos();
+        for (int i = 0; i < responses.size(); i++) {
+            CommandAPDU command = commands.get(i);
+            nanos += model.apduNanos(command.getINS(), command.getBytes().length, responses.get(i).getDataLength() + 2);
+        }
+        LatencyModel.pause(nanos);
+        return responses;
+    }
+
+}
@@ -0,0 +1,500 @@
+package com.idear.devices.card.cardkit.simulator;
+
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.Calypso;
+import com.idear.devices.card.cardkit.core.utils.ByteUtils;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static com.idear.devices.card.cardkit.simulator.SimulatorCrypto.*;
+
+/**
+ * In-memory Calypso revision 3 card.
+ *
+ * <p>
+ * Supported commands: Select Application, Read Record, Update Record, Append Record, Get Challenge,
+ * Change Key, Open Secure Session, Close Secure Session, SV Get, SV Reload and SV Debit. The card holds
+ * the environment (07), event (08, cyclic), contract (09) files and the SV with its load (14) and
+ * debit (15) logs.
+ * </p>
+ *
+ * <p>
+ * The secure session has the card semantics: the modifications are committed by a Close Secure Session
+ * with a valid SAM signature and discarded on abort or on a wrong signature. The signatures are made
+ * with {@link SimulatorCrypto}, so the card only works with a {@link SimulatedSam}.
+ * </p>
+ *
+ * <p>
+ * Thread-safe, the commands are processed one at a time.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@Slf4j
+@Getter
+public class SimulatedCalypsoCard implements ApduProcessor {
+
+    /** Calypso AID used by default by the simulator */
+    public static final byte[] DEFAULT_AID = ByteUtils.hexToBytes("315449432E49434131");
+
+    /** Highest SV balance, signed on 3 bytes */
+    public static final int SV_BALANCE_MAX = 0x7FFFFF;
+
+    /** Startup information of a revision 3 card with 29 bytes records, PIN and SV, without extended mode */
+    private static final byte[] STARTUP_INFO = ByteUtils.hexToBytes("0A3C2305141001");
+    private static final byte[] SESSION_KIF = {0x00, 0x21, 0x27, 0x30};
+    private static final byte KVC = 0x79;
+    private static final byte SV_KVC = 0x79;
+    private static final int LOAD_LOG_LENGTH = 22;
+    private static final int DEBIT_LOG_LENGTH = 19;
+
+    private final byte[] aid;
+    private final byte[] serial;
+
+    @Getter(AccessLevel.NONE)
+    private final Random random = new Random();
+
+    @Getter(AccessLevel.NONE)
+    private final Set<Byte> cyclicFiles = new HashSet<>();
+
+    @Getter(AccessLevel.NONE)
+    private State state = new State();
+
+    private boolean selected;
+
+    /** Open Secure Session response data and session exchanges, {@code null} out of session */
+    @Getter(AccessLevel.NONE)
+    private ByteArrayOutputStream digest;
+    @Getter(AccessLevel.NONE)
+    private byte sessionKif;
+    @Getter(AccessLevel.NONE)
+    private State committed;
+    /** SV signature returned at the closing of the session */
+    @Getter(AccessLevel.NONE)
+    private byte[] postponedSvSignature;
+
+    /**
+     * Creates a card with the default AID, one environment record, three event records,
+     * four contract records and an empty SV.
+     *
+     * @param serial application serial number, 8 bytes
+     */
+    public SimulatedCalypsoCard(byte[] serial) {
+        this(DEFAULT_AID, serial);
+    }
+
+    public SimulatedCalypsoCard(byte[] aid, byte[] serial) {
+        if (serial.length != 8)
+            throw new IllegalArgumentException("Serial of 8 bytes expected");
+        this.aid = aid.clone();
+        this.serial = serial.clone();
+        addFile(Calypso.ENVIRONMENT_FILE, 1, false);
+        addFile(Calypso.EVENT_FILE, 3, true);
+        addFile(Calypso.CONTRACT_FILE, 4, false);
+    }
+
+    /**
+     * Adds or replaces a file of empty records.
+     *
+     * @param sfi     short file identifier
+     * @param records number of records
+     * @param cyclic  {@code true} for a cyclic file, written by Append Record
+     */
+    public synchronized void addFile(byte sfi, int records, boolean cyclic) {
+        List<byte[]> file = new ArrayList<>(records);
+        for (int i = 0; i < records; i++)
+            file.add(new byte[Calypso.RECORD_SIZE]);
+        state.files.put(sfi, file);
+        if (cyclic)
+            cyclicFiles.add(sfi);
+        else
+            cyclicFiles.remove(sfi);
+    }
+
+    /**
+     * @param sfi          short file identifier
+     * @param recordNumber record number, from 1
+     * @return a copy of the committed record
+     */
+    public synchronized byte[] getRecord(byte sfi, int recordNumber) {
+        byte[] record = record(committedState(), sfi, recordNumber);
+        if (record == null)
+            throw new IllegalArgumentException("Record " + recordNumber + " of file " + sfi + " not found");
+        return record.clone();
+    }
+
+    /**
+     * Writes a record out of any session, used to prepare the card of a test.
+     */
+    public synchronized void setRecord(byte sfi, int recordNumber, byte[] data) {
+        if (record(state, sfi, recordNumber) == null)
+            throw new IllegalArgumentException("Record " + recordNumber + " of file " + sfi + " not found");
+        state.files.get(sfi).set(recordNumber - 1, Arrays.copyOf(data, Calypso.RECORD_SIZE));
+    }
+
+    public synchronized int getSvBalance() {
+        return committedState().svBalance;
+    }
+
+    public synchronized void setSvBalance(int svBalance) {
+        if (svBalance < 0 || svBalance > SV_BALANCE_MAX)
+            throw new IllegalArgumentException("SV balance out of range: " + svBalance);
+        state.svBalance = svBalance;
+    }
+
+    public synchronized int getSvTransactionNumber() {
+        return committedState().svTransactionNumber;
+    }
+
+    public synchronized int getTransactionCounter() {
+        return committedState().transactionCounter;
+    }
+
+    public synchronized boolean isSessionOpen() {
+        return digest != null;
+    }
+
+    private State committedState() {
+        return committed != null ? committed : state;
+    }
+
+    @Override
+    public synchronized byte[] process(byte[] command) {
+        if (command.length < 4)
+            return status(0x6700);
+
+        byte[] response = dispatch(command);
+        int ins = command[1] & 0xff;
+        if (digest != null && ins != 0x8A && ins != 0x8E) {
+            digest.write(command, 0, command.length);
+            digest.write(response, 0, response.length);
+        }
+        return response;
+    }
+
+    private byte[] dispatch(byte[] command) {
+        int ins = command[1] & 0xff;
+        int p1 = command[2] & 0xff;
+        int p2 = command[3] & 0xff;
+        byte[] data = commandData(command);
+
+        if (ins == 0xA4)
+            return select(data);
+        if (!selected)
+            return status(0x6985);
+
+        switch (ins) {
+            case 0xB2:
+                return readRecord((byte) (p2 >> 3), p1);
+            case 0xDC:
+                return updateRecord((byte) (p2 >> 3), p1, data);
+            case 0xE2:
+                return appendRecord((byte) (p2 >> 3), data);
+            case 0x84:
+                return success(randomBytes(expectedLength(command, 8)));
+            case 0xD8:
+                return data.length > 0 ? status(0x9000) : status(0x6700);
+            case 0x8A:
+                return openSession(p1 & 0x07, p1 >> 3, (byte) (p2 >> 3), data);
+            case 0x8E:
+                return closeSession(data);
+            case 0x7C:
+                return svGet(p2);
+            case 0xB8:
+                return svOperation(command, data, true);
+            case 0xBA:
+                return svOperation(command, data, false);
+            default:
+                return status(0x6D00);
+        }
+    }
+
+    private byte[] select(byte[] data) {
+        if (!Arrays.equals(data, aid)) {
+            selected = false;
+            return status(0x6A82);
+        }
+        selected = true;
+
+        ByteArrayOutputStream proprietary = new ByteArrayOutputStream();
+        proprietary.write(0xC7);
+        proprietary.write(serial.length);
+        proprietary.write(serial, 0, serial.length);
+        proprietary.write(0x53);
+        proprietary.write(STARTUP_INFO.length);
+        proprietary.write(STARTUP_INFO, 0, STARTUP_INFO.length);
+
+        byte[] discretionary = tlv(0xBF0C, proprietary.toByteArray());
+        byte[] a5 = tlv(0xA5, discretionary);
+        byte[] df = tlv(0x84, aid);
+        byte[] fci = new byte[df.length + a5.length];
+        System.arraycopy(df, 0, fci, 0, df.length);
+        System.arraycopy(a5, 0, fci, df.length, a5.length);
+        return success(tlv(0x6F, fci));
+    }
+
+    private static byte[] tlv(int tag, byte[] value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (tag > 0xFF)
+            out.write(tag >> 8);
+        out.write(tag);
+        out.write(value.length);
+        out.write(value, 0, value.length);
+        return out.toByteArray();
+    }
+
+    private byte[] readRecord(byte sfi, int recordNumber) {
+        if (sfi == Calypso.SV_LOAD_LOG_FILE)
+            return recordNumber == 1
+                    ? success(Arrays.copyOf(state.loadLog, Calypso.RECORD_SIZE)) : status(0x6A83);
+        if (sfi == Calypso.SV_DEBIT_LOG_FILE)
+            return recordNumber == 1
+                    ? success(Arrays.copyOf(state.debitLog, Calypso.RECORD_SIZE)) : status(0x6A83);
+
+        if (!state.files.containsKey(sfi))
+            return status(0x6A82);
+        byte[] record = record(state, sfi, recordNumber);
+        return record != null ? success(record) : status(0x6A83);
+    }
+
+    private byte[] updateRecord(byte sfi, int recordNumber, byte[] data) {
+        if (!state.files.containsKey(sfi))
+            return status(0x6A82);
+        if (data.length == 0 || data.length > Calypso.RECORD_SIZE)
+            return status(0x6700);
+        if (record(state, sfi, recordNumber) == null)
+            return status(0x6A83);
+
+        state.files.get(sfi).set(recordNumber - 1, Arrays.copyOf(data, Calypso.RECORD_SIZE));
+        return status(0x9000);
+    }
+
+    private byte[] appendRecord(byte sfi, byte[] data) {
+        if (!state.files.containsKey(sfi))
+            return status(0x6A82);
+        if (!cyclicFiles.contains(sfi))
+            return status(0x6981);
+        if (data.length == 0 || data.length > Calypso.RECORD_SIZE)
+            return status(0x6700);
+
+        List<byte[]> file = state.files.get(sfi);
+        file.remove(file.size() - 1);
+        file.add(0, Arrays.copyOf(data, Calypso.RECORD_SIZE));
+        return status(0x9000);
+    }
+
+    private static byte[] record(State state, byte sfi, int recordNumber) {
+        List<byte[]> file = state.files.get(sfi);
+        if (file == null || recordNumber < 1 || recordNumber > file.size())
+            return null;
+        return file.get(recordNumber - 1);
+    }
+
+    /**
+     * Response: transaction counter (3), random (1), ratification (1), KIF, KVC, length and the record read.
+     */
+    private byte[] openSession(int key, int recordNumber, byte sfi, byte[] samChallenge) {
+        if (digest != null)
+            return status(0x6985);
+        if (key < 1 || key >= SESSION_KIF.length || samChallenge.length != 4)
+            return status(0x6700);
+
+        byte[] record = new byte[0];
+        if (recordNumber > 0) {
+            byte[] read = record(state, sfi, recordNumber);
+            if (read == null)
+                return status(0x6A83);
+            record = read.clone();
+        }
+
+        state.transactionCounter--;
+        byte[] response = new byte[8 + record.length];
+        putInt(response, 0, 3, state.transactionCounter);
+        response[3] = (byte) random.nextInt(256);
+        response[4] = 0x00;
+        response[5] = SESSION_KIF[key];
+        response[6] = KVC;
+        response[7] = (byte) record.length;
+        System.arraycopy(record, 0, response, 8, record.length);
+
+        committed = state;
+        state = state.copy();
+        sessionKif = SESSION_KIF[key];
+        postponedSvSignature = null;
+        digest = new ByteArrayOutputStream();
+        digest.write(response, 0, response.length);
+        log.debug("Card {} session open, key {}", ByteUtils.toHex(serial), key);
+        return success(response);
+    }
+
+    /**
+     * Response: postponed data, length and SV signature, if an SV operation was done, then the card signature.
+     */
+    private byte[] closeSession(byte[] samSignature) {
+        if (digest == null)
+            return status(0x6985);
+
+        if (samSignature.length == 0) {
+            abortSession();
+            return status(0x9000);
+        }
+
+        byte[] session = digest.toByteArray();
+        byte[] expected = sign(serial, 4, "SAM", new byte[]{sessionKif}, session);
+        if (!Arrays.equals(expected, samSignature)) {
+            abortSession();
+            return status(0x6988);
+        }
+
+        byte[] cardSignature = sign(serial, 4, "CARD", new byte[]{sessionKif}, session);
+        byte[] response;
+        if (postponedSvSignature != null) {
+            response = new byte[1 + postponedSvSignature.length + cardSignature.length];
+            response[0] = (byte) postponedSvSignature.length;
+            System.arraycopy(postponedSvSignature, 0, response, 1, postponedSvSignature.length);
+        } else {
+            response = new byte[cardSignature.length];
+        }
+        System.arraycopy(cardSignature, 0, response, response.length - cardSignature.length, cardSignature.length);
+
+        committed = null;
+        digest = null;
+        postponedSvSignature = null;
+        log.debug("Card {} session closed", ByteUtils.toHex(serial));
+        return success(response);
+    }
+
+    private void abortSession() {
+        state = committed;
+        committed = null;
+        digest = null;
+        postponedSvSignature = null;
+        log.debug("Card {} session aborted", ByteUtils.toHex(serial));
+    }
+
+    /**
+     * Response: KVC, SV transaction number (2), previous signature (3), challenge (2), balance (3)
+     * and the load log (22) or the debit log (19).
+     */
+    private byte[] svGet(int operation) {
+        boolean reload = operation == 0x07;
+        if (!reload && operation != 0x09)
+            return status(0x6B00);
+
+        byte[] svLog = reload ? state.loadLog : state.debitLog;
+        byte[] response = new byte[11 + svLog.length];
+        response[0] = SV_KVC;
+        putInt(response, 1, 2, state.svTransactionNumber);
+        System.arraycopy(state.previousSvSignature, 0, response, 3, 3);
+        System.arraycopy(randomBytes(2), 0, response, 6, 2);
+        putInt(response, 8, 3, state.svBalance);
+        System.arraycopy(svLog, 0, response, 11, svLog.length);
+        state.svGetDone = true;
+        return success(response);
+    }
+
+    /**
+     * Reload data: D0, date (2), free, KVC, free, amount (3), time (2), SAM id (4), SAM transaction
+     * number (3), signature (5). Debit data: D0, amount (2), date (2), time (2), KVC, SAM id (4),
+     * SAM transaction number (3), signature (5).
+     */
+    private byte[] svOperation(byte[] command, byte[] data, boolean reload) {
+        int partLength = reload ? 10 : 7;
+        if (data.length != 1 + partLength + 12)
+            return status(0x6700);
+        if (!state.svGetDone)
+            return status(0x6985);
+
+        byte[] p1p2d0 = {command[2], command[3], data[0]};
+        byte[] part = Arrays.copyOfRange(data, 1, 1 + partLength);
+        byte[] samId = Arrays.copyOfRange(data, 1 + partLength, 5 + partLength);
+        byte[] samTransactionNumber = Arrays.copyOfRange(data, 5 + partLength, 8 + partLength);
+        byte[] signature = Arrays.copyOfRange(data, 8 + partLength, 13 + partLength);
+        if (!Arrays.equals(signature, sign(serial, 5, "SV", p1p2d0, part, samId, samTransactionNumber)))
+            return status(0x6988);
+
+        int amount = reload
+                ? ByteUtils.extractInt(part, 5, 3, true)
+                : ByteUtils.extractInt(part, 0, 2, true);
+        int balance = state.svBalance + amount;
+        if (balance < 0 || balance > SV_BALANCE_MAX)
+            return status(0x6400);
+
+        state.svBalance = balance;
+        state.svTransactionNumber = (state.svTransactionNumber + 1) & 0xFFFF;
+        state.svGetDone = false;
+        if (reload) {
+            byte[] svLog = state.loadLog;
+            System.arraycopy(part, 0, svLog, 0, 5);
+            putInt(svLog, 5, 3, balance);
+            System.arraycopy(part, 5, svLog, 8, 5);
+            System.arraycopy(samId, 0, svLog, 13, 4);
+            System.arraycopy(samTransactionNumber, 0, svLog, 17, 3);
+            putInt(svLog, 20, 2, state.svTransactionNumber);
+        } else {
+            byte[] svLog = state.debitLog;
+            System.arraycopy(part, 0, svLog, 0, 7);
+            System.arraycopy(samId, 0, svLog, 7, 4);
+            System.arraycopy(samTransactionNumber, 0, svLog, 11, 3);
+            putInt(svLog, 14, 3, balance);
+            putInt(svLog, 17, 2, state.svTransactionNumber);
+        }
+
+        byte[] svSignature = sign(serial, 3, "SVR", samId, samTransactionNumber);
+        state.previousSvSignature = svSignature;
+        if (digest != null) {
+            postponedSvSignature = svSignature;
+            return status(0x9000);
+        }
+        return success(svSignature);
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Content of the card, copied at the opening of a session and restored if it is not closed.
+     */
+    private static final class State {
+        private final Map<Byte, List<byte[]>> files = new HashMap<>();
+        private int transactionCounter = 0xFFFFFF;
+        private int svBalance;
+        private int svTransactionNumber;
+        private byte[] previousSvSignature = new byte[3];
+        private byte[] loadLog = new byte[LOAD_LOG_LENGTH];
+        private byte[] debitLog = new byte[DEBIT_LOG_LENGTH];
+        private boolean svGetDone;
+
+        private State copy() {
+            State copy = new State();
+            for (Map.Entry<Byte, List<byte[]>> file : files.entrySet()) {
+                List<byte[]> records = new ArrayList<>(file.getValue().size());
+                for (byte[] record : file.getValue())
+                    records.add(record.clone());
+                copy.files.put(file.getKey(), records);
+            }
+            copy.transactionCounter = transactionCounter;
+            copy.svBalance = svBalance;
+            copy.svTransactionNumber = svTransactionNumber;
+            copy.previousSvSignature = previousSvSignature.clone();
+            copy.loadLog = loadLog.clone();
+            copy.debitLog = debitLog.clone();
+            copy.svGetDone = svGetDone;
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.idear.devices.card.cardkit.simulator;
+
+import javax.smartcardio.ATR;
+import javax.smartcardio.Card;
+import javax.smartcardio.CardChannel;
+import javax.smartcardio.CardException;
+import javax.smartcardio.CardNotPresentException;
+import javax.smartcardio.CardTerminal;
+import javax.smartcardio.CommandAPDU;
+import javax.smartcardio.ResponseAPDU;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link CardTerminal} on a simulated card or SAM, so the PC/SC backend runs without hardware:
+ * it is given to a {@code PcscAbstractReader} with {@code setCardTerminal} instead of {@code connect}.
+ *
+ * <p>
+ * The card is presented with {@link #insert(ApduProcessor)} and removed with {@link #remove()}, a
+ * command sent after the removal fails as on a real terminal.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+public class SimulatedCardTerminal extends CardTerminal {
+
+    private final String name;
+    private final Object lock = new Object();
+    private ApduProcessor processor;
+
+    public SimulatedCardTerminal(String name) {
+        this.name = name;
+    }
+
+    public SimulatedCardTerminal(String name, ApduProcessor processor) {
+        this(name);
+        insert(processor);
+    }
+
+    public void insert(ApduProcessor processor) {
+        synchronized (lock) {
+            this.processor = processor;
+            lock.notifyAll();
+        }
+    }
+
+    public void remove() {
+        synchronized (lock) {
+            this.processor = null;
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Card connect(String protocol) throws CardException {
+        synchronized (lock) {
+            if (processor == null)
+                throw new CardNotPresentException("No card on " + name);
+            return new SimulatedCard(processor);
+        }
+    }
+
+    @Override
+    public boolean isCardPresent() {
+        synchronized (lock) {
+            return processor != null;
+        }
+    }
+
+    @Override
+    public boolean waitForCardPresent(long timeout) throws CardException {
+        return waitFor(true, timeout);
+    }
+
+    @Override
+    public boolean waitForCardAbsent(long timeout) throws CardException {
+        return waitFor(false, timeout);
+    }
+
+    private boolean waitFor(boolean present, long timeout) throws CardException {
+        if (timeout < 0)
+            throw new IllegalArgumentException("timeout must not be negative");
+
+        long deadline = System.currentTimeMillis() + timeout;
+        synchronized (lock) {
+            try {
+                while ((processor != null) != present) {
+                    if (timeout == 0) {
+                        lock.wait();
+                        continue;
+                    }
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0)
+                        return false;
+                    lock.wait(remaining);
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CardException("Interrupted while waiting on " + name, e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SimulatedCardTerminal(" + name + ")";
+    }
+
+    /**
+     * Connection to the card present when {@link #connect(String)} was called, broken once the card is removed.
+     */
+    private final class SimulatedCard extends Card {
+
+        private final ApduProcessor connected;
+        private final ATR atr;
+        private final SimulatedCardChannel channel = new SimulatedCardChannel(this);
+        private volatile boolean valid = true;
+
+        private SimulatedCard(ApduProcessor connected) {
+            this.connected = connected;
+            this.atr = new ATR(connected.getAtr());
+        }
+
+        private byte[] process(byte[] command) throws CardException {
+            synchronized (lock) {
+                if (!valid)
+                    throw new IllegalStateException("Card disconnected");
+                if (processor != connected)
+                    throw new CardException("Card removed from " + name);
+            }
+            return connected.process(command);
+        }
+
+        @Override
+        public ATR getATR() {
+            return atr;
+        }
+
+        @Override
+        public String getProtocol() {
+            return "T=1";
+        }
+
+        @Override
+        public CardChannel getBasicChannel() {
+            return channel;
+        }
+
+        @Override
+        public CardChannel openLogicalChannel() throws CardException {
+            throw new CardException("Logical channels not supported");
+        }
+
+        @Override
+        public void beginExclusive() {
+        }
+
+        @Override
+        public void endExclusive() {
+        }
+
+        @Override
+        public byte[] transmitControlCommand(int controlCode, byte[] command) throws CardException {
+            throw new CardException("Control commands not supported");
+        }
+
+        @Override
+        public void disconnect(boolean reset) {
+            valid = false;
+        }
+    }
+
+    private static final class SimulatedCardChannel extends CardChannel {
+
+        private final SimulatedCard card;
+
+        private SimulatedCardChannel(SimulatedCard card) {
+            this.card = card;
+        }
+
+        @Override
+        public Card getCard() {
+            return card;
+        }
+
+        @Override
+        public int getChannelNumber() {
+            return 0;
+        }
+
+        @Override
+        public ResponseAPDU transmit(CommandAPDU command) throws CardException {
+            return new ResponseAPDU(card.process(command.getBytes()));
+        }
+
+        @Override
+        public int transmit(ByteBuffer command, ByteBuffer response) throws CardException {
+            byte[] bytes = new byte[command.remaining()];
+            command.get(bytes);
+            byte[] result = card.process(bytes);
+            if (response.remaining() < result.length)
+                throw new CardException("Response buffer too small for " + result.length + " bytes");
+            response.put(result);
+            return result.length;
+        }
+
+        @Override
+        public void close() {
+            throw new IllegalStateException("Cannot close the basic channel");
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.idear.devices.card.cardkit.simulator;
+
+import com.idear.devices.card.cardkit.core.exception.CardException;
+import com.idear.devices.card.cardkit.core.io.apdu.ResponseApdu;
+import com.idear.devices.card.cardkit.core.io.reader.AbstractReader;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import javax.smartcardio.CommandAPDU;
+
+/**
+ * {@link AbstractReader} on a simulated card or SAM, the card is presented with {@link #insert(ApduProcessor)}
+ * and removed with {@link #remove()}.
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@EqualsAndHashCode(callSuper = true)
+@Data
+public class SimulatedReader extends AbstractReader {
+
+    private final String name;
+
+    /** Card or SAM on the reader, {@code null} if none */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile ApduProcessor processor;
+
+    private volatile boolean connected;
+
+    public void insert(ApduProcessor processor) {
+        this.processor = processor;
+    }
+
+    public void remove() {
+        this.processor = null;
+        this.connected = false;
+    }
+
+    @Override
+    public void connect() {
+        connectToCard();
+    }
+
+    @Override
+    public void disconnect() {
+        disconnectFromCard();
+    }
+
+    @Override
+    public boolean isCardOnReader() {
+        return processor != null;
+    }
+
+    @Override
+    public void connectToCard() {
+        connected = processor != null;
+    }
+
+    @Override
+    public void disconnectFromCard() {
+        connected = false;
+    }
+
+    @Override
+    public ResponseApdu simpleCommand(CommandAPDU command) {
+        ApduProcessor current = processor;
+        if (!connected || current == null)
+            throw new CardException("no card connected on %s", name);
+
+        return new ResponseApdu(current.process(command.getBytes()));
+    }
+
+}
@@ -0,0 +1,290 @@
+package com.idear.devices.card.cardkit.simulator;
+
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.Calypso;
+import com.idear.devices.card.cardkit.core.utils.ByteUtils;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.idear.devices.card.cardkit.simulator.SimulatorCrypto.*;
+
+/**
+ * Software stand-in of a Calypso SAM, C1 ({@code CLA 80}) or legacy ({@code CLA 94}), the class is not checked.
+ *
+ * <p>
+ * Supported commands: Unlock, Read Parameters, Read Event Counter, Read Ceilings, Select Diversifier,
+ * Get Challenge, Give Random, Card Generate Key, Digest Init, Digest Update, Digest Close, Digest
+ * Authenticate, SV Prepare Load, SV Prepare Debit, SV Check and PSO Compute Signature. The keys are those of {@link SimulatorCrypto}, diversified with the
+ * serial number selected by Select Diversifier.
+ * </p>
+ *
+ * <p>
+ * Thread-safe, the commands are processed one at a time.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+@Slf4j
+@Getter
+public class SimulatedSam implements ApduProcessor {
+
+    /** ATR of a SAM C1, before and after the serial number, in the layout parsed by the Keyple legacy SAM library */
+    private static final byte[] ATR_PREFIX = ByteUtils.hexToBytes("3B3F9600805A4880C1205017");
+    private static final byte[] ATR_SUFFIX = ByteUtils.hexToBytes("829000");
+
+    private static final int COUNTERS_RECORD_LENGTH = 48;
+    private static final int SV_RELOAD_PART_LENGTH = 15;
+    private static final int SV_DEBIT_PART_LENGTH = 12;
+
+    private final byte[] serial;
+
+    /** Unlock data expected, {@code null} if the SAM is not locked */
+    @Getter(AccessLevel.NONE)
+    private final byte[] lockSecret;
+
+    /** Parameters returned by Read Parameters, 29 bytes */
+    private final byte[] parameters = new byte[Calypso.RECORD_SIZE];
+
+    private boolean unlocked;
+    private int transactionNumber;
+
+    @Getter(AccessLevel.NONE)
+    private final Random random = new Random();
+    @Getter(AccessLevel.NONE)
+    private byte[] diversifier;
+    @Getter(AccessLevel.NONE)
+    private ByteArrayOutputStream digest;
+    @Getter(AccessLevel.NONE)
+    private byte digestKif;
+    @Getter(AccessLevel.NONE)
+    private byte[] svTransactionNumber;
+
+    /**
+     * @param serial     SAM serial number, 4 bytes
+     * @param lockSecret unlock data, {@code null} for a SAM without lock
+     */
+    public SimulatedSam(byte[] serial, byte[] lockSecret) {
+        if (serial.length != 4)
+            throw new IllegalArgumentException("Serial of 4 bytes expected");
+        this.serial = serial.clone();
+        this.lockSecret = lockSecret != null ? lockSecret.clone() : null;
+        this.unlocked = lockSecret == null;
+    }
+
+    /**
+     * @param serial SAM serial number, 4 bytes
+     */
+    public SimulatedSam(byte[] serial) {
+        this(serial, null);
+    }
+
+    @Override
+    public byte[] getAtr() {
+        byte[] atr = new byte[ATR_PREFIX.length + serial.length + ATR_SUFFIX.length];
+        System.arraycopy(ATR_PREFIX, 0, atr, 0, ATR_PREFIX.length);
+        System.arraycopy(serial, 0, atr, ATR_PREFIX.length, serial.length);
+        System.arraycopy(ATR_SUFFIX, 0, atr, ATR_PREFIX.length + serial.length, ATR_SUFFIX.length);
+        return atr;
+    }
+
+    @Override
+    public synchronized byte[] process(byte[] command) {
+        if (command.length < 4)
+            return status(0x6700);
+
+        int ins = command[1] & 0xff;
+        byte[] data = commandData(command);
+
+        if (ins == 0x20)
+            return unlock(data);
+        if (!unlocked)
+            return status(0x6985);
+
+        switch (ins) {
+            case 0xBE:
+                if ((command[3] & 0xff) != 0xA0)
+                    return success(readCounters());
+                return success(readParameters());
+            case 0xD8:
+                return success(readCounters());
+            case 0x14:
+                if (data.length == 0)
+                    return status(0x6700);
+                diversifier = data;
+                return status(0x9000);
+            case 0x84:
+                return success(randomBytes(expectedLength(command, 8)));
+            case 0x86:
+                return data.length > 0 ? status(0x9000) : status(0x6700);
+            case 0x12:
+                return generateKey(data);
+            case 0x8A:
+                return digestInit(data);
+            case 0x8C:
+                if (digest == null)
+                    return status(0x6985);
+                digest.write(data, 0, data.length);
+                return status(0x9000);
+            case 0x8E:
+                return digestClose();
+            case 0x82:
+                return digestAuthenticate(data);
+            case 0x56:
+                return svPrepare(data, SV_RELOAD_PART_LENGTH);
+            case 0x54:
+                return svPrepare(data, SV_DEBIT_PART_LENGTH);
+            case 0x58:
+                return svCheck(data);
+            case 0x2A:
+                return computeSignature(data);
+            default:
+                return status(0x6D00);
+        }
+    }
+
+    private byte[] unlock(byte[] data) {
+        if (lockSecret != null && !Arrays.equals(lockSecret, data))
+            return status(0x6988);
+        unlocked = true;
+        return status(0x9000);
+    }
+
+    /**
+     * Response: 8 bytes of header followed by the parameters, as read by the Keyple SAM reader.
+     */
+    private byte[] readParameters() {
+        byte[] response = new byte[8 + parameters.length];
+        System.arraycopy(serial, 0, response, 0, serial.length);
+        System.arraycopy(parameters, 0, response, 8, parameters.length);
+        return response;
+    }
+
+    /**
+     * Read Event Counter and Read Ceilings of a record, as sent by the Keyple SAM selection: 8 bytes of
+     * header followed by 9 values of 3 bytes, the counters and ceilings are not simulated and read {@code 0}.
+     */
+    private byte[] readCounters() {
+        byte[] response = new byte[COUNTERS_RECORD_LENGTH];
+        System.arraycopy(serial, 0, response, 0, serial.length);
+        return response;
+    }
+
+    /**
+     * Data: ciphering KIF, KVC and the key reference, response: the ciphered key (32).
+     */
+    private byte[] generateKey(byte[] data) {
+        if (diversifier == null)
+            return status(0x6985);
+        return success(sign(diversifier, 32, "KEY", data));
+    }
+
+    /**
+     * Data: KIF, KVC and the Open Secure Session response data.
+     */
+    private byte[] digestInit(byte[] data) {
+        if (diversifier == null || data.length < 10)
+            return status(0x6985);
+
+        digestKif = data[0];
+        digest = new ByteArrayOutputStream();
+        digest.write(data, 2, data.length - 2);
+        return status(0x9000);
+    }
+
+    private byte[] digestClose() {
+        if (digest == null)
+            return status(0x6985);
+        return success(sign(diversifier, 4, "SAM", new byte[]{digestKif}, digest.toByteArray()));
+    }
+
+    private byte[] digestAuthenticate(byte[] cardSignature) {
+        if (digest == null)
+            return status(0x6985);
+
+        byte[] expected = sign(diversifier, 4, "CARD", new byte[]{digestKif}, digest.toByteArray());
+        digest = null;
+        if (!Arrays.equals(expected, cardSignature)) {
+            log.debug("SAM {} card signature rejected", ByteUtils.toHex(serial));
+            return status(0x6988);
+        }
+        return status(0x9000);
+    }
+
+    /**
+     * Data: SV Get header (4), SV Get response, SV command without the SAM part. Response: SAM id (4),
+     * P1 P2 D0 of the SV command (3), SAM transaction number (3) and the signature (5).
+     */
+    private byte[] svPrepare(byte[] data, int partialLength) {
+        if (diversifier == null || data.length < 4 + 2 + partialLength)
+            return status(0x6985);
+
+        byte[] part = Arrays.copyOfRange(data, data.length - partialLength + 5, data.length);
+        byte[] p1p2d0 = randomBytes(3);
+        transactionNumber = (transactionNumber + 1) & 0xFFFFFF;
+        svTransactionNumber = new byte[3];
+        putInt(svTransactionNumber, 0, 3, transactionNumber);
+
+        byte[] response = new byte[15];
+        System.arraycopy(serial, 0, response, 0, 4);
+        System.arraycopy(p1p2d0, 0, response, 4, 3);
+        System.arraycopy(svTransactionNumber, 0, response, 7, 3);
+        System.arraycopy(sign(diversifier, 5, "SV", p1p2d0, part, serial, svTransactionNumber), 0, response, 10, 5);
+        return success(response);
+    }
+
+    private byte[] svCheck(byte[] svSignature) {
+        if (svTransactionNumber == null)
+            return status(0x6985);
+
+        byte[] expected = sign(diversifier, 3, "SVR", serial, svTransactionNumber);
+        svTransactionNumber = null;
+        return Arrays.equals(expected, svSignature) ? status(0x9000) : status(0x6988);
+    }
+
+    /**
+     * PSO Compute Signature. Data: {@code FF}, KIF, KVC, mode (high nibble) and signature size (low nibble),
+     * the bit offset of the traceability (2) when the mode asks for it, and the message. Response: the
+     * message with the SAM serial and transaction number written at the offset in traceability mode,
+     * followed by the signature.
+     */
+    private byte[] computeSignature(byte[] data) {
+        if (data.length < 4)
+            return status(0x6700);
+
+        int mode = (data[3] & 0xff) >>> 4;
+        int signatureSize = data[3] & 0x0f;
+        boolean traceable = (mode & 0x04) != 0;
+        int messageOffset = traceable ? 6 : 4;
+        if (signatureSize == 0 || data.length < messageOffset)
+            return status(0x6700);
+
+        byte[] message = Arrays.copyOfRange(data, messageOffset, data.length);
+        if (traceable) {
+            int bitOffset = ((data[4] & 0xff) << 8) | (data[5] & 0xff);
+            int serialLength = (mode & 0x02) != 0 ? serial.length : serial.length - 1;
+            int offset = bitOffset / 8;
+            if (bitOffset % 8 != 0 || offset + serialLength + 3 > message.length)
+                return status(0x6A80);
+
+            transactionNumber = (transactionNumber + 1) & 0xFFFFFF;
+            System.arraycopy(serial, serial.length - serialLength, message, offset, serialLength);
+            putInt(message, offset + serialLength, 3, transactionNumber);
+        }
+
+        byte[] signature = sign(serial, signatureSize, "PSO", new byte[]{data[1], data[2]}, message);
+        byte[] response = Arrays.copyOf(message, traceable ? message.length + signatureSize : signatureSize);
+        System.arraycopy(signature, 0, response, traceable ? message.length : 0, signatureSize);
+        return success(response);
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,91 @@
+package com.idear.devices.card.cardkit.simulator;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+/**
+ * Signatures shared by the simulated card and SAM.
+ * <p>
+ * The Calypso cryptography is replaced by an HMAC-SHA256 keyed by the card serial number, the SAM
+ * diversifier, so a card and a SAM of the simulator always share their keys. The signatures have the
+ * length of the Calypso ones but are not compatible with a real card or SAM.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+public abstract class SimulatorCrypto {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte[] MASTER_KEY = "cardkit-simulator".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * @param diversifier the card serial number
+     * @param length      length of the signature, at most 32
+     * @param label       purpose of the signature, so the signatures of two steps never match
+     * @param parts       the signed data
+     * @return the signature
+     */
+    public static byte[] sign(byte[] diversifier, int length, String label, byte[]... parts) {
+        try {
+            byte[] key = Arrays.copyOf(MASTER_KEY, MASTER_KEY.length + diversifier.length);
+            System.arraycopy(diversifier, 0, key, MASTER_KEY.length, diversifier.length);
+
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(key, ALGORITHM));
+            mac.update(label.getBytes(StandardCharsets.US_ASCII));
+            for (byte[] part : parts)
+                mac.update(part);
+            return Arrays.copyOf(mac.doFinal(), length);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        }
+    }
+
+    static byte[] status(int sw) {
+        return new byte[]{(byte) (sw >> 8), (byte) sw};
+    }
+
+    static byte[] success(byte[] data) {
+        byte[] response = Arrays.copyOf(data, data.length + 2);
+        response[data.length] = (byte) 0x90;
+        return response;
+    }
+
+    /**
+     * Writes a big endian value on {@code length} bytes.
+     */
+    static void putInt(byte[] destination, int offset, int length, int value) {
+        for (int i = length - 1; i >= 0; i--) {
+            destination[offset + i] = (byte) value;
+            value >>= 8;
+        }
+    }
+
+    /**
+     * @return the data of a short command, {@code CLA INS P1 P2 Lc data [Le]}, empty without {@code Lc}
+     */
+    static byte[] commandData(byte[] command) {
+        if (command.length <= 5)
+            return new byte[0];
+        int lc = command[4] & 0xff;
+        return Arrays.copyOfRange(command, 5, Math.min(5 + lc, command.length));
+    }
+
+    /**
+     * @return the {@code Le} of a short command, {@code defaultLength} if absent or {@code 00}
+     */
+    static int expectedLength(byte[] command, int defaultLength) {
+        int le;
+        if (command.length == 5)
+            le = command[4] & 0xff;
+        else if (command.length > 5 && command.length == 6 + (command[4] & 0xff))
+            le = command[command.length - 1] & 0xff;
+        else
+            le = 0;
+        return le == 0 ? defaultLength : le;
+    }
+}
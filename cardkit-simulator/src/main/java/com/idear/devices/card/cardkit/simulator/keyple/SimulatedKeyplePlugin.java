@@ -0,0 +1,41 @@
+package com.idear.devices.card.cardkit.simulator.keyple;
+
+import org.eclipse.keyple.core.plugin.spi.PluginSpi;
+import org.eclipse.keyple.core.plugin.spi.reader.ReaderSpi;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Keyple plugin holding a fixed set of {@link SimulatedKeypleReader}.
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+class SimulatedKeyplePlugin implements PluginSpi {
+
+    private final String name;
+    private final Set<ReaderSpi> readers;
+
+    SimulatedKeyplePlugin(String name, Set<? extends ReaderSpi> readers) {
+        this.name = name;
+        this.readers = Collections.unmodifiableSet(new LinkedHashSet<>(readers));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Set<ReaderSpi> searchAvailableReaders() {
+        return readers;
+    }
+
+    @Override
+    public void onUnregister() {
+        for (ReaderSpi reader : readers)
+            reader.onUnregister();
+    }
+}
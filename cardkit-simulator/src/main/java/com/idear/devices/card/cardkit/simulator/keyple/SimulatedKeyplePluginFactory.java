@@ -0,0 +1,58 @@
+package com.idear.devices.card.cardkit.simulator.keyple;
+
+import org.eclipse.keyple.core.common.CommonApiProperties;
+import org.eclipse.keyple.core.common.KeyplePluginExtensionFactory;
+import org.eclipse.keyple.core.plugin.PluginApiProperties;
+import org.eclipse.keyple.core.plugin.spi.PluginFactorySpi;
+import org.eclipse.keyple.core.plugin.spi.PluginSpi;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Factory of a Keyple plugin over simulated readers, so the Keyple backend runs without hardware.
+ *
+ * <p>
+ * The factory is registered with {@code SmartCardServiceProvider.getService().registerPlugin(factory)}
+ * and the readers are then taken from the plugin by name, for {@code KeypleCardReader.setCardReader}
+ * and {@code KeypleCalypsoSamReader.setSamReader}.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+public class SimulatedKeyplePluginFactory implements PluginFactorySpi, KeyplePluginExtensionFactory {
+
+    private final String pluginName;
+    private final Set<SimulatedKeypleReader> readers;
+
+    /**
+     * @param pluginName plugin name, unique in the smart card service
+     * @param readers    readers of the plugin, with distinct names
+     */
+    public SimulatedKeyplePluginFactory(String pluginName, SimulatedKeypleReader... readers) {
+        this.pluginName = pluginName;
+        this.readers = new LinkedHashSet<>(Arrays.asList(readers));
+    }
+
+    @Override
+    public String getPluginApiVersion() {
+        return PluginApiProperties.VERSION;
+    }
+
+    @Override
+    public String getCommonApiVersion() {
+        return CommonApiProperties.VERSION;
+    }
+
+    @Override
+    public String getPluginName() {
+        return pluginName;
+    }
+
+    @Override
+    public PluginSpi getPlugin() {
+        return new SimulatedKeyplePlugin(pluginName, readers);
+    }
+}
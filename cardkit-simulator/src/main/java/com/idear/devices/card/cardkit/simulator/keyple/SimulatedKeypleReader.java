@@ -0,0 +1,127 @@
+package com.idear.devices.card.cardkit.simulator.keyple;
+
+import com.idear.devices.card.cardkit.core.utils.ByteUtils;
+import com.idear.devices.card.cardkit.simulator.ApduProcessor;
+import org.eclipse.keyple.core.plugin.CardIOException;
+import org.eclipse.keyple.core.plugin.spi.reader.ReaderSpi;
+
+/**
+ * Keyple reader on a simulated card or SAM, the APDUs of the Keyple service are transmitted to the
+ * {@link ApduProcessor} present.
+ *
+ * <p>
+ * The card is presented with {@link #insert(ApduProcessor)} and removed with {@link #remove()}, a
+ * command sent after the removal fails as on a real reader. The reader is not observable, the Keyple
+ * backend polls the card presence.
+ * </p>
+ *
+ * @author Victor Hugo Gaspar Quinn
+ * @version 1.0.0
+ */
+public class SimulatedKeypleReader implements ReaderSpi {
+
+    private final String name;
+    private final boolean contactless;
+    private final Object lock = new Object();
+    private ApduProcessor processor;
+    private ApduProcessor connected;
+
+    /**
+     * @param name        reader name, as given to {@code setCardReader} or {@code setSamReader}
+     * @param contactless {@code true} for a card reader, {@code false} for a SAM reader
+     */
+    public SimulatedKeypleReader(String name, boolean contactless) {
+        this.name = name;
+        this.contactless = contactless;
+    }
+
+    public SimulatedKeypleReader(String name, boolean contactless, ApduProcessor processor) {
+        this(name, contactless);
+        insert(processor);
+    }
+
+    public void insert(ApduProcessor processor) {
+        synchronized (lock) {
+            this.processor = processor;
+        }
+    }
+
+    public void remove() {
+        synchronized (lock) {
+            this.processor = null;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void openPhysicalChannel() throws CardIOException {
+        synchronized (lock) {
+            if (processor == null)
+                throw new CardIOException("No card on " + name);
+            connected = processor;
+        }
+    }
+
+    @Override
+    public void closePhysicalChannel() {
+        synchronized (lock) {
+            connected = null;
+        }
+    }
+
+    @Override
+    public boolean isPhysicalChannelOpen() {
+        synchronized (lock) {
+            return connected != null;
+        }
+    }
+
+    @Override
+    public boolean checkCardPresence() {
+        synchronized (lock) {
+            return processor != null;
+        }
+    }
+
+    @Override
+    public String getPowerOnData() {
+        synchronized (lock) {
+            ApduProcessor card = connected != null ? connected : processor;
+            return card != null ? ByteUtils.toHex(card.getAtr()) : "";
+        }
+    }
+
+    @Override
+    public byte[] transmitApdu(byte[] apdu) throws CardIOException {
+        ApduProcessor card;
+        synchronized (lock) {
+            if (connected == null)
+                throw new CardIOException("Physical channel closed on " + name);
+            if (processor != connected) {
+                connected = null;
+                throw new CardIOException("Card removed from " + name);
+            }
+            card = connected;
+        }
+        return card.process(apdu);
+    }
+
+    @Override
+    public boolean isContactless() {
+        return contactless;
+    }
+
+    @Override
+    public void onUnregister() {
+        closePhysicalChannel();
+    }
+
+    @Override
+    public String toString() {
+        return "SimulatedKeypleReader(" + name + ")";
+    }
+}
@@ -0,0 +1,186 @@
+import com.idear.devices.card.cardkit.core.datamodel.calypso.cdmx.Calypso;
+import com.idear.devices.card.cardkit.core.utils.ByteUtils;
+import com.idear.devices.card.cardkit.pcsc.PcscAbstractReader;
+import com.idear.devices.card.cardkit.pcsc.PcscTransactionManager;
+import com.idear.devices.card.cardkit.pcsc.exception.APDUResponseException;
+import com.idear.devices.card.cardkit.pcsc.transaction.FreeCalypsoTransactionManager;
+import com.idear.devices.card.cardkit.simulator.SimulatedCalypsoCard;
+import com.idear.devices.card.cardkit.simulator.SimulatedCardTerminal;
+import com.idear.devices.card.cardkit.simulator.SimulatedSam;
+import com.idear.devices.card.cardkit.simulator.keyple.SimulatedKeypleReader;
+import org.eclipse.keyple.core.plugin.CardIOException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.smartcardio.ResponseAPDU;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulatorTest {
+
+    private static final byte[] CARD_SERIAL = ByteUtils.hexToBytes("0000000012345678");
+    private static final byte[] SAM_SERIAL = ByteUtils.hexToBytes("AABBCCDD");
+    private static final byte[] LOCK_SECRET = ByteUtils.hexToBytes("00112233445566778899AABBCCDDEEFF");
+    private static final byte[] DATE = {0x12, 0x34};
+    private static final byte[] TIME = {0x05, 0x06};
+
+    private SimulatedCalypsoCard card;
+    private PcscAbstractReader cardReader;
+    private PcscAbstractReader samReader;
+    private PcscTransactionManager transactionManager;
+
+    @BeforeEach
+    public void init() throws Exception {
+        card = new SimulatedCalypsoCard(CARD_SERIAL);
+        cardReader = reader("card", card);
+        samReader = reader("sam", new SimulatedSam(SAM_SERIAL));
+        transactionManager = new PcscTransactionManager().prepareTransactionManager(cardReader, samReader);
+        transactionManager.selectApplication(SimulatedCalypsoCard.DEFAULT_AID);
+    }
+
+    private static PcscAbstractReader reader(String name, SimulatedSam sam) {
+        return reader(name, new SimulatedCardTerminal(name, sam));
+    }
+
+    private static PcscAbstractReader reader(String name, SimulatedCalypsoCard card) {
+        return reader(name, new SimulatedCardTerminal(name, card));
+    }
+
+    private static PcscAbstractReader reader(String name, SimulatedCardTerminal terminal) {
+        PcscAbstractReader reader = new PcscAbstractReader(name);
+        reader.setCardTerminal(terminal);
+        reader.connectToCard();
+        return reader;
+    }
+
+    @Test
+    public void selectApplication() {
+        assertArrayEquals(CARD_SERIAL, transactionManager.getCardSerial());
+    }
+
+    @Test
+    public void sessionCommitted() {
+        byte[] contract = ByteUtils.hexToBytes("0102030405");
+        byte[] event = ByteUtils.hexToBytes("0A0B0C");
+
+        transactionManager
+                .openSession(PcscTransactionManager.KEY_LOAD, Calypso.ENVIRONMENT_FILE, 1)
+                .prepareUpdateRecord(Calypso.CONTRACT_FILE, 1, contract)
+                .prepareAppendRecord(Calypso.EVENT_FILE, event);
+        transactionManager.svGet(PcscTransactionManager.SV_RELOAD);
+        transactionManager
+                .svReload(100, DATE, TIME, new byte[2])
+                .closeSession(true);
+
+        assertEquals(100, card.getSvBalance());
+        assertEquals(1, card.getSvTransactionNumber());
+        assertArrayEquals(Arrays.copyOf(contract, Calypso.RECORD_SIZE), card.getRecord(Calypso.CONTRACT_FILE, 1));
+        assertArrayEquals(Arrays.copyOf(event, Calypso.RECORD_SIZE), card.getRecord(Calypso.EVENT_FILE, 1));
+        assertFalse(card.isSessionOpen());
+    }
+
+    @Test
+    public void sessionCanceled() {
+        transactionManager
+                .openSession(PcscTransactionManager.KEY_LOAD)
+                .prepareUpdateRecord(Calypso.CONTRACT_FILE, 1, new byte[]{0x01})
+                .processCommands();
+        transactionManager.cancelSession();
+
+        assertArrayEquals(new byte[Calypso.RECORD_SIZE], card.getRecord(Calypso.CONTRACT_FILE, 1));
+        assertFalse(card.isSessionOpen());
+    }
+
+    @Test
+    public void svDebit() {
+        card.setSvBalance(50);
+
+        transactionManager.openSession(PcscTransactionManager.KEY_DEBIT);
+        assertEquals(50, transactionManager.svGet(PcscTransactionManager.SV_DEBIT));
+        transactionManager
+                .svDebit(20, DATE, TIME)
+                .closeSession(false);
+
+        assertEquals(30, card.getSvBalance());
+        List<byte[]> responses = transactionManager
+                .prepareReadRecord(Calypso.SV_DEBIT_LOG_FILE, 1)
+                .processCommands();
+        assertEquals(-20, ByteUtils.extractInt(responses.get(0), 0, 2, true));
+        assertEquals(30, ByteUtils.extractInt(responses.get(0), 14, 3, true));
+    }
+
+    @Test
+    public void svReloadOutOfSession() {
+        transactionManager.svGet(PcscTransactionManager.SV_RELOAD);
+        transactionManager.svReload(10, DATE, TIME, new byte[2]);
+
+        assertEquals(10, card.getSvBalance());
+    }
+
+    @Test
+    public void svDebitOverBalance() {
+        transactionManager.svGet(PcscTransactionManager.SV_DEBIT);
+        assertThrows(APDUResponseException.class, () -> transactionManager.svDebit(1, DATE, TIME));
+    }
+
+    @Test
+    public void svReloadOverMaxBalance() {
+        card.setSvBalance(SimulatedCalypsoCard.SV_BALANCE_MAX);
+
+        transactionManager.svGet(PcscTransactionManager.SV_RELOAD);
+        assertThrows(APDUResponseException.class, () -> transactionManager.svReload(1, DATE, TIME, new byte[2]));
+        assertEquals(SimulatedCalypsoCard.SV_BALANCE_MAX, card.getSvBalance());
+    }
+
+    @Test
+    public void freeTransactionManager() {
+        PcscAbstractReader lockedSamReader = reader("locked sam", new SimulatedSam(SAM_SERIAL, LOCK_SECRET));
+        FreeCalypsoTransactionManager manager = new FreeCalypsoTransactionManager(cardReader, lockedSamReader);
+
+        manager.unlockSam(LOCK_SECRET);
+        manager.selectApplication(SimulatedCalypsoCard.DEFAULT_AID);
+        manager.selectDiversifier(CARD_SERIAL);
+        ResponseAPDU challenge = manager.getChallenge();
+        assertEquals(8, challenge.getData().length);
+        manager.giveRandom(challenge.getData());
+        ResponseAPDU key = manager.samGenerateKey((byte) 0x21, (byte) 0x79, (byte) 0x00, (byte) 0x00);
+        assertEquals(32, key.getData().length);
+        assertEquals(0x9000, manager.changeKey(key.getData()).getSW());
+    }
+
+    @Test
+    public void lockedSam() {
+        PcscAbstractReader lockedSamReader = reader("locked sam", new SimulatedSam(SAM_SERIAL, LOCK_SECRET));
+        FreeCalypsoTransactionManager manager = new FreeCalypsoTransactionManager(cardReader, lockedSamReader);
+
+        assertThrows(APDUResponseException.class, () -> manager.unlockSam(new byte[16]));
+        assertThrows(APDUResponseException.class, () -> manager.selectDiversifier(CARD_SERIAL));
+    }
+
+    @Test
+    public void keypleReader() throws Exception {
+        SimulatedKeypleReader reader = new SimulatedKeypleReader("keyple card", true, card);
+        reader.openPhysicalChannel();
+
+        byte[] select = ByteUtils.hexToBytes("00A4040009315449432E4943413100");
+        byte[] response = reader.transmitApdu(select);
+        assertEquals(0x9000, new ResponseAPDU(response).getSW());
+
+        reader.remove();
+        assertFalse(reader.checkCardPresence());
+        assertThrows(CardIOException.class, () -> reader.transmitApdu(select));
+        assertFalse(reader.isPhysicalChannelOpen());
+    }
+
+    @Test
+    public void keypleSamPowerOnData() {
+        SimulatedKeypleReader reader = new SimulatedKeypleReader("keyple sam", false, new SimulatedSam(SAM_SERIAL));
+
+        String atr = reader.getPowerOnData();
+        assertTrue(atr.matches("3B(.{6}|.{10})805A(.{20})829000"));
+        assertTrue(atr.contains("C1"));
+        assertTrue(atr.endsWith(ByteUtils.toHex(SAM_SERIAL) + "829000"));
+    }
+}